@@ -0,0 +1,145 @@
+package org.openbase.bco.authentication.benchmark;
+
+/*-
+ * #%L
+ * BCO Authentication Benchmark
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import com.google.protobuf.ByteString;
+import org.openbase.bco.authentication.mock.MockCredentialStore;
+import org.openbase.jps.core.JPService;
+import org.openbase.jul.exception.CouldNotPerformException;
+import org.openbase.type.domotic.authentication.LoginCredentialsType.LoginCredentials;
+import org.openbase.type.domotic.authentication.UserClientPairType.UserClientPair;
+
+import java.util.Random;
+
+/**
+ * Fixtures shared by all benchmarks. Credentials are taken from the {@link MockCredentialStore} so that the
+ * benchmarks exercise the same keys as the integration tests without requiring a running authenticator.
+ */
+public class BenchmarkFixtures {
+
+    /**
+     * The kind of login performed in a handshake benchmark.
+     */
+    public enum LoginType {
+        USER,
+        CLIENT,
+        USER_AND_CLIENT
+    }
+
+    private static final String STORE_FILENAME = "benchmark_credential_store.json";
+
+    private static boolean initialized = false;
+
+    /**
+     * Setup test mode and initialize the mock credential store. Can be called multiple times.
+     *
+     * @throws CouldNotPerformException if the credential store could not be initialized.
+     */
+    public static synchronized void init() throws CouldNotPerformException {
+        if (initialized) {
+            return;
+        }
+        JPService.setupJUnitTestMode();
+        MockCredentialStore.getInstance().init(STORE_FILENAME);
+        initialized = true;
+    }
+
+    /**
+     * Create the user client pair for the given login type.
+     *
+     * @param loginType the kind of login.
+     *
+     * @return a pair containing the mock user and/or the mock client.
+     */
+    public static UserClientPair getUserClientPair(final LoginType loginType) {
+        final UserClientPair.Builder userClientPair = UserClientPair.newBuilder();
+        if (loginType != LoginType.CLIENT) {
+            userClientPair.setUserId(MockCredentialStore.USER_ID);
+        }
+        if (loginType != LoginType.USER) {
+            userClientPair.setClientId(MockCredentialStore.CLIENT_ASYMMETRIC_ID);
+        }
+        return userClientPair.build();
+    }
+
+    /**
+     * Get the credentials of the mock user as stored by the authenticator.
+     *
+     * @return the stored user credentials.
+     *
+     * @throws CouldNotPerformException if the credentials are not available.
+     */
+    public static LoginCredentials getServerUserCredentials() throws CouldNotPerformException {
+        return MockCredentialStore.getInstance().getCredentials(MockCredentialStore.USER_ID);
+    }
+
+    /**
+     * Get the credentials of the asymmetric mock client as stored by the authenticator, i.e. its public key.
+     *
+     * @return the stored client credentials.
+     *
+     * @throws CouldNotPerformException if the credentials are not available.
+     */
+    public static LoginCredentials getServerClientCredentials() throws CouldNotPerformException {
+        return MockCredentialStore.getInstance().getCredentials(MockCredentialStore.CLIENT_ASYMMETRIC_ID);
+    }
+
+    /**
+     * Get the credentials of the mock user as known to the client.
+     *
+     * @return the user credentials containing the password hash.
+     */
+    public static LoginCredentials getClientUserCredentials() {
+        return LoginCredentials.newBuilder()
+                .setId(MockCredentialStore.USER_ID)
+                .setSymmetric(true)
+                .setCredentials(ByteString.copyFrom(MockCredentialStore.USER_PASSWORD_HASH))
+                .build();
+    }
+
+    /**
+     * Get the credentials of the asymmetric mock client as known to the client, i.e. its private key.
+     *
+     * @return the client credentials containing the private key.
+     */
+    public static LoginCredentials getClientClientCredentials() {
+        return LoginCredentials.newBuilder()
+                .setId(MockCredentialStore.CLIENT_ASYMMETRIC_ID)
+                .setSymmetric(false)
+                .setCredentials(ByteString.copyFrom(MockCredentialStore.CLIENT_ASYMMETRIC_PAIR.getPrivate().getEncoded()))
+                .build();
+    }
+
+    /**
+     * Create a payload of the given size filled with pseudo random data.
+     *
+     * @param size the number of bytes.
+     *
+     * @return the payload.
+     */
+    public static byte[] createPayload(final int size) {
+        final byte[] payload = new byte[size];
+        new Random(size).nextBytes(payload);
+        return payload;
+    }
+}
@@ -0,0 +1,103 @@
+package org.openbase.bco.authentication.benchmark;
+
+/*-
+ * #%L
+ * BCO Authentication Benchmark
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.bco.authentication.lib.EncryptionHelper;
+import org.openbase.jul.exception.CouldNotPerformException;
+import org.openbase.type.domotic.authentication.LoginCredentialsType.LoginCredentials;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of symmetric and asymmetric en- and decryption performed by the {@link EncryptionHelper}
+ * for different payload sizes.
+ * <p>
+ * Asymmetric encryption is limited by the RSA key length so that larger payloads are only measured symmetrically.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptionHelperBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SymmetricState {
+
+        @Param({"16", "256", "4096", "65536"})
+        public int payloadSize;
+
+        private byte[] payload;
+        private byte[] key;
+        private byte[] encrypted;
+
+        @Setup(Level.Trial)
+        public void setup() throws CouldNotPerformException {
+            payload = BenchmarkFixtures.createPayload(payloadSize);
+            key = EncryptionHelper.generateKey();
+            encrypted = EncryptionHelper.encrypt(payload, key, true);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class AsymmetricState {
+
+        @Param({"16", "64"})
+        public int payloadSize;
+
+        private byte[] payload;
+        private LoginCredentials publicCredentials;
+        private LoginCredentials privateCredentials;
+        private byte[] encrypted;
+
+        @Setup(Level.Trial)
+        public void setup() throws CouldNotPerformException {
+            BenchmarkFixtures.init();
+            payload = BenchmarkFixtures.createPayload(payloadSize);
+            publicCredentials = BenchmarkFixtures.getServerClientCredentials();
+            privateCredentials = BenchmarkFixtures.getClientClientCredentials();
+            encrypted = EncryptionHelper.encrypt(payload, publicCredentials);
+        }
+    }
+
+    @Benchmark
+    public byte[] encryptSymmetric(final SymmetricState state) throws CouldNotPerformException {
+        return EncryptionHelper.encrypt(state.payload, state.key, true);
+    }
+
+    @Benchmark
+    public byte[] decryptSymmetric(final SymmetricState state) throws CouldNotPerformException {
+        return EncryptionHelper.decrypt(state.encrypted, state.key, byte[].class, true);
+    }
+
+    @Benchmark
+    public byte[] encryptAsymmetric(final AsymmetricState state) throws CouldNotPerformException {
+        return EncryptionHelper.encrypt(state.payload, state.publicCredentials);
+    }
+
+    @Benchmark
+    public byte[] decryptAsymmetric(final AsymmetricState state) throws CouldNotPerformException {
+        return EncryptionHelper.decrypt(state.encrypted, state.privateCredentials, byte[].class);
+    }
+}
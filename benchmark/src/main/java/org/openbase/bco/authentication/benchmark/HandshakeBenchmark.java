@@ -0,0 +1,130 @@
+package org.openbase.bco.authentication.benchmark;
+
+/*-
+ * #%L
+ * BCO Authentication Benchmark
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.bco.authentication.benchmark.BenchmarkFixtures.LoginType;
+import org.openbase.bco.authentication.lib.AuthenticationBaseData;
+import org.openbase.bco.authentication.lib.AuthenticationClientHandler;
+import org.openbase.bco.authentication.lib.AuthenticationClientHandler.TicketWrapperSessionKeyPair;
+import org.openbase.bco.authentication.lib.AuthenticationServerHandler;
+import org.openbase.bco.authentication.lib.EncryptionHelper;
+import org.openbase.bco.authentication.lib.ParsedKeyCache;
+import org.openbase.jul.exception.CouldNotPerformException;
+import org.openbase.type.domotic.authentication.LoginCredentialsType.LoginCredentials;
+import org.openbase.type.domotic.authentication.TicketAuthenticatorWrapperType.TicketAuthenticatorWrapper;
+import org.openbase.type.domotic.authentication.TicketSessionKeyWrapperType.TicketSessionKeyWrapper;
+import org.openbase.type.domotic.authentication.UserClientPairType.UserClientPair;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the server and client handlers performing the single steps of the Kerberos handshake.
+ * <p>
+ * Requests are recreated before every iteration because the server rejects authenticators whose timestamp
+ * differs too much from the current time. Therefore iterations are kept short.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandshakeBenchmark {
+
+    private static final long VALIDITY_TIME = TimeUnit.MINUTES.toMillis(15);
+
+    @Param({"USER", "CLIENT", "USER_AND_CLIENT"})
+    public LoginType loginType;
+
+    private UserClientPair userClientPair;
+    private LoginCredentials serverUserCredentials;
+    private LoginCredentials serverClientCredentials;
+    private LoginCredentials clientUserCredentials;
+    private LoginCredentials clientClientCredentials;
+
+    private ParsedKeyCache serverParsedKeyCache;
+    private ParsedKeyCache clientParsedKeyCache;
+
+    private byte[] ticketGrantingServiceSecretKey;
+    private byte[] serviceServerSecretKey;
+
+    private TicketSessionKeyWrapper keyDistributionCenterResponse;
+    private TicketAuthenticatorWrapper ticketGrantingServiceRequest;
+    private TicketWrapperSessionKeyPair clientServerSession;
+    private TicketAuthenticatorWrapper serviceServerRequest;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws CouldNotPerformException {
+        BenchmarkFixtures.init();
+
+        userClientPair = BenchmarkFixtures.getUserClientPair(loginType);
+        serverUserCredentials = BenchmarkFixtures.getServerUserCredentials();
+        serverClientCredentials = BenchmarkFixtures.getServerClientCredentials();
+        clientUserCredentials = BenchmarkFixtures.getClientUserCredentials();
+        clientClientCredentials = BenchmarkFixtures.getClientClientCredentials();
+
+        // the authenticator and the client each keep the parsed keys of their credential store
+        serverParsedKeyCache = new ParsedKeyCache(ParsedKeyCache.DEFAULT_CAPACITY);
+        clientParsedKeyCache = new ParsedKeyCache(ParsedKeyCache.DEFAULT_CAPACITY);
+
+        ticketGrantingServiceSecretKey = EncryptionHelper.generateKey();
+        serviceServerSecretKey = EncryptionHelper.generateKey();
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() throws CouldNotPerformException {
+        keyDistributionCenterResponse = AuthenticationServerHandler.handleKDCRequest(userClientPair, serverUserCredentials, serverClientCredentials, ticketGrantingServiceSecretKey, VALIDITY_TIME, serverParsedKeyCache);
+        final TicketWrapperSessionKeyPair ticketGrantingSession = AuthenticationClientHandler.handleKeyDistributionCenterResponse(userClientPair, clientUserCredentials, clientClientCredentials, keyDistributionCenterResponse, clientParsedKeyCache);
+        ticketGrantingServiceRequest = ticketGrantingSession.getTicketAuthenticatorWrapper();
+
+        final TicketSessionKeyWrapper ticketGrantingServiceResponse = AuthenticationServerHandler.handleTGSRequest(ticketGrantingServiceSecretKey, serviceServerSecretKey, ticketGrantingServiceRequest, VALIDITY_TIME);
+        clientServerSession = AuthenticationClientHandler.handleTicketGrantingServiceResponse(userClientPair, ticketGrantingSession.getSessionKey(), ticketGrantingServiceResponse);
+        serviceServerRequest = AuthenticationClientHandler.initServiceServerRequest(clientServerSession);
+    }
+
+    @Benchmark
+    public TicketSessionKeyWrapper handleKDCRequest() throws CouldNotPerformException {
+        return AuthenticationServerHandler.handleKDCRequest(userClientPair, serverUserCredentials, serverClientCredentials, ticketGrantingServiceSecretKey, VALIDITY_TIME, serverParsedKeyCache);
+    }
+
+    @Benchmark
+    public TicketSessionKeyWrapper handleTGSRequest() throws CouldNotPerformException {
+        return AuthenticationServerHandler.handleTGSRequest(ticketGrantingServiceSecretKey, serviceServerSecretKey, ticketGrantingServiceRequest, VALIDITY_TIME);
+    }
+
+    @Benchmark
+    public AuthenticationBaseData handleSSRequest() throws CouldNotPerformException {
+        return AuthenticationServerHandler.handleSSRequest(serviceServerSecretKey, serviceServerRequest, VALIDITY_TIME);
+    }
+
+    @Benchmark
+    public TicketWrapperSessionKeyPair handleKeyDistributionCenterResponse() throws CouldNotPerformException {
+        return AuthenticationClientHandler.handleKeyDistributionCenterResponse(userClientPair, clientUserCredentials, clientClientCredentials, keyDistributionCenterResponse, clientParsedKeyCache);
+    }
+
+    @Benchmark
+    public TicketAuthenticatorWrapper initServiceServerRequest() throws CouldNotPerformException {
+        return AuthenticationClientHandler.initServiceServerRequest(clientServerSession);
+    }
+}
@@ -25,11 +25,17 @@ package org.openbase.bco.authentication.core;
 import com.google.protobuf.ByteString;
 import org.apache.commons.lang.RandomStringUtils;
 import org.openbase.bco.authentication.lib.*;
+import org.openbase.bco.authentication.core.AuthenticatorRequestPipeline.Stage;
 import org.openbase.bco.authentication.lib.AuthenticatedServiceProcessor.InternalIdentifiedProcessable;
 import org.openbase.bco.authentication.lib.AuthenticatedServiceProcessor.TicketValidator;
 import org.openbase.bco.authentication.lib.exception.SessionExpiredException;
+import org.openbase.bco.authentication.lib.future.CompletableFutureProcessor;
 import org.openbase.bco.authentication.lib.jp.JPAuthenticationScope;
+import org.openbase.bco.authentication.lib.jp.JPAuthenticatorQueueDepth;
+import org.openbase.bco.authentication.lib.jp.JPAuthenticatorThreadPoolSize;
+import org.openbase.bco.authentication.lib.jp.JPAuthenticatorVirtualThreads;
 import org.openbase.bco.authentication.lib.jp.JPCredentialsDirectory;
+import org.openbase.bco.authentication.lib.jp.JPHybridEncryption;
 import org.openbase.bco.authentication.lib.jp.JPSessionTimeout;
 import org.openbase.jps.core.JPService;
 import org.openbase.jps.exception.JPNotAvailableException;
@@ -44,7 +50,6 @@ import org.openbase.jul.extension.rsb.iface.RSBLocalServer;
 import org.openbase.jul.extension.rsb.scope.ScopeTransformer;
 import org.openbase.jul.iface.Launchable;
 import org.openbase.jul.iface.VoidInitializable;
-import org.openbase.jul.schedule.GlobalCachedExecutorService;
 import org.openbase.jul.schedule.WatchDog;
 import org.openbase.type.domotic.authentication.AuthenticatedValueType.AuthenticatedValue;
 import org.openbase.type.domotic.authentication.LoginCredentialsChangeType.LoginCredentialsChange;
@@ -62,6 +67,11 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Future;
 
 /**
@@ -89,10 +99,13 @@ public class AuthenticatorController implements AuthenticationService, Launchabl
     private static String initialPassword;
 
     private final long ticketValidityTime;
+    private final boolean hybridEncryption;
 
     private byte[] ticketGrantingServiceSecretKey = null;
     private byte[] serviceServerSecretKey;
 
+    private final AuthenticatorRequestPipeline requestPipeline;
+
     public AuthenticatorController() throws InitializationException {
         this(new CredentialStore(), EncryptionHelper.generateKey());
     }
@@ -113,6 +126,11 @@ public class AuthenticatorController implements AuthenticationService, Launchabl
 
         try {
             this.ticketValidityTime = JPService.getProperty(JPSessionTimeout.class).getValue();
+            this.requestPipeline = new AuthenticatorRequestPipeline(
+                    JPService.getProperty(JPAuthenticatorThreadPoolSize.class).getValue(),
+                    JPService.getProperty(JPAuthenticatorQueueDepth.class).getValue(),
+                    JPService.getProperty(JPAuthenticatorVirtualThreads.class).getValue());
+            this.hybridEncryption = JPService.getProperty(JPHybridEncryption.class).getValue();
         } catch (JPNotAvailableException ex) {
             throw new InitializationException(AuthenticatorController.class, ex);
         }
@@ -190,6 +208,7 @@ public class AuthenticatorController implements AuthenticationService, Launchabl
             serverWatchDog.deactivate();
         }
 
+        requestPipeline.shutdown();
         credentialStore.shutdown();
     }
 
@@ -231,7 +250,7 @@ public class AuthenticatorController implements AuthenticationService, Launchabl
      */
     @Override
     public Future<TicketSessionKeyWrapper> requestTicketGrantingTicket(final UserClientPair userClientPair) {
-        return GlobalCachedExecutorService.submit(() -> {
+        return requestPipeline.submit(Stage.KEY_DISTRIBUTION, () -> {
             try {
                 // retrieve required credentials from credentialStore
                 LoginCredentials userCredentials = null;
@@ -250,7 +269,7 @@ public class AuthenticatorController implements AuthenticationService, Launchabl
                 }
 
                 // handle request
-                return AuthenticationServerHandler.handleKDCRequest(userClientPair, userCredentials, clientCredentials, ticketGrantingServiceSecretKey, ticketValidityTime);
+                return AuthenticationServerHandler.handleKDCRequest(userClientPair, userCredentials, clientCredentials, ticketGrantingServiceSecretKey, ticketValidityTime, credentialStore.getParsedKeyCache(), hybridEncryption);
             } catch (NotAvailableException ex) {
                 ExceptionPrinter.printHistory(ex, LOGGER, LogLevel.WARN);
                 ExceptionReporter.getInstance().report(ex);
@@ -274,7 +293,7 @@ public class AuthenticatorController implements AuthenticationService, Launchabl
      */
     @Override
     public Future<TicketSessionKeyWrapper> requestClientServerTicket(final TicketAuthenticatorWrapper ticketAuthenticatorWrapper) {
-        return GlobalCachedExecutorService.submit(() -> {
+        return requestPipeline.submit(Stage.TICKET_GRANTING, () -> {
             try {
                 return AuthenticationServerHandler.handleTGSRequest(ticketGrantingServiceSecretKey, serviceServerSecretKey, ticketAuthenticatorWrapper, ticketValidityTime);
             } catch (CouldNotPerformException ex) {
@@ -294,32 +313,96 @@ public class AuthenticatorController implements AuthenticationService, Launchabl
      */
     @Override
     public Future<TicketAuthenticatorWrapper> validateClientServerTicket(TicketAuthenticatorWrapper ticketAuthenticatorWrapper) {
-        return GlobalCachedExecutorService.submit(() -> {
-            try {
-                // validate ticket
-                final AuthenticationBaseData authenticationBaseData = AuthenticationServerHandler.handleSSRequest(serviceServerSecretKey, ticketAuthenticatorWrapper, ticketValidityTime);
-                // validate that user and client still exists so that no user can be logged in after being removed
-                final UserClientPair pair = authenticationBaseData.getUserClientPair();
-                if (!pair.getUserId().isEmpty() && !credentialStore.hasEntry(pair.getUserId())) {
-                    throw new RejectedException("User[" + pair.getUserId() + "] logged in after being removed from authenticator!");
+        return requestPipeline.submit(Stage.VALIDATION, () -> validateTicket(ticketAuthenticatorWrapper));
+    }
 
-                }
-                if (!pair.getClientId().isEmpty() && !credentialStore.hasEntry(pair.getClientId())) {
-                    throw new RejectedException("Client[" + pair.getClientId() + "] logged in after being removed from authenticator!");
+    /**
+     * {@inheritDoc}
+     *
+     * @param ticketAuthenticatorWrappers {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     */
+    @Override
+    public Future<AuthenticatedValue> validateClientServerTickets(final AuthenticatedValue ticketAuthenticatorWrappers) {
+        final List<TicketAuthenticatorWrapper> wrapperList;
+        try {
+            wrapperList = TicketValidationBatch.decodeRequest(ticketAuthenticatorWrappers);
+        } catch (CouldNotPerformException ex) {
+            return CompletableFutureProcessor.failedFuture(ex);
+        }
 
+        // split the batch into one chunk per validation thread so that the entries are processed in parallel
+        final AuthenticatedValue[] results = new AuthenticatedValue[wrapperList.size()];
+        final int chunkCount = Math.max(1, Math.min(requestPipeline.getPoolSize(), wrapperList.size()));
+        final int chunkSize = Math.max(1, (wrapperList.size() + chunkCount - 1) / chunkCount);
+        final List<CompletableFuture<Void>> chunkFutureList = new ArrayList<>();
+        for (int chunkStart = 0; chunkStart < wrapperList.size(); chunkStart += chunkSize) {
+            final int from = chunkStart;
+            final int to = Math.min(chunkStart + chunkSize, wrapperList.size());
+            chunkFutureList.add(requestPipeline.<Void>submit(Stage.VALIDATION, () -> {
+                for (int i = from; i < to; i++) {
+                    try {
+                        results[i] = TicketValidationBatch.createResult(validateTicket(wrapperList.get(i)));
+                    } catch (CouldNotPerformException ex) {
+                        results[i] = TicketValidationBatch.createErrorResult(ex);
+                    }
+                }
+                return null;
+            }).exceptionally(throwable -> {
+                // the chunk could not be processed, e.g. because the validation stage is overloaded
+                final AuthenticatedValue errorResult = TicketValidationBatch.createErrorResult(CompletableFutureProcessor.unwrap(throwable));
+                for (int i = from; i < to; i++) {
+                    results[i] = errorResult;
                 }
-                // return updated ticket wrapper
-                return authenticationBaseData.getTicketAuthenticatorWrapper();
-            } catch (SessionExpiredException ex) {
-                throw ex;
+                return null;
+            }));
+        }
+
+        return CompletableFuture.allOf(chunkFutureList.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            try {
+                return TicketValidationBatch.encodeResponse(Arrays.asList(results));
             } catch (CouldNotPerformException ex) {
-                ExceptionPrinter.printHistory(ex, LOGGER, LogLevel.WARN);
-                ExceptionReporter.getInstance().report(ex);
-                throw new RejectedException(ex.getMessage());
+                throw new CompletionException(ex);
             }
         });
     }
 
+    /**
+     * Validate a client server ticket and make sure that its user and client still exist.
+     *
+     * @param ticketAuthenticatorWrapper the wrapper containing the ticket and the authenticator.
+     *
+     * @return the updated ticket authenticator wrapper.
+     *
+     * @throws SessionExpiredException if the ticket has expired.
+     * @throws RejectedException       if the validation fails.
+     */
+    private TicketAuthenticatorWrapper validateTicket(final TicketAuthenticatorWrapper ticketAuthenticatorWrapper) throws RejectedException {
+        try {
+            // validate ticket
+            final AuthenticationBaseData authenticationBaseData = AuthenticationServerHandler.handleSSRequest(serviceServerSecretKey, ticketAuthenticatorWrapper, ticketValidityTime);
+            // validate that user and client still exists so that no user can be logged in after being removed
+            final UserClientPair pair = authenticationBaseData.getUserClientPair();
+            if (!pair.getUserId().isEmpty() && !credentialStore.hasEntry(pair.getUserId())) {
+                throw new RejectedException("User[" + pair.getUserId() + "] logged in after being removed from authenticator!");
+
+            }
+            if (!pair.getClientId().isEmpty() && !credentialStore.hasEntry(pair.getClientId())) {
+                throw new RejectedException("Client[" + pair.getClientId() + "] logged in after being removed from authenticator!");
+
+            }
+            // return updated ticket wrapper
+            return authenticationBaseData.getTicketAuthenticatorWrapper();
+        } catch (SessionExpiredException ex) {
+            throw ex;
+        } catch (CouldNotPerformException ex) {
+            ExceptionPrinter.printHistory(ex, LOGGER, LogLevel.WARN);
+            ExceptionReporter.getInstance().report(ex);
+            throw new RejectedException(ex.getMessage());
+        }
+    }
+
     /**
      * Helper method for utilizing the {@link AuthenticatedServiceProcessor}.
      *
@@ -338,7 +421,7 @@ public class AuthenticatorController implements AuthenticationService, Launchabl
      */
     @Override
     public Future<AuthenticatedValue> changeCredentials(final AuthenticatedValue authenticatedValue) {
-        return GlobalCachedExecutorService.submit(() -> AuthenticatedServiceProcessor.authenticatedAction(authenticatedValue, LoginCredentialsChange.class, getTicketValidator(), (InternalIdentifiedProcessable<LoginCredentialsChange, Serializable>) (loginCredentialsChange, authenticationBaseData) -> {
+        return requestPipeline.submit(Stage.VALIDATION, () -> AuthenticatedServiceProcessor.authenticatedAction(authenticatedValue, LoginCredentialsChange.class, getTicketValidator(), (InternalIdentifiedProcessable<LoginCredentialsChange, Serializable>) (loginCredentialsChange, authenticationBaseData) -> {
             final UserClientPair userClientPair = authenticationBaseData.getUserClientPair();
             // validate permissions to change credentials
             boolean isAdmin = credentialStore.isAdmin(userClientPair.getUserId());
@@ -377,7 +460,7 @@ public class AuthenticatorController implements AuthenticationService, Launchabl
      */
     @Override
     public Future<AuthenticatedValue> register(final AuthenticatedValue authenticatedValue) {
-        return GlobalCachedExecutorService.submit(() -> AuthenticatedServiceProcessor.authenticatedAction(authenticatedValue, LoginCredentials.class, getTicketValidator(), (InternalIdentifiedProcessable<LoginCredentials, Serializable>) (loginCredentials, authenticationBaseData) -> {
+        return requestPipeline.submit(Stage.VALIDATION, () -> AuthenticatedServiceProcessor.authenticatedAction(authenticatedValue, LoginCredentials.class, getTicketValidator(), (InternalIdentifiedProcessable<LoginCredentials, Serializable>) (loginCredentials, authenticationBaseData) -> {
             // test if it is the initial registration
             if (initialPassword != null && (initialPasswordRequired() || JPService.testMode())) {
                 // validate credentials
@@ -430,7 +513,7 @@ public class AuthenticatorController implements AuthenticationService, Launchabl
      */
     @Override
     public Future<AuthenticatedValue> removeUser(final AuthenticatedValue authenticatedValue) {
-        return GlobalCachedExecutorService.submit(() -> AuthenticatedServiceProcessor.authenticatedAction(authenticatedValue, String.class, getTicketValidator(), (InternalIdentifiedProcessable<String, Serializable>) (idToBeRemoved, authenticationBaseData) -> {
+        return requestPipeline.submit(Stage.VALIDATION, () -> AuthenticatedServiceProcessor.authenticatedAction(authenticatedValue, String.class, getTicketValidator(), (InternalIdentifiedProcessable<String, Serializable>) (idToBeRemoved, authenticationBaseData) -> {
 
             // if the user which is logged in differs from the user to be removed the logged in user has to be an admin
             if (!idToBeRemoved.equals(authenticationBaseData.getUserClientPair().getUserId())) {
@@ -459,7 +542,7 @@ public class AuthenticatorController implements AuthenticationService, Launchabl
      */
     @Override
     public Future<AuthenticatedValue> setAdministrator(final AuthenticatedValue authenticatedValue) {
-        return GlobalCachedExecutorService.submit(() -> AuthenticatedServiceProcessor.authenticatedAction(authenticatedValue, LoginCredentials.class, getTicketValidator(), (InternalIdentifiedProcessable<LoginCredentials, Serializable>) (loginCredentials, authenticationBaseData) -> {
+        return requestPipeline.submit(Stage.VALIDATION, () -> AuthenticatedServiceProcessor.authenticatedAction(authenticatedValue, LoginCredentials.class, getTicketValidator(), (InternalIdentifiedProcessable<LoginCredentials, Serializable>) (loginCredentials, authenticationBaseData) -> {
             // only admins can change admin flags
             if (!credentialStore.isAdmin(authenticationBaseData.getUserClientPair().getUserId())) {
                 throw new PermissionDeniedException("You are not permitted to perform this action.");
@@ -487,7 +570,7 @@ public class AuthenticatorController implements AuthenticationService, Launchabl
      */
     @Override
     public Future<AuthenticatedValue> requestServiceServerSecretKey(TicketAuthenticatorWrapper ticketAuthenticatorWrapper) {
-        return GlobalCachedExecutorService.submit(() -> {
+        return requestPipeline.submit(Stage.VALIDATION, () -> {
             try {
                 final AuthenticationBaseData authenticationBaseData = getTicketValidator().verifyClientServerTicket(AuthenticatedValue.newBuilder().setTicketAuthenticatorWrapper(ticketAuthenticatorWrapper).build());
 
@@ -517,7 +600,7 @@ public class AuthenticatorController implements AuthenticationService, Launchabl
      */
     @Override
     public Future<Boolean> isAdmin(final String userId) {
-        return GlobalCachedExecutorService.submit(() -> credentialStore.isAdmin(userId));
+        return requestPipeline.submit(Stage.VALIDATION, () -> credentialStore.isAdmin(userId));
     }
 
     /**
@@ -540,6 +623,6 @@ public class AuthenticatorController implements AuthenticationService, Launchabl
      */
     @Override
     public Future<Boolean> hasUser(String userOrClientId) {
-        return GlobalCachedExecutorService.submit(() -> credentialStore.hasEntry(userOrClientId));
+        return requestPipeline.submit(Stage.VALIDATION, () -> credentialStore.hasEntry(userOrClientId));
     }
 }
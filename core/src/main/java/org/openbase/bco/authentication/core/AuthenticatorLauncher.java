@@ -3,9 +3,19 @@ package org.openbase.bco.authentication.core;
 import org.openbase.bco.authentication.lib.AuthenticationService;
 import org.openbase.bco.authentication.lib.BCO;
 import org.openbase.bco.authentication.lib.jp.JPAuthenticationScope;
+import org.openbase.bco.authentication.lib.jp.JPAuthenticatorQueueDepth;
+import org.openbase.bco.authentication.lib.jp.JPAuthenticatorThreadPoolSize;
+import org.openbase.bco.authentication.lib.jp.JPAuthenticatorVirtualThreads;
+import org.openbase.bco.authentication.lib.jp.JPCachedCryptoEngine;
 import org.openbase.bco.authentication.lib.jp.JPCredentialsDirectory;
+import org.openbase.bco.authentication.lib.jp.JPHybridEncryption;
+import org.openbase.bco.authentication.lib.jp.JPLegacyPayloadEncoding;
+import org.openbase.bco.authentication.lib.jp.JPMappedCredentialStore;
 import org.openbase.bco.authentication.lib.jp.JPResetCredentials;
+import org.openbase.bco.authentication.lib.jp.JPSessionKeyPoolSize;
 import org.openbase.bco.authentication.lib.jp.JPSessionTimeout;
+import org.openbase.bco.authentication.lib.jp.JPStoreJournal;
+import org.openbase.bco.authentication.lib.jp.JPStoreWriteBehindDelay;
 import org.openbase.jps.core.JPService;
 import org.openbase.jps.preset.JPPrefix;
 import org.openbase.jul.exception.CouldNotPerformException;
@@ -50,6 +60,16 @@ public class AuthenticatorLauncher extends AbstractLauncher<AuthenticatorControl
         JPService.registerProperty(JPResetCredentials.class);
         JPService.registerProperty(JPCredentialsDirectory.class);
         JPService.registerProperty(JPSessionTimeout.class);
+        JPService.registerProperty(JPAuthenticatorThreadPoolSize.class);
+        JPService.registerProperty(JPAuthenticatorQueueDepth.class);
+        JPService.registerProperty(JPAuthenticatorVirtualThreads.class);
+        JPService.registerProperty(JPSessionKeyPoolSize.class);
+        JPService.registerProperty(JPStoreJournal.class);
+        JPService.registerProperty(JPStoreWriteBehindDelay.class);
+        JPService.registerProperty(JPMappedCredentialStore.class);
+        JPService.registerProperty(JPHybridEncryption.class);
+        JPService.registerProperty(JPCachedCryptoEngine.class);
+        JPService.registerProperty(JPLegacyPayloadEncoding.class);
     }
 
     /**
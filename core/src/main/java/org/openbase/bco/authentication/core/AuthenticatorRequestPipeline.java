@@ -0,0 +1,232 @@
+package org.openbase.bco.authentication.core;
+
+/*-
+ * #%L
+ * BCO Authentication Core
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.bco.authentication.lib.exception.ServerOverloadedException;
+import org.openbase.jul.iface.Shutdownable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pipeline processing the requests of the authenticator. Each stage of the authentication protocol is processed
+ * by its own bounded thread pool so that a burst of logins cannot starve ticket validation and vice versa.
+ * If the queue of a stage is full new requests are rejected with a {@link ServerOverloadedException}
+ * containing a hint after which time the request should be retried.
+ */
+public class AuthenticatorRequestPipeline implements Shutdownable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthenticatorRequestPipeline.class);
+
+    /**
+     * Minimal time in milliseconds after which a rejected request should be retried.
+     */
+    public static final long MIN_RETRY_AFTER = 100;
+
+    private static final long THREAD_KEEP_ALIVE_TIME = 60;
+
+    /**
+     * The stages of the authenticator each processed by its own executor.
+     */
+    public enum Stage {
+        /**
+         * Requests of ticket granting tickets handled by the key distribution center.
+         */
+        KEY_DISTRIBUTION,
+        /**
+         * Requests of client server tickets handled by the ticket granting service.
+         */
+        TICKET_GRANTING,
+        /**
+         * Validation of client server tickets and actions authenticated by them.
+         */
+        VALIDATION
+    }
+
+    private final Map<Stage, StageExecutor> stageExecutorMap;
+    private final int poolSize;
+
+    /**
+     * Create a new request pipeline.
+     *
+     * @param poolSize       the number of requests processed in parallel per stage.
+     * @param queueDepth     the number of requests queued per stage before new requests are rejected.
+     * @param virtualThreads flag defining if requests should be processed on virtual threads. If the jvm does not
+     *                       support virtual threads platform threads are used.
+     */
+    public AuthenticatorRequestPipeline(final int poolSize, final int queueDepth, final boolean virtualThreads) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("Pool size has to be positive but is [" + poolSize + "]");
+        }
+        if (queueDepth <= 0) {
+            throw new IllegalArgumentException("Queue depth has to be positive but is [" + queueDepth + "]");
+        }
+
+        ThreadFactory virtualThreadFactory = null;
+        if (virtualThreads) {
+            virtualThreadFactory = createVirtualThreadFactory();
+            if (virtualThreadFactory == null) {
+                LOGGER.warn("Virtual threads are not supported by this jvm, fall back to platform threads.");
+            }
+        }
+
+        this.poolSize = poolSize;
+        this.stageExecutorMap = new EnumMap<>(Stage.class);
+        for (final Stage stage : Stage.values()) {
+            final ThreadFactory threadFactory = (virtualThreadFactory != null) ? virtualThreadFactory : new StageThreadFactory(stage);
+            stageExecutorMap.put(stage, new StageExecutor(poolSize, queueDepth, threadFactory));
+        }
+    }
+
+    /**
+     * Submit a request to a stage of the pipeline.
+     *
+     * @param stage    the stage processing the request.
+     * @param callable the request.
+     * @param <V>      the type of the result of the request.
+     *
+     * @return a future of the request. If the queue of the stage is full the future fails with
+     * a {@link ServerOverloadedException}.
+     */
+    public <V> CompletableFuture<V> submit(final Stage stage, final Callable<V> callable) {
+        return stageExecutorMap.get(stage).submit(callable);
+    }
+
+    /**
+     * Get the number of requests processed in parallel per stage.
+     *
+     * @return the pool size of each stage.
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Get the number of requests waiting to be processed by a stage.
+     *
+     * @param stage the stage.
+     *
+     * @return the number of queued requests.
+     */
+    public int getQueueSize(final Stage stage) {
+        return stageExecutorMap.get(stage).executor.getQueue().size();
+    }
+
+    /**
+     * Stop accepting new requests. Requests which are already queued are still processed.
+     */
+    @Override
+    public void shutdown() {
+        for (final StageExecutor stageExecutor : stageExecutorMap.values()) {
+            stageExecutor.executor.shutdown();
+        }
+    }
+
+    /**
+     * Create a thread factory for virtual threads via reflection so that the pipeline still works on jvms
+     * without virtual thread support.
+     *
+     * @return a thread factory for virtual threads or null if virtual threads are not supported.
+     */
+    private static ThreadFactory createVirtualThreadFactory() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | ClassCastException ex) {
+            return null;
+        }
+    }
+
+    private static class StageExecutor {
+
+        private final int poolSize;
+        private final ThreadPoolExecutor executor;
+        private final AtomicLong averageProcessingTime;
+
+        private StageExecutor(final int poolSize, final int queueDepth, final ThreadFactory threadFactory) {
+            this.poolSize = poolSize;
+            this.executor = new ThreadPoolExecutor(poolSize, poolSize, THREAD_KEEP_ALIVE_TIME, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueDepth), threadFactory);
+            this.executor.allowCoreThreadTimeOut(true);
+            this.averageProcessingTime = new AtomicLong(0);
+        }
+
+        private <V> CompletableFuture<V> submit(final Callable<V> callable) {
+            final CompletableFuture<V> future = new CompletableFuture<>();
+            try {
+                executor.execute(() -> {
+                    if (future.isDone()) {
+                        // request has been cancelled while it was queued
+                        return;
+                    }
+                    final long startTime = System.nanoTime();
+                    try {
+                        future.complete(callable.call());
+                    } catch (Throwable ex) {
+                        future.completeExceptionally(ex);
+                    } finally {
+                        final long processingTime = System.nanoTime() - startTime;
+                        // exponential moving average which is only used as a hint for rejected requests
+                        averageProcessingTime.updateAndGet(average -> average == 0 ? processingTime : (average * 7 + processingTime) / 8);
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                future.completeExceptionally(new ServerOverloadedException(computeRetryAfter()));
+            }
+            return future;
+        }
+
+        /**
+         * Estimate after which time the queue of this stage has been processed.
+         *
+         * @return the estimated time in milliseconds.
+         */
+        private long computeRetryAfter() {
+            final long pendingRequests = executor.getQueue().size() + executor.getActiveCount();
+            final long estimate = TimeUnit.NANOSECONDS.toMillis(averageProcessingTime.get() * pendingRequests / poolSize);
+            return Math.max(MIN_RETRY_AFTER, estimate);
+        }
+    }
+
+    private static class StageThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadCounter;
+
+        private StageThreadFactory(final Stage stage) {
+            this.namePrefix = "Authenticator-" + stage.name() + "-";
+            this.threadCounter = new AtomicInteger(0);
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, namePrefix + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -23,29 +23,57 @@ package org.openbase.bco.authentication.lib;
  */
 
 import org.openbase.bco.authentication.lib.jp.JPCredentialsDirectory;
+import org.openbase.bco.authentication.lib.jp.JPStoreJournal;
+import org.openbase.bco.authentication.lib.jp.JPStoreWriteBehindDelay;
 import org.openbase.jps.core.JPService;
 import org.openbase.jps.exception.JPNotAvailableException;
 import org.openbase.jul.exception.CouldNotPerformException;
 import org.openbase.jul.exception.InitializationException;
 import org.openbase.jul.exception.NotAvailableException;
+import org.openbase.jul.exception.NotSupportedException;
 import org.openbase.jul.exception.printer.ExceptionPrinter;
 import org.openbase.jul.exception.printer.LogLevel;
 import org.openbase.jul.iface.Shutdownable;
 import org.openbase.jul.processing.FileProcessor;
+import org.openbase.jul.schedule.GlobalCachedExecutorService;
+import org.openbase.jul.schedule.GlobalScheduledExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Abstract class for a protected store. Protected means that the file the data of this
  * store is serialized to will only grant the executing user read and write permissions.
  * Currently this store manages an internal map with strings as keys/ids and arbitrary
  * data types as values. This class also handles loading and saving of the store.
+ * How the store file is read and written is defined by a {@link StoreBackend}. By default the
+ * file processor of the store is used, but backends may also decode entries lazily on first access.
+ * The store is thread-safe: reads are lock-free while writers are serialized.
+ * <p>
+ * By default the whole store is saved on every change. If the journal is enabled changes are instead appended to
+ * an append-only journal and the store file is only rewritten as a snapshot by a background compaction once the
+ * journal exceeds a size threshold. Stores supporting the journal have to implement
+ * {@link #encodeEntry(Object)} and {@link #decodeEntry(byte[])}.
+ * <p>
+ * If write-behind is enabled changes are only applied in memory and a single writer flushes all changes of a burst
+ * at once after at most the configured delay. Callers requiring a durability guarantee can use {@link #flush()}
+ * or {@link #awaitDurability()}. The store file is always replaced atomically by a snapshot which has been forced to
+ * the storage device before.
  *
  * @param <DT>  the internal data type handled by this store
  * @param <SDT> the data type the internal map is converted to/from for de-/serialization
@@ -54,12 +82,34 @@ import java.util.*;
  */
 public abstract class AbstractProtectedStore<DT, SDT> implements Shutdownable {
 
+    /**
+     * Default size in bytes of the journal after which it is compacted into a new snapshot.
+     */
+    public static final long DEFAULT_JOURNAL_COMPACTION_THRESHOLD = 1024 * 1024;
+
     protected Logger logger = LoggerFactory.getLogger(getClass());
 
-    private final Map<String, DT> map;
-    private final FileProcessor<SDT> fileProcessor;
+    private final Map<String, StoreEntry<DT>> map;
+    private StoreBackend<DT> storeBackend;
+    private volatile Map<String, DT> entryMapSnapshot;
+    private final Object storeLock;
+    private final Object compactionLock;
+    private final AtomicBoolean compactionScheduled;
+    private final Object flushLock;
+    private final Object durabilityLock;
+    private final Object snapshotLock;
 
     private File storeFile;
+    private Boolean journalEnabled;
+    private long journalCompactionThreshold;
+    private StoreJournal journal;
+    private int journalSegmentIndex;
+    private Long writeBehindDelay;
+    private boolean flushScheduled;
+    private long changeCount;
+    private volatile long durableChangeCount;
+    private long durabilityFailureCount;
+    private CouldNotPerformException durabilityFailure;
 
     /**
      * Create a new protected store.
@@ -67,8 +117,63 @@ public abstract class AbstractProtectedStore<DT, SDT> implements Shutdownable {
      * @param fileProcessor the file processor used for de-/serialization of the store
      */
     public AbstractProtectedStore(final FileProcessor<SDT> fileProcessor) {
-        this.fileProcessor = fileProcessor;
-        this.map = new HashMap<>();
+        this.storeBackend = new FileProcessorStoreBackend(fileProcessor);
+        this.map = new ConcurrentHashMap<>();
+        this.storeLock = new Object();
+        this.compactionLock = new Object();
+        this.compactionScheduled = new AtomicBoolean(false);
+        this.flushLock = new Object();
+        this.durabilityLock = new Object();
+        this.snapshotLock = new Object();
+        this.journalCompactionThreshold = DEFAULT_JOURNAL_COMPACTION_THRESHOLD;
+    }
+
+    /**
+     * Set the backend used to read and write the store file. This has to be done before the store is initialized.
+     *
+     * @param storeBackend the new backend.
+     */
+    public void setStoreBackend(final StoreBackend<DT> storeBackend) {
+        this.storeBackend = storeBackend;
+    }
+
+    /**
+     * Get the backend used to read and write the store file.
+     *
+     * @return the backend of this store.
+     */
+    public StoreBackend<DT> getStoreBackend() {
+        return storeBackend;
+    }
+
+    /**
+     * Enable or disable the journal of this store. This overwrites the {@link JPStoreJournal} property and
+     * has to be done before the store is initialized.
+     *
+     * @param journalEnabled if changes should be appended to a journal instead of saving the whole store.
+     */
+    public void setJournalEnabled(final boolean journalEnabled) {
+        this.journalEnabled = journalEnabled;
+    }
+
+    /**
+     * Set the maximal delay after which changes are flushed by the write-behind writer. A delay of zero disables
+     * write-behind so that every change is persisted before it returns. This overwrites the
+     * {@link JPStoreWriteBehindDelay} property and has to be done before the store is initialized.
+     *
+     * @param writeBehindDelay the maximal flush delay in milliseconds.
+     */
+    public void setWriteBehindDelay(final long writeBehindDelay) {
+        this.writeBehindDelay = writeBehindDelay;
+    }
+
+    /**
+     * Set the size of the journal after which it is compacted into a new snapshot of the store.
+     *
+     * @param journalCompactionThreshold the threshold in bytes.
+     */
+    public void setJournalCompactionThreshold(final long journalCompactionThreshold) {
+        this.journalCompactionThreshold = journalCompactionThreshold;
     }
 
     /**
@@ -86,6 +191,12 @@ public abstract class AbstractProtectedStore<DT, SDT> implements Shutdownable {
     public void init(final String filename) throws InitializationException {
         try {
             storeFile = new File(JPService.getProperty(JPCredentialsDirectory.class).getValue(), filename);
+            if (journalEnabled == null) {
+                journalEnabled = JPService.getProperty(JPStoreJournal.class).getValue();
+            }
+            if (writeBehindDelay == null) {
+                writeBehindDelay = JPService.getProperty(JPStoreWriteBehindDelay.class).getValue();
+            }
             loadStore();
             protectFile(storeFile);
         } catch (CouldNotPerformException | JPNotAvailableException ex) {
@@ -104,27 +215,348 @@ public abstract class AbstractProtectedStore<DT, SDT> implements Shutdownable {
             saveStore();
         }
 
-        // clear existing entries.
-        map.clear();
+        // load from file
+        final Map<String, StoreEntry<DT>> loadedMap = new HashMap<>(storeBackend.load(storeFile));
+
+        final List<Integer> segmentIndices = journalEnabled ? StoreJournal.getSegmentIndices(storeFile) : Collections.emptyList();
+        if (journalEnabled) {
+            // apply changes which are not yet contained in the snapshot
+            for (final int segmentIndex : segmentIndices) {
+                StoreJournal.replay(StoreJournal.getSegmentFile(storeFile, segmentIndex), new StoreJournal.Replayer() {
+                    @Override
+                    public void put(final String id, final byte[] payload) throws CouldNotPerformException {
+                        loadedMap.put(id, StoreEntry.of(decodeEntry(payload)));
+                    }
+
+                    @Override
+                    public void remove(final String id) {
+                        loadedMap.remove(id);
+                    }
+                });
+            }
+        }
+
+        synchronized (storeLock) {
+            // replace existing entries
+            map.clear();
+            map.putAll(loadedMap);
+            entryMapSnapshot = null;
+            onEntriesReplaced();
+
+            if (!journalEnabled) {
+                return;
+            }
+
+            journalSegmentIndex = segmentIndices.isEmpty() ? 0 : segmentIndices.get(segmentIndices.size() - 1) + 1;
+            journal = new StoreJournal(storeFile, journalSegmentIndex);
+        }
+
+        // merge replayed segments into a new snapshot so that the next start does not need to replay them again
+        if (!segmentIndices.isEmpty()) {
+            compactJournal();
+        }
+    }
+
+    /**
+     * Decode all given entries. Entries which cannot be decoded are skipped.
+     *
+     * @param entries the entries to decode.
+     *
+     * @return a new map containing all decoded entries.
+     */
+    private Map<String, DT> decodeEntries(final Map<String, StoreEntry<DT>> entries) {
+        final Map<String, DT> decodedMap = new HashMap<>();
+        for (final Entry<String, StoreEntry<DT>> entry : entries.entrySet()) {
+            final DT value = decodeQuietly(entry.getKey(), entry.getValue());
+            if (value != null) {
+                decodedMap.put(entry.getKey(), value);
+            }
+        }
+        return decodedMap;
+    }
+
+    private DT decodeQuietly(final String id, final StoreEntry<DT> storeEntry) {
+        if (storeEntry == null) {
+            return null;
+        }
 
         try {
-            // load from file
-            load(fileProcessor.deserialize(storeFile), map);
-        } catch (ClassCastException ex) {
-            throw new CouldNotPerformException("Could not load store from file[" + storeFile.getAbsolutePath() + "]");
+            return storeEntry.get();
+        } catch (CouldNotPerformException ex) {
+            ExceptionPrinter.printHistory(new CouldNotPerformException("Could not decode entry[" + id + "]", ex), logger, LogLevel.ERROR);
+            return null;
         }
     }
 
     /**
-     * Stores the internal map into the store file.
+     * Persist a change of the store. If the journal is enabled the change is appended to it,
+     * else the whole store is saved. With write-behind the change is only buffered and persisted
+     * by the next flush. Has to be called while holding the store lock.
+     *
+     * @param id    the id of the changed entry.
+     * @param value the new value of the entry or null if it was removed.
      */
-    private void saveStore() {
+    private void persistChange(final String id, final DT value) {
+        changeCount++;
+
+        if (journal == null) {
+            if (writeBehindDelay > 0) {
+                scheduleFlush();
+            } else {
+                try {
+                    saveStore();
+                    markDurable(changeCount);
+                } catch (CouldNotPerformException ex) {
+                    failDurability(ExceptionPrinter.printHistoryAndReturnThrowable(new CouldNotPerformException("Could not save store[" + getClass().getSimpleName() + "]", ex), logger, LogLevel.ERROR));
+                }
+            }
+            return;
+        }
+
         try {
-            // save into file
-            fileProcessor.serialize(save(map), storeFile);
+            if (value == null) {
+                journal.appendRemove(id);
+            } else {
+                journal.appendPut(id, encodeEntry(value));
+            }
+
+            if (writeBehindDelay > 0) {
+                scheduleFlush();
+            } else {
+                journal.sync();
+                markDurable(changeCount);
+            }
+        } catch (NotSupportedException ex) {
+            logger.warn("Store[" + getClass().getSimpleName() + "] does not support a journal, save whole store on every change instead.");
+            journal.close();
+            journal = null;
+            persistChange(id, value);
+            return;
         } catch (CouldNotPerformException ex) {
-            ExceptionPrinter.printHistory(ex, logger, LogLevel.ERROR);
+            // a snapshot has to be written because the journal misses this change
+            ExceptionPrinter.printHistory(new CouldNotPerformException("Could not journal change of entry[" + id + "], compact store instead", ex), logger, LogLevel.WARN);
+            scheduleCompaction();
+            return;
+        }
+
+        if (journal.getSize() > journalCompactionThreshold) {
+            scheduleCompaction();
+        }
+    }
+
+    /**
+     * Compact the journal in the background if no compaction is scheduled yet.
+     */
+    private void scheduleCompaction() {
+        if (!compactionScheduled.compareAndSet(false, true)) {
+            return;
         }
+
+        GlobalCachedExecutorService.execute(() -> {
+            try {
+                compactJournal();
+            } finally {
+                compactionScheduled.set(false);
+            }
+        });
+    }
+
+    /**
+     * Schedule a flush of the write-behind writer if none is scheduled yet. Has to be called while holding the store lock.
+     */
+    private void scheduleFlush() {
+        if (flushScheduled) {
+            return;
+        }
+
+        try {
+            GlobalScheduledExecutorService.schedule(this::flush, writeBehindDelay, TimeUnit.MILLISECONDS);
+            flushScheduled = true;
+        } catch (CouldNotPerformException | RejectedExecutionException ex) {
+            ExceptionPrinter.printHistory(new CouldNotPerformException("Could not schedule flush of store[" + getClass().getSimpleName() + "]", ex), logger, LogLevel.WARN);
+        }
+    }
+
+    /**
+     * Persist all changes which are only buffered by the write-behind writer.
+     * If the journal is enabled it is synced to the storage device, else a new snapshot of the store is written.
+     * The method returns after all changes which were applied before the call are durable.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            final long flushedChangeCount;
+            final StoreJournal currentJournal;
+            final Map<String, StoreEntry<DT>> snapshot;
+            synchronized (storeLock) {
+                flushScheduled = false;
+                if (changeCount == durableChangeCount) {
+                    return;
+                }
+                flushedChangeCount = changeCount;
+                currentJournal = journal;
+                snapshot = (currentJournal == null) ? new HashMap<>(map) : null;
+            }
+
+            try {
+                if (currentJournal != null) {
+                    currentJournal.sync();
+                } else {
+                    writeSnapshot(snapshot);
+                }
+            } catch (CouldNotPerformException ex) {
+                failDurability(ExceptionPrinter.printHistoryAndReturnThrowable(new CouldNotPerformException("Could not flush store[" + getClass().getSimpleName() + "]", ex), logger, LogLevel.ERROR));
+                synchronized (storeLock) {
+                    scheduleFlush();
+                }
+                return;
+            }
+            markDurable(flushedChangeCount);
+        }
+    }
+
+    /**
+     * Wait until all changes which were applied before the call are persisted by the write-behind writer.
+     *
+     * @throws InterruptedException     if interrupted while waiting.
+     * @throws CouldNotPerformException if persisting the changes failed while waiting.
+     */
+    public void awaitDurability() throws InterruptedException, CouldNotPerformException {
+        awaitDurability(0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Wait until all changes which were applied before the call are persisted by the write-behind writer,
+     * but at most for the given time.
+     *
+     * @param timeout the maximal time to wait. A timeout of zero waits without a time limit.
+     * @param unit    the unit of the timeout.
+     *
+     * @return true if the changes are persisted and false if the timeout elapsed before.
+     *
+     * @throws InterruptedException     if interrupted while waiting.
+     * @throws CouldNotPerformException if persisting the changes failed while waiting.
+     */
+    public boolean awaitDurability(final long timeout, final TimeUnit unit) throws InterruptedException, CouldNotPerformException {
+        final long targetChangeCount;
+        synchronized (storeLock) {
+            targetChangeCount = changeCount;
+        }
+
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (durabilityLock) {
+            final long failureCount = durabilityFailureCount;
+            while (durableChangeCount < targetChangeCount) {
+                if (durabilityFailureCount != failureCount) {
+                    throw new CouldNotPerformException("Could not persist changes of store[" + getClass().getSimpleName() + "]", durabilityFailure);
+                }
+
+                if (timeout <= 0) {
+                    durabilityLock.wait();
+                    continue;
+                }
+
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(durabilityLock, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wake up all callers waiting for durability with the reason why persisting the store failed.
+     *
+     * @param failure the reason of the failure.
+     */
+    private void failDurability(final CouldNotPerformException failure) {
+        synchronized (durabilityLock) {
+            durabilityFailure = failure;
+            durabilityFailureCount++;
+            durabilityLock.notifyAll();
+        }
+    }
+
+    private void markDurable(final long changeCount) {
+        synchronized (durabilityLock) {
+            if (changeCount > durableChangeCount) {
+                durableChangeCount = changeCount;
+            }
+            durabilityLock.notifyAll();
+        }
+    }
+
+    /**
+     * Compact the journal by writing a new snapshot of the store. The journal is switched to a new segment before
+     * the snapshot is taken so that changes are accepted while the snapshot is written. Afterwards all segments
+     * contained in the snapshot are deleted. The snapshot is written to a temporary file which replaces the store file
+     * atomically so that a crash never leaves a partial snapshot.
+     */
+    private void compactJournal() {
+        synchronized (compactionLock) {
+            final Map<String, StoreEntry<DT>> snapshot;
+            final int lastSegmentIndex;
+            final long snapshotChangeCount;
+            synchronized (storeLock) {
+                snapshot = new HashMap<>(map);
+                snapshotChangeCount = changeCount;
+                journal.close();
+                lastSegmentIndex = journalSegmentIndex;
+                journalSegmentIndex++;
+                journal = new StoreJournal(storeFile, journalSegmentIndex);
+            }
+
+            try {
+                writeSnapshot(snapshot);
+            } catch (CouldNotPerformException ex) {
+                // the segments are kept and will be merged by the next compaction
+                failDurability(ExceptionPrinter.printHistoryAndReturnThrowable(new CouldNotPerformException("Could not compact journal of store[" + storeFile.getAbsolutePath() + "]", ex), logger, LogLevel.ERROR));
+                return;
+            }
+
+            StoreJournal.deleteSegments(storeFile, lastSegmentIndex);
+            markDurable(snapshotChangeCount);
+        }
+    }
+
+    /**
+     * Write a snapshot of the store to a temporary file, force it to the storage device and atomically replace
+     * the store file with it so that a crash never leaves a partial snapshot. Concurrent snapshots are serialized
+     * since they share the temporary file.
+     *
+     * @param snapshot the snapshot to write.
+     *
+     * @throws CouldNotPerformException if the snapshot could not be written.
+     */
+    private void writeSnapshot(final Map<String, StoreEntry<DT>> snapshot) throws CouldNotPerformException {
+        final File tempFile = new File(storeFile.getParentFile(), storeFile.getName() + ".tmp");
+        synchronized (snapshotLock) {
+            try {
+                // protect the file before any credentials are written into it
+                createProtectedFile(tempFile);
+                storeBackend.save(snapshot, tempFile);
+                try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                try {
+                    Files.move(tempFile.toPath(), storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tempFile.toPath(), storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException ex) {
+                throw new CouldNotPerformException("Could not write snapshot of store[" + storeFile.getAbsolutePath() + "]", ex);
+            }
+        }
+    }
+
+    /**
+     * Stores the internal map into the store file by replacing it with a new snapshot.
+     *
+     * @throws CouldNotPerformException if the store could not be saved.
+     */
+    private void saveStore() throws CouldNotPerformException {
+        writeSnapshot(new HashMap<>(map));
     }
 
     /**
@@ -157,8 +589,13 @@ public abstract class AbstractProtectedStore<DT, SDT> implements Shutdownable {
      * @throws NotAvailableException if no entry for the id exists
      */
     public DT getEntry(final String id) throws NotAvailableException {
-        if (hasEntry(id)) {
-            return map.get(id);
+        final StoreEntry<DT> storeEntry = map.get(id);
+        if (storeEntry != null) {
+            try {
+                return storeEntry.get();
+            } catch (CouldNotPerformException ex) {
+                throw new NotAvailableException("Entry with key[" + id + "]", ex);
+            }
         }
 
         throw new NotAvailableException("Entry with key[" + id + "]");
@@ -170,10 +607,16 @@ public abstract class AbstractProtectedStore<DT, SDT> implements Shutdownable {
      * @param id the id of the entry to remove
      */
     public void removeEntry(final String id) {
-        if (this.hasEntry(id)) {
-            this.map.remove(id);
+        synchronized (storeLock) {
+            final StoreEntry<DT> oldEntry = map.remove(id);
+            if (oldEntry != null) {
+                entryMapSnapshot = null;
+                onEntryChanged(id, oldEntry, null);
+            } else if (journal != null) {
+                return;
+            }
+            persistChange(id, null);
         }
-        this.saveStore();
     }
 
     /**
@@ -184,16 +627,42 @@ public abstract class AbstractProtectedStore<DT, SDT> implements Shutdownable {
      * @param value the new value for the id
      */
     public void addEntry(final String id, final DT value) {
-        map.put(id, value);
-        this.saveStore();
+        synchronized (storeLock) {
+            final StoreEntry<DT> oldEntry = map.put(id, StoreEntry.of(value));
+            entryMapSnapshot = null;
+            onEntryChanged(id, oldEntry, value);
+            persistChange(id, value);
+        }
     }
 
     /**
-     * Get the internal map.
+     * Get a snapshot of the internal map. The snapshot is shared between callers until the store is changed
+     * so that repeated calls do not copy the map. Entries are only decoded when they are accessed through the
+     * snapshot. Entries which cannot be decoded are mapped to null.
      *
-     * @return an unmodifiable version of the internal map
+     * @return an unmodifiable and consistent snapshot of the internal map
      */
     public Map<String, DT> getEntryMap() {
+        Map<String, DT> snapshot = entryMapSnapshot;
+        if (snapshot == null) {
+            synchronized (storeLock) {
+                snapshot = entryMapSnapshot;
+                if (snapshot == null) {
+                    snapshot = new EntryMapSnapshot(new HashMap<>(map));
+                    entryMapSnapshot = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Get a view on the entries of this store without decoding them. Subclasses can use it to compute derived
+     * state from information available without decoding, e.g. the flags of mapped records.
+     *
+     * @return an unmodifiable and weakly consistent view on the stored entries.
+     */
+    protected Map<String, StoreEntry<DT>> getStoreEntryMap() {
         return Collections.unmodifiableMap(map);
     }
 
@@ -211,10 +680,28 @@ public abstract class AbstractProtectedStore<DT, SDT> implements Shutdownable {
      */
     @Override
     public void shutdown() {
-        if (JPService.testMode()) {
-            map.clear();
+        flush();
+
+        synchronized (storeLock) {
+            if (JPService.testMode()) {
+                map.clear();
+                entryMapSnapshot = null;
+                onEntriesReplaced();
+            }
+
+            if (journal == null) {
+                try {
+                    saveStore();
+                    markDurable(changeCount);
+                } catch (CouldNotPerformException ex) {
+                    failDurability(ExceptionPrinter.printHistoryAndReturnThrowable(new CouldNotPerformException("Could not save store[" + getClass().getSimpleName() + "] on shutdown", ex), logger, LogLevel.ERROR));
+                }
+                return;
+            }
         }
-        saveStore();
+
+        compactJournal();
+        journal.close();
     }
 
     /**
@@ -234,6 +721,168 @@ public abstract class AbstractProtectedStore<DT, SDT> implements Shutdownable {
      */
     protected abstract SDT save(final Map<String, DT> internalMap);
 
+    /**
+     * Called while holding the store lock whenever a single entry is added, replaced or removed.
+     * Can be overwritten to maintain derived state of the store. The previous entry is passed as it is stored,
+     * so it may not be decoded yet and decoding it may fail.
+     *
+     * @param id       the id of the changed entry
+     * @param oldEntry the previous entry or null if the entry was added
+     * @param newValue the new value or null if the entry was removed
+     */
+    protected void onEntryChanged(final String id, final StoreEntry<DT> oldEntry, final DT newValue) {
+        // nothing to do by default
+    }
+
+    /**
+     * Called while holding the store lock after all entries have been replaced, e.g. because the store was loaded.
+     * Derived state has to be recomputed, preferably lazily because entries may only be decoded on first access.
+     */
+    protected void onEntriesReplaced() {
+        // nothing to do by default
+    }
+
+    /**
+     * Encode a single entry for the journal. Stores supporting the journal have to override this method.
+     *
+     * @param value the entry to encode.
+     *
+     * @return the encoded entry.
+     *
+     * @throws CouldNotPerformException if the entry could not be encoded.
+     */
+    protected byte[] encodeEntry(final DT value) throws CouldNotPerformException {
+        throw new NotSupportedException("journal", this);
+    }
+
+    /**
+     * Decode a single entry from the journal. Stores supporting the journal have to override this method.
+     *
+     * @param data the encoded entry.
+     *
+     * @return the decoded entry.
+     *
+     * @throws CouldNotPerformException if the entry could not be decoded.
+     */
+    protected DT decodeEntry(final byte[] data) throws CouldNotPerformException {
+        throw new NotSupportedException("journal", this);
+    }
+
+    /**
+     * Unmodifiable view on a copy of the internal map which decodes entries on access.
+     */
+    private class EntryMapSnapshot extends AbstractMap<String, DT> {
+
+        private final Map<String, StoreEntry<DT>> entries;
+        private final Set<Entry<String, DT>> entrySet;
+
+        private EntryMapSnapshot(final Map<String, StoreEntry<DT>> entries) {
+            this.entries = entries;
+            this.entrySet = new AbstractSet<Entry<String, DT>>() {
+                @Override
+                public Iterator<Entry<String, DT>> iterator() {
+                    final Iterator<Entry<String, StoreEntry<DT>>> iterator = entries.entrySet().iterator();
+                    return new Iterator<Entry<String, DT>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, DT> next() {
+                            final Entry<String, StoreEntry<DT>> entry = iterator.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), decodeQuietly(entry.getKey(), entry.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
+
+        @Override
+        public DT get(final Object key) {
+            final StoreEntry<DT> storeEntry = entries.get(key);
+            return storeEntry == null ? null : decodeQuietly((String) key, storeEntry);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return entries.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public Set<Entry<String, DT>> entrySet() {
+            return entrySet;
+        }
+    }
+
+    /**
+     * Default backend which de-/serializes the store file with the file processor of the store.
+     */
+    private class FileProcessorStoreBackend implements StoreBackend<DT> {
+
+        private final FileProcessor<SDT> fileProcessor;
+
+        private FileProcessorStoreBackend(final FileProcessor<SDT> fileProcessor) {
+            this.fileProcessor = fileProcessor;
+        }
+
+        @Override
+        public Map<String, StoreEntry<DT>> load(final File file) throws CouldNotPerformException {
+            final Map<String, DT> loadedMap = new HashMap<>();
+            try {
+                AbstractProtectedStore.this.load(fileProcessor.deserialize(file), loadedMap);
+            } catch (ClassCastException ex) {
+                throw new CouldNotPerformException("Could not load store from file[" + file.getAbsolutePath() + "]");
+            }
+
+            final Map<String, StoreEntry<DT>> entryMap = new HashMap<>();
+            for (final Entry<String, DT> entry : loadedMap.entrySet()) {
+                entryMap.put(entry.getKey(), StoreEntry.of(entry.getValue()));
+            }
+            return entryMap;
+        }
+
+        @Override
+        public void save(final Map<String, StoreEntry<DT>> entries, final File file) throws CouldNotPerformException {
+            fileProcessor.serialize(AbstractProtectedStore.this.save(decodeEntries(entries)), file);
+        }
+    }
+
+    /**
+     * Create a new empty file which only grants the owner permission to read and to write it, so that no other user
+     * can read anything written into it afterwards. An existing file is replaced.
+     *
+     * @param file the file to create.
+     *
+     * @throws CouldNotPerformException is thrown if the file could not be created or protected.
+     */
+    public static void createProtectedFile(final File file) throws CouldNotPerformException {
+        try {
+            Files.deleteIfExists(file.toPath());
+            try {
+                final Set<PosixFilePermission> perms = EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+                Files.createFile(file.toPath(), PosixFilePermissions.asFileAttribute(perms));
+                return;
+            } catch (UnsupportedOperationException | NoClassDefFoundError ex) {
+                // posix attributes are not supported, e.g. on windows or android, so protect the empty file afterwards
+            }
+            Files.createFile(file.toPath());
+            protectFile(file);
+        } catch (IOException ex) {
+            throw new CouldNotPerformException("Could not create protected file " + file.getAbsolutePath(), ex);
+        }
+    }
+
     /**
      * Sets the permissions to UNIX 600 so only the owner has permission to read and to write to this protected file.
      *
@@ -22,6 +22,7 @@ package org.openbase.bco.authentication.lib;
  * #L%
  */
 
+import com.google.protobuf.ByteString;
 import org.openbase.bco.authentication.lib.AuthenticationClientHandler.TicketWrapperSessionKeyPair;
 import org.openbase.bco.authentication.lib.jp.JPAuthentication;
 import org.openbase.bco.authentication.lib.jp.JPCredentialsDirectory;
@@ -33,6 +34,8 @@ import org.openbase.jul.exception.NotAvailableException;
 import org.openbase.jul.exception.RejectedException;
 import org.openbase.jul.exception.printer.ExceptionPrinter;
 import org.openbase.jul.exception.printer.LogLevel;
+import org.openbase.jul.schedule.FutureProcessor;
+import org.openbase.jul.schedule.GlobalCachedExecutorService;
 import org.openbase.type.domotic.authentication.AuthenticatedValueType.AuthenticatedValue;
 import org.openbase.type.domotic.authentication.AuthenticationTokenType.AuthenticationToken;
 import org.openbase.type.domotic.authentication.AuthenticatorType.Authenticator;
@@ -47,8 +50,10 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.Base64;
+import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * This class represents a Service Server and provides methods to validate Kerberos client-server-tickets.
@@ -64,8 +69,13 @@ public class AuthenticatedServerManager {
     private TicketAuthenticatorWrapper ticketAuthenticatorWrapper;
     private byte[] sessionKey;
     private final long ticketValidityTime;
+    /**
+     * Cache of client server tickets which have already been decrypted with the service server secret key.
+     */
+    private final TicketCache ticketCache;
 
     private AuthenticatedServerManager() throws CouldNotPerformException {
+        this.ticketCache = new TicketCache();
         try {
             this.ticketValidityTime = JPService.getProperty(JPSessionTimeout.class).getValue();
             if (JPService.getProperty(JPAuthentication.class).getValue()) {
@@ -89,6 +99,15 @@ public class AuthenticatedServerManager {
         instance = null;
     }
 
+    /**
+     * Get the cache of client server tickets already decrypted by this service server.
+     *
+     * @return the ticket cache of this service server.
+     */
+    public TicketCache getTicketCache() {
+        return ticketCache;
+    }
+
     /**
      * Verifies the ticket from a given AuthenticatedValue and returns authentication base data
      * containing values according to the data in the authenticated value.
@@ -139,8 +158,14 @@ public class AuthenticatedServerManager {
      */
     public AuthenticationBaseData verifyClientServerTicket(final TicketAuthenticatorWrapper ticketAuthenticatorWrapper) throws CouldNotPerformException, RejectedException {
         try {
-            // decrypt ticket and authenticator
-            Ticket clientServerTicket = EncryptionHelper.decryptSymmetric(ticketAuthenticatorWrapper.getTicket(), serviceServerSecretKey, Ticket.class);
+            // decrypt ticket if it was not already decrypted before, only tickets actually sent by clients are cached
+            Ticket clientServerTicket = ticketCache.get(ticketAuthenticatorWrapper.getTicket());
+            if (clientServerTicket == null) {
+                clientServerTicket = EncryptionHelper.decryptSymmetric(ticketAuthenticatorWrapper.getTicket(), serviceServerSecretKey, Ticket.class);
+                ticketCache.put(ticketAuthenticatorWrapper.getTicket(), clientServerTicket);
+            }
+
+            // decrypt authenticator
             Authenticator authenticator = EncryptionHelper.decryptSymmetric(ticketAuthenticatorWrapper.getAuthenticator(), clientServerTicket.getSessionKeyBytes().toByteArray(), Authenticator.class);
 
             // compare clientIDs and timestamp to period
@@ -162,6 +187,78 @@ public class AuthenticatedServerManager {
         }
     }
 
+    /**
+     * Verifies the tickets of a list of authenticated values. Every distinct ticket contained in the list is only
+     * decrypted once and afterwards all values are verified in parallel on the global cached executor service.
+     *
+     * @param authenticatedValues the authenticated values to verify.
+     *
+     * @return a list of futures containing the authentication base data for the value at the same index,
+     * or failing with the reason why the according value could not be verified.
+     *
+     * @see #verifyClientServerTicket(AuthenticatedValue)
+     */
+    public List<Future<AuthenticationBaseData>> verifyClientServerTickets(final List<AuthenticatedValue> authenticatedValues) {
+        return verifyClientServerTickets(authenticatedValues, GlobalCachedExecutorService.getInstance().getExecutorService());
+    }
+
+    /**
+     * Verifies the tickets of a list of authenticated values. Every distinct ticket contained in the list is only
+     * decrypted once and afterwards all values are verified in parallel on the given executor service.
+     *
+     * @param authenticatedValues the authenticated values to verify.
+     * @param executorService     the executor service on which the values are verified.
+     *
+     * @return a list of futures containing the authentication base data for the value at the same index,
+     * or failing with the reason why the according value could not be verified.
+     *
+     * @see #verifyClientServerTicket(AuthenticatedValue)
+     */
+    public List<Future<AuthenticationBaseData>> verifyClientServerTickets(final List<AuthenticatedValue> authenticatedValues, final ExecutorService executorService) {
+        final Map<ByteString, CouldNotPerformException> failedTicketMap = decryptClientServerTickets(authenticatedValues);
+
+        final List<Future<AuthenticationBaseData>> futureList = new ArrayList<>(authenticatedValues.size());
+        for (final AuthenticatedValue authenticatedValue : authenticatedValues) {
+            final CouldNotPerformException failure = failedTicketMap.get(authenticatedValue.getTicketAuthenticatorWrapper().getTicket());
+            if (failure != null) {
+                futureList.add(FutureProcessor.canceledFuture(AuthenticationBaseData.class, failure));
+                continue;
+            }
+            futureList.add(executorService.submit(() -> verifyClientServerTicket(authenticatedValue)));
+        }
+        return futureList;
+    }
+
+    /**
+     * Decrypt every distinct client server ticket contained in the given authenticated values once and add it to the
+     * ticket cache. Afterwards the verification of these values only needs to decrypt the authenticators.
+     *
+     * @param authenticatedValues the authenticated values whose tickets are decrypted.
+     *
+     * @return a map containing the reason for every ticket which could not be decrypted.
+     */
+    Map<ByteString, CouldNotPerformException> decryptClientServerTickets(final Collection<AuthenticatedValue> authenticatedValues) {
+        final Map<ByteString, CouldNotPerformException> failedTicketMap = new HashMap<>();
+        final Set<ByteString> ticketSet = new HashSet<>();
+        for (final AuthenticatedValue authenticatedValue : authenticatedValues) {
+            if (!authenticatedValue.hasTicketAuthenticatorWrapper()) {
+                continue;
+            }
+
+            final ByteString ticket = authenticatedValue.getTicketAuthenticatorWrapper().getTicket();
+            if (!ticketSet.add(ticket) || ticketCache.get(ticket) != null) {
+                continue;
+            }
+
+            try {
+                ticketCache.put(ticket, EncryptionHelper.decryptSymmetric(ticket, serviceServerSecretKey, Ticket.class));
+            } catch (CouldNotPerformException ex) {
+                failedTicketMap.put(ticket, ex);
+            }
+        }
+        return failedTicketMap;
+    }
+
     /**
      * Login method for the service server.
      *
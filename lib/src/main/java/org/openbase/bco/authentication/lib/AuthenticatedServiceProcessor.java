@@ -31,12 +31,17 @@ import org.openbase.jps.exception.JPNotAvailableException;
 import org.openbase.jul.exception.CouldNotPerformException;
 import org.openbase.jul.extension.type.iface.TransactionIdProvider;
 import org.openbase.jul.schedule.FutureProcessor;
+import org.openbase.jul.schedule.GlobalCachedExecutorService;
 import org.openbase.type.domotic.authentication.AuthenticatedValueType.AuthenticatedValue;
 import org.openbase.type.domotic.authentication.TicketAuthenticatorWrapperType.TicketAuthenticatorWrapper;
 
 import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 /**
@@ -176,6 +181,147 @@ public class AuthenticatedServiceProcessor {
         }
     }
 
+    /**
+     * Method used by the server which performs multiple authenticated actions at once, e.g. if a remote sends a batch
+     * of requests. Every distinct ticket is only decrypted once and all actions are performed in parallel on the
+     * global cached executor service.
+     *
+     * @param <RECEIVE>           The type of value that the server receives to perform its action,
+     * @param <RETURN>            The type of value that the server responds with.
+     * @param authenticatedValues The authenticatedValues which are send with the request.
+     * @param internalClass       Class of type RECEIVE needed to decrypt the received type.
+     * @param executable          Interface defining the action that the server performs. This executable should
+     *                            also perform authorization if needed.
+     *
+     * @return A list of futures containing the AuthenticatedValue which should be send as a response for the value at
+     * the same index.
+     *
+     * @throws CouldNotPerformException If the authenticated server manager is not available.
+     */
+    public static <RECEIVE extends Serializable, RETURN extends Serializable> List<Future<AuthenticatedValue>> authenticatedActions(
+            final List<AuthenticatedValue> authenticatedValues,
+            final Class<RECEIVE> internalClass,
+            final InternalIdentifiedProcessable<RECEIVE, RETURN> executable) throws CouldNotPerformException {
+        return authenticatedActions(authenticatedValues, internalClass, executable, GlobalCachedExecutorService.getInstance().getExecutorService());
+    }
+
+    /**
+     * Method used by the server which performs multiple authenticated actions at once, e.g. if a remote sends a batch
+     * of requests. Every distinct ticket is only decrypted once and all actions are performed in parallel on the
+     * given executor service.
+     *
+     * @param <RECEIVE>           The type of value that the server receives to perform its action,
+     * @param <RETURN>            The type of value that the server responds with.
+     * @param authenticatedValues The authenticatedValues which are send with the request.
+     * @param internalClass       Class of type RECEIVE needed to decrypt the received type.
+     * @param executable          Interface defining the action that the server performs. This executable should
+     *                            also perform authorization if needed.
+     * @param executorService     The executor service on which the actions are performed.
+     *
+     * @return A list of futures containing the AuthenticatedValue which should be send as a response for the value at
+     * the same index.
+     *
+     * @throws CouldNotPerformException If the authenticated server manager is not available.
+     */
+    public static <RECEIVE extends Serializable, RETURN extends Serializable> List<Future<AuthenticatedValue>> authenticatedActions(
+            final List<AuthenticatedValue> authenticatedValues,
+            final Class<RECEIVE> internalClass,
+            final InternalIdentifiedProcessable<RECEIVE, RETURN> executable,
+            final ExecutorService executorService) throws CouldNotPerformException {
+        return authenticatedActions(authenticatedValues, internalClass, null, executable, executorService);
+    }
+
+    /**
+     * Method used by the server which performs multiple authenticated actions at once, e.g. if a remote sends a batch
+     * of requests. Every distinct ticket is only decrypted once and all actions are performed in parallel on the
+     * global cached executor service.
+     *
+     * @param <RECEIVE>             The type of value that the server receives to perform its action,
+     * @param <RETURN>              The type of value that the server responds with.
+     * @param authenticatedValues   The authenticatedValues which are send with the request.
+     * @param internalClass         Class of type RECEIVE needed to decrypt the received type.
+     * @param transactionIdProvider The object providing the transaction id to be set in every response.
+     * @param executable            Interface defining the action that the server performs. This executable should
+     *                              also perform authorization if needed.
+     *
+     * @return A list of futures containing the AuthenticatedValue which should be send as a response for the value at
+     * the same index.
+     *
+     * @throws CouldNotPerformException If the authenticated server manager is not available.
+     */
+    public static <RECEIVE extends Serializable, RETURN extends Serializable> List<Future<AuthenticatedValue>> authenticatedActions(
+            final List<AuthenticatedValue> authenticatedValues,
+            final Class<RECEIVE> internalClass,
+            final TransactionIdProvider transactionIdProvider,
+            final InternalIdentifiedProcessable<RECEIVE, RETURN> executable) throws CouldNotPerformException {
+        return authenticatedActions(authenticatedValues, internalClass, transactionIdProvider, executable, GlobalCachedExecutorService.getInstance().getExecutorService());
+    }
+
+    /**
+     * Method used by the server which performs multiple authenticated actions at once, e.g. if a remote sends a batch
+     * of requests. Every distinct ticket is only decrypted once and all actions are performed in parallel on the
+     * given executor service.
+     *
+     * @param <RECEIVE>             The type of value that the server receives to perform its action,
+     * @param <RETURN>              The type of value that the server responds with.
+     * @param authenticatedValues   The authenticatedValues which are send with the request.
+     * @param internalClass         Class of type RECEIVE needed to decrypt the received type.
+     * @param transactionIdProvider The object providing the transaction id to be set in every response. If null no
+     *                              transaction id is set.
+     * @param executable            Interface defining the action that the server performs. This executable should
+     *                              also perform authorization if needed.
+     * @param executorService       The executor service on which the actions are performed.
+     *
+     * @return A list of futures containing the AuthenticatedValue which should be send as a response for the value at
+     * the same index.
+     *
+     * @throws CouldNotPerformException If the authenticated server manager is not available.
+     */
+    public static <RECEIVE extends Serializable, RETURN extends Serializable> List<Future<AuthenticatedValue>> authenticatedActions(
+            final List<AuthenticatedValue> authenticatedValues,
+            final Class<RECEIVE> internalClass,
+            final TransactionIdProvider transactionIdProvider,
+            final InternalIdentifiedProcessable<RECEIVE, RETURN> executable,
+            final ExecutorService executorService) throws CouldNotPerformException {
+        boolean containsTicket = false;
+        for (final AuthenticatedValue authenticatedValue : authenticatedValues) {
+            if (authenticatedValue.hasTicketAuthenticatorWrapper()) {
+                containsTicket = true;
+                break;
+            }
+        }
+
+        // decrypt each distinct ticket once so that the parallel actions only have to verify their authenticators
+        final TicketValidator ticketValidator;
+        if (containsTicket) {
+            final AuthenticatedServerManager authenticatedServerManager = AuthenticatedServerManager.getInstance();
+            final Map<ByteString, CouldNotPerformException> failedTicketMap = authenticatedServerManager.decryptClientServerTickets(authenticatedValues);
+            ticketValidator = value -> {
+                final CouldNotPerformException failure = failedTicketMap.get(value.getTicketAuthenticatorWrapper().getTicket());
+                if (failure != null) {
+                    throw failure;
+                }
+                return authenticatedServerManager.verifyClientServerTicket(value);
+            };
+        } else {
+            ticketValidator = value -> {
+                throw new CouldNotPerformException("Authenticated value does not contain a ticket");
+            };
+        }
+
+        final List<Future<AuthenticatedValue>> futureList = new ArrayList<>(authenticatedValues.size());
+        for (final AuthenticatedValue authenticatedValue : authenticatedValues) {
+            futureList.add(executorService.submit(() -> {
+                final AuthenticatedValue response = authenticatedAction(authenticatedValue, internalClass, ticketValidator, executable);
+                if (transactionIdProvider == null) {
+                    return response;
+                }
+                return response.toBuilder().setTransactionId(transactionIdProvider.getTransactionId()).build();
+            }));
+        }
+        return futureList;
+    }
+
     /**
      * Method used by the remote to request an authenticated action from a server.
      * <p>
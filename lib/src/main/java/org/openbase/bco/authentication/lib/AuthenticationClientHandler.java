@@ -55,14 +55,35 @@ public class AuthenticationClientHandler {
      * @throws CouldNotPerformException If de-/encryption of the ticket fails
      */
     public static TicketWrapperSessionKeyPair handleKeyDistributionCenterResponse(final UserClientPair userClientPair, final LoginCredentials userCredentials, final LoginCredentials clientCredentials, final TicketSessionKeyWrapper wrapper) throws CouldNotPerformException {
+        return handleKeyDistributionCenterResponse(userClientPair, userCredentials, clientCredentials, wrapper, null);
+    }
+
+    /**
+     * Handles a KeyDistributionCenter (KDC) response
+     * Decrypts the TicketGrantingServer (TGS) session key with client's hashed password
+     * Creates an Authenticator containing the clientID and current timestamp encrypted with the TGS session key
+     *
+     * @param userClientPair    pair identifying the user and client logged in
+     * @param userCredentials   credentials of the user logged in. Only required if the pair contains a user id.
+     * @param clientCredentials credentials of the client logged in. Only required if the pair contains a client id.
+     * @param wrapper           TicketSessionKeyWrapper containing the TicketGrantingTicket and TGS session key
+     * @param parsedKeyCache    cache of the store the credentials belong to which keeps their parsed keys
+     *
+     * @return Returns a pair containing:
+     * 1. An TicketAuthenticatorWrapperWrapper containing both the TicketGrantingTicket and Authenticator
+     * 2. A SessionKey representing the TGS session key
+     *
+     * @throws CouldNotPerformException If de-/encryption of the ticket fails
+     */
+    public static TicketWrapperSessionKeyPair handleKeyDistributionCenterResponse(final UserClientPair userClientPair, final LoginCredentials userCredentials, final LoginCredentials clientCredentials, final TicketSessionKeyWrapper wrapper, final ParsedKeyCache parsedKeyCache) throws CouldNotPerformException {
         byte[] ticketGrantingServiceSessionKey = wrapper.getSessionKey().toByteArray();
 
         // decrypt TGS session key
         if (userClientPair.hasClientId() && !userClientPair.getClientId().isEmpty()) {
-            ticketGrantingServiceSessionKey = EncryptionHelper.decrypt(ticketGrantingServiceSessionKey, clientCredentials, byte[].class);
+            ticketGrantingServiceSessionKey = EncryptionHelper.decrypt(ticketGrantingServiceSessionKey, clientCredentials, byte[].class, parsedKeyCache);
         }
         if (userClientPair.hasUserId() && !userClientPair.getUserId().isEmpty()) {
-            ticketGrantingServiceSessionKey = EncryptionHelper.decrypt(ticketGrantingServiceSessionKey, userCredentials, byte[].class);
+            ticketGrantingServiceSessionKey = EncryptionHelper.decrypt(ticketGrantingServiceSessionKey, userCredentials, byte[].class, parsedKeyCache);
         }
 
         // create Authenticator with empty timestamp
@@ -146,6 +167,30 @@ public class AuthenticationClientHandler {
         return ticketAuthenticatorWrapper.build();
     }
 
+    /**
+     * Initializes a ServiceServer request by setting the current timestamp in an already decrypted authenticator.
+     * This avoids decrypting the authenticator of the wrapper for every request.
+     *
+     * @param serviceServerSessionKey SS session key provided by handleTGSResponse()
+     * @param wrapper                 TicketAuthenticatorWrapper wrapper that contains the CST
+     * @param authenticator           the decrypted authenticator of the wrapper
+     *
+     * @return Returns a wrapper class containing both the CST and modified Authenticator
+     *
+     * @throws CouldNotPerformException if encrypting the authenticator fails
+     */
+    public static TicketAuthenticatorWrapper initServiceServerRequest(final byte[] serviceServerSessionKey, final TicketAuthenticatorWrapper wrapper, final Authenticator authenticator) throws CouldNotPerformException {
+        // update timestamp
+        final Authenticator.Builder authenticatorBuilder = authenticator.toBuilder();
+        authenticatorBuilder.setTimestamp(TimestampProcessor.getCurrentTimestamp());
+
+        // update ticket authenticatorWrapper
+        final TicketAuthenticatorWrapper.Builder ticketAuthenticatorWrapper = wrapper.toBuilder();
+        ticketAuthenticatorWrapper.setAuthenticator(EncryptionHelper.encryptSymmetric(authenticatorBuilder.build(), serviceServerSessionKey));
+
+        return ticketAuthenticatorWrapper.build();
+    }
+
     public static TicketAuthenticatorWrapper initServiceServerRequest(final TicketWrapperSessionKeyPair ticketWrapperSessionKeyPair) throws CouldNotPerformException {
         return initServiceServerRequest(ticketWrapperSessionKeyPair.getSessionKey(), ticketWrapperSessionKeyPair.getTicketAuthenticatorWrapper());
     }
@@ -164,6 +209,23 @@ public class AuthenticationClientHandler {
      * @throws CouldNotPerformException If de-/encryption of the authenticator fails or the timestamps do not match
      */
     public static TicketAuthenticatorWrapper handleServiceServerResponse(final byte[] serviceServerSessionKey, final TicketAuthenticatorWrapper lastWrapper, final TicketAuthenticatorWrapper currentWrapper) throws CouldNotPerformException {
+        verifyServiceServerResponse(serviceServerSessionKey, lastWrapper, currentWrapper);
+        return currentWrapper;
+    }
+
+    /**
+     * Handles a ServiceServer response like {@link #handleServiceServerResponse(byte[], TicketAuthenticatorWrapper, TicketAuthenticatorWrapper)}
+     * but returns the decrypted authenticator of the current wrapper so that it does not have to be decrypted again.
+     *
+     * @param serviceServerSessionKey SS session key provided by handleTGSResponse()
+     * @param lastWrapper             Last TicketAuthenticatorWrapper provided by either handleTGSResponse() or handleSSResponse()
+     * @param currentWrapper          Current TicketAuthenticatorWrapper provided by (Remote?)
+     *
+     * @return Returns the decrypted authenticator of the current wrapper
+     *
+     * @throws CouldNotPerformException If de-/encryption of the authenticator fails or the timestamps do not match
+     */
+    public static Authenticator verifyServiceServerResponse(final byte[] serviceServerSessionKey, final TicketAuthenticatorWrapper lastWrapper, final TicketAuthenticatorWrapper currentWrapper) throws CouldNotPerformException {
         // decrypt authenticators
         Authenticator lastAuthenticator = EncryptionHelper.decryptSymmetric(lastWrapper.getAuthenticator(), serviceServerSessionKey, Authenticator.class);
         Authenticator currentAuthenticator = EncryptionHelper.decryptSymmetric(currentWrapper.getAuthenticator(), serviceServerSessionKey, Authenticator.class);
@@ -171,7 +233,7 @@ public class AuthenticationClientHandler {
         // compare both timestamps
         AuthenticationClientHandler.validateTimestamp(lastAuthenticator.getTimestamp(), currentAuthenticator.getTimestamp());
 
-        return currentWrapper;
+        return currentAuthenticator;
     }
 
     /**
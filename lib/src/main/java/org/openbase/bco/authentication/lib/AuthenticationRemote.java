@@ -137,6 +137,18 @@ public class AuthenticationRemote implements AuthenticationService, Manageable<V
         return RPCHelper.callRemoteServerMethod(ticketAuthenticatorWrapper, remoteServer, TicketAuthenticatorWrapper.class);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @param ticketAuthenticatorWrappers {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     */
+    @Override
+    public Future<AuthenticatedValue> validateClientServerTickets(final AuthenticatedValue ticketAuthenticatorWrappers) {
+        return RPCHelper.callRemoteServerMethod(ticketAuthenticatorWrappers, remoteServer, AuthenticatedValue.class);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -74,7 +74,59 @@ public class AuthenticationServerHandler {
      */
     public static TicketSessionKeyWrapper handleKDCRequest(final UserClientPair userClientPair, final LoginCredentials userCredentials, final LoginCredentials clientCredentials, final byte[] ticketGrantingServiceSecretKey, final long validityTime)
             throws CouldNotPerformException {
-        byte[] ticketGrantingServiceSessionKey = EncryptionHelper.generateKey();
+        return handleKDCRequest(userClientPair, userCredentials, clientCredentials, ticketGrantingServiceSecretKey, validityTime, null);
+    }
+
+    /**
+     * Handles a Key Distribution Center (KDC) login request
+     * Creates a Ticket Granting Server (TGS) session key that is encrypted by the client's password
+     * Creates a Ticket Granting Ticket (TGT) that is encrypted by TGS private key
+     *
+     * @param userClientPair                 pair identifying the client and user which are logged in
+     * @param userCredentials                the credentials of the user which are only needed if a user is defined in
+     *                                       the userClientPair
+     * @param clientCredentials              the credentials of the client which are only needed if a client is defined in
+     *                                       the userClientPair
+     * @param ticketGrantingServiceSecretKey TGS secret key generated by controller or saved somewhere in the system
+     * @param validityTime                   the time in milliseconds from now how long the TGT is valid
+     * @param parsedKeyCache                 cache of the store the credentials belong to which keeps their parsed keys
+     *
+     * @return Returns wrapper class containing both the TGT and TGS session key
+     * <p>
+     *
+     * @throws NotAvailableException    Throws, if clientID was not found in database
+     * @throws CouldNotPerformException If the data for the remotes has not been synchronized yet.
+     */
+    public static TicketSessionKeyWrapper handleKDCRequest(final UserClientPair userClientPair, final LoginCredentials userCredentials, final LoginCredentials clientCredentials, final byte[] ticketGrantingServiceSecretKey, final long validityTime, final ParsedKeyCache parsedKeyCache)
+            throws CouldNotPerformException {
+        return handleKDCRequest(userClientPair, userCredentials, clientCredentials, ticketGrantingServiceSecretKey, validityTime, parsedKeyCache, false);
+    }
+
+    /**
+     * Handles a Key Distribution Center (KDC) login request
+     * Creates a Ticket Granting Server (TGS) session key that is encrypted by the client's password
+     * Creates a Ticket Granting Ticket (TGT) that is encrypted by TGS private key
+     *
+     * @param userClientPair                 pair identifying the client and user which are logged in
+     * @param userCredentials                the credentials of the user which are only needed if a user is defined in
+     *                                       the userClientPair
+     * @param clientCredentials              the credentials of the client which are only needed if a client is defined in
+     *                                       the userClientPair
+     * @param ticketGrantingServiceSecretKey TGS secret key generated by controller or saved somewhere in the system
+     * @param validityTime                   the time in milliseconds from now how long the TGT is valid
+     * @param parsedKeyCache                 cache of the store the credentials belong to which keeps their parsed keys
+     * @param hybridEncryption               true if the session key may be encrypted in hybrid mode for asymmetric
+     *                                       credentials, see {@link EncryptionHelper#encrypt(java.io.Serializable, LoginCredentials, ParsedKeyCache, boolean)}
+     *
+     * @return Returns wrapper class containing both the TGT and TGS session key
+     * <p>
+     *
+     * @throws NotAvailableException    Throws, if clientID was not found in database
+     * @throws CouldNotPerformException If the data for the remotes has not been synchronized yet.
+     */
+    public static TicketSessionKeyWrapper handleKDCRequest(final UserClientPair userClientPair, final LoginCredentials userCredentials, final LoginCredentials clientCredentials, final byte[] ticketGrantingServiceSecretKey, final long validityTime, final ParsedKeyCache parsedKeyCache, final boolean hybridEncryption)
+            throws CouldNotPerformException {
+        byte[] ticketGrantingServiceSessionKey = SessionKeyPool.getInstance().takeKey();
 
         // create ticket granting ticket
         final ByteString ticketGrantingTicket = updateAndEncryptTicket(Ticket.newBuilder().setUserClientPair(userClientPair), validityTime, ticketGrantingServiceSessionKey, ticketGrantingServiceSecretKey);
@@ -87,13 +139,13 @@ public class AuthenticationServerHandler {
             if (userCredentials == null) {
                 throw new NotAvailableException("user credentials");
             }
-            ticketGrantingServiceSessionKey = EncryptionHelper.encrypt(ticketGrantingServiceSessionKey, userCredentials);
+            ticketGrantingServiceSessionKey = EncryptionHelper.encrypt(ticketGrantingServiceSessionKey, userCredentials, parsedKeyCache, hybridEncryption);
         }
         if (userClientPair.hasClientId() && !userClientPair.getClientId().isEmpty()) {
             if (clientCredentials == null) {
                 throw new NotAvailableException("client credentials");
             }
-            ticketGrantingServiceSessionKey = EncryptionHelper.encrypt(ticketGrantingServiceSessionKey, clientCredentials);
+            ticketGrantingServiceSessionKey = EncryptionHelper.encrypt(ticketGrantingServiceSessionKey, clientCredentials, parsedKeyCache, hybridEncryption);
         }
 
         ticketSessionKeyWrapper.setSessionKey(ByteString.copyFrom(ticketGrantingServiceSessionKey));
@@ -127,7 +179,7 @@ public class AuthenticationServerHandler {
         AuthenticationServerHandler.validateTicket(ticketGrantingTicket, authenticator);
 
         // generate new session key
-        byte[] serviceServerSessionKey = EncryptionHelper.generateKey();
+        byte[] serviceServerSessionKey = SessionKeyPool.getInstance().takeKey();
 
         // update validity interval, session key and encrypt
         final ByteString clientServerTicket = EncryptionHelper.encryptSymmetric(serviceServerSessionKey, ticketGrantingServiceSessionKey);
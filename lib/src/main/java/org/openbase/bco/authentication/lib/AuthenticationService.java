@@ -112,6 +112,28 @@ public interface AuthenticationService {
     @RPCMethod
     Future<TicketAuthenticatorWrapper> validateClientServerTicket(final TicketAuthenticatorWrapper ticketAuthenticatorWrapper);
 
+    /**
+     * Validate a batch of ClientServerTickets in one call. Every entry is validated
+     * like a ticket passed to {@link #validateClientServerTicket(TicketAuthenticatorWrapper)}
+     * and the entries are processed in parallel. The failure of an entry does not
+     * affect the others.
+     *
+     * @param ticketAuthenticatorWrappers an authenticated value containing the wrappers
+     *                                    to validate encoded by {@link TicketValidationBatch#encodeRequest(java.util.List)}
+     *
+     * @return an authenticated value containing one result per wrapper in the order of the request
+     * which can be decoded by {@link TicketValidationBatch#decodeResponse(AuthenticatedValue)}.
+     * The result of a successful validation contains the updated TicketAuthenticatorWrapper
+     * and the result of a failed validation describes the error.
+     * <p>
+     * The initial cause can be detected by calling .get() catching the cancellation exception and resolving the initial cause via ExceptionProcessor.getInitialCause(...).
+     * Initial cause could be one of the following:
+     * <p>
+     * * CouldNotPerformException If the batch is malformed, in the case of an internal server error or if the remote call fails.
+     */
+    @RPCMethod
+    Future<AuthenticatedValue> validateClientServerTickets(final AuthenticatedValue ticketAuthenticatorWrappers);
+
     /**
      * Changes the credentials for a given user. Note that admins are allowed to change the credentials of other users
      * without verification of the old credentials.
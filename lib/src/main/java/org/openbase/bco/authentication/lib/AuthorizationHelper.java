@@ -42,6 +42,10 @@ import org.openbase.type.domotic.unit.UnitConfigType.UnitConfig;
 import org.openbase.type.domotic.unit.UnitTemplateType.UnitTemplate.UnitType;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -161,38 +165,231 @@ public class AuthorizationHelper {
      * @return Permission object representing the maximum permissions for the given user on the given unit.
      */
     public static Permission getPermission(UnitConfig unitConfig, String userId, Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> groups, Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> locations) {
+        // resolve the permission config only once for all permission types
+        final PermissionConfig permissionConfig = resolvePermissionConfig(unitConfig, userId, groups, locations);
         return Permission.newBuilder()
-                .setAccess(canAccess(unitConfig, userId, groups, locations))
-                .setRead(canRead(unitConfig, userId, groups, locations))
-                .setWrite(canWrite(unitConfig, userId, groups, locations))
+                .setAccess(permissionConfig != null && canDo(permissionConfig, userId, groups, PermissionType.ACCESS))
+                .setRead(permissionConfig != null && canDo(permissionConfig, userId, groups, PermissionType.READ))
+                .setWrite(permissionConfig != null && canDo(permissionConfig, userId, groups, PermissionType.WRITE))
                 .build();
     }
 
+    /**
+     * Checks whether a user has the permission to read from a unit by using a precomputed permission index.
+     *
+     * @param unitConfig      the unitConfig of the unit the user wants to read.
+     * @param userId          ID of the user whose permissions should be checked.
+     * @param permissionIndex index compiled from all groups and locations in the system.
+     *
+     * @return True if the user can read from the unit, false if not.
+     */
+    public static boolean canRead(final UnitConfig unitConfig, final String userId, final PermissionIndex permissionIndex) {
+        return permissionIndex.canDo(unitConfig, userId, PermissionType.READ);
+    }
+
+    /**
+     * Utility method which checks if a user or client defined in a user client pair have read permissions for a unit config
+     * by using a precomputed permission index.
+     *
+     * @param unitConfig      the unit config checked.
+     * @param userClientPair  the pair containing a user id and a client id.
+     * @param permissionIndex index compiled from all groups and locations in the system.
+     *
+     * @return true if either the user or the client have read permissions for the unit, else false.
+     */
+    public static boolean canRead(final UnitConfig unitConfig, final UserClientPair userClientPair, final PermissionIndex permissionIndex) {
+        return canRead(unitConfig, userClientPair.getUserId(), permissionIndex)
+                || canRead(unitConfig, userClientPair.getClientId(), permissionIndex);
+    }
+
+    /**
+     * Checks whether a user has the permission to write to a unit by using a precomputed permission index.
+     *
+     * @param unitConfig      the unitConfig of the unit the user wants to write to.
+     * @param userId          ID of the user whose permissions should be checked.
+     * @param permissionIndex index compiled from all groups and locations in the system.
+     *
+     * @return True if the user can write to the unit, false if not.
+     */
+    public static boolean canWrite(final UnitConfig unitConfig, final String userId, final PermissionIndex permissionIndex) {
+        return permissionIndex.canDo(unitConfig, userId, PermissionType.WRITE);
+    }
+
+    /**
+     * Utility method which checks if a user or client defined in a user client pair have write permissions for a unit config
+     * by using a precomputed permission index.
+     *
+     * @param unitConfig      the unit config checked.
+     * @param userClientPair  the pair containing a user id and a client id.
+     * @param permissionIndex index compiled from all groups and locations in the system.
+     *
+     * @return true if either the user or the client have write permissions for the unit, else false.
+     */
+    public static boolean canWrite(final UnitConfig unitConfig, final UserClientPair userClientPair, final PermissionIndex permissionIndex) {
+        return canWrite(unitConfig, userClientPair.getUserId(), permissionIndex)
+                || canWrite(unitConfig, userClientPair.getClientId(), permissionIndex);
+    }
+
+    /**
+     * Checks whether a user has the permission to access a unit by using a precomputed permission index.
+     *
+     * @param unitConfig      the unitConfig of the unit the user wants to access.
+     * @param userId          ID of the user whose permissions should be checked.
+     * @param permissionIndex index compiled from all groups and locations in the system.
+     *
+     * @return True if the user can access the unit, false if not.
+     */
+    public static boolean canAccess(final UnitConfig unitConfig, final String userId, final PermissionIndex permissionIndex) {
+        return permissionIndex.canDo(unitConfig, userId, PermissionType.ACCESS);
+    }
+
+    /**
+     * Utility method which checks if a user or client defined in a user client pair have access to a unit config
+     * by using a precomputed permission index.
+     *
+     * @param unitConfig      the unit config checked.
+     * @param userClientPair  the pair containing a user id and a client id.
+     * @param permissionIndex index compiled from all groups and locations in the system.
+     *
+     * @return true if either the user or the client can access the unit, else false.
+     */
+    public static boolean canAccess(final UnitConfig unitConfig, final UserClientPair userClientPair, final PermissionIndex permissionIndex) {
+        return canAccess(unitConfig, userClientPair.getUserId(), permissionIndex)
+                || canAccess(unitConfig, userClientPair.getClientId(), permissionIndex);
+    }
+
+    /**
+     * Checks all permissions for a user by using a precomputed permission index.
+     *
+     * @param unitConfig      the unitConfig of the unit for which the permissions apply.
+     * @param userId          ID of the user whose permissions should be checked.
+     * @param permissionIndex index compiled from all groups and locations in the system.
+     *
+     * @return Permission object representing the maximum permissions for the given user on the given unit.
+     */
+    public static Permission getPermission(final UnitConfig unitConfig, final String userId, final PermissionIndex permissionIndex) {
+        return Permission.newBuilder()
+                .setAccess(canAccess(unitConfig, userId, permissionIndex))
+                .setRead(canRead(unitConfig, userId, permissionIndex))
+                .setWrite(canWrite(unitConfig, userId, permissionIndex))
+                .build();
+    }
+
+    /**
+     * Checks for a whole collection of units if a user or client defined in a user client pair have read permissions.
+     * The location chain is resolved only once for all units and large collections are evaluated in parallel.
+     *
+     * @param unitConfigs     the unit configs checked.
+     * @param userClientPair  the pair containing a user id and a client id.
+     * @param permissionIndex index compiled from all groups and locations in the system.
+     *
+     * @return a bitset in which the bit of a unit is set, in iteration order of the collection, if it can be read.
+     */
+    public static BitSet canRead(final Collection<UnitConfig> unitConfigs, final UserClientPair userClientPair, final PermissionIndex permissionIndex) {
+        return permissionIndex.canDo(unitConfigs, userClientPair, PermissionType.READ);
+    }
+
+    /**
+     * Filters a collection of units by the read permissions of a user or client defined in a user client pair.
+     * The location chain is resolved only once for all units and large collections are evaluated in parallel.
+     *
+     * @param unitConfigs     the unit configs filtered.
+     * @param userClientPair  the pair containing a user id and a client id.
+     * @param permissionIndex index compiled from all groups and locations in the system.
+     *
+     * @return all units which can be read by either the user or the client, in iteration order of the collection.
+     */
+    public static List<UnitConfig> filterReadable(final Collection<UnitConfig> unitConfigs, final UserClientPair userClientPair, final PermissionIndex permissionIndex) {
+        return permissionIndex.filter(unitConfigs, userClientPair, PermissionType.READ);
+    }
+
+    /**
+     * Filters a collection of units by the read permissions of a user or client defined in a user client pair.
+     * A temporary permission index is compiled for this call so that the location chain is resolved only once for all units.
+     * If the groups and locations are used for multiple calls, prefer maintaining a {@link PermissionIndex}.
+     *
+     * @param unitConfigs    the unit configs filtered.
+     * @param userClientPair the pair containing a user id and a client id.
+     * @param groups         a map of all authorization groups.
+     * @param locations      a map of all locations.
+     *
+     * @return all units which can be read by either the user or the client, in iteration order of the collection.
+     */
+    public static List<UnitConfig> filterReadable(final Collection<UnitConfig> unitConfigs, final UserClientPair userClientPair, Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> groups, Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> locations) {
+        return filterReadable(unitConfigs, userClientPair, new PermissionIndex(groups, locations));
+    }
+
     public static boolean canDo(UnitConfig unitConfig, final String userId, Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> groups, Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> locations, PermissionType type) {
-        if (!isAuthenticationUnit(unitConfig) && !isRootLocation(unitConfig, locations)) {
-            // check if the given user has read permissions for the parent location otherwise skip all further checks
+        final PermissionConfig permissionConfig = resolvePermissionConfig(unitConfig, userId, groups, locations);
+        return permissionConfig != null && canDo(permissionConfig, userId, groups, type);
+    }
+
+    /**
+     * Resolve the effective permission config of a unit for a user.
+     * The location chain of the unit is only walked once while the user needs read permissions on every location of the chain.
+     *
+     * @param unitConfig The unitConfig of the unit for which the permissions apply.
+     * @param userId     ID of the user whose permissions should be checked.
+     * @param groups     All available groups in the system, indexed by their group ID.
+     * @param locations  All available locations in the system, indexed by their id.
+     *
+     * @return the effective permission config or null if the user can not read a parent location or the config can not be resolved.
+     */
+    private static PermissionConfig resolvePermissionConfig(final UnitConfig unitConfig, final String userId, final Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> groups, final Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> locations) {
+        if (isAuthenticationUnit(unitConfig) || isRootLocation(unitConfig, locations)) {
             try {
-                if (!canRead(getLocationUnitConfig(unitConfig.getPlacementConfig().getLocationId(), locations), userId, groups, locations)) {
-                    return false;
-                }
-            } catch (NotAvailableException ex) {
-                String scope;
-                try {
-                    scope = ScopeProcessor.generateStringRep(unitConfig.getScope());
-                } catch (CouldNotPerformException exx) {
-                    scope = "?";
+                return getPermissionConfig(unitConfig, locations);
+            } catch (CouldNotPerformException ex) {
+                ExceptionPrinter.printHistory("can not perform the canDo check! Permission will be denied!", ex, LOGGER, LogLevel.WARN);
+                return null;
+            }
+        }
+
+        // collect all parent locations up to the root location
+        final List<UnitConfig> locationChain = new ArrayList<>();
+        try {
+            UnitConfig locationUnitConfig = unitConfig;
+            do {
+                if (locationChain.size() > locations.size()) {
+                    throw new InvalidStateException("Location hierarchy contains a cycle!");
                 }
-                ExceptionPrinter.printHistory("PermissionConfig of Unit[" + scope + "] is denied!", ex, LOGGER, LogLevel.WARN);
-                return false;
+                locationUnitConfig = getLocationUnitConfig(locationUnitConfig.getPlacementConfig().getLocationId(), locations);
+                locationChain.add(locationUnitConfig);
+            } while (!isAuthenticationUnit(locationUnitConfig) && !isRootLocation(locationUnitConfig, locations));
+        } catch (CouldNotPerformException ex) {
+            String scope;
+            try {
+                scope = ScopeProcessor.generateStringRep(unitConfig.getScope());
+            } catch (CouldNotPerformException exx) {
+                scope = "?";
             }
+            ExceptionPrinter.printHistory("PermissionConfig of Unit[" + scope + "] is denied!", ex, LOGGER, LogLevel.WARN);
+            return null;
         }
 
         try {
-            return canDo(getPermissionConfig(unitConfig, locations), userId, groups, type);
+            // resolve the permissions top down and check if the given user has read permissions for every parent location
+            PermissionConfig permissionConfig = getPermissionConfig(locationChain.get(locationChain.size() - 1), locations);
+            for (int i = locationChain.size() - 1; i >= 0; i--) {
+                if (i < locationChain.size() - 1) {
+                    permissionConfig = inheritPermissionConfig(locationChain.get(i), permissionConfig);
+                }
+                if (!canDo(permissionConfig, userId, groups, PermissionType.READ)) {
+                    return null;
+                }
+            }
+            return inheritPermissionConfig(unitConfig, permissionConfig);
         } catch (CouldNotPerformException ex) {
             ExceptionPrinter.printHistory("can not perform the canDo check! Permission will be denied!", ex, LOGGER, LogLevel.WARN);
-            return false;
+            return null;
+        }
+    }
+
+    private static PermissionConfig inheritPermissionConfig(final UnitConfig unitConfig, final PermissionConfig parentLocationPermissionConfig) throws CouldNotPerformException {
+        if (!unitConfig.hasPermissionConfig()) {
+            return parentLocationPermissionConfig;
         }
+        return mergePermissionConfigs(unitConfig.getPermissionConfig(), parentLocationPermissionConfig);
     }
 
     /**
@@ -349,7 +546,7 @@ public class AuthorizationHelper {
         }
     }
 
-    private static boolean isAuthenticationUnit(final UnitConfig unitConfig) {
+    static boolean isAuthenticationUnit(final UnitConfig unitConfig) {
         switch (unitConfig.getUnitType()) {
             case USER:
             case AUTHORIZATION_GROUP:
@@ -380,7 +577,7 @@ public class AuthorizationHelper {
         }
     }
 
-    private static PermissionConfig mergePermissionConfigs(final PermissionConfig unitPermissionConfig, final PermissionConfig parentLocationPermissionConfig) throws CouldNotPerformException {
+    static PermissionConfig mergePermissionConfigs(final PermissionConfig unitPermissionConfig, final PermissionConfig parentLocationPermissionConfig) throws CouldNotPerformException {
         if (unitPermissionConfig == null) {
             throw new NotAvailableException("UserPermissionConfig");
         }
@@ -0,0 +1,206 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Crypto engine which reuses cipher and key objects.
+ * Ciphers and key factories are cached per thread so that no provider lookup is needed after the first
+ * call of a thread. Secret key objects are kept in a bounded concurrent cache keyed by the raw key bytes, which is
+ * cleared as a whole once it exceeds its size so that lookups never have to wait for each other.
+ */
+public class CachedCryptoEngine implements CryptoEngine {
+
+    /**
+     * The default number of secret keys kept by the cache.
+     */
+    public static final int DEFAULT_KEY_CACHE_SIZE = 1024;
+
+    private final ThreadLocal<Map<String, Cipher>> cipherCache;
+    private final ThreadLocal<Map<String, KeyFactory>> keyFactoryCache;
+    private final int keyCacheSize;
+    private final ConcurrentHashMap<SecretKeyCacheKey, Key> secretKeyCache;
+
+    /**
+     * Create a new cached crypto engine with the default key cache size.
+     */
+    public CachedCryptoEngine() {
+        this(DEFAULT_KEY_CACHE_SIZE);
+    }
+
+    /**
+     * Create a new cached crypto engine.
+     *
+     * @param keyCacheSize the maximal number of secret keys kept by the cache.
+     */
+    public CachedCryptoEngine(final int keyCacheSize) {
+        this.cipherCache = ThreadLocal.withInitial(HashMap::new);
+        this.keyFactoryCache = ThreadLocal.withInitial(HashMap::new);
+        this.keyCacheSize = keyCacheSize;
+        this.secretKeyCache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param transformation {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     *
+     * @throws NoSuchAlgorithmException {@inheritDoc}
+     * @throws NoSuchPaddingException   {@inheritDoc}
+     */
+    @Override
+    public Cipher getCipher(final String transformation) throws NoSuchAlgorithmException, NoSuchPaddingException {
+        final Map<String, Cipher> cipherMap = cipherCache.get();
+        Cipher cipher = cipherMap.get(transformation);
+        if (cipher == null) {
+            cipher = Cipher.getInstance(transformation);
+            cipherMap.put(transformation, cipher);
+        }
+        return cipher;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key       {@inheritDoc}
+     * @param algorithm {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     */
+    @Override
+    public Key getSecretKey(final byte[] key, final String algorithm) {
+        final Key cachedKey = secretKeyCache.get(new SecretKeyCacheKey(key, algorithm));
+        if (cachedKey != null) {
+            return cachedKey;
+        }
+
+        final Key secretKey = new SecretKeySpec(key, algorithm);
+        if (secretKeyCache.size() >= keyCacheSize) {
+            // session keys are short lived, so dropping all of them is cheaper than tracking their usage
+            secretKeyCache.clear();
+        }
+        // copy the key bytes so that later modifications of the given array do not affect the cache
+        final Key previousKey = secretKeyCache.putIfAbsent(new SecretKeyCacheKey(key.clone(), algorithm), secretKey);
+        return previousKey != null ? previousKey : secretKey;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key       {@inheritDoc}
+     * @param algorithm {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     *
+     * @throws NoSuchAlgorithmException {@inheritDoc}
+     * @throws InvalidKeySpecException  {@inheritDoc}
+     */
+    @Override
+    public PublicKey getPublicKey(final byte[] key, final String algorithm) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        return getKeyFactory(algorithm).generatePublic(new X509EncodedKeySpec(key));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key       {@inheritDoc}
+     * @param algorithm {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     *
+     * @throws NoSuchAlgorithmException {@inheritDoc}
+     * @throws InvalidKeySpecException  {@inheritDoc}
+     */
+    @Override
+    public PrivateKey getPrivateKey(final byte[] key, final String algorithm) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        return getKeyFactory(algorithm).generatePrivate(new PKCS8EncodedKeySpec(key));
+    }
+
+    /**
+     * Remove all cached secret keys.
+     * Ciphers and key factories are not affected since they do not contain any key material after being used.
+     */
+    public void clearKeyCache() {
+        secretKeyCache.clear();
+    }
+
+    private KeyFactory getKeyFactory(final String algorithm) throws NoSuchAlgorithmException {
+        final Map<String, KeyFactory> keyFactoryMap = keyFactoryCache.get();
+        KeyFactory keyFactory = keyFactoryMap.get(algorithm);
+        if (keyFactory == null) {
+            keyFactory = KeyFactory.getInstance(algorithm);
+            keyFactoryMap.put(algorithm, keyFactory);
+        }
+        return keyFactory;
+    }
+
+    /**
+     * Key type of the secret key cache comparing the raw key bytes by content.
+     */
+    private static class SecretKeyCacheKey {
+
+        private final byte[] key;
+        private final String algorithm;
+        private final int hashCode;
+
+        SecretKeyCacheKey(final byte[] key, final String algorithm) {
+            this.key = key;
+            this.algorithm = algorithm;
+            this.hashCode = 31 * Arrays.hashCode(key) + algorithm.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof SecretKeyCacheKey)) {
+                return false;
+            }
+            final SecretKeyCacheKey other = (SecretKeyCacheKey) object;
+            return algorithm.equals(other.algorithm) && Arrays.equals(key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -23,10 +23,17 @@ package org.openbase.bco.authentication.lib;
  */
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
+import org.openbase.bco.authentication.lib.jp.JPMappedCredentialStore;
+import org.openbase.jps.core.JPService;
+import org.openbase.jps.exception.JPNotAvailableException;
 import org.openbase.jul.exception.CouldNotPerformException;
 import org.openbase.jul.exception.CouldNotTransformException;
+import org.openbase.jul.exception.InitializationException;
 import org.openbase.jul.exception.NotAvailableException;
+import org.openbase.jul.exception.printer.ExceptionPrinter;
+import org.openbase.jul.exception.printer.LogLevel;
 import org.openbase.jul.extension.protobuf.processing.ProtoBufFileProcessor;
 import org.openbase.type.domotic.authentication.LoginCredentialsCollectionType.LoginCredentialsCollection;
 import org.openbase.type.domotic.authentication.LoginCredentialsEncodedCollectionType.LoginCredentialsEncodedCollection;
@@ -49,10 +56,63 @@ public class CredentialStore extends AbstractProtectedStore<LoginCredentials, Lo
      */
     public static final String SERVICE_SERVER_ID = "serviceServer";
 
+    private final Object adminCountLock = new Object();
+    private int adminCount = 0;
+    private boolean adminCountValid = true;
+    private long adminCountStamp = 0;
+
+    private final ParsedKeyCache parsedKeyCache = new ParsedKeyCache(ParsedKeyCache.DEFAULT_CAPACITY);
+
+    private Boolean mappedStorageEnabled;
+
     public CredentialStore() {
         super(new ProtoBufFileProcessor(new CredentialEncodingTransformer()));
     }
 
+    /**
+     * Get the cache of the keys parsed from the asymmetric credentials of this store.
+     * It should be passed to the {@link EncryptionHelper} when encrypting or decrypting with credentials of this store.
+     *
+     * @return the parsed key cache of this store.
+     */
+    public ParsedKeyCache getParsedKeyCache() {
+        return parsedKeyCache;
+    }
+
+    /**
+     * Enable or disable storing the credentials in the binary format of the {@link MappedCredentialStoreBackend}.
+     * This overwrites the {@link JPMappedCredentialStore} property and has to be done before the store is initialized.
+     *
+     * @param mappedStorageEnabled if the credentials should be stored in the binary format.
+     */
+    public void setMappedStorageEnabled(final boolean mappedStorageEnabled) {
+        this.mappedStorageEnabled = mappedStorageEnabled;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param filename {@inheritDoc}
+     *
+     * @throws InitializationException {@inheritDoc}
+     */
+    @Override
+    public void init(final String filename) throws InitializationException {
+        if (mappedStorageEnabled == null) {
+            try {
+                mappedStorageEnabled = JPService.getProperty(JPMappedCredentialStore.class).getValue();
+            } catch (JPNotAvailableException ex) {
+                throw new InitializationException(this, ex);
+            }
+        }
+
+        if (mappedStorageEnabled && !(getStoreBackend() instanceof MappedCredentialStoreBackend)) {
+            setStoreBackend(new MappedCredentialStoreBackend(getStoreBackend()));
+        }
+
+        super.init(filename);
+    }
+
     /**
      * Get the encrypted login credentials for a given user.
      *
@@ -144,18 +204,138 @@ public class CredentialStore extends AbstractProtectedStore<LoginCredentials, Lo
     }
 
     /**
-     * Query how many admin credentials are currently stored.
+     * {@inheritDoc}
+     *
+     * @param value {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     */
+    @Override
+    protected byte[] encodeEntry(final LoginCredentials value) {
+        return value.toByteArray();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param data {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     *
+     * @throws CouldNotPerformException {@inheritDoc}
+     */
+    @Override
+    protected LoginCredentials decodeEntry(final byte[] data) throws CouldNotPerformException {
+        try {
+            return LoginCredentials.parseFrom(data);
+        } catch (InvalidProtocolBufferException ex) {
+            throw new CouldNotPerformException("Could not decode login credentials", ex);
+        }
+    }
+
+    /**
+     * Query how many admin credentials are currently stored. After the store has been loaded the admins are
+     * counted once on the first call, afterwards the count is maintained on every change.
      *
      * @return the total number of admin credentials stored.
      */
     public int getAdminCount() {
-        int adminCount = 0;
-        for (LoginCredentials value : getEntryMap().values()) {
-            if (value.getAdmin()) {
+        final long stamp;
+        synchronized (adminCountLock) {
+            if (adminCountValid) {
+                return adminCount;
+            }
+            stamp = adminCountStamp;
+        }
+
+        int count = 0;
+        for (final Map.Entry<String, StoreEntry<LoginCredentials>> entry : getStoreEntryMap().entrySet()) {
+            // entries which cannot be decoded are not counted
+            if (Boolean.TRUE.equals(isAdmin(entry.getKey(), entry.getValue()))) {
+                count++;
+            }
+        }
+
+        synchronized (adminCountLock) {
+            // only keep the count if the store has not changed since the snapshot was taken
+            if (!adminCountValid && adminCountStamp == stamp) {
+                adminCount = count;
+                adminCountValid = true;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Test if a stored entry belongs to an admin. The flag of mapped records is read without decoding them.
+     *
+     * @param id         the id of the entry.
+     * @param storeEntry the entry to check.
+     *
+     * @return the admin flag of the entry or null if the entry could not be decoded.
+     */
+    private Boolean isAdmin(final String id, final StoreEntry<LoginCredentials> storeEntry) {
+        final Boolean adminFlag = MappedCredentialStoreBackend.getAdminFlag(storeEntry);
+        if (adminFlag != null) {
+            return adminFlag;
+        }
+
+        try {
+            return storeEntry.get().getAdmin();
+        } catch (CouldNotPerformException ex) {
+            ExceptionPrinter.printHistory(new CouldNotPerformException("Could not decode entry[" + id + "]", ex), logger, LogLevel.ERROR);
+            return null;
+        }
+    }
+
+    /**
+     * Maintain the number of admin credentials and remove the parsed key of replaced or removed credentials.
+     * Only decoded credentials can have a parsed key, so the previous entry is never decoded for this.
+     *
+     * @param id       {@inheritDoc}
+     * @param oldEntry {@inheritDoc}
+     * @param newValue {@inheritDoc}
+     */
+    @Override
+    protected void onEntryChanged(final String id, final StoreEntry<LoginCredentials> oldEntry, final LoginCredentials newValue) {
+        final LoginCredentials oldValue = oldEntry == null ? null : oldEntry.getIfDecoded();
+        if (oldValue != null && oldValue != newValue && !oldValue.getSymmetric()) {
+            parsedKeyCache.invalidate(oldValue);
+        }
+
+        synchronized (adminCountLock) {
+            adminCountStamp++;
+            if (!adminCountValid) {
+                return;
+            }
+
+            final Boolean oldAdmin = oldEntry == null ? Boolean.FALSE : isAdmin(id, oldEntry);
+            if (oldAdmin == null) {
+                // the previous entry could not be decoded so count again on the next request
+                adminCountValid = false;
+                return;
+            }
+
+            if (oldAdmin) {
+                adminCount--;
+            }
+            if (newValue != null && newValue.getAdmin()) {
                 adminCount++;
             }
         }
-        return adminCount;
+    }
+
+    /**
+     * Invalidate the number of admin credentials so that it is counted again on the next request.
+     * Because the replaced credentials are not known anymore, all parsed keys of this store are removed.
+     */
+    @Override
+    protected void onEntriesReplaced() {
+        parsedKeyCache.clear();
+        synchronized (adminCountLock) {
+            adminCountStamp++;
+            adminCountValid = false;
+        }
     }
 
     public static LoginCredentialsEncoded encode(final LoginCredentials loginCredentials) {
@@ -0,0 +1,90 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+
+/**
+ * Engine providing the cipher and key objects used by the {@link EncryptionHelper}.
+ * The engine can be exchanged via {@link EncryptionHelper#setCryptoEngine(CryptoEngine)} so that
+ * all callers of the static encryption api benefit from a different strategy, e.g. caching, without code changes.
+ * <p>
+ * Note: a cipher returned by an engine may be reused by later calls of the same thread.
+ * Therefore it should only be used by the calling thread and should not be kept after the encryption or decryption is done.
+ */
+public interface CryptoEngine {
+
+    /**
+     * Get a cipher for the given transformation. The cipher still needs to be initialized.
+     *
+     * @param transformation the transformation of the cipher, e.g. AES or RSA.
+     *
+     * @return a cipher for the transformation.
+     *
+     * @throws NoSuchAlgorithmException if the transformation is not supported.
+     * @throws NoSuchPaddingException   if the padding scheme of the transformation is not supported.
+     */
+    Cipher getCipher(final String transformation) throws NoSuchAlgorithmException, NoSuchPaddingException;
+
+    /**
+     * Get a secret key object for symmetric en- or decryption.
+     *
+     * @param key       the raw key.
+     * @param algorithm the algorithm the key is used for.
+     *
+     * @return the key object.
+     */
+    Key getSecretKey(final byte[] key, final String algorithm);
+
+    /**
+     * Parse a public key from its X.509 encoding.
+     *
+     * @param key       the encoded public key.
+     * @param algorithm the algorithm of the key.
+     *
+     * @return the parsed public key.
+     *
+     * @throws NoSuchAlgorithmException if the algorithm is not supported.
+     * @throws InvalidKeySpecException  if the key could not be parsed.
+     */
+    PublicKey getPublicKey(final byte[] key, final String algorithm) throws NoSuchAlgorithmException, InvalidKeySpecException;
+
+    /**
+     * Parse a private key from its PKCS#8 encoding.
+     *
+     * @param key       the encoded private key.
+     * @param algorithm the algorithm of the key.
+     *
+     * @return the parsed private key.
+     *
+     * @throws NoSuchAlgorithmException if the algorithm is not supported.
+     * @throws InvalidKeySpecException  if the key could not be parsed.
+     */
+    PrivateKey getPrivateKey(final byte[] key, final String algorithm) throws NoSuchAlgorithmException, InvalidKeySpecException;
+}
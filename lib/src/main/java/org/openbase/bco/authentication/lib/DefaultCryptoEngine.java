@@ -0,0 +1,102 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+
+/**
+ * Crypto engine which creates new cipher and key objects for every request.
+ * This engine does not keep any state and is used by default.
+ */
+public class DefaultCryptoEngine implements CryptoEngine {
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param transformation {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     *
+     * @throws NoSuchAlgorithmException {@inheritDoc}
+     * @throws NoSuchPaddingException   {@inheritDoc}
+     */
+    @Override
+    public Cipher getCipher(final String transformation) throws NoSuchAlgorithmException, NoSuchPaddingException {
+        return Cipher.getInstance(transformation);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key       {@inheritDoc}
+     * @param algorithm {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     */
+    @Override
+    public Key getSecretKey(final byte[] key, final String algorithm) {
+        return new SecretKeySpec(key, algorithm);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key       {@inheritDoc}
+     * @param algorithm {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     *
+     * @throws NoSuchAlgorithmException {@inheritDoc}
+     * @throws InvalidKeySpecException  {@inheritDoc}
+     */
+    @Override
+    public PublicKey getPublicKey(final byte[] key, final String algorithm) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        return KeyFactory.getInstance(algorithm).generatePublic(new X509EncodedKeySpec(key));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key       {@inheritDoc}
+     * @param algorithm {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     *
+     * @throws NoSuchAlgorithmException {@inheritDoc}
+     * @throws InvalidKeySpecException  {@inheritDoc}
+     */
+    @Override
+    public PrivateKey getPrivateKey(final byte[] key, final String algorithm) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        return KeyFactory.getInstance(algorithm).generatePrivate(new PKCS8EncodedKeySpec(key));
+    }
+}
@@ -1,6 +1,9 @@
 package org.openbase.bco.authentication.lib;
 
 import com.google.protobuf.ByteString;
+import org.openbase.bco.authentication.lib.jp.JPCachedCryptoEngine;
+import org.openbase.jps.core.JPService;
+import org.openbase.jps.exception.JPNotAvailableException;
 import org.openbase.jul.exception.CouldNotPerformException;
 import org.openbase.jul.exception.FatalImplementationErrorException;
 import org.openbase.jul.exception.printer.ExceptionPrinter;
@@ -9,13 +12,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.crypto.*;
-import javax.crypto.spec.SecretKeySpec;
-import java.io.*;
+import java.io.IOException;
+import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.security.*;
+import java.security.interfaces.RSAKey;
 import java.security.spec.InvalidKeySpecException;
-import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
 import java.util.Arrays;
 
 /*-
@@ -52,6 +54,8 @@ public class EncryptionHelper {
 
     private static final String ASYMMETRIC_ALGORITHM = "RSA";
     private static final String ASYMMETRIC_TRANSFORMATION = ASYMMETRIC_ALGORITHM;
+    // number of bytes added by the PKCS#1 padding used by the asymmetric transformation
+    private static final int ASYMMETRIC_PADDING_LENGTH = 11;
     private static final int ASYMMETRIC_KEY_LENGTH = 1024;
 
     private static final String SYMMETRIC_ALGORITHM = "AES";
@@ -63,6 +67,50 @@ public class EncryptionHelper {
 
     private static final String HASH_ALGORITHM = "SHA-256";
 
+    /**
+     * The engine providing ciphers and keys for all en- and decryptions.
+     */
+    private static volatile CryptoEngine cryptoEngine;
+
+    /**
+     * Set the engine which provides ciphers and keys for all en- and decryptions performed by this helper.
+     * By default the engine is selected by the {@link org.openbase.bco.authentication.lib.jp.JPCachedCryptoEngine}
+     * property, which installs a {@link CachedCryptoEngine} unless it is disabled.
+     *
+     * @param cryptoEngine the new engine.
+     */
+    public static void setCryptoEngine(final CryptoEngine cryptoEngine) {
+        if (cryptoEngine == null) {
+            throw new IllegalArgumentException("CryptoEngine can not be null!");
+        }
+        EncryptionHelper.cryptoEngine = cryptoEngine;
+    }
+
+    /**
+     * Get the engine currently used by this helper.
+     *
+     * @return the current crypto engine.
+     */
+    public static CryptoEngine getCryptoEngine() {
+        CryptoEngine engine = cryptoEngine;
+        if (engine == null) {
+            synchronized (EncryptionHelper.class) {
+                engine = cryptoEngine;
+                if (engine == null) {
+                    boolean cached;
+                    try {
+                        cached = JPService.getProperty(JPCachedCryptoEngine.class).getValue();
+                    } catch (JPNotAvailableException ex) {
+                        cached = true;
+                    }
+                    engine = cached ? new CachedCryptoEngine() : new DefaultCryptoEngine();
+                    cryptoEngine = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
     /**
      * Generate a key with given transformation and key length which can then be used
      * for symmetric en- or decryption.
@@ -71,9 +119,7 @@ public class EncryptionHelper {
      */
     public static byte[] generateKey() {
         try {
-            KeyGenerator keyGenerator = KeyGenerator.getInstance(SYMMETRIC_ALGORITHM);
-            keyGenerator.init(SYMMETRIC_KEY_LENGTH);
-            SecretKey secretKey = keyGenerator.generateKey();
+            SecretKey secretKey = createKeyGenerator().generateKey();
             return secretKey.getEncoded();
         } catch (NoSuchAlgorithmException ex) {
             ExceptionPrinter.printHistory(new FatalImplementationErrorException("Key transformation non existent", EncryptionHelper.class, ex), LOGGER);
@@ -81,6 +127,20 @@ public class EncryptionHelper {
         }
     }
 
+    /**
+     * Create a key generator for the keys generated by {@link #generateKey()}.
+     * A key generator is not thread-safe but can be reused to generate multiple keys.
+     *
+     * @return a new initialized key generator.
+     *
+     * @throws NoSuchAlgorithmException if the symmetric algorithm is not supported.
+     */
+    static KeyGenerator createKeyGenerator() throws NoSuchAlgorithmException {
+        final KeyGenerator keyGenerator = KeyGenerator.getInstance(SYMMETRIC_ALGORITHM);
+        keyGenerator.init(SYMMETRIC_KEY_LENGTH);
+        return keyGenerator;
+    }
+
     /**
      * Generate a key pair given transformation and key length which can then be used
      * for asymmetric en- or decryption.
@@ -157,7 +217,70 @@ public class EncryptionHelper {
      * @throws CouldNotPerformException if encryption fails.
      */
     public static byte[] encrypt(final Serializable object, final LoginCredentials loginCredentials) throws CouldNotPerformException {
-        return encrypt(object, loginCredentials.getCredentials().toByteArray(), loginCredentials.getSymmetric());
+        return encrypt(object, loginCredentials, null);
+    }
+
+    /**
+     * Encrypt an object into a byte array.
+     *
+     * @param object           the object which is encrypted.
+     * @param loginCredentials type containing the credentials and a flag if symmetric or asymmetric encryption should
+     *                         be used.
+     * @param parsedKeyCache   cache of the store the credentials belong to which keeps their parsed public key. If null
+     *                         the key is parsed on every call.
+     *
+     * @throws CouldNotPerformException if encryption fails.
+     */
+    public static byte[] encrypt(final Serializable object, final LoginCredentials loginCredentials, final ParsedKeyCache parsedKeyCache) throws CouldNotPerformException {
+        return encrypt(object, loginCredentials, parsedKeyCache, false);
+    }
+
+    /**
+     * Encrypt an object into a byte array.
+     * In hybrid mode an object encrypted for asymmetric credentials is encrypted with a fresh symmetric key and only
+     * this key is encrypted with the public key of the credentials. This removes the size limit of plain asymmetric
+     * encryption and keeps the asymmetric part constant in size. Objects which fit into a single asymmetric block,
+     * e.g. session keys, are always encrypted plainly since hybrid mode would only add a symmetric encryption.
+     * The decryption detects both formats, but older peers can only decrypt plainly encrypted objects. Hybrid mode
+     * should therefore only be enabled, e.g. via the {@link org.openbase.bco.authentication.lib.jp.JPHybridEncryption}
+     * property, once all peers support it, just like the payload envelope which can be disabled via
+     * {@link org.openbase.bco.authentication.lib.jp.JPLegacyPayloadEncoding} until then.
+     *
+     * @param object           the object which is encrypted.
+     * @param loginCredentials type containing the credentials and a flag if symmetric or asymmetric encryption should
+     *                         be used.
+     * @param parsedKeyCache   cache of the store the credentials belong to which keeps their parsed public key. If null
+     *                         the key is parsed on every call.
+     * @param hybridEncryption true if objects which do not fit into a single asymmetric block should be encrypted in
+     *                         hybrid mode.
+     *
+     * @throws CouldNotPerformException if encryption fails.
+     */
+    public static byte[] encrypt(final Serializable object, final LoginCredentials loginCredentials, final ParsedKeyCache parsedKeyCache, final boolean hybridEncryption) throws CouldNotPerformException {
+        if (loginCredentials.getSymmetric()) {
+            return encrypt(object, loginCredentials.getCredentials().toByteArray(), true);
+        }
+
+        final PublicKey publicKey;
+        try {
+            final ParsedKeyCache.KeyParser<PublicKey> keyParser = key -> getCryptoEngine().getPublicKey(key, ASYMMETRIC_ALGORITHM);
+            publicKey = parsedKeyCache != null ? parsedKeyCache.getKey(loginCredentials, PublicKey.class, keyParser) : keyParser.parse(loginCredentials.getCredentials().toByteArray());
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException ex) {
+            throw new FatalImplementationErrorException("Unable to parse public key of credentials[" + loginCredentials.getId() + "]", EncryptionHelper.class, ex);
+        }
+
+        final byte[] encodedObject = encode(object);
+        if (!hybridEncryption || encodedObject.length <= getModulusLength(publicKey) - ASYMMETRIC_PADDING_LENGTH) {
+            return encryptEncoded(encodedObject, publicKey, ASYMMETRIC_TRANSFORMATION);
+        }
+
+        // encrypt the object with a fresh symmetric key and append it to the encrypted key
+        final byte[] symmetricKey = SessionKeyPool.getInstance().takeKey();
+        final byte[] encryptedKey = encryptEncoded(symmetricKey, publicKey, ASYMMETRIC_TRANSFORMATION);
+        final byte[] encryptedObject = encryptEncoded(encodedObject, getCryptoEngine().getSecretKey(symmetricKey, SYMMETRIC_ALGORITHM), SYMMETRIC_TRANSFORMATION);
+        final byte[] encrypted = Arrays.copyOf(encryptedKey, encryptedKey.length + encryptedObject.length);
+        System.arraycopy(encryptedObject, 0, encrypted, encryptedKey.length, encryptedObject.length);
+        return encrypted;
     }
 
     /**
@@ -172,31 +295,88 @@ public class EncryptionHelper {
      * @throws CouldNotPerformException if encrypting fails encryption.
      */
     public static byte[] encrypt(final Serializable object, final byte[] key, final boolean symmetric) throws CouldNotPerformException {
+        return encryptEncoded(encode(object), key, symmetric);
+    }
+
+    /**
+     * Encode an object into the plain bytes which are encrypted by this helper.
+     * An object which is sent to multiple receivers can be encoded once and then encrypted for
+     * every receiver via {@link #encryptEncoded(byte[], byte[], boolean)}.
+     *
+     * @param object the object to encode.
+     *
+     * @return the encoded object.
+     *
+     * @throws CouldNotPerformException if the object could not be encoded.
+     */
+    public static byte[] encode(final Serializable object) throws CouldNotPerformException {
+        try {
+            return PayloadCodec.encode(object);
+        } catch (IOException ex) {
+            throw new CouldNotPerformException("Could not encode object[" + object + "]", ex);
+        }
+    }
+
+    /**
+     * Encrypts an object encoded by {@link #encode(Serializable)} into a ByteString using a symmetric key.
+     *
+     * @param encodedObject the encoded object.
+     * @param key           byte[] to encrypt the object with.
+     *
+     * @return Returns encrypted object as ByteString
+     *
+     * @throws CouldNotPerformException if encrypting fails encryption.
+     */
+    public static ByteString encryptSymmetricEncoded(final byte[] encodedObject, final byte[] key) throws CouldNotPerformException {
+        return ByteString.copyFrom(encryptEncoded(encodedObject, key, true));
+    }
+
+    /**
+     * Encrypts an object encoded by {@link #encode(Serializable)}. The result equals the encryption of the object itself.
+     *
+     * @param encodedObject the encoded object.
+     * @param key           byte[] to encrypt the object with.
+     * @param symmetric     if the encryption should use a symmetric or asymmetric key.
+     *
+     * @return the encrypted object.
+     *
+     * @throws CouldNotPerformException if encrypting fails encryption.
+     */
+    public static byte[] encryptEncoded(final byte[] encodedObject, final byte[] key, final boolean symmetric) throws CouldNotPerformException {
+        final Key keyType;
         try {
-            Key keyType;
-            Cipher cipher;
-            // specify key and generate cipher
+            // specify key
             if (symmetric) {
-                keyType = new SecretKeySpec(key, SYMMETRIC_ALGORITHM);
-                cipher = Cipher.getInstance(SYMMETRIC_TRANSFORMATION);
+                keyType = getCryptoEngine().getSecretKey(key, SYMMETRIC_ALGORITHM);
             } else {
-                keyType = KeyFactory.getInstance(ASYMMETRIC_TRANSFORMATION).generatePublic(new X509EncodedKeySpec(key));
-                cipher = Cipher.getInstance(ASYMMETRIC_TRANSFORMATION);
+                keyType = getCryptoEngine().getPublicKey(key, ASYMMETRIC_ALGORITHM);
             }
-            cipher.init(Cipher.ENCRYPT_MODE, keyType);
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException ex) {
+            throw new FatalImplementationErrorException("Unable to encrypt encoded object", EncryptionHelper.class, ex);
+        }
+        return encryptEncoded(encodedObject, keyType, symmetric ? SYMMETRIC_TRANSFORMATION : ASYMMETRIC_TRANSFORMATION);
+    }
+
+    /**
+     * Encrypts an object encoded by {@link #encode(Serializable)} with an already parsed key.
+     *
+     * @param encodedObject  the encoded object.
+     * @param key            the key to encrypt the object with.
+     * @param transformation the transformation of the cipher used.
+     *
+     * @return the encrypted object.
+     *
+     * @throws CouldNotPerformException if encrypting fails encryption.
+     */
+    private static byte[] encryptEncoded(final byte[] encodedObject, final Key key, final String transformation) throws CouldNotPerformException {
+        try {
+            final Cipher cipher = getCryptoEngine().getCipher(transformation);
+            cipher.init(Cipher.ENCRYPT_MODE, key);
 
             // cipher
-            try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
-                try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
-                    objectOutputStream.writeObject(object);
-                    objectOutputStream.flush();
-                    return cipher.doFinal(byteArrayOutputStream.toByteArray());
-                }
-            }
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException | IllegalBlockSizeException | InvalidKeyException | BadPaddingException | InvalidKeySpecException ex) {
-            throw new FatalImplementationErrorException("Unable to encrypt object[" + object + "]", EncryptionHelper.class, ex);
-        } catch (IOException ex) {
-            throw new CouldNotPerformException("Could not encrypt object[" + object + "]", ex);
+            return cipher.doFinal(encodedObject);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException | IllegalBlockSizeException | InvalidKeyException | BadPaddingException ex) {
+            throw new FatalImplementationErrorException("Unable to encrypt encoded object", EncryptionHelper.class, ex);
         }
     }
 
@@ -234,6 +414,8 @@ public class EncryptionHelper {
 
     /**
      * Decrypt a ByteString into an object of type T.
+     * For asymmetric credentials objects encrypted in hybrid mode are detected by their length, since a plainly
+     * encrypted object always has the length of the key modulus.
      *
      * @param encryptedObject  byte array to be decrypted.
      * @param loginCredentials type containing the credentials and if symmetric or asymmetric encryption needs to be used.
@@ -245,7 +427,81 @@ public class EncryptionHelper {
      * @throws CouldNotPerformException if the byte array could not be decrypted using the given key or is not an instance of the given class.
      */
     public static <T> T decrypt(final byte[] encryptedObject, final LoginCredentials loginCredentials, final Class<T> encryptedClass) throws CouldNotPerformException {
-        return decrypt(encryptedObject, loginCredentials.getCredentials().toByteArray(), encryptedClass, loginCredentials.getSymmetric());
+        return decrypt(encryptedObject, loginCredentials, encryptedClass, null);
+    }
+
+    /**
+     * Decrypt a ByteString into an object of type T.
+     * For asymmetric credentials objects encrypted in hybrid mode are detected by their length, since a plainly
+     * encrypted object always has the length of the key modulus.
+     *
+     * @param encryptedObject  byte array to be decrypted.
+     * @param loginCredentials type containing the credentials and if symmetric or asymmetric encryption needs to be used.
+     * @param encryptedClass   the class to which the decrypted object is cast
+     * @param parsedKeyCache   cache of the store the credentials belong to which keeps their parsed private key. If null
+     *                         the key is parsed on every call.
+     * @param <T>              the type to which the encrypted object is casted.
+     *
+     * @return the decrypted object cast to class T.
+     *
+     * @throws CouldNotPerformException if the byte array could not be decrypted using the given key or is not an instance of the given class.
+     */
+    public static <T> T decrypt(final byte[] encryptedObject, final LoginCredentials loginCredentials, final Class<T> encryptedClass, final ParsedKeyCache parsedKeyCache) throws CouldNotPerformException {
+        if (loginCredentials.getSymmetric()) {
+            return decrypt(encryptedObject, loginCredentials.getCredentials().toByteArray(), encryptedClass, true);
+        }
+
+        final PrivateKey privateKey;
+        try {
+            final ParsedKeyCache.KeyParser<PrivateKey> keyParser = key -> getCryptoEngine().getPrivateKey(key, ASYMMETRIC_ALGORITHM);
+            privateKey = parsedKeyCache != null ? parsedKeyCache.getKey(loginCredentials, PrivateKey.class, keyParser) : keyParser.parse(loginCredentials.getCredentials().toByteArray());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new FatalImplementationErrorException("Decryption of [" + encryptedObject + "] failed", EncryptionHelper.class, ex);
+        } catch (InvalidKeySpecException ex) {
+            throw new CouldNotPerformException("Could not decrypt byte array to object of type[" + encryptedClass.getName() + "]", ex);
+        }
+
+        return decryptWithPrivateKey(encryptedObject, privateKey, encryptedClass);
+    }
+
+    /**
+     * Decrypt an object encrypted with the public key matching the given private key.
+     * Objects encrypted in hybrid mode are detected by their length, since a plainly encrypted object always has
+     * the length of the key modulus.
+     *
+     * @param encryptedObject the byte array to be decrypted.
+     * @param privateKey      the private key to decrypt the object or its symmetric key with.
+     * @param encryptedClass  the class to which the decrypted object is cast
+     * @param <T>             the type to which the encrypted object is casted.
+     *
+     * @return the decrypted object cast to class T.
+     *
+     * @throws CouldNotPerformException if the byte array could not be decrypted using the given key or is not an instance of the given class.
+     */
+    private static <T> T decryptWithPrivateKey(final byte[] encryptedObject, final Key privateKey, final Class<T> encryptedClass) throws CouldNotPerformException {
+        final int encryptedKeyLength = getModulusLength(privateKey);
+        if (encryptedKeyLength <= 0 || encryptedObject.length <= encryptedKeyLength) {
+            return decrypt(encryptedObject, privateKey, ASYMMETRIC_TRANSFORMATION, encryptedClass);
+        }
+
+        // the object has been encrypted in hybrid mode so decrypt the symmetric key first
+        final byte[] symmetricKey = decryptEncoded(Arrays.copyOf(encryptedObject, encryptedKeyLength), privateKey, ASYMMETRIC_TRANSFORMATION, encryptedClass);
+        final byte[] encryptedPayload = Arrays.copyOfRange(encryptedObject, encryptedKeyLength, encryptedObject.length);
+        return decrypt(encryptedPayload, getCryptoEngine().getSecretKey(symmetricKey, SYMMETRIC_ALGORITHM), SYMMETRIC_TRANSFORMATION, encryptedClass);
+    }
+
+    /**
+     * Get the length in bytes of the modulus of an asymmetric key which is also the length of everything encrypted by it.
+     *
+     * @param key the asymmetric key.
+     *
+     * @return the length of the modulus or -1 if the key does not provide one.
+     */
+    private static int getModulusLength(final Key key) {
+        if (!(key instanceof RSAKey)) {
+            return -1;
+        }
+        return (((RSAKey) key).getModulus().bitLength() + 7) / 8;
     }
 
     /**
@@ -267,6 +523,8 @@ public class EncryptionHelper {
 
     /**
      * Decrypts a ByteArray into an Object of type T.
+     * Objects encrypted asymmetrically in hybrid mode are detected by their length, see
+     * {@link #encrypt(Serializable, LoginCredentials, ParsedKeyCache, boolean)}.
      *
      * @param <T>             the type to which the encrypted object is casted
      * @param encryptedObject ByteString to be decrypted
@@ -279,29 +537,70 @@ public class EncryptionHelper {
      * @throws CouldNotPerformException if the byte array could not be decrypted using the given key or is not an instance of the given class
      */
     public static <T> T decrypt(final byte[] encryptedObject, final byte[] key, final Class<T> encryptedClass, final boolean symmetric) throws CouldNotPerformException {
+        final Key keyType;
         try {
-            Key keyType;
-            Cipher cipher;
-            // specify key and generate cipher
+            // specify key
             if (symmetric) {
-                keyType = new SecretKeySpec(key, SYMMETRIC_ALGORITHM);
-                cipher = Cipher.getInstance(SYMMETRIC_TRANSFORMATION);
+                keyType = getCryptoEngine().getSecretKey(key, SYMMETRIC_ALGORITHM);
             } else {
-                keyType = KeyFactory.getInstance(ASYMMETRIC_TRANSFORMATION).generatePrivate(new PKCS8EncodedKeySpec(key));
-                cipher = Cipher.getInstance(ASYMMETRIC_TRANSFORMATION);
+                keyType = getCryptoEngine().getPrivateKey(key, ASYMMETRIC_ALGORITHM);
             }
-            cipher.init(Cipher.DECRYPT_MODE, keyType);
-            byte[] decrypted = cipher.doFinal(encryptedObject);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new FatalImplementationErrorException("Decryption of [" + encryptedObject + "] failed", EncryptionHelper.class, ex);
+        } catch (InvalidKeySpecException ex) {
+            throw new CouldNotPerformException("Could not decrypt byte array to object of type[" + encryptedClass.getName() + "]", ex);
+        }
+        if (!symmetric) {
+            return decryptWithPrivateKey(encryptedObject, keyType, encryptedClass);
+        }
+        return decrypt(encryptedObject, keyType, SYMMETRIC_TRANSFORMATION, encryptedClass);
+    }
 
+    /**
+     * Decrypts a byte array with an already parsed key into an object of type T.
+     *
+     * @param <T>             the type to which the encrypted object is casted
+     * @param encryptedObject the byte array to be decrypted.
+     * @param key             the key to decrypt the encrypted object with.
+     * @param transformation  the transformation of the cipher used.
+     * @param encryptedClass  the class to which the decrypted object is cast
+     *
+     * @return the decrypted object cast as T
+     *
+     * @throws CouldNotPerformException if the byte array could not be decrypted using the given key or is not an instance of the given class
+     */
+    private static <T> T decrypt(final byte[] encryptedObject, final Key key, final String transformation, final Class<T> encryptedClass) throws CouldNotPerformException {
+        final byte[] decrypted = decryptEncoded(encryptedObject, key, transformation, encryptedClass);
+        try {
             // decipher
-            try (ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(decrypted)) {
-                try (ObjectInputStream objectInputStream = new ObjectInputStream(byteArrayInputStream)) {
-                    return (T) objectInputStream.readObject();
-                }
-            }
-        } catch (NoSuchAlgorithmException | ClassNotFoundException | NoSuchPaddingException | IllegalBlockSizeException ex) {
+            return PayloadCodec.decode(decrypted, encryptedClass);
+        } catch (ClassNotFoundException ex) {
+            throw new FatalImplementationErrorException("Decryption of [" + encryptedObject + "] failed", EncryptionHelper.class, ex);
+        } catch (IOException | ClassCastException ex) {
+            throw new CouldNotPerformException("Could not decrypt byte array to object of type[" + encryptedClass.getName() + "]", ex);
+        }
+    }
+
+    /**
+     * Decrypts a byte array with an already parsed key without decoding the result.
+     *
+     * @param encryptedObject the byte array to be decrypted.
+     * @param key             the key to decrypt the encrypted object with.
+     * @param transformation  the transformation of the cipher used.
+     * @param encryptedClass  the class of the encrypted object used for error messages.
+     *
+     * @return the decrypted bytes.
+     *
+     * @throws CouldNotPerformException if the byte array could not be decrypted using the given key
+     */
+    private static byte[] decryptEncoded(final byte[] encryptedObject, final Key key, final String transformation, final Class<?> encryptedClass) throws CouldNotPerformException {
+        try {
+            final Cipher cipher = getCryptoEngine().getCipher(transformation);
+            cipher.init(Cipher.DECRYPT_MODE, key);
+            return cipher.doFinal(encryptedObject);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException | IllegalBlockSizeException ex) {
             throw new FatalImplementationErrorException("Decryption of [" + encryptedObject + "] failed", EncryptionHelper.class, ex);
-        } catch (IOException | BadPaddingException | ClassCastException | InvalidKeyException | InvalidKeySpecException ex) {
+        } catch (BadPaddingException | InvalidKeyException ex) {
             throw new CouldNotPerformException("Could not decrypt byte array to object of type[" + encryptedClass.getName() + "]", ex);
         }
     }
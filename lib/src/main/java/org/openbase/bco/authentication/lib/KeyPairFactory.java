@@ -0,0 +1,214 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.jul.exception.CouldNotPerformException;
+import org.openbase.jul.schedule.GlobalCachedExecutorService;
+
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory generating asymmetric key pairs in the background.
+ * Requested key pairs are generated in parallel by a bounded number of workers running on the global cached executor
+ * service and handed to the requests in order. Once a key pair has been requested the workers also keep a small
+ * buffer of ready key pairs so that following requests can be served immediately.
+ */
+public class KeyPairFactory {
+
+    /**
+     * The default number of ready key pairs kept by the factory.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 4;
+
+    private static KeyPairFactory instance;
+
+    /**
+     * Get the key pair factory shared by this process.
+     *
+     * @return the global key pair factory.
+     */
+    public static synchronized KeyPairFactory getInstance() {
+        if (instance == null) {
+            instance = new KeyPairFactory(DEFAULT_BUFFER_SIZE, Runtime.getRuntime().availableProcessors());
+        }
+        return instance;
+    }
+
+    private final int bufferSize;
+    private final int parallelism;
+    private final BlockingQueue<KeyPair> readyQueue;
+    private final Queue<CompletableFuture<KeyPair>> requestQueue;
+    private final AtomicInteger workerCount;
+
+    /**
+     * Create a key pair factory.
+     *
+     * @param bufferSize  the number of ready key pairs kept by the factory.
+     * @param parallelism the maximal number of key pairs generated in parallel.
+     */
+    public KeyPairFactory(final int bufferSize, final int parallelism) {
+        if (bufferSize < 0) {
+            throw new IllegalArgumentException("Buffer size cannot be negative but is [" + bufferSize + "]");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism has to be positive but is [" + parallelism + "]");
+        }
+        this.bufferSize = bufferSize;
+        this.parallelism = parallelism;
+        this.readyQueue = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+        this.requestQueue = new ConcurrentLinkedQueue<>();
+        this.workerCount = new AtomicInteger(0);
+    }
+
+    /**
+     * Request a new key pair.
+     *
+     * @return a future completed with a key pair which is never handed out again.
+     */
+    public CompletableFuture<KeyPair> requestKeyPair() {
+        final KeyPair keyPair = readyQueue.poll();
+        if (keyPair != null) {
+            startWorkers();
+            return CompletableFuture.completedFuture(keyPair);
+        }
+
+        final CompletableFuture<KeyPair> future = new CompletableFuture<>();
+        requestQueue.add(future);
+        startWorkers();
+        return future;
+    }
+
+    /**
+     * Request multiple key pairs at once. The key pairs are generated in parallel and every future is completed as
+     * soon as its key pair is available, so that callers can process them while others are still generated.
+     *
+     * @param count the number of requested key pairs.
+     *
+     * @return one future per requested key pair.
+     */
+    public List<CompletableFuture<KeyPair>> requestKeyPairs(final int count) {
+        final List<CompletableFuture<KeyPair>> futureList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futureList.add(requestKeyPair());
+        }
+        return futureList;
+    }
+
+    /**
+     * Get the number of key pairs which are ready to be handed out.
+     *
+     * @return the number of buffered key pairs.
+     */
+    public int getReadyCount() {
+        return bufferSize == 0 ? 0 : readyQueue.size();
+    }
+
+    /**
+     * Get the number of requests waiting for a key pair.
+     *
+     * @return the number of pending requests.
+     */
+    public int getPendingCount() {
+        return requestQueue.size();
+    }
+
+    /**
+     * Start workers until all pending requests and the free space of the buffer are covered or the maximal
+     * parallelism is reached.
+     */
+    private void startWorkers() {
+        while (true) {
+            final int workers = workerCount.get();
+            final int missingKeyPairs = requestQueue.size() + bufferSize - getReadyCount();
+            if (workers >= parallelism || workers >= missingKeyPairs) {
+                return;
+            }
+            if (workerCount.compareAndSet(workers, workers + 1)) {
+                GlobalCachedExecutorService.execute(this::generate);
+            }
+        }
+    }
+
+    /**
+     * Generate key pairs for pending requests and the buffer until there is nothing left to do.
+     */
+    private void generate() {
+        boolean failed = false;
+        try {
+            while (!requestQueue.isEmpty() || getReadyCount() < bufferSize) {
+                final KeyPair keyPair = EncryptionHelper.generateKeyPair();
+                if (keyPair == null) {
+                    failed = true;
+                    failRequests();
+                    break;
+                }
+
+                if (!completeRequest(keyPair) && (bufferSize == 0 || !readyQueue.offer(keyPair))) {
+                    break;
+                }
+            }
+        } finally {
+            workerCount.decrementAndGet();
+        }
+
+        if (!failed && !requestQueue.isEmpty()) {
+            // a request has been added after this worker checked for pending requests
+            startWorkers();
+        }
+    }
+
+    /**
+     * Hand a key pair to the oldest pending request which has not been cancelled.
+     *
+     * @param keyPair the generated key pair.
+     *
+     * @return true if a request has been completed.
+     */
+    private boolean completeRequest(final KeyPair keyPair) {
+        CompletableFuture<KeyPair> future;
+        while ((future = requestQueue.poll()) != null) {
+            if (future.complete(keyPair)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fail all pending requests because key pairs cannot be generated.
+     */
+    private void failRequests() {
+        CompletableFuture<KeyPair> future;
+        while ((future = requestQueue.poll()) != null) {
+            future.completeExceptionally(new CouldNotPerformException("Could not generate key pair"));
+        }
+    }
+}
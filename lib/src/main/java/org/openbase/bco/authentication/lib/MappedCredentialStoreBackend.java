@@ -0,0 +1,263 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import com.google.protobuf.ByteString;
+import org.openbase.jul.exception.CouldNotPerformException;
+import org.openbase.type.domotic.authentication.LoginCredentialsType.LoginCredentials;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Store backend persisting login credentials in a compact binary format. The store file is memory-mapped on load
+ * and only the ids and offsets of all records are indexed, the credentials themselves are decoded on first access.
+ * <p>
+ * Files which are not in the binary format are loaded with a fallback backend. They are converted
+ * into the binary format when the store is saved the next time.
+ */
+public class MappedCredentialStoreBackend implements StoreBackend<LoginCredentials> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedCredentialStoreBackend.class);
+
+    private static final int MAGIC = 0x42434F43;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+
+    private static final byte FLAG_ADMIN = 1;
+    private static final byte FLAG_SYMMETRIC = 2;
+
+    private final StoreBackend<LoginCredentials> fallbackBackend;
+
+    /**
+     * Create a new mapped backend.
+     *
+     * @param fallbackBackend the backend used to load files which are not in the binary format.
+     */
+    public MappedCredentialStoreBackend(final StoreBackend<LoginCredentials> fallbackBackend) {
+        this.fallbackBackend = fallbackBackend;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param file {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     *
+     * @throws CouldNotPerformException {@inheritDoc}
+     */
+    @Override
+    public Map<String, StoreEntry<LoginCredentials>> load(final File file) throws CouldNotPerformException {
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return fallbackBackend.load(file);
+            }
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException ex) {
+            throw new CouldNotPerformException("Could not map store file[" + file.getAbsolutePath() + "]", ex);
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            LOGGER.info("Store file[" + file.getAbsolutePath() + "] is not in the binary format and will be converted on the next save.");
+            return fallbackBackend.load(file);
+        }
+
+        final int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new CouldNotPerformException("Store file[" + file.getAbsolutePath() + "] has unsupported version[" + version + "]");
+        }
+
+        try {
+            ((Buffer) buffer).position(8);
+            final int count = buffer.getInt();
+            final Map<String, StoreEntry<LoginCredentials>> entryMap = new HashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                final byte[] idBytes = new byte[buffer.getInt()];
+                buffer.get(idBytes);
+                final String id = new String(idBytes, StandardCharsets.UTF_8);
+                final byte flags = buffer.get();
+                final int length = buffer.getInt();
+                final int offset = buffer.position();
+                if (length < 0 || offset + length > buffer.limit()) {
+                    throw new CouldNotPerformException("Record[" + id + "] exceeds store file[" + file.getAbsolutePath() + "]");
+                }
+                ((Buffer) buffer).position(offset + length);
+
+                entryMap.put(id, StoreEntry.lazy(new MappedRecord(buffer, id, flags, offset, length)));
+            }
+            return entryMap;
+        } catch (BufferUnderflowException | NegativeArraySizeException ex) {
+            throw new CouldNotPerformException("Store file[" + file.getAbsolutePath() + "] is truncated", ex);
+        }
+    }
+
+    /**
+     * Save all entries in the binary format. The file is written next to the target, forced to the storage device
+     * and moved over it afterwards because the previous version of the file may still be mapped. Entries loaded from a mapped file which have
+     * not been decoded yet are copied from the mapped record without decoding them.
+     *
+     * @param entries {@inheritDoc}
+     * @param file    {@inheritDoc}
+     *
+     * @throws CouldNotPerformException {@inheritDoc}
+     */
+    @Override
+    public void save(final Map<String, StoreEntry<LoginCredentials>> entries, final File file) throws CouldNotPerformException {
+        final File tempFile = new File(file.getParentFile(), file.getName() + ".writing");
+        try {
+            // protect the file before any credentials are written into it
+            AbstractProtectedStore.createProtectedFile(tempFile);
+            try (FileOutputStream fileOutputStream = new FileOutputStream(tempFile);
+                 DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(fileOutputStream))) {
+                outputStream.writeInt(MAGIC);
+                outputStream.writeInt(VERSION);
+                outputStream.writeInt(entries.size());
+                for (final Entry<String, StoreEntry<LoginCredentials>> entry : entries.entrySet()) {
+                    final byte[] idBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                    outputStream.writeInt(idBytes.length);
+                    outputStream.write(idBytes);
+
+                    final StoreEntry.Decoder<LoginCredentials> decoder = entry.getValue().getDecoder();
+                    if (decoder instanceof MappedRecord) {
+                        ((MappedRecord) decoder).writeTo(outputStream);
+                        continue;
+                    }
+
+                    final LoginCredentials loginCredentials = entry.getValue().get();
+                    byte flags = 0;
+                    if (loginCredentials.getAdmin()) {
+                        flags |= FLAG_ADMIN;
+                    }
+                    if (loginCredentials.getSymmetric()) {
+                        flags |= FLAG_SYMMETRIC;
+                    }
+                    outputStream.writeByte(flags);
+
+                    final ByteString credentials = loginCredentials.getCredentials();
+                    outputStream.writeInt(credentials.size());
+                    credentials.writeTo(outputStream);
+                }
+
+                // force the file to the storage device so that the move never replaces the store with a partial file
+                outputStream.flush();
+                fileOutputStream.getFD().sync();
+            }
+
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            throw new CouldNotPerformException("Could not save store file[" + file.getAbsolutePath() + "]", ex);
+        }
+    }
+
+    /**
+     * Read the admin flag of an entry loaded by this backend without decoding its credentials.
+     *
+     * @param storeEntry the entry to check.
+     *
+     * @return the admin flag of the mapped record or null if the entry is not an undecoded mapped record.
+     */
+    static Boolean getAdminFlag(final StoreEntry<LoginCredentials> storeEntry) {
+        final StoreEntry.Decoder<LoginCredentials> decoder = storeEntry.getDecoder();
+        if (!(decoder instanceof MappedRecord)) {
+            return null;
+        }
+        return (((MappedRecord) decoder).flags & FLAG_ADMIN) != 0;
+    }
+
+    /**
+     * Record of a mapped store file which decodes the credentials on first access.
+     */
+    private static class MappedRecord implements StoreEntry.Decoder<LoginCredentials> {
+
+        private final ByteBuffer buffer;
+        private final String id;
+        private final byte flags;
+        private final int offset;
+        private final int length;
+
+        private MappedRecord(final ByteBuffer buffer, final String id, final byte flags, final int offset, final int length) {
+            this.buffer = buffer;
+            this.id = id;
+            this.flags = flags;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private ByteBuffer getCredentials() {
+            final ByteBuffer credentials = buffer.duplicate();
+            ((Buffer) credentials).position(offset);
+            ((Buffer) credentials).limit(offset + length);
+            return credentials;
+        }
+
+        @Override
+        public LoginCredentials decode() {
+            return LoginCredentials.newBuilder()
+                    .setId(id)
+                    .setAdmin((flags & FLAG_ADMIN) != 0)
+                    .setSymmetric((flags & FLAG_SYMMETRIC) != 0)
+                    .setCredentials(ByteString.copyFrom(getCredentials()))
+                    .build();
+        }
+
+        /**
+         * Write the flags and credentials of this record in the binary format without decoding them.
+         *
+         * @param outputStream the stream the record is written to.
+         *
+         * @throws IOException if the record could not be written.
+         */
+        private void writeTo(final DataOutputStream outputStream) throws IOException {
+            final byte[] credentials = new byte[length];
+            getCredentials().get(credentials);
+            outputStream.writeByte(flags);
+            outputStream.writeInt(length);
+            outputStream.write(credentials);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.type.domotic.authentication.LoginCredentialsType.LoginCredentials;
+
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the public and private keys parsed from asymmetric login credentials.
+ * Entries are keyed by the identity of the credentials instance. Every {@link CredentialStore} owns a cache and hands
+ * out the same instance for an entry until it is changed, so the DER encoded key of stored credentials is parsed once
+ * instead of on every login. The store removes the keys of its changed or removed credentials from its cache.
+ * If the cache is full the least recently used key is removed.
+ */
+public class ParsedKeyCache {
+
+    /**
+     * The default number of parsed keys kept by the cache.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final Map<CredentialsReference, Key> keyMap;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+
+    /**
+     * Create a new parsed key cache.
+     *
+     * @param capacity the maximal number of keys kept by the cache.
+     */
+    public ParsedKeyCache(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity has to be positive but is [" + capacity + "]");
+        }
+        this.capacity = capacity;
+        this.keyMap = new LinkedHashMap<CredentialsReference, Key>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<CredentialsReference, Key> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hitCount = new AtomicLong(0);
+        this.missCount = new AtomicLong(0);
+    }
+
+    /**
+     * Get the key parsed from the given credentials. If no key of the requested type has been parsed from this
+     * credentials instance the parser is called and its result is cached.
+     *
+     * @param loginCredentials the credentials containing the encoded key.
+     * @param keyClass         the type of key requested.
+     * @param keyParser        parser creating the key from its encoded form.
+     * @param <K>              the type of key requested.
+     *
+     * @return the parsed key.
+     *
+     * @throws NoSuchAlgorithmException if the key algorithm is not supported.
+     * @throws InvalidKeySpecException  if the key could not be parsed.
+     */
+    <K extends Key> K getKey(final LoginCredentials loginCredentials, final Class<K> keyClass, final KeyParser<K> keyParser) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        final CredentialsReference reference = new CredentialsReference(loginCredentials);
+        final Key cachedKey;
+        synchronized (keyMap) {
+            cachedKey = keyMap.get(reference);
+        }
+        if (keyClass.isInstance(cachedKey)) {
+            hitCount.incrementAndGet();
+            return keyClass.cast(cachedKey);
+        }
+
+        missCount.incrementAndGet();
+        final K key = keyParser.parse(loginCredentials.getCredentials().toByteArray());
+        synchronized (keyMap) {
+            keyMap.put(reference, key);
+        }
+        return key;
+    }
+
+    /**
+     * Remove the key parsed from the given credentials instance.
+     *
+     * @param loginCredentials the credentials which are no longer used.
+     */
+    public void invalidate(final LoginCredentials loginCredentials) {
+        synchronized (keyMap) {
+            keyMap.remove(new CredentialsReference(loginCredentials));
+        }
+    }
+
+    /**
+     * Remove all parsed keys.
+     */
+    public void clear() {
+        synchronized (keyMap) {
+            keyMap.clear();
+        }
+    }
+
+    /**
+     * Tells whether a key parsed from the given credentials instance is cached.
+     *
+     * @param loginCredentials the credentials checked.
+     *
+     * @return true if a key for exactly this instance is cached.
+     */
+    public boolean contains(final LoginCredentials loginCredentials) {
+        synchronized (keyMap) {
+            return keyMap.containsKey(new CredentialsReference(loginCredentials));
+        }
+    }
+
+    /**
+     * Get the maximal number of keys kept by the cache.
+     *
+     * @return the capacity of the cache.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the number of keys currently cached.
+     *
+     * @return the number of cached keys.
+     */
+    public int getSize() {
+        synchronized (keyMap) {
+            return keyMap.size();
+        }
+    }
+
+    /**
+     * Get the number of keys served from the cache.
+     *
+     * @return the number of requests which did not need to parse a key.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Get the number of keys parsed because they were not cached.
+     *
+     * @return the number of requests which had to parse their key.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Parser creating a key from its encoded form.
+     *
+     * @param <K> the type of key created.
+     */
+    interface KeyParser<K extends Key> {
+
+        K parse(final byte[] key) throws NoSuchAlgorithmException, InvalidKeySpecException;
+    }
+
+    /**
+     * Map key comparing credentials by identity instead of by value.
+     */
+    private static class CredentialsReference {
+
+        private final LoginCredentials loginCredentials;
+
+        CredentialsReference(final LoginCredentials loginCredentials) {
+            this.loginCredentials = loginCredentials;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof CredentialsReference && ((CredentialsReference) obj).loginCredentials == loginCredentials;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(loginCredentials);
+        }
+    }
+}
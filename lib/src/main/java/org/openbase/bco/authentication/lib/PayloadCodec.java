@@ -0,0 +1,249 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import org.openbase.bco.authentication.lib.jp.JPLegacyPayloadEncoding;
+import org.openbase.jps.core.JPService;
+import org.openbase.jps.exception.JPNotAvailableException;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Codec converting the payloads handled by the {@link EncryptionHelper} into plain bytes and back.
+ * <p>
+ * Protobuf messages, byte arrays and strings are written into a compact versioned envelope:
+ * <pre>
+ * | magic (1 byte) | version (1 byte) | type (1 byte) | payload |
+ * </pre>
+ * The payload of a message is its protobuf encoding, the payload of a byte array are its raw bytes and
+ * the payload of a string is its UTF-8 encoding. All other serializable types are still written by java serialization.
+ * <p>
+ * Payloads written by java serialization, including everything produced by older versions of this library,
+ * are detected by the stream magic of the java serialization format and decoded as before.
+ * During a migration in which older peers still need to read the payloads, the envelope can be disabled
+ * via the {@link org.openbase.bco.authentication.lib.jp.JPLegacyPayloadEncoding} property or
+ * {@link #setLegacyEncoding(boolean)}.
+ */
+public class PayloadCodec {
+
+    /**
+     * The version of the envelope written by this codec.
+     */
+    public static final byte VERSION = 1;
+
+    private static final byte MAGIC = (byte) 0xB0;
+    private static final int HEADER_LENGTH = 3;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_MESSAGE = 1;
+    private static final byte TYPE_BYTES = 2;
+    private static final byte TYPE_STRING = 3;
+
+    private static final byte LEGACY_MAGIC_FIRST = (byte) ((ObjectStreamConstants.STREAM_MAGIC >> 8) & 0xFF);
+    private static final byte LEGACY_MAGIC_SECOND = (byte) (ObjectStreamConstants.STREAM_MAGIC & 0xFF);
+
+    private static final Map<Class<?>, Parser<?>> PARSER_MAP = new ConcurrentHashMap<>();
+
+    private static volatile Boolean legacyEncoding;
+
+    /**
+     * Define if all payloads should be written by java serialization as done by older versions of this library.
+     * Decoding is not affected by this flag since both formats can always be decoded.
+     * This overrides the value of the {@link org.openbase.bco.authentication.lib.jp.JPLegacyPayloadEncoding} property.
+     *
+     * @param legacyEncoding true if java serialization should be used for all payloads.
+     */
+    public static void setLegacyEncoding(final boolean legacyEncoding) {
+        PayloadCodec.legacyEncoding = legacyEncoding;
+    }
+
+    /**
+     * Test if all payloads are written by java serialization.
+     *
+     * @return true if the legacy encoding is enabled.
+     */
+    public static boolean isLegacyEncoding() {
+        Boolean legacy = legacyEncoding;
+        if (legacy == null) {
+            try {
+                legacy = JPService.getProperty(JPLegacyPayloadEncoding.class).getValue();
+            } catch (JPNotAvailableException ex) {
+                legacy = false;
+            }
+            legacyEncoding = legacy;
+        }
+        return legacy;
+    }
+
+    /**
+     * Encode an object into bytes.
+     *
+     * @param object the object to encode.
+     *
+     * @return the encoded object.
+     *
+     * @throws IOException if the object could not be encoded.
+     */
+    public static byte[] encode(final Serializable object) throws IOException {
+        if (isLegacyEncoding()) {
+            return encodeLegacy(object);
+        }
+
+        if (object == null) {
+            return createEnvelope(TYPE_NULL, 0);
+        }
+
+        if (object instanceof MessageLite) {
+            final MessageLite message = (MessageLite) object;
+            final byte[] envelope = createEnvelope(TYPE_MESSAGE, message.getSerializedSize());
+            final CodedOutputStream outputStream = CodedOutputStream.newInstance(envelope, HEADER_LENGTH, envelope.length - HEADER_LENGTH);
+            message.writeTo(outputStream);
+            outputStream.checkNoSpaceLeft();
+            return envelope;
+        }
+
+        if (object instanceof byte[]) {
+            final byte[] bytes = (byte[]) object;
+            final byte[] envelope = createEnvelope(TYPE_BYTES, bytes.length);
+            System.arraycopy(bytes, 0, envelope, HEADER_LENGTH, bytes.length);
+            return envelope;
+        }
+
+        if (object instanceof String) {
+            final byte[] bytes = ((String) object).getBytes(StandardCharsets.UTF_8);
+            final byte[] envelope = createEnvelope(TYPE_STRING, bytes.length);
+            System.arraycopy(bytes, 0, envelope, HEADER_LENGTH, bytes.length);
+            return envelope;
+        }
+
+        // every other type is not supported by the envelope
+        return encodeLegacy(object);
+    }
+
+    /**
+     * Decode an object of the given type from bytes written by {@link #encode(Serializable)}
+     * or by java serialization.
+     *
+     * @param payload the encoded object.
+     * @param type    the class of the encoded object. Protobuf messages can only be decoded if this is
+     *                the concrete message class.
+     * @param <T>     the type of the encoded object.
+     *
+     * @return the decoded object.
+     *
+     * @throws IOException            if the payload is malformed.
+     * @throws ClassNotFoundException if the class of an object written by java serialization is not available.
+     * @throws ClassCastException     if the decoded object is not an instance of the given type.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T decode(final byte[] payload, final Class<T> type) throws IOException, ClassNotFoundException, ClassCastException {
+        if (payload.length >= 2 && payload[0] == LEGACY_MAGIC_FIRST && payload[1] == LEGACY_MAGIC_SECOND) {
+            return decodeLegacy(payload);
+        }
+
+        if (payload.length < HEADER_LENGTH || payload[0] != MAGIC) {
+            throw new StreamCorruptedException("Payload has an unknown format");
+        }
+
+        if (payload[1] != VERSION) {
+            throw new StreamCorruptedException("Payload version[" + payload[1] + "] is not supported");
+        }
+
+        switch (payload[2]) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_MESSAGE:
+                return (T) getParser(type).parseFrom(payload, HEADER_LENGTH, payload.length - HEADER_LENGTH);
+            case TYPE_BYTES:
+                verifyType(byte[].class, type);
+                final byte[] bytes = new byte[payload.length - HEADER_LENGTH];
+                System.arraycopy(payload, HEADER_LENGTH, bytes, 0, bytes.length);
+                return (T) bytes;
+            case TYPE_STRING:
+                verifyType(String.class, type);
+                return (T) new String(payload, HEADER_LENGTH, payload.length - HEADER_LENGTH, StandardCharsets.UTF_8);
+            default:
+                throw new StreamCorruptedException("Payload type[" + payload[2] + "] is not supported");
+        }
+    }
+
+    private static byte[] createEnvelope(final byte type, final int payloadLength) {
+        final byte[] envelope = new byte[HEADER_LENGTH + payloadLength];
+        envelope[0] = MAGIC;
+        envelope[1] = VERSION;
+        envelope[2] = type;
+        return envelope;
+    }
+
+    private static void verifyType(final Class<?> encodedType, final Class<?> type) throws ClassCastException {
+        if (!type.isAssignableFrom(encodedType)) {
+            throw new ClassCastException("Payload of type[" + encodedType.getSimpleName() + "] can not be cast to " + type.getName());
+        }
+    }
+
+    private static Parser<?> getParser(final Class<?> type) throws ClassCastException {
+        Parser<?> parser = PARSER_MAP.get(type);
+        if (parser != null) {
+            return parser;
+        }
+
+        if (!MessageLite.class.isAssignableFrom(type)) {
+            throw new ClassCastException("Protobuf payload can not be cast to " + type.getName());
+        }
+
+        try {
+            // every generated message provides a static method to get its default instance
+            parser = ((MessageLite) type.getMethod("getDefaultInstance").invoke(null)).getParserForType();
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException ex) {
+            throw new ClassCastException("Protobuf payload can not be decoded as " + type.getName() + " because it is not a concrete message type");
+        }
+        PARSER_MAP.put(type, parser);
+        return parser;
+    }
+
+    private static byte[] encodeLegacy(final Serializable object) throws IOException {
+        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
+            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+                objectOutputStream.writeObject(object);
+                objectOutputStream.flush();
+                return byteArrayOutputStream.toByteArray();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T decodeLegacy(final byte[] payload) throws IOException, ClassNotFoundException {
+        try (ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(payload)) {
+            try (ObjectInputStream objectInputStream = new ObjectInputStream(byteArrayInputStream)) {
+                return (T) objectInputStream.readObject();
+            }
+        }
+    }
+}
@@ -0,0 +1,691 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.bco.authentication.lib.AuthorizationHelper.PermissionType;
+import org.openbase.jul.exception.CouldNotPerformException;
+import org.openbase.jul.exception.InvalidStateException;
+import org.openbase.jul.exception.NotAvailableException;
+import org.openbase.jul.exception.printer.ExceptionPrinter;
+import org.openbase.jul.exception.printer.LogLevel;
+import org.openbase.jul.extension.protobuf.IdentifiableMessage;
+import org.openbase.type.domotic.authentication.PermissionConfigType.PermissionConfig;
+import org.openbase.type.domotic.authentication.PermissionConfigType.PermissionConfig.MapFieldEntry;
+import org.openbase.type.domotic.authentication.PermissionType.Permission;
+import org.openbase.type.domotic.authentication.UserClientPairType.UserClientPair;
+import org.openbase.type.domotic.unit.UnitConfigType.UnitConfig;
+import org.openbase.type.domotic.unit.UnitTemplateType.UnitTemplate.UnitType;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Compiled form of the permissions defined by the groups and locations of a registry. It allows to evaluate
+ * permissions without walking the location tree and merging permission configs on every check.
+ * <p>
+ * The index resolves the effective permission config of every location once, maintains a reverse index from
+ * members to their authorization groups and lazily computes for each user bitsets of all locations the user
+ * is allowed to read, write or access. The results are equal to the ones of the map based methods of the
+ * {@link AuthorizationHelper}.
+ * <p>
+ * The index does not observe the registry. It has to be updated whenever its groups or locations change.
+ * A group update only invalidates the cached permissions of users whose group memberships changed.
+ */
+public class PermissionIndex {
+
+    private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(PermissionIndex.class);
+
+    private static final int NO_PARENT = -1;
+
+    /**
+     * Number of units from which on batch evaluations are split into fork/join tasks.
+     */
+    public static final int PARALLEL_THRESHOLD = 2048;
+
+    /**
+     * Maximal number of cached effective permission configs of units defining their own permission config.
+     */
+    public static final int MAX_UNIT_PERMISSION_CONFIGS = 8192;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Create a new index.
+     *
+     * @param groups    all available groups in the system, indexed by their group id.
+     * @param locations all available locations in the system, indexed by their id.
+     */
+    public PermissionIndex(final Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> groups, final Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> locations) {
+        this.snapshot = new Snapshot(0, new GroupIndex(groups), new LocationTree(locations), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Rebuild the index from new groups and locations.
+     *
+     * @param groups    all available groups in the system, indexed by their group id.
+     * @param locations all available locations in the system, indexed by their id.
+     */
+    public synchronized void update(final Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> groups, final Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> locations) {
+        snapshot = new Snapshot(snapshot.revision + 1, new GroupIndex(groups), new LocationTree(locations), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Update the groups of the index. Compiled locations are kept and only the permissions of users whose
+     * group memberships changed are recomputed.
+     *
+     * @param groups all available groups in the system, indexed by their group id.
+     */
+    public synchronized void updateGroups(final Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> groups) {
+        final Snapshot current = snapshot;
+        final GroupIndex groupIndex = new GroupIndex(groups);
+        final ConcurrentHashMap<String, UserPermissions> userPermissionMap = new ConcurrentHashMap<>();
+        if (groupIndex.available == current.groupIndex.available) {
+            for (final Map.Entry<String, UserPermissions> entry : current.userPermissionMap.entrySet()) {
+                if (groupIndex.getGroups(entry.getKey()).equals(current.groupIndex.getGroups(entry.getKey()))) {
+                    userPermissionMap.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        // effective permission configs do not depend on groups
+        snapshot = new Snapshot(current.revision + 1, groupIndex, current.locationTree, userPermissionMap, current.unitPermissionConfigMap);
+    }
+
+    /**
+     * Update the locations of the index. This recompiles the location tree and invalidates all cached user permissions
+     * and effective permission configs.
+     *
+     * @param locations all available locations in the system, indexed by their id.
+     */
+    public synchronized void updateLocations(final Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> locations) {
+        final Snapshot current = snapshot;
+        snapshot = new Snapshot(current.revision + 1, current.groupIndex, new LocationTree(locations), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Get the revision of the index. It is increased with every update.
+     *
+     * @return the current revision.
+     */
+    public long getRevision() {
+        return snapshot.revision;
+    }
+
+    /**
+     * Check whether a user has a permission for a unit.
+     *
+     * @param unitConfig the unit config checked.
+     * @param userId     id of the user whose permissions should be checked.
+     * @param type       the permission type to check.
+     *
+     * @return true if the user has the permission, else false.
+     */
+    public boolean canDo(final UnitConfig unitConfig, final String userId, final PermissionType type) {
+        return snapshot.canDo(unitConfig, userId == null ? "" : userId, type);
+    }
+
+    /**
+     * Check a permission for a whole collection of units. All units are evaluated against the same revision of the
+     * index and large collections are evaluated in parallel in the common fork/join pool.
+     *
+     * @param unitConfigs    the unit configs checked.
+     * @param userClientPair the pair containing a user id and a client id.
+     * @param type           the permission type to check.
+     *
+     * @return a bitset in which the bit of a unit is set, in iteration order of the collection, if either the user or the client have the permission.
+     */
+    public BitSet canDo(final Collection<UnitConfig> unitConfigs, final UserClientPair userClientPair, final PermissionType type) {
+        final List<UnitConfig> unitConfigList = (unitConfigs instanceof List && unitConfigs instanceof RandomAccess) ? (List<UnitConfig>) unitConfigs : new ArrayList<>(unitConfigs);
+        final BatchTask batchTask = new BatchTask(snapshot, unitConfigList, 0, unitConfigList.size(), userClientPair.getUserId(), userClientPair.getClientId(), type);
+        if (unitConfigList.size() < PARALLEL_THRESHOLD) {
+            return batchTask.compute();
+        }
+        return ForkJoinPool.commonPool().invoke(batchTask);
+    }
+
+    /**
+     * Filter a collection of units by a permission.
+     *
+     * @param unitConfigs    the unit configs filtered.
+     * @param userClientPair the pair containing a user id and a client id.
+     * @param type           the permission type to check.
+     *
+     * @return a list of all units for which either the user or the client have the permission, in iteration order of the collection.
+     */
+    public List<UnitConfig> filter(final Collection<UnitConfig> unitConfigs, final UserClientPair userClientPair, final PermissionType type) {
+        final List<UnitConfig> unitConfigList = (unitConfigs instanceof List && unitConfigs instanceof RandomAccess) ? (List<UnitConfig>) unitConfigs : new ArrayList<>(unitConfigs);
+        final BitSet permitted = canDo(unitConfigList, userClientPair, type);
+        final List<UnitConfig> filteredList = new ArrayList<>(permitted.cardinality());
+        for (int i = permitted.nextSetBit(0); i >= 0; i = permitted.nextSetBit(i + 1)) {
+            filteredList.add(unitConfigList.get(i));
+        }
+        return filteredList;
+    }
+
+    /**
+     * Get the effective permission config of a unit, i.e. its own permission config merged with the ones of all
+     * its parent locations. The result is memoized per unit and revision of the index.
+     *
+     * @param unitConfig the unit config whose permission config is resolved.
+     *
+     * @return the effective permission config.
+     *
+     * @throws NotAvailableException if the permission config can not be resolved.
+     */
+    public PermissionConfig getPermissionConfig(final UnitConfig unitConfig) throws NotAvailableException {
+        return snapshot.getPermissionConfig(unitConfig);
+    }
+
+    /**
+     * Convert a permission into a bit mask.
+     *
+     * @param permission the permission converted.
+     *
+     * @return a mask containing the bits of all permission types granted.
+     */
+    static int toMask(final Permission permission) {
+        int mask = 0;
+        for (final PermissionType type : PermissionType.values()) {
+            if (AuthorizationHelper.permitted(permission, type)) {
+                mask |= toMask(type);
+            }
+        }
+        return mask;
+    }
+
+    static int toMask(final PermissionType type) {
+        return 1 << type.ordinal();
+    }
+
+    /**
+     * Immutable state of the index. Only the cache of user permissions is filled lazily.
+     */
+    private static class Snapshot {
+
+        private final long revision;
+        private final GroupIndex groupIndex;
+        private final LocationTree locationTree;
+        private final ConcurrentHashMap<String, UserPermissions> userPermissionMap;
+
+        /**
+         * Effective permission configs of units defining their own permission config, indexed by unit id.
+         * Since a snapshot belongs to a single revision the entries are effectively keyed by unit id and revision.
+         * The map is bounded by {@link #MAX_UNIT_PERMISSION_CONFIGS} because it is shared across group updates.
+         */
+        private final ConcurrentHashMap<String, UnitPermissionConfig> unitPermissionConfigMap;
+
+        private Snapshot(final long revision, final GroupIndex groupIndex, final LocationTree locationTree, final ConcurrentHashMap<String, UserPermissions> userPermissionMap, final ConcurrentHashMap<String, UnitPermissionConfig> unitPermissionConfigMap) {
+            this.revision = revision;
+            this.groupIndex = groupIndex;
+            this.locationTree = locationTree;
+            this.userPermissionMap = userPermissionMap;
+            this.unitPermissionConfigMap = unitPermissionConfigMap;
+        }
+
+        private UserPermissions getUserPermissions(final String userId) {
+            return userPermissionMap.computeIfAbsent(userId, id -> new UserPermissions(id, groupIndex, locationTree));
+        }
+
+        private boolean canDo(final UnitConfig unitConfig, final String userId, final PermissionType type) {
+            if (unitConfig == null) {
+                return false;
+            }
+
+            try {
+                // locations known to the index are already resolved
+                if (unitConfig.getUnitType() == UnitType.LOCATION) {
+                    final Integer locationIndex = locationTree.indexMap.get(unitConfig.getId());
+                    if (locationIndex != null) {
+                        return getUserPermissions(userId).get(type).get(locationIndex);
+                    }
+                }
+
+                // units without their own permission config inherit the permissions of their location
+                if (!unitConfig.hasPermissionConfig() && !isIndependent(unitConfig)) {
+                    final int locationIndex = locationTree.resolve(unitConfig.getPlacementConfig().getLocationId());
+                    final UserPermissions userPermissions = getUserPermissions(userId);
+                    return userPermissions.read.get(locationIndex) && userPermissions.get(type).get(locationIndex);
+                }
+
+                final UnitPermissionConfig unitPermissionConfig = getUnitPermissionConfig(unitConfig);
+
+                // check if the given user has read permissions for the parent location otherwise skip all further checks
+                if (unitPermissionConfig.locationIndex != NO_PARENT && !getUserPermissions(userId).read.get(unitPermissionConfig.locationIndex)) {
+                    return false;
+                }
+
+                return (unitPermissionConfig.compiledPermissionConfig.getMask(userId, groupIndex) & toMask(type)) != 0;
+            } catch (CouldNotPerformException ex) {
+                ExceptionPrinter.printHistory("Can not resolve permissions of Unit[" + unitConfig.getId() + "]! Permission will be denied!", ex, LOGGER, LogLevel.WARN);
+                return false;
+            }
+        }
+
+        private PermissionConfig getPermissionConfig(final UnitConfig unitConfig) throws NotAvailableException {
+            try {
+                if (unitConfig == null) {
+                    throw new NotAvailableException("UnitConfig");
+                }
+
+                if (unitConfig.getUnitType() == UnitType.LOCATION) {
+                    final Integer locationIndex = locationTree.indexMap.get(unitConfig.getId());
+                    if (locationIndex != null) {
+                        if (locationTree.effectivePermissionConfigs[locationIndex] == null) {
+                            throw new NotAvailableException("PermissionConfig of Location[" + unitConfig.getId() + "]");
+                        }
+                        return locationTree.effectivePermissionConfigs[locationIndex];
+                    }
+                }
+
+                if (!unitConfig.hasPermissionConfig() && !isIndependent(unitConfig)) {
+                    return locationTree.effectivePermissionConfigs[locationTree.resolve(unitConfig.getPlacementConfig().getLocationId())];
+                }
+
+                return getUnitPermissionConfig(unitConfig).permissionConfig;
+            } catch (CouldNotPerformException ex) {
+                throw new NotAvailableException("PermissionConfig of Unit[" + (unitConfig == null ? "?" : unitConfig.getId()) + "]", ex);
+            }
+        }
+
+        /**
+         * Check if the permissions of a unit do not depend on a location, i.e. it is an authentication unit or a root location.
+         *
+         * @param unitConfig the unit checked.
+         *
+         * @return true if the unit only uses its own permission config.
+         */
+        private boolean isIndependent(final UnitConfig unitConfig) {
+            return AuthorizationHelper.isAuthenticationUnit(unitConfig) || locationTree.isRootLocation(unitConfig);
+        }
+
+        private UnitPermissionConfig getUnitPermissionConfig(final UnitConfig unitConfig) throws CouldNotPerformException {
+            UnitPermissionConfig unitPermissionConfig = unitPermissionConfigMap.get(unitConfig.getId());
+            if (unitPermissionConfig != null && unitPermissionConfig.matches(unitConfig)) {
+                return unitPermissionConfig;
+            }
+
+            unitPermissionConfig = new UnitPermissionConfig(unitConfig, locationTree);
+            if (!unitConfig.getId().isEmpty()) {
+                if (unitPermissionConfigMap.size() >= MAX_UNIT_PERMISSION_CONFIGS) {
+                    // the index does not know which units still exist, so drop all entries instead of tracking removed units
+                    unitPermissionConfigMap.clear();
+                }
+                unitPermissionConfigMap.put(unitConfig.getId(), unitPermissionConfig);
+            }
+            return unitPermissionConfig;
+        }
+    }
+
+    /**
+     * Task evaluating a permission for a range of units. Ranges above the parallel threshold are split in half.
+     */
+    private static class BatchTask extends RecursiveTask<BitSet> {
+
+        private final Snapshot snapshot;
+        private final List<UnitConfig> unitConfigList;
+        private final int from;
+        private final int to;
+        private final String userId;
+        private final String clientId;
+        private final PermissionType type;
+
+        private BatchTask(final Snapshot snapshot, final List<UnitConfig> unitConfigList, final int from, final int to, final String userId, final String clientId, final PermissionType type) {
+            this.snapshot = snapshot;
+            this.unitConfigList = unitConfigList;
+            this.from = from;
+            this.to = to;
+            this.userId = userId;
+            this.clientId = clientId;
+            this.type = type;
+        }
+
+        @Override
+        protected BitSet compute() {
+            if (to - from > PARALLEL_THRESHOLD) {
+                final int middle = (from + to) >>> 1;
+                final BatchTask lower = new BatchTask(snapshot, unitConfigList, from, middle, userId, clientId, type);
+                lower.fork();
+                final BitSet result = new BatchTask(snapshot, unitConfigList, middle, to, userId, clientId, type).compute();
+                result.or(lower.join());
+                return result;
+            }
+
+            final BitSet result = new BitSet(to);
+            for (int i = from; i < to; i++) {
+                final UnitConfig unitConfig = unitConfigList.get(i);
+                if (snapshot.canDo(unitConfig, userId, type) || snapshot.canDo(unitConfig, clientId, type)) {
+                    result.set(i);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Effective permission config of a unit which defines its own permission config.
+     */
+    private static class UnitPermissionConfig {
+
+        private final PermissionConfig sourcePermissionConfig;
+        private final String locationId;
+        private final int locationIndex;
+        private final PermissionConfig permissionConfig;
+        private final CompiledPermissionConfig compiledPermissionConfig;
+
+        private UnitPermissionConfig(final UnitConfig unitConfig, final LocationTree locationTree) throws CouldNotPerformException {
+            this.sourcePermissionConfig = unitConfig.getPermissionConfig();
+            this.locationId = unitConfig.getPlacementConfig().getLocationId();
+
+            if (AuthorizationHelper.isAuthenticationUnit(unitConfig) || locationTree.isRootLocation(unitConfig)) {
+                // user or authentication group permissions are independent of their location and the root location uses its own permissions
+                if (!unitConfig.hasPermissionConfig()) {
+                    throw new InvalidStateException(unitConfig.getUnitType().name() + " should always provide a permission config!");
+                }
+                this.locationIndex = NO_PARENT;
+                this.permissionConfig = sourcePermissionConfig;
+            } else {
+                this.locationIndex = locationTree.resolve(locationId);
+                this.permissionConfig = AuthorizationHelper.mergePermissionConfigs(sourcePermissionConfig, locationTree.effectivePermissionConfigs[locationIndex]);
+            }
+            this.compiledPermissionConfig = new CompiledPermissionConfig(permissionConfig);
+        }
+
+        /**
+         * Check if this entry has been computed for the given unit config. Permission configs are compared by
+         * reference first since registry snapshots usually hand out the same instances.
+         *
+         * @param unitConfig the unit config to compare.
+         *
+         * @return true if the entry can be used for the unit config.
+         */
+        private boolean matches(final UnitConfig unitConfig) {
+            final PermissionConfig permissionConfig = unitConfig.getPermissionConfig();
+            return locationId.equals(unitConfig.getPlacementConfig().getLocationId())
+                    && (sourcePermissionConfig == permissionConfig || sourcePermissionConfig.equals(permissionConfig));
+        }
+    }
+
+    /**
+     * Permission config reduced to bit masks.
+     */
+    private static class CompiledPermissionConfig {
+
+        private final int otherMask;
+        private final String ownerId;
+        private final int ownerMask;
+        private final Map<String, Integer> groupMaskMap;
+
+        private CompiledPermissionConfig(final PermissionConfig permissionConfig) {
+            this.otherMask = toMask(permissionConfig.getOtherPermission());
+            this.ownerId = permissionConfig.getOwnerId();
+            this.ownerMask = toMask(permissionConfig.getOwnerPermission());
+            this.groupMaskMap = new HashMap<>();
+            for (final MapFieldEntry entry : permissionConfig.getGroupPermissionList()) {
+                groupMaskMap.merge(entry.getGroupId(), toMask(entry.getPermission()), (a, b) -> a | b);
+            }
+        }
+
+        /**
+         * Compute the permissions of a user.
+         *
+         * @param userId     the id of the user or an empty string if only "other" rights apply.
+         * @param groupIndex index resolving the groups of the user.
+         *
+         * @return a mask containing all permissions of the user.
+         */
+        private int getMask(final String userId, final GroupIndex groupIndex) {
+            int mask = otherMask;
+
+            // if no user was given, only "other" rights apply
+            if (userId.isEmpty()) {
+                return mask;
+            }
+
+            if (ownerId.equals(userId)) {
+                mask |= ownerMask;
+            }
+
+            if (!groupIndex.available || groupMaskMap.isEmpty()) {
+                return mask;
+            }
+
+            // every user is also a group so check if the group id matches the user id
+            mask |= groupMaskMap.getOrDefault(userId, 0);
+            for (final String groupId : groupIndex.getGroups(userId)) {
+                mask |= groupMaskMap.getOrDefault(groupId, 0);
+            }
+            return mask;
+        }
+    }
+
+    /**
+     * Reverse index from members to the authorization groups they belong to.
+     */
+    private static class GroupIndex {
+
+        private final boolean available;
+        private final Map<String, Set<String>> memberGroupMap;
+
+        private GroupIndex(final Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> groups) {
+            this.available = groups != null;
+            this.memberGroupMap = new HashMap<>();
+            if (groups == null) {
+                return;
+            }
+            for (final Map.Entry<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> entry : groups.entrySet()) {
+                for (final String memberId : entry.getValue().getMessage().getAuthorizationGroupConfig().getMemberIdList()) {
+                    memberGroupMap.computeIfAbsent(memberId, id -> new HashSet<>()).add(entry.getKey());
+                }
+            }
+        }
+
+        private Set<String> getGroups(final String memberId) {
+            return memberGroupMap.getOrDefault(memberId, Collections.emptySet());
+        }
+    }
+
+    /**
+     * Locations with their resolved effective permission configs.
+     */
+    private static class LocationTree {
+
+        private final boolean empty;
+        private final Map<String, Integer> indexMap;
+        private final UnitConfig[] locationConfigs;
+        private final PermissionConfig[] effectivePermissionConfigs;
+        private final CompiledPermissionConfig[] compiledPermissionConfigs;
+        private final int[] parents;
+        private final int rootIndex;
+
+        /**
+         * Indices of all resolvable locations ordered so that parents appear before their children.
+         */
+        private final int[] order;
+
+        private LocationTree(final Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> locations) {
+            final Map<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> locationMap = locations == null ? Collections.emptyMap() : locations;
+            this.empty = locationMap.isEmpty();
+            this.indexMap = new HashMap<>();
+            this.locationConfigs = new UnitConfig[locationMap.size()];
+            this.effectivePermissionConfigs = new PermissionConfig[locationConfigs.length];
+            this.compiledPermissionConfigs = new CompiledPermissionConfig[locationConfigs.length];
+            this.parents = new int[locationConfigs.length];
+
+            int rootIndex = NO_PARENT;
+            for (final Map.Entry<String, IdentifiableMessage<String, UnitConfig, UnitConfig.Builder>> entry : locationMap.entrySet()) {
+                final int index = indexMap.size();
+                indexMap.put(entry.getKey(), index);
+                locationConfigs[index] = entry.getValue().getMessage();
+                if (rootIndex == NO_PARENT && isRootLocation(locationConfigs[index])) {
+                    rootIndex = index;
+                }
+            }
+            this.rootIndex = rootIndex;
+
+            final boolean[] visited = new boolean[locationConfigs.length];
+            final List<Integer> resolved = new ArrayList<>(locationConfigs.length);
+            for (int index = 0; index < locationConfigs.length; index++) {
+                compile(index, visited, resolved);
+            }
+            this.order = new int[resolved.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = resolved.get(i);
+            }
+        }
+
+        private boolean isRootLocation(final UnitConfig unitConfig) {
+            return unitConfig.getUnitType() == UnitType.LOCATION && (empty || (unitConfig.getLocationConfig().hasRoot() && unitConfig.getLocationConfig().getRoot()));
+        }
+
+        private void compile(final int index, final boolean[] visited, final List<Integer> resolved) {
+            if (visited[index]) {
+                // either already compiled or part of a cycle which can not be resolved
+                return;
+            }
+            visited[index] = true;
+
+            final UnitConfig locationConfig = locationConfigs[index];
+            try {
+                if (isRootLocation(locationConfig)) {
+                    // the root location should always use its own permissions
+                    if (!locationConfig.hasPermissionConfig()) {
+                        throw new InvalidStateException("The root location does not provide a permission config!");
+                    }
+                    parents[index] = NO_PARENT;
+                    effectivePermissionConfigs[index] = locationConfig.getPermissionConfig();
+                } else {
+                    final int parentIndex = resolveIndex(locationConfig.getPlacementConfig().getLocationId());
+                    compile(parentIndex, visited, resolved);
+                    if (effectivePermissionConfigs[parentIndex] == null) {
+                        throw new InvalidStateException("Parent location does not provide a permission config!");
+                    }
+                    parents[index] = parentIndex;
+                    if (locationConfig.hasPermissionConfig()) {
+                        effectivePermissionConfigs[index] = AuthorizationHelper.mergePermissionConfigs(locationConfig.getPermissionConfig(), effectivePermissionConfigs[parentIndex]);
+                    } else {
+                        effectivePermissionConfigs[index] = effectivePermissionConfigs[parentIndex];
+                    }
+                }
+                compiledPermissionConfigs[index] = new CompiledPermissionConfig(effectivePermissionConfigs[index]);
+                resolved.add(index);
+            } catch (CouldNotPerformException ex) {
+                ExceptionPrinter.printHistory("Can not resolve permissions of Location[" + locationConfig.getId() + "]! Permission will be denied!", ex, LOGGER, LogLevel.WARN);
+            }
+        }
+
+        /**
+         * Resolve the index of a location. Locations unknown to the index are mapped to the root location.
+         *
+         * @param locationId the id of the location.
+         *
+         * @return the index of the location.
+         *
+         * @throws NotAvailableException if the location can not be resolved.
+         */
+        private int resolveIndex(final String locationId) throws NotAvailableException {
+            if (locationId.isEmpty()) {
+                throw new NotAvailableException("locationId");
+            }
+
+            final Integer index = indexMap.get(locationId);
+            if (index != null) {
+                return index;
+            }
+
+            if (rootIndex == NO_PARENT) {
+                throw new NotAvailableException("LocationConfig[" + locationId + "]", new InvalidStateException("Registry does not provide a root location!"));
+            }
+            LOGGER.warn("Registry does not contain requested location Entry[" + locationId + "] use root location [" + locationConfigs[rootIndex].getId() + "] as fallback to compute permissions.");
+            return rootIndex;
+        }
+
+        /**
+         * Resolve the index of a location whose permissions have been compiled.
+         *
+         * @param locationId the id of the location.
+         *
+         * @return the index of the location.
+         *
+         * @throws NotAvailableException if the location can not be resolved or its permissions are not available.
+         */
+        private int resolve(final String locationId) throws NotAvailableException {
+            final int index = resolveIndex(locationId);
+            if (compiledPermissionConfigs[index] == null) {
+                throw new NotAvailableException("PermissionConfig of Location[" + locationId + "]");
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Permissions of a single user for all locations, indexed like the location tree.
+     */
+    private static class UserPermissions {
+
+        private final BitSet read;
+        private final BitSet write;
+        private final BitSet access;
+
+        private UserPermissions(final String userId, final GroupIndex groupIndex, final LocationTree locationTree) {
+            this.read = new BitSet(locationTree.locationConfigs.length);
+            this.write = new BitSet(locationTree.locationConfigs.length);
+            this.access = new BitSet(locationTree.locationConfigs.length);
+
+            for (final int index : locationTree.order) {
+                // a user needs read permissions for the parent location to have any permissions on a location
+                final int parentIndex = locationTree.parents[index];
+                if (parentIndex != NO_PARENT && !read.get(parentIndex)) {
+                    continue;
+                }
+
+                final int mask = locationTree.compiledPermissionConfigs[index].getMask(userId, groupIndex);
+                read.set(index, (mask & toMask(PermissionType.READ)) != 0);
+                write.set(index, (mask & toMask(PermissionType.WRITE)) != 0);
+                access.set(index, (mask & toMask(PermissionType.ACCESS)) != 0);
+            }
+        }
+
+        private BitSet get(final PermissionType type) {
+            switch (type) {
+                case READ:
+                    return read;
+                case WRITE:
+                    return write;
+                case ACCESS:
+                default:
+                    return access;
+            }
+        }
+    }
+}
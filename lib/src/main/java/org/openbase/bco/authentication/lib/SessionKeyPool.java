@@ -0,0 +1,205 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.bco.authentication.lib.jp.JPSessionKeyPoolSize;
+import org.openbase.jps.core.JPService;
+import org.openbase.jps.exception.JPNotAvailableException;
+import org.openbase.jul.exception.FatalImplementationErrorException;
+import org.openbase.jul.exception.printer.ExceptionPrinter;
+import org.openbase.jul.schedule.GlobalCachedExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.KeyGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of session keys generated in advance by a background task.
+ * The key distribution center and the ticket granting service take a new session key for every request. Taking a key
+ * from the pool never blocks: if the pool is empty the key is generated on the calling thread as before. Whenever the
+ * pool drops below half of its capacity a background task refills it, reusing one key generator for all keys.
+ */
+public class SessionKeyPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionKeyPool.class);
+
+    /**
+     * The default number of keys kept by the pool.
+     */
+    public static final int DEFAULT_CAPACITY = 128;
+
+    private static SessionKeyPool instance;
+
+    /**
+     * Get the session key pool used by the authentication server handler.
+     * Its capacity is defined by the {@link JPSessionKeyPoolSize} property.
+     *
+     * @return the global session key pool.
+     */
+    public static synchronized SessionKeyPool getInstance() {
+        if (instance == null) {
+            int capacity;
+            try {
+                capacity = JPService.getProperty(JPSessionKeyPoolSize.class).getValue();
+            } catch (JPNotAvailableException ex) {
+                capacity = DEFAULT_CAPACITY;
+            }
+            instance = new SessionKeyPool(capacity);
+        }
+        return instance;
+    }
+
+    private final int capacity;
+    private final BlockingQueue<byte[]> keyQueue;
+    private final AtomicBoolean refilling;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private final AtomicLong generatedCount;
+
+    /**
+     * Create a session key pool and start filling it in the background.
+     *
+     * @param capacity the maximal number of keys kept by the pool. A capacity of zero disables the pool.
+     */
+    public SessionKeyPool(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative but is [" + capacity + "]");
+        }
+        this.capacity = capacity;
+        this.keyQueue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.refilling = new AtomicBoolean(false);
+        this.hitCount = new AtomicLong(0);
+        this.missCount = new AtomicLong(0);
+        this.generatedCount = new AtomicLong(0);
+        refill();
+    }
+
+    /**
+     * Take a session key from the pool. If the pool is empty a key is generated on the calling thread.
+     *
+     * @return a new session key which is never handed out again.
+     */
+    public byte[] takeKey() {
+        final byte[] key = keyQueue.poll();
+        if (keyQueue.size() < capacity / 2 || key == null) {
+            refill();
+        }
+
+        if (key != null) {
+            hitCount.incrementAndGet();
+            return key;
+        }
+
+        missCount.incrementAndGet();
+        return EncryptionHelper.generateKey();
+    }
+
+    /**
+     * Start the background task refilling the pool if it is not already running.
+     */
+    private void refill() {
+        if (capacity == 0 || !refilling.compareAndSet(false, true)) {
+            return;
+        }
+
+        GlobalCachedExecutorService.execute(this::fill);
+    }
+
+    /**
+     * Generate keys until the pool is full.
+     */
+    private void fill() {
+        try {
+            final KeyGenerator keyGenerator = EncryptionHelper.createKeyGenerator();
+            while (keyQueue.size() < capacity) {
+                if (!keyQueue.offer(keyGenerator.generateKey().getEncoded())) {
+                    break;
+                }
+                generatedCount.incrementAndGet();
+            }
+        } catch (NoSuchAlgorithmException ex) {
+            ExceptionPrinter.printHistory(new FatalImplementationErrorException("Key transformation non existent", SessionKeyPool.class, ex), LOGGER);
+        } finally {
+            refilling.set(false);
+        }
+    }
+
+    /**
+     * Get the maximal number of keys kept by the pool.
+     *
+     * @return the capacity of the pool.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the number of keys currently available in the pool.
+     *
+     * @return the number of pooled keys.
+     */
+    public int getSize() {
+        return capacity == 0 ? 0 : keyQueue.size();
+    }
+
+    /**
+     * Get the fill level of the pool.
+     *
+     * @return the number of pooled keys relative to the capacity between 0 and 1.
+     */
+    public double getFillLevel() {
+        return capacity == 0 ? 0 : (double) keyQueue.size() / capacity;
+    }
+
+    /**
+     * Get the number of keys taken from the pool.
+     *
+     * @return the number of requests served by a pooled key.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Get the number of keys generated on the calling thread because the pool was empty.
+     *
+     * @return the number of requests which had to generate their key.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Get the number of keys generated by the background task.
+     *
+     * @return the number of keys added to the pool.
+     */
+    public long getGeneratedCount() {
+        return generatedCount.get();
+    }
+}
@@ -25,6 +25,7 @@ package org.openbase.bco.authentication.lib;
 import com.google.protobuf.ByteString;
 import org.openbase.bco.authentication.lib.AuthenticationClientHandler.TicketWrapperSessionKeyPair;
 import org.openbase.bco.authentication.lib.exception.SessionExpiredException;
+import org.openbase.bco.authentication.lib.future.CompletableFutureProcessor;
 import org.openbase.bco.authentication.lib.iface.Session;
 import org.openbase.bco.authentication.lib.jp.JPAuthentication;
 import org.openbase.bco.authentication.lib.jp.JPSessionTimeout;
@@ -37,7 +38,6 @@ import org.openbase.jul.iface.Shutdownable;
 import org.openbase.jul.pattern.ObservableImpl;
 import org.openbase.jul.pattern.Observer;
 import org.openbase.jul.schedule.GlobalCachedExecutorService;
-import org.openbase.jul.schedule.GlobalScheduledExecutorService;
 import org.openbase.type.domotic.authentication.AuthTokenType.AuthToken;
 import org.openbase.type.domotic.authentication.AuthenticatedValueType.AuthenticatedValue;
 import org.openbase.type.domotic.authentication.AuthenticatorType.Authenticator;
@@ -50,12 +50,18 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 import java.security.KeyPair;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -65,7 +71,11 @@ import java.util.regex.Pattern;
 public class SessionManager implements Shutdownable, Session {
 
     private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(SessionManager.class);
-    private static final String STORE_FILENAME = "client_credential_store.json";
+    static final String STORE_FILENAME = "client_credential_store.json";
+    /**
+     * Timeout in milliseconds for a single request to the authenticator.
+     */
+    private static final long REQUEST_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
 
     private static SessionManager instance;
 
@@ -88,13 +98,9 @@ public class SessionManager implements Shutdownable, Session {
      */
     private final ObservableImpl<SessionManager, UserClientPair> loginObservable;
     /**
-     * The ticket and authenticator of the current session.
-     */
-    private TicketAuthenticatorWrapper ticketAuthenticatorWrapper;
-    /**
-     * The key of the current session.
+     * Snapshot of the ticket, authenticator and key of the current session. It is always replaced as a whole.
      */
-    private byte[] sessionKey;
+    private final AtomicReference<SessionState> sessionState;
     /**
      * Credential store of the session manager. Storing user password hashes and client private keys.
      */
@@ -104,11 +110,29 @@ public class SessionManager implements Shutdownable, Session {
      */
     private final UserClientPair.Builder userClientPair;
     /**
-     * Future of a task that renews the ticket of a user if he wants to stay logged in.
+     * Scheduler renewing the ticket of a user if he wants to stay logged in.
      */
-    private ScheduledFuture ticketRenewalTask;
-
-    private boolean skipNotification = false;
+    private final TicketRenewalScheduler ticketRenewalScheduler;
+    /**
+     * Future of the login in progress. It is shared by all callers requesting the same login.
+     */
+    private CompletableFuture<UserClientPair> loginFuture;
+    /**
+     * Id of the user or client whose login is in progress.
+     */
+    private String loginId;
+    /**
+     * Credentials used by the login in progress.
+     */
+    private LoginCredentials loginCredentials;
+    /**
+     * Flag defining if the login in progress is a user login.
+     */
+    private boolean loginIsUser;
+    /**
+     * Future of the re-login in progress. It is shared by all callers requesting a re-login.
+     */
+    private CompletableFuture<UserClientPair> reLoginFuture;
 
     /**
      * Create a session manager with the default credential store.
@@ -123,29 +147,47 @@ public class SessionManager implements Shutdownable, Session {
      * @param credentialStore the credential store used by the session manager.
      */
     public SessionManager(final CredentialStore credentialStore) {
-        try {
-            // register shutdown hook and delay it some time so other instances can still prepare the shutdown with their permissions.
-            Shutdownable.registerShutdownHook(this, 3000);
-        } catch (CouldNotPerformException ex) {
-            ExceptionPrinter.printHistory("Could not register session manager shutdown hook", ex, LOGGER, LogLevel.WARN);
+        this(credentialStore, true);
+    }
+
+    /**
+     * Create a session manager using a given credential store.
+     * Sessions managed by a {@link SessionRegistry} share an initialized credential store and are shut down by the
+     * registry, so they neither initialize the store nor register their own shutdown hook.
+     *
+     * @param credentialStore the credential store used by the session manager.
+     * @param standalone      flag defining if the credential store is initialized and a shutdown hook is registered.
+     */
+    SessionManager(final CredentialStore credentialStore, final boolean standalone) {
+        if (standalone) {
+            try {
+                // register shutdown hook and delay it some time so other instances can still prepare the shutdown with their permissions.
+                Shutdownable.registerShutdownHook(this, 3000);
+            } catch (CouldNotPerformException ex) {
+                ExceptionPrinter.printHistory("Could not register session manager shutdown hook", ex, LOGGER, LogLevel.WARN);
+            }
         }
         this.userClientPair = UserClientPair.newBuilder();
+        this.ticketRenewalScheduler = TicketRenewalScheduler.getInstance();
+        this.sessionState = new AtomicReference<>(SessionState.EMPTY);
         // create login observable
         this.loginObservable = new ObservableImpl<>(this);
         // add executor service so that it is not waited for notifications and so that they are done in parallel
         this.loginObservable.setExecutorService(GlobalCachedExecutorService.getInstance().getExecutorService());
         // save and init credential store
         this.credentialStore = credentialStore;
-        try {
-            this.credentialStore.init(STORE_FILENAME);
-        } catch (CouldNotPerformException ex) {
-            ExceptionPrinter.printHistory("Could not init credential store for session manager", ex, LOGGER, LogLevel.WARN);
+        if (standalone) {
+            try {
+                this.credentialStore.init(STORE_FILENAME);
+            } catch (CouldNotPerformException ex) {
+                ExceptionPrinter.printHistory("Could not init credential store for session manager", ex, LOGGER, LogLevel.WARN);
+            }
         }
     }
 
     //TODO: test if this method is necessary
     public TicketAuthenticatorWrapper getTicketAuthenticatorWrapper() {
-        return ticketAuthenticatorWrapper;
+        return sessionState.get().getTicketAuthenticatorWrapper();
     }
 
     /**
@@ -156,27 +198,71 @@ public class SessionManager implements Shutdownable, Session {
      *
      * @param wrapper the new ticket authenticator wrapper
      *
-     * @throws CouldNotPerformException if one of the tickets cannot be decrypted using the current session key
+     * @throws CouldNotPerformException if the ticket cannot be decrypted using the current session key
      */
-    public synchronized void updateTicketAuthenticatorWrapper(final TicketAuthenticatorWrapper wrapper) throws CouldNotPerformException {
-        if (ticketAuthenticatorWrapper == null) {
+    public void updateTicketAuthenticatorWrapper(final TicketAuthenticatorWrapper wrapper) throws CouldNotPerformException {
+        final SessionState state = sessionState.get();
+        if (!state.isLoggedIn()) {
             // the ticket authenticator wrapper can only be null if no one is logged in, then it does not make sense to update it
             throw new CouldNotPerformException("Could not update ticketAuthenticatorWrapper because it was never set");
         }
 
         try {
-            // decrypt current and new authenticators
-            Authenticator lastAuthenticator = EncryptionHelper.decryptSymmetric(ticketAuthenticatorWrapper.getAuthenticator(), this.getSessionKey(), Authenticator.class);
-            Authenticator currentAuthenticator = EncryptionHelper.decryptSymmetric(wrapper.getAuthenticator(), this.getSessionKey(), Authenticator.class);
-            // keep the newer one
-            if (currentAuthenticator.getTimestamp().getTime() > lastAuthenticator.getTimestamp().getTime()) {
-                ticketAuthenticatorWrapper = wrapper;
-            }
+            // only the new authenticator has to be decrypted because the current one is kept in plain form
+            final Authenticator authenticator = EncryptionHelper.decryptSymmetric(wrapper.getAuthenticator(), state.getSessionKey(), Authenticator.class);
+            updateSessionState(state.getSessionKey(), wrapper, authenticator);
         } catch (CouldNotPerformException ex) {
             throw new CouldNotPerformException("Could not update ticket authenticator wrapper", ex);
         }
     }
 
+    /**
+     * Verify the response of a server to a request performed with the given ticket and update the ticket
+     * of the current session with it.
+     * If the session has changed since the request was performed, the response is verified but the current
+     * session is not updated.
+     *
+     * @param request  the ticket which was send with the request.
+     * @param response the ticket returned by the server.
+     *
+     * @return the verified ticket of the response.
+     *
+     * @throws CouldNotPerformException if no one is logged in or the response cannot be verified.
+     */
+    public TicketAuthenticatorWrapper verifyServiceServerResponse(final TicketAuthenticatorWrapper request, final TicketAuthenticatorWrapper response) throws CouldNotPerformException {
+        final SessionState state = sessionState.get();
+        if (!state.isLoggedIn()) {
+            throw new CouldNotPerformException("Could not verify response because no one is logged in");
+        }
+
+        final Authenticator authenticator = AuthenticationClientHandler.verifyServiceServerResponse(state.getSessionKey(), request, response);
+        updateSessionState(state.getSessionKey(), response, authenticator);
+        return response;
+    }
+
+    /**
+     * Replace the ticket of the current session if the given authenticator is newer than the current one.
+     * The update is only applied if the session identified by the given key is still active.
+     *
+     * @param sessionKey    the key of the session the ticket belongs to.
+     * @param wrapper       the new ticket authenticator wrapper.
+     * @param authenticator the decrypted authenticator of the new wrapper.
+     */
+    private void updateSessionState(final byte[] sessionKey, final TicketAuthenticatorWrapper wrapper, final Authenticator authenticator) {
+        while (true) {
+            final SessionState state = sessionState.get();
+
+            // skip if the session changed in the meantime or the current ticket is newer
+            if (state.getSessionKey() != sessionKey || authenticator.getTimestamp().getTime() <= state.getTimestamp()) {
+                return;
+            }
+
+            if (sessionState.compareAndSet(state, new SessionState(wrapper, authenticator, sessionKey))) {
+                return;
+            }
+        }
+    }
+
     /**
      * Get the key of the current session managed by this session manager.
      *
@@ -185,7 +271,7 @@ public class SessionManager implements Shutdownable, Session {
      * @return the current session key
      */
     public byte[] getSessionKey() {
-        return sessionKey;
+        return sessionState.get().getSessionKey();
     }
 
     /**
@@ -196,24 +282,41 @@ public class SessionManager implements Shutdownable, Session {
      * @throws RejectedException if the ticket could not be initialized
      */
     public TicketAuthenticatorWrapper initializeServiceServerRequest() throws RejectedException {
+        return initializeServiceServerRequest(sessionState.get());
+    }
+
+    /**
+     * Initialize the ticket of a session state for a request.
+     *
+     * @param state the session state whose ticket is initialized.
+     *
+     * @return the ticket initialized for a request
+     *
+     * @throws RejectedException if the ticket could not be initialized
+     */
+    private TicketAuthenticatorWrapper initializeServiceServerRequest(final SessionState state) throws RejectedException {
         try {
-            return AuthenticationClientHandler.initServiceServerRequest(this.getSessionKey(), this.getTicketAuthenticatorWrapper());
+            if (!state.isLoggedIn()) {
+                throw new CouldNotPerformException("No one is logged in");
+            }
+            return AuthenticationClientHandler.initServiceServerRequest(state.getSessionKey(), state.getTicketAuthenticatorWrapper(), state.getAuthenticator());
         } catch (CouldNotPerformException ex) {
             throw new RejectedException("Initializing request rejected", ex);
         }
     }
 
     public <VALUE extends Serializable> AuthenticatedValue initializeRequest(final VALUE value, final AuthToken authToken) throws CouldNotPerformException {
+        final SessionState state = sessionState.get();
         AuthenticatedValue.Builder authenticatedValue = AuthenticatedValue.newBuilder();
-        authenticatedValue.setTicketAuthenticatorWrapper(initializeServiceServerRequest());
-        authenticatedValue.setValue(EncryptionHelper.encryptSymmetric(value, sessionKey));
+        authenticatedValue.setTicketAuthenticatorWrapper(initializeServiceServerRequest(state));
+        authenticatedValue.setValue(EncryptionHelper.encryptSymmetric(value, state.getSessionKey()));
 
         if (authToken != null && authToken.hasAuthenticationToken() && !authToken.getAuthenticationToken().isEmpty()) {
-            authenticatedValue.setAuthenticationToken(EncryptionHelper.encryptSymmetric(authToken.getAuthenticationToken(), sessionKey));
+            authenticatedValue.setAuthenticationToken(EncryptionHelper.encryptSymmetric(authToken.getAuthenticationToken(), state.getSessionKey()));
         }
 
         if (authToken != null && authToken.hasAuthorizationToken() && !authToken.getAuthorizationToken().isEmpty()) {
-            authenticatedValue.setAuthorizationToken(EncryptionHelper.encryptSymmetric(authToken.getAuthorizationToken(), sessionKey));
+            authenticatedValue.setAuthorizationToken(EncryptionHelper.encryptSymmetric(authToken.getAuthorizationToken(), state.getSessionKey()));
         }
 
         return authenticatedValue.build();
@@ -228,7 +331,7 @@ public class SessionManager implements Shutdownable, Session {
      * @throws CouldNotPerformException {@inheritDoc}
      */
     @Override
-    public synchronized void loginUser(final String id, final boolean stayLoggedIn) throws CouldNotPerformException {
+    public void loginUser(final String id, final boolean stayLoggedIn) throws CouldNotPerformException {
         loginUser(id, credentialStore.getCredentials(id), stayLoggedIn);
     }
 
@@ -242,7 +345,7 @@ public class SessionManager implements Shutdownable, Session {
      * @throws CouldNotPerformException {@inheritDoc}
      */
     @Override
-    public synchronized void loginUser(final String id, final String password, final boolean stayLoggedIn) throws CouldNotPerformException {
+    public void loginUser(final String id, final String password, final boolean stayLoggedIn) throws CouldNotPerformException {
         final LoginCredentials credentials = LoginCredentials.newBuilder().setId(id).setSymmetric(true)
                 .setCredentials(ByteString.copyFrom(EncryptionHelper.hash(password))).build();
         loginUser(id, credentials, stayLoggedIn);
@@ -258,7 +361,7 @@ public class SessionManager implements Shutdownable, Session {
      * @throws CouldNotPerformException {@inheritDoc}
      */
     @Override
-    public synchronized void loginUser(final String id, final byte[] passwordHash, final boolean stayLoggedIn) throws CouldNotPerformException {
+    public void loginUser(final String id, final byte[] passwordHash, final boolean stayLoggedIn) throws CouldNotPerformException {
         final LoginCredentials credentials = LoginCredentials.newBuilder().setId(id).setSymmetric(true)
                 .setCredentials(ByteString.copyFrom(passwordHash, 0, EncryptionHelper.HASH_LENGTH)).build();
         loginUser(id, credentials, stayLoggedIn);
@@ -274,8 +377,8 @@ public class SessionManager implements Shutdownable, Session {
      * @throws CouldNotPerformException {@inheritDoc}
      */
     @Override
-    public synchronized void loginUser(final String id, final LoginCredentials credentials, final boolean stayLoggedIn) throws CouldNotPerformException {
-        internalLogin(id, credentials, stayLoggedIn, true);
+    public void loginUser(final String id, final LoginCredentials credentials, final boolean stayLoggedIn) throws CouldNotPerformException {
+        waitForLogin(loginUserAsync(id, credentials, stayLoggedIn));
     }
 
     /**
@@ -287,7 +390,7 @@ public class SessionManager implements Shutdownable, Session {
      * @throws CouldNotPerformException {@inheritDoc}
      */
     @Override
-    public synchronized void loginClient(final String id, final boolean stayLoggedIn) throws CouldNotPerformException {
+    public void loginClient(final String id, final boolean stayLoggedIn) throws CouldNotPerformException {
         loginClient(id, credentialStore.getCredentials(id), stayLoggedIn);
     }
 
@@ -301,7 +404,7 @@ public class SessionManager implements Shutdownable, Session {
      * @throws CouldNotPerformException {@inheritDoc}
      */
     @Override
-    public synchronized void loginClient(final String id, final String password, final boolean stayLoggedIn) throws CouldNotPerformException {
+    public void loginClient(final String id, final String password, final boolean stayLoggedIn) throws CouldNotPerformException {
         final LoginCredentials credentials = LoginCredentials.newBuilder().setId(id).setSymmetric(true)
                 .setCredentials(ByteString.copyFrom(EncryptionHelper.hash(password))).build();
         loginClient(id, credentials, stayLoggedIn);
@@ -317,187 +420,410 @@ public class SessionManager implements Shutdownable, Session {
      * @throws CouldNotPerformException {@inheritDoc}
      */
     @Override
-    public synchronized void loginClient(final String id, final LoginCredentials credentials, final boolean stayLoggedIn) throws CouldNotPerformException {
-        internalLogin(id, credentials, stayLoggedIn, false);
+    public void loginClient(final String id, final LoginCredentials credentials, final boolean stayLoggedIn) throws CouldNotPerformException {
+        waitForLogin(loginClientAsync(id, credentials, stayLoggedIn));
+    }
+
+    /**
+     * Login a user asynchronously using the credentials from the credential store of this session manager.
+     *
+     * @param id           the id of the user.
+     * @param stayLoggedIn flag to keep the user logged in and to auto extend the session if needed.
+     *
+     * @return a future completed with the user client pair of the new session.
+     */
+    public CompletableFuture<UserClientPair> loginUserAsync(final String id, final boolean stayLoggedIn) {
+        try {
+            return loginUserAsync(id, credentialStore.getCredentials(id), stayLoggedIn);
+        } catch (CouldNotPerformException ex) {
+            return CompletableFutureProcessor.failedFuture(ex);
+        }
+    }
+
+    /**
+     * Login a user asynchronously.
+     * If the same user is currently logged in by another caller, the future of this login is shared.
+     *
+     * @param id           the id of the user.
+     * @param credentials  the credentials of the user.
+     * @param stayLoggedIn flag to keep the user logged in and to auto extend the session if needed.
+     *
+     * @return a future completed with the user client pair of the new session.
+     */
+    public CompletableFuture<UserClientPair> loginUserAsync(final String id, final LoginCredentials credentials, final boolean stayLoggedIn) {
+        return internalLoginAsync(id, credentials, stayLoggedIn, true, true);
+    }
+
+    /**
+     * Login a client asynchronously using the credentials from the credential store of this session manager.
+     *
+     * @param id           the id of the client.
+     * @param stayLoggedIn flag to keep the client logged in and to auto extend the session if needed.
+     *
+     * @return a future completed with the user client pair of the new session.
+     */
+    public CompletableFuture<UserClientPair> loginClientAsync(final String id, final boolean stayLoggedIn) {
+        try {
+            return loginClientAsync(id, credentialStore.getCredentials(id), stayLoggedIn);
+        } catch (CouldNotPerformException ex) {
+            return CompletableFutureProcessor.failedFuture(ex);
+        }
+    }
+
+    /**
+     * Login a client asynchronously.
+     * If the same client is currently logged in by another caller, the future of this login is shared.
+     *
+     * @param id           the id of the client.
+     * @param credentials  the credentials of the client.
+     * @param stayLoggedIn flag to keep the client logged in and to auto extend the session if needed.
+     *
+     * @return a future completed with the user client pair of the new session.
+     */
+    public CompletableFuture<UserClientPair> loginClientAsync(final String id, final LoginCredentials credentials, final boolean stayLoggedIn) {
+        return internalLoginAsync(id, credentials, stayLoggedIn, false, true);
+    }
+
+    /**
+     * Wait for an asynchronous login and forward its failure.
+     *
+     * @param future the future of the login.
+     *
+     * @throws CouldNotPerformException if the login failed.
+     */
+    private void waitForLogin(final CompletableFuture<UserClientPair> future) throws CouldNotPerformException {
+        try {
+            future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CouldNotPerformException(ex);
+        } catch (ExecutionException ex) {
+            final Throwable cause = CompletableFutureProcessor.unwrap(ex);
+            if (cause instanceof CouldNotPerformException) {
+                throw (CouldNotPerformException) cause;
+            }
+            throw new CouldNotPerformException("Could not login", cause);
+        }
     }
 
     /**
-     * Perform a login for a given userId and password.
+     * Perform a login for a given id and credentials. Concurrent logins of the same user or client with the same
+     * credentials share the login in progress while any other login is started after the current one has finished.
      *
      * @param id               Identifier of the user or client
      * @param loginCredentials credentials of the user/client to be logged in.
      * @param stayLoggedIn     flag to keep the user logged in and to auto extend the session if needed.
      * @param isUser           defines if the given id refers to a user or a client account.
+     * @param notify           flag defining if login observers are notified about the new session.
+     *
+     * @return a future completed with the user client pair of the new session.
+     */
+    private synchronized CompletableFuture<UserClientPair> internalLoginAsync(final String id, final LoginCredentials loginCredentials, final boolean stayLoggedIn, final boolean isUser, final boolean notify) {
+        if (loginFuture != null && !loginFuture.isDone()) {
+            // share the login in progress if it is for the same id and credentials
+            if (id.equals(loginId) && isUser == loginIsUser && Objects.equals(loginCredentials, this.loginCredentials)) {
+                return loginFuture;
+            }
+
+            // another login is in progress so start after it has finished
+            loginFuture = loginFuture
+                    .handle((pair, throwable) -> null)
+                    .thenCompose(ignored -> startLogin(id, loginCredentials, stayLoggedIn, isUser, notify));
+        } else {
+            loginFuture = startLogin(id, loginCredentials, stayLoggedIn, isUser, notify);
+        }
+        loginId = id;
+        this.loginCredentials = loginCredentials;
+        loginIsUser = isUser;
+        return loginFuture;
+    }
+
+    /**
+     * Start a login by requesting a ticket granting ticket and afterwards a client server ticket from the
+     * authenticator. The responses are handled as they arrive so no thread is blocked while waiting.
      *
-     * @return Returns true if login successful
+     * @param id               Identifier of the user or client
+     * @param loginCredentials credentials of the user/client to be logged in.
+     * @param stayLoggedIn     flag to keep the user logged in and to auto extend the session if needed.
+     * @param isUser           defines if the given id refers to a user or a client account.
+     * @param notify           flag defining if login observers are notified about the new session.
      *
-     * @throws NotAvailableException    If the entered clientId could not be found.
-     * @throws CouldNotPerformException In case of a communication error between client and server.
+     * @return a future completed with the user client pair of the new session.
      */
-    private synchronized void internalLogin(final String id, final LoginCredentials loginCredentials, final boolean stayLoggedIn, final boolean isUser) throws CouldNotPerformException, NotAvailableException {
+    private CompletableFuture<UserClientPair> startLogin(final String id, final LoginCredentials loginCredentials, final boolean stayLoggedIn, final boolean isUser, final boolean notify) {
+        final LoginRequest loginRequest;
         try {
-            // validate authentication property
-            try {
-                if (!JPService.getProperty(JPAuthentication.class).getValue()) {
-                    throw new CouldNotPerformException("Could not login. Authentication is disabled");
-                }
-            } catch (JPNotAvailableException ex) {
-                throw new CouldNotPerformException("Could not check JPEnableAuthenticationProperty", ex);
+            loginRequest = prepareLogin(id, loginCredentials, isUser);
+        } catch (CouldNotPerformException ex) {
+            return CompletableFutureProcessor.failedFuture(handleLoginFailure(ex));
+        }
+
+        if (loginRequest == null) {
+            // the user or client is already logged in
+            return CompletableFuture.completedFuture(getUserClientPair());
+        }
+
+        return requestAuthenticator(remote -> remote.requestTicketGrantingTicket(loginRequest.getUserClientPair()), SessionManager::resolveLoginError)
+                .thenCompose(ticketSessionKeyWrapper -> {
+                    // handle response of the key distribution center
+                    final TicketWrapperSessionKeyPair ticketWrapperSessionKeyPair;
+                    try {
+                        ticketWrapperSessionKeyPair = AuthenticationClientHandler.handleKeyDistributionCenterResponse(loginRequest.getUserClientPair(), loginRequest.getUserCredentials(), loginRequest.getClientCredentials(), ticketSessionKeyWrapper, credentialStore.getParsedKeyCache());
+                    } catch (CouldNotPerformException ex) {
+                        throw new CompletionException(new CouldNotPerformException("Could not login", ex));
+                    }
+
+                    // request client server ticket
+                    return requestAuthenticator(remote -> remote.requestClientServerTicket(ticketWrapperSessionKeyPair.getTicketAuthenticatorWrapper()), SessionManager::resolveLoginError)
+                            .thenApply(response -> {
+                                // handle response of the ticket granting service
+                                try {
+                                    return AuthenticationClientHandler.handleTicketGrantingServiceResponse(loginRequest.getUserClientPair(), ticketWrapperSessionKeyPair.getSessionKey(), response);
+                                } catch (CouldNotPerformException ex) {
+                                    throw new CompletionException(new CouldNotPerformException("Could not login", ex));
+                                }
+                            });
+                })
+                .thenApply(ticketWrapperSessionKeyPair -> {
+                    completeLogin(loginRequest, ticketWrapperSessionKeyPair, stayLoggedIn || !isUser, notify);
+                    return loginRequest.getUserClientPair();
+                })
+                .handle((pair, throwable) -> {
+                    if (throwable != null) {
+                        throw new CompletionException(handleLoginFailure(CompletableFutureProcessor.unwrap(throwable)));
+                    }
+                    return pair;
+                });
+    }
+
+    /**
+     * Validate that a login can be performed and resolve the ids and credentials of the session it creates.
+     * The session itself is not changed before the login has been completed.
+     *
+     * @param id               Identifier of the user or client
+     * @param loginCredentials credentials of the user/client to be logged in.
+     * @param isUser           defines if the given id refers to a user or a client account.
+     *
+     * @return the request describing the login or null if the user or client is already logged in.
+     *
+     * @throws CouldNotPerformException if the login cannot be performed.
+     */
+    private synchronized LoginRequest prepareLogin(final String id, final LoginCredentials loginCredentials, final boolean isUser) throws CouldNotPerformException {
+        // validate authentication property
+        try {
+            if (!JPService.getProperty(JPAuthentication.class).getValue()) {
+                throw new CouldNotPerformException("Could not login. Authentication is disabled");
             }
+        } catch (JPNotAvailableException ex) {
+            throw new CouldNotPerformException("Could not check JPEnableAuthenticationProperty", ex);
+        }
 
-            // handle cases when somebody is already logged in
-            if (this.isLoggedIn()) {
-                // do nothing if same user or client is already logged in
-                if (id.equals(this.userClientPair.getUserId()) || id.equals(this.userClientPair.getClientId())) {
-                    return;
-                }
+        final UserClientPair.Builder pendingUserClientPair = userClientPair.clone();
 
-                // cancel current ticket renewal task
-                if (ticketRenewalTask != null && !ticketRenewalTask.isDone()) {
-                    ticketRenewalTask.cancel(true);
-                }
+        // handle cases when somebody is already logged in
+        if (this.isLoggedIn()) {
+            // do nothing if same user or client is already logged in
+            if (id.equals(this.userClientPair.getUserId()) || id.equals(this.userClientPair.getClientId())) {
+                return null;
+            }
 
-                // if new client is logged in while a user is logged in the user has to be logged out
-                if (!userClientPair.getUserId().isEmpty() && !isUser) {
-                    this.logout();
-                }
+            // if new client is logged in while a user is logged in the user has to be logged out
+            if (!userClientPair.getUserId().isEmpty() && !isUser) {
+                pendingUserClientPair.clearUserId();
             }
+        }
 
-            // save the new id
-            if (isUser) {
-                userClientPair.setUserId(id);
-            } else {
-                userClientPair.setClientId(id);
+        // the new id is only applied to the session when the login is completed
+        if (isUser) {
+            pendingUserClientPair.setUserId(id);
+        } else {
+            pendingUserClientPair.setClientId(id);
+        }
+
+        // resolve user at client id and credentials
+        LoginCredentials userCredentials = null;
+        LoginCredentials clientCredentials = null;
+        if (isUser) {
+            // user is logged in so the parameters are his credentials
+            userCredentials = loginCredentials;
+
+            // if client was logged in get its credentials from the store
+            if (!pendingUserClientPair.getClientId().isEmpty()) {
+                clientCredentials = credentialStore.getCredentials(pendingUserClientPair.getClientId());
             }
+        } else {
+            // client is logged in so the parameters are his credentials
+            clientCredentials = loginCredentials;
+        }
 
-            // resolve user at client id and credentials
-            LoginCredentials userCredentials = null;
-            LoginCredentials clientCredentials = null;
-            if (isUser) {
-                // user is logged in so the parameters are his credentials
-                userCredentials = loginCredentials;
+        return new LoginRequest(pendingUserClientPair.build(), getUserClientPair(), userCredentials, clientCredentials);
+    }
 
-                // if client was logged in get its credentials from the store
-                if (!userClientPair.getClientId().isEmpty()) {
-                    clientCredentials = credentialStore.getCredentials(userClientPair.getClientId());
-                }
-            } else {
-                // client is logged in so the parameters are his credentials
-                clientCredentials = loginCredentials;
+    /**
+     * Apply the result of a successful login to this session manager. The ids, the session state and the ticket
+     * renewal of the session are replaced together.
+     *
+     * @param loginRequest                the request describing the login.
+     * @param ticketWrapperSessionKeyPair ticket and session key received from the authenticator.
+     * @param renewTicket                 flag defining if the ticket should be renewed automatically.
+     * @param notify                      flag defining if login observers are notified about the new session.
+     */
+    private void completeLogin(final LoginRequest loginRequest, final TicketWrapperSessionKeyPair ticketWrapperSessionKeyPair, final boolean renewTicket, final boolean notify) {
+        // decrypt the authenticator once so that requests do not have to decrypt it again
+        final Authenticator authenticator;
+        try {
+            authenticator = EncryptionHelper.decryptSymmetric(ticketWrapperSessionKeyPair.getTicketAuthenticatorWrapper().getAuthenticator(), ticketWrapperSessionKeyPair.getSessionKey(), Authenticator.class);
+        } catch (CouldNotPerformException ex) {
+            throw new CompletionException(new CouldNotPerformException("Could not login", ex));
+        }
+
+        synchronized (this) {
+            if (!loginRequest.getPreviousUserClientPair().equals(getUserClientPair())) {
+                throw new CompletionException(new CouldNotPerformException("Could not login because the session has been changed during the login"));
             }
 
-            try {
-                // request ticket granting ticket
-                TicketSessionKeyWrapper ticketSessionKeyWrapper = CachedAuthenticationRemote.getRemote().requestTicketGrantingTicket(getUserClientPair()).get(5, TimeUnit.SECONDS);
-                // handle response
+            // cancel the ticket renewal of the previous session
+            cancelTicketRenewal();
 
-                TicketWrapperSessionKeyPair ticketWrapperSessionKeyPair = AuthenticationClientHandler.handleKeyDistributionCenterResponse(getUserClientPair(), userCredentials, clientCredentials, ticketSessionKeyWrapper);
+            userClientPair.clear().mergeFrom(loginRequest.getUserClientPair());
+            sessionState.set(new SessionState(ticketWrapperSessionKeyPair.getTicketAuthenticatorWrapper(), authenticator, ticketWrapperSessionKeyPair.getSessionKey()));
 
-                // request client server ticket
-                ticketSessionKeyWrapper = CachedAuthenticationRemote.getRemote().requestClientServerTicket(ticketWrapperSessionKeyPair.getTicketAuthenticatorWrapper()).get(5, TimeUnit.SECONDS);
-                // handle response
-                ticketWrapperSessionKeyPair = AuthenticationClientHandler.handleTicketGrantingServiceResponse(getUserClientPair(), ticketWrapperSessionKeyPair.getSessionKey(), ticketSessionKeyWrapper);
-                this.ticketAuthenticatorWrapper = ticketWrapperSessionKeyPair.getTicketAuthenticatorWrapper();
-                this.sessionKey = ticketWrapperSessionKeyPair.getSessionKey();
+            // user wants to stay logged or is a client so trigger a ticket renewal task
+            if (renewTicket) {
+                scheduleTicketRenewal();
+            }
+        }
 
-                notifyLoginObserver();
+        if (notify) {
+            notifyLoginObserver();
+        }
+    }
 
-                // user wants to stay logged or is a client so trigger a ticket renewal task
-                if (stayLoggedIn || !isUser) {
-                    try {
-                        final Long sessionTimeout = JPService.getProperty(JPSessionTimeout.class).getValue();
-                        final long delay = (long) ((2 * sessionTimeout) / 4.0d);
-                        ticketRenewalTask = GlobalScheduledExecutorService.scheduleWithFixedDelay(() -> {
-                            try {
-                                renewTicket();
-                            } catch (CouldNotPerformException ex) {
-                                if(!ExceptionProcessor.isCausedBySystemShutdown(ex)) {
-                                    ExceptionPrinter.printHistory("Could not renew ticket", ex, LOGGER, LogLevel.WARN);
-                                }
-                            } catch (InterruptedException ex) {
-                                Thread.currentThread().interrupt();
-                            }
-                        }, delay, delay, TimeUnit.MILLISECONDS);
-                    } catch (JPNotAvailableException ex) {
-                        if(!ExceptionProcessor.isCausedBySystemShutdown(ex)) {
-                            ExceptionPrinter.printHistory("Could not start ticket renewal task", ex, LOGGER, LogLevel.WARN);
-                        }
-                    }
-                }
-            } catch (CouldNotPerformException ex) {
-                throw new CouldNotPerformException("Could not login", ex);
-            } catch (ExecutionException ex) {
-                Throwable cause = ex.getCause();
+    /**
+     * Convert the failure of a login into the exception reported to the caller.
+     * The session is not changed by a failed login since its ids are only applied when a login is completed.
+     *
+     * @param throwable the reason of the failure.
+     *
+     * @return the exception describing the failed login.
+     */
+    private CouldNotPerformException handleLoginFailure(final Throwable throwable) {
+        final CouldNotPerformException ex;
+        if (throwable instanceof CouldNotPerformException) {
+            ex = (CouldNotPerformException) throwable;
+        } else {
+            ex = new CouldNotPerformException("Could not login", throwable);
+        }
+        LOGGER.info("Login failed: ", ex);
+        return ex;
+    }
 
-                // Ugly workaround, as RSB wraps the stacktrace into the message string.
-                Pattern pattern = Pattern.compile("NotAvailableException: (.*)[\n\r]");
-                Matcher matcher = pattern.matcher(cause.getMessage());
+    /**
+     * Convert the failure of a request to the authenticator during a login.
+     *
+     * @param cause the reason why the request failed.
+     *
+     * @return an exception describing the failure.
+     */
+    private static CouldNotPerformException resolveLoginError(final Throwable cause) {
+        if (cause instanceof TimeoutException) {
+            return new org.openbase.jul.exception.TimeoutException("Requests to the authenticator timed out!");
+        }
 
-                if (matcher.find()) {
-                    ExceptionPrinter.printHistory(cause, LOGGER, LogLevel.ERROR);
-                    throw new NotAvailableException(matcher.group(1));
-                }
+        // Ugly workaround, as RSB wraps the stacktrace into the message string.
+        Pattern pattern = Pattern.compile("NotAvailableException: (.*)[\n\r]");
+        Matcher matcher = pattern.matcher(String.valueOf(cause.getMessage()));
 
-                ExceptionPrinter.printHistory(cause, LOGGER, LogLevel.ERROR);
-                throw new CouldNotPerformException("Internal server error.", cause);
-            } catch (TimeoutException e) {
-                throw new org.openbase.jul.exception.TimeoutException("Requests to the authenticator timed out!");
-            } catch (InterruptedException ex) {
-                //TODO: handle me correctly
-                Thread.currentThread().interrupt();
-                throw new CouldNotPerformException(ex);
-            }
+        if (matcher.find()) {
+            ExceptionPrinter.printHistory(cause, LOGGER, LogLevel.ERROR);
+            return new NotAvailableException(matcher.group(1));
+        }
+
+        ExceptionPrinter.printHistory(cause, LOGGER, LogLevel.ERROR);
+        return new CouldNotPerformException("Internal server error.", cause);
+    }
+
+    /**
+     * Perform a request at the authenticator without blocking.
+     *
+     * @param request     the request which is performed.
+     * @param errorMapper function converting a failure of the request.
+     * @param <T>         the type of the response.
+     *
+     * @return a future completed with the response of the authenticator.
+     */
+    private static <T> CompletableFuture<T> requestAuthenticator(final AuthenticatorRequest<T> request, final Function<Throwable, CouldNotPerformException> errorMapper) {
+        final Future<T> future;
+        try {
+            future = request.request(CachedAuthenticationRemote.getRemote());
         } catch (CouldNotPerformException ex) {
-            // clear id on failure
-            if (isUser) {
-                if (userClientPair.getUserId().equals(id)) {
-                    userClientPair.clearUserId();
-                }
-            } else {
-                if (userClientPair.getClientId().equals(id)) {
-                    userClientPair.clearClientId();
-                }
+            return CompletableFutureProcessor.failedFuture(ex);
+        }
+
+        return CompletableFutureProcessor.toCompletableFuture(future, REQUEST_TIMEOUT, TimeUnit.MILLISECONDS).handle((response, throwable) -> {
+            if (throwable != null) {
+                throw new CompletionException(errorMapper.apply(CompletableFutureProcessor.unwrap(throwable)));
             }
-            // todo: @pleminoq anything else the reset?
-            // e.g. ticketAuthenticatorWrapper, sessionKey
+            return response;
+        });
+    }
 
-            LOGGER.info("Login failed: ", ex);
-            throw ex;
+    /**
+     * Schedule the renewal of the ticket of the current session before it runs out.
+     * The renewal is performed by the ticket renewal scheduler shared by all sessions.
+     */
+    private synchronized void scheduleTicketRenewal() {
+        try {
+            final Long sessionTimeout = JPService.getProperty(JPSessionTimeout.class).getValue();
+            ticketRenewalScheduler.schedule(this, (long) ((2 * sessionTimeout) / 4.0d));
+        } catch (JPNotAvailableException ex) {
+            ExceptionPrinter.printHistory("Could not start ticket renewal", ex, LOGGER, LogLevel.WARN);
         }
     }
 
+    /**
+     * Cancel the renewal of the ticket of the current session.
+     *
+     * @return true if the ticket renewal was active.
+     */
+    private synchronized boolean cancelTicketRenewal() {
+        return ticketRenewalScheduler.cancel(this);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
-    public synchronized void logout() {
-        boolean stayLoggedIn = ticketRenewalTask != null && !ticketRenewalTask.isDone();
-        // cancel ticket renewal task
-        if (stayLoggedIn) {
-            ticketRenewalTask.cancel(true);
+    public void logout() {
+        final boolean stayLoggedIn;
+        final String clientId;
+        synchronized (this) {
+            // cancel ticket renewal task
+            stayLoggedIn = cancelTicketRenewal();
+
+            // clear ticket and session key
+            sessionState.set(SessionState.EMPTY);
+
+            // if a user was logged in clear user id
+            if (!userClientPair.getUserId().isEmpty()) {
+                userClientPair.clearUserId();
+                clientId = userClientPair.getClientId();
+            } else {
+                // only a client has been logged in so clear its id
+                userClientPair.clearClientId();
+                clientId = "";
+            }
         }
 
-        // clear ticket and session key
-        this.ticketAuthenticatorWrapper = null;
-        this.sessionKey = null;
-
-        // if a user was logged in clear user id
-        if (!userClientPair.getUserId().isEmpty()) {
-            userClientPair.clearUserId();
-
-            // if a client was logged in additionally, log him in again
-            if (!userClientPair.getClientId().isEmpty()) {
-                try {
-                    loginClient(userClientPair.getClientId(), stayLoggedIn);
-                    // return because the login notifies observer already
-                    return;
-                } catch (CouldNotPerformException ex) {
-                    ExceptionPrinter.printHistory("Could not login as client again after user logout", ex, LOGGER, LogLevel.WARN);
-                }
+        // if a client was logged in additionally, log him in again
+        if (!clientId.isEmpty()) {
+            try {
+                loginClient(clientId, stayLoggedIn);
+                // return because the login notifies observer already
+                return;
+            } catch (CouldNotPerformException ex) {
+                ExceptionPrinter.printHistory("Could not login as client again after user logout", ex, LOGGER, LogLevel.WARN);
             }
-        } else if (!userClientPair.getClientId().isEmpty()) {
-            // only a client has been logged in so clear its id
-            userClientPair.clearClientId();
         }
 
         // notify observer of logout
@@ -508,14 +834,13 @@ public class SessionManager implements Shutdownable, Session {
      * The normal logout method logs in a client again if a user and a client were registered.
      * This method will also logout the client. This is mostly necessary for unit tests.
      */
-    public synchronized void completeLogout() {
-        if (ticketRenewalTask != null && !ticketRenewalTask.isDone()) {
-            ticketRenewalTask.cancel(true);
+    public void completeLogout() {
+        synchronized (this) {
+            cancelTicketRenewal();
+            userClientPair.clearUserId();
+            userClientPair.clearClientId();
+            sessionState.set(SessionState.EMPTY);
         }
-        userClientPair.clearUserId();
-        userClientPair.clearClientId();
-        sessionKey = null;
-        ticketAuthenticatorWrapper = null;
         notifyLoginObserver();
     }
 
@@ -523,10 +848,6 @@ public class SessionManager implements Shutdownable, Session {
      * Method notifies login observer with the current user at client id.
      */
     private void notifyLoginObserver() {
-        if (skipNotification) {
-            return;
-        }
-
         try {
             loginObservable.notifyObservers(getUserClientPair());
         } catch (CouldNotPerformException ex) {
@@ -541,7 +862,7 @@ public class SessionManager implements Shutdownable, Session {
      */
     @Override
     public boolean isLoggedIn() {
-        return this.ticketAuthenticatorWrapper != null && this.sessionKey != null;
+        return sessionState.get().isLoggedIn();
     }
 
     /**
@@ -550,13 +871,13 @@ public class SessionManager implements Shutdownable, Session {
      * @return {@inheritDoc}
      */
     @Override
-    public synchronized boolean isAdmin() {
+    public boolean isAdmin() {
         if (!this.isLoggedIn()) {
             return false;
         }
 
         try {
-            return CachedAuthenticationRemote.getRemote().isAdmin(userClientPair.getUserId()).get(5, TimeUnit.SECONDS);
+            return CachedAuthenticationRemote.getRemote().isAdmin(getUserClientPair().getUserId()).get(5, TimeUnit.SECONDS);
         } catch (InterruptedException | CouldNotPerformException | ExecutionException | TimeoutException ex) {
             ExceptionPrinter.printHistory(ex, LOGGER, LogLevel.ERROR);
         }
@@ -568,53 +889,184 @@ public class SessionManager implements Shutdownable, Session {
      * Renew the ticket for the current session by validating it at the authenticator controller.
      * This method is used to keep a user logged in by renewing the ticket before a session runs out.
      *
-     * @throws CouldNotPerformException if the ticket could not be renewed
+     * @return a future completed with the renewed ticket.
      */
-    private synchronized void renewTicket() throws CouldNotPerformException, InterruptedException {
+    public CompletableFuture<TicketAuthenticatorWrapper> renewTicketAsync() {
+        final SessionState state = sessionState.get();
         // validate that someone is logged in
-        if (!this.isLoggedIn()) {
-            throw new CouldNotPerformException("Could not renew ticket because not one is logged in");
+        if (!state.isLoggedIn()) {
+            return CompletableFutureProcessor.failedFuture(new CouldNotPerformException("Could not renew ticket because not one is logged in"));
         }
 
-        // perform a request with the current ticket
+        // initialize current ticket for a request
+        final TicketAuthenticatorWrapper request;
         try {
-            // initialize current ticket for a request
-            TicketAuthenticatorWrapper request = AuthenticationClientHandler.initServiceServerRequest(this.sessionKey, this.ticketAuthenticatorWrapper);
-            // perform the request
-            TicketAuthenticatorWrapper response = CachedAuthenticationRemote.getRemote().validateClientServerTicket(request).get(5, TimeUnit.SECONDS);
-            // validate response and set as current ticket
-            ticketAuthenticatorWrapper = AuthenticationClientHandler.handleServiceServerResponse(this.sessionKey, request, response);
-        } catch (ExecutionException ex) {
-            Throwable cause = ex.getCause();
+            request = initializeServiceServerRequest(state);
+        } catch (CouldNotPerformException ex) {
+            return CompletableFutureProcessor.failedFuture(ex);
+        }
 
-            Pattern pattern = Pattern.compile("RejectedException: (.*)[\n\r]");
-            Matcher matcher = pattern.matcher(cause.getMessage());
+        // perform a request with the current ticket
+        return requestAuthenticator(remote -> remote.validateClientServerTicket(request), SessionManager::resolveRenewalError).thenApply(response -> completeRenewal(state, request, response));
+    }
 
-            if (matcher.find()) {
-                ExceptionPrinter.printHistory(cause, LOGGER, LogLevel.ERROR);
-                throw new RejectedException(matcher.group(1));
+    /**
+     * Renew the tickets of multiple sessions with a single batch request to the authenticator controller.
+     * If the authenticator cannot process the batch as a whole, e.g. because it does not support batch requests,
+     * every ticket is renewed by its own request instead. More sessions than {@link TicketValidationBatch#MAX_BATCH_SIZE}
+     * are split into multiple batch requests.
+     *
+     * @param sessionManagers the sessions whose tickets are renewed.
+     *
+     * @return one future per session in the given order completed with its renewed ticket.
+     */
+    public static List<CompletableFuture<TicketAuthenticatorWrapper>> renewTicketsAsync(final List<SessionManager> sessionManagers) {
+        final List<CompletableFuture<TicketAuthenticatorWrapper>> futureList = new ArrayList<>(sessionManagers.size());
+        if (sessionManagers.size() > TicketValidationBatch.MAX_BATCH_SIZE) {
+            for (int from = 0; from < sessionManagers.size(); from += TicketValidationBatch.MAX_BATCH_SIZE) {
+                futureList.addAll(renewTicketsAsync(sessionManagers.subList(from, Math.min(from + TicketValidationBatch.MAX_BATCH_SIZE, sessionManagers.size()))));
             }
+            return futureList;
+        }
 
-            pattern = Pattern.compile("PermissionDeniedException: (.*)[\n\r]");
-            matcher = pattern.matcher(cause.getMessage());
+        final List<SessionManager> requestSessionList = new ArrayList<>();
+        final List<SessionState> requestStateList = new ArrayList<>();
+        final List<TicketAuthenticatorWrapper> requestList = new ArrayList<>();
+        final List<CompletableFuture<TicketAuthenticatorWrapper>> requestFutureList = new ArrayList<>();
+        for (final SessionManager sessionManager : sessionManagers) {
+            final SessionState state = sessionManager.sessionState.get();
+            if (!state.isLoggedIn()) {
+                futureList.add(CompletableFutureProcessor.failedFuture(new CouldNotPerformException("Could not renew ticket because not one is logged in")));
+                continue;
+            }
 
-            if (matcher.find()) {
-                ExceptionPrinter.printHistory(cause, LOGGER, LogLevel.ERROR);
-                throw new PermissionDeniedException(matcher.group(1));
+            try {
+                requestList.add(sessionManager.initializeServiceServerRequest(state));
+            } catch (CouldNotPerformException ex) {
+                futureList.add(CompletableFutureProcessor.failedFuture(ex));
+                continue;
             }
+            final CompletableFuture<TicketAuthenticatorWrapper> future = new CompletableFuture<>();
+            requestSessionList.add(sessionManager);
+            requestStateList.add(state);
+            requestFutureList.add(future);
+            futureList.add(future);
+        }
 
-            pattern = Pattern.compile("SessionExpiredException: (.*)[\n\r]");
-            matcher = pattern.matcher(cause.getMessage());
+        if (requestList.isEmpty()) {
+            return futureList;
+        }
 
-            if (matcher.find()) {
-                throw new SessionExpiredException(matcher.group(1));
+        requestAuthenticator(remote -> remote.validateClientServerTickets(TicketValidationBatch.encodeRequest(requestList)), SessionManager::resolveRenewalError).whenComplete((response, throwable) -> {
+            final List<AuthenticatedValue> resultList;
+            try {
+                if (throwable != null) {
+                    throw CompletableFutureProcessor.unwrap(throwable);
+                }
+                resultList = TicketValidationBatch.decodeResponse(response);
+                if (resultList.size() != requestList.size()) {
+                    throw new CouldNotPerformException("Received " + resultList.size() + " results for " + requestList.size() + " tickets");
+                }
+            } catch (Throwable ex) {
+                if (ex instanceof org.openbase.jul.exception.TimeoutException || ex instanceof RejectedException) {
+                    // the authenticator is not reachable or overloaded so single requests would fail as well
+                    for (final CompletableFuture<TicketAuthenticatorWrapper> future : requestFutureList) {
+                        future.completeExceptionally(ex);
+                    }
+                    return;
+                }
+
+                // renew every ticket on its own
+                LOGGER.debug("Could not renew tickets by a batch request, fall back to single requests", ex);
+                for (int i = 0; i < requestSessionList.size(); i++) {
+                    final CompletableFuture<TicketAuthenticatorWrapper> future = requestFutureList.get(i);
+                    requestSessionList.get(i).renewTicketAsync().whenComplete((wrapper, cause) -> {
+                        if (cause != null) {
+                            future.completeExceptionally(cause);
+                        } else {
+                            future.complete(wrapper);
+                        }
+                    });
+                }
+                return;
+            }
+
+            for (int i = 0; i < resultList.size(); i++) {
+                final AuthenticatedValue result = resultList.get(i);
+                final CompletableFuture<TicketAuthenticatorWrapper> future = requestFutureList.get(i);
+                try {
+                    if (!TicketValidationBatch.isSuccessful(result)) {
+                        throw new CompletionException(resolveRenewalError(new CouldNotPerformException(TicketValidationBatch.getError(result))));
+                    }
+                    future.complete(requestSessionList.get(i).completeRenewal(requestStateList.get(i), requestList.get(i), result.getTicketAuthenticatorWrapper()));
+                } catch (CompletionException ex) {
+                    future.completeExceptionally(ex.getCause());
+                }
             }
+        });
+        return futureList;
+    }
 
+    /**
+     * Verify the response of a ticket renewal and apply the renewed ticket to the session.
+     *
+     * @param state    the session state used to create the request.
+     * @param request  the request sent to the authenticator.
+     * @param response the response of the authenticator.
+     *
+     * @return the renewed ticket.
+     *
+     * @throws CompletionException if the response could not be verified.
+     */
+    private TicketAuthenticatorWrapper completeRenewal(final SessionState state, final TicketAuthenticatorWrapper request, final TicketAuthenticatorWrapper response) {
+        try {
+            // validate response and set as current ticket
+            final Authenticator authenticator = AuthenticationClientHandler.verifyServiceServerResponse(state.getSessionKey(), request, response);
+            updateSessionState(state.getSessionKey(), response, authenticator);
+            return response;
+        } catch (CouldNotPerformException ex) {
+            throw new CompletionException(new CouldNotPerformException("Could not renew ticket", ex));
+        }
+    }
+
+    /**
+     * Convert the failure of a ticket validation request performed to renew the ticket.
+     *
+     * @param cause the reason why the request failed.
+     *
+     * @return an exception describing the failure.
+     */
+    private static CouldNotPerformException resolveRenewalError(final Throwable cause) {
+        if (cause instanceof TimeoutException) {
+            return new org.openbase.jul.exception.TimeoutException(cause);
+        }
+
+        final String message = String.valueOf(cause.getMessage());
+        Pattern pattern = Pattern.compile("RejectedException: (.*)[\n\r]");
+        Matcher matcher = pattern.matcher(message);
+
+        if (matcher.find()) {
             ExceptionPrinter.printHistory(cause, LOGGER, LogLevel.ERROR);
-            throw new CouldNotPerformException("Internal server error.", cause);
-        } catch (TimeoutException e) {
-            throw new org.openbase.jul.exception.TimeoutException(e);
+            return new RejectedException(matcher.group(1));
         }
+
+        pattern = Pattern.compile("PermissionDeniedException: (.*)[\n\r]");
+        matcher = pattern.matcher(message);
+
+        if (matcher.find()) {
+            ExceptionPrinter.printHistory(cause, LOGGER, LogLevel.ERROR);
+            return new PermissionDeniedException(matcher.group(1));
+        }
+
+        pattern = Pattern.compile("SessionExpiredException: (.*)[\n\r]");
+        matcher = pattern.matcher(message);
+
+        if (matcher.find()) {
+            return new SessionExpiredException(matcher.group(1));
+        }
+
+        ExceptionPrinter.printHistory(cause, LOGGER, LogLevel.ERROR);
+        return new CouldNotPerformException("Internal server error.", cause);
     }
 
     /**
@@ -623,34 +1075,61 @@ public class SessionManager implements Shutdownable, Session {
      * @throws CouldNotPerformException {@inheritDoc}
      */
     @Override
-    public synchronized void reLogin() throws CouldNotPerformException {
-        // skip notifications
-        skipNotification = true;
+    public void reLogin() throws CouldNotPerformException {
+        waitForLogin(reLoginAsync());
+    }
+
+    /**
+     * Login the current user and client again, e.g. because the authenticator has been restarted.
+     * Concurrent callers share the re-login in progress. Login observers are notified once after the re-login.
+     *
+     * @return a future completed with the user client pair of the new session.
+     */
+    public synchronized CompletableFuture<UserClientPair> reLoginAsync() {
+        if (reLoginFuture != null && !reLoginFuture.isDone()) {
+            return reLoginFuture;
+        }
+
+        // save if user stayed logged in
+        final boolean stayLoggedIn = cancelTicketRenewal();
+        // save user and client id
+        final UserClientPair previousUserClientPair = getUserClientPair();
+
+        // logout without notification, the client id is kept because the user is logged in at the client again
+        sessionState.set(SessionState.EMPTY);
+        userClientPair.clearUserId();
+
+        final CompletableFuture<UserClientPair> future;
+        if (!previousUserClientPair.getUserId().isEmpty() && credentialStore.hasEntry(previousUserClientPair.getUserId())) {
+            // if user was save in store log him in again
+            future = loginFromStore(previousUserClientPair.getUserId(), true, stayLoggedIn);
+        } else if (!previousUserClientPair.getClientId().isEmpty() && credentialStore.hasEntry(previousUserClientPair.getClientId())) {
+            // user was not logged in so login the client again if possible
+            future = loginFromStore(previousUserClientPair.getClientId(), false, stayLoggedIn);
+        } else {
+            userClientPair.clearClientId();
+            future = CompletableFuture.completedFuture(getUserClientPair());
+        }
+
+        reLoginFuture = future.whenComplete((pair, throwable) -> notifyLoginObserver());
+        return reLoginFuture;
+    }
+
+    /**
+     * Login a user or client using the credentials from the credential store without notifying login observers.
+     *
+     * @param id           the id of the user or client.
+     * @param isUser       defines if the given id refers to a user or a client account.
+     * @param stayLoggedIn flag to keep the user logged in and to auto extend the session if needed.
+     *
+     * @return a future completed with the user client pair of the new session.
+     */
+    private CompletableFuture<UserClientPair> loginFromStore(final String id, final boolean isUser, final boolean stayLoggedIn) {
         try {
-            // save if user stayed logged in
-            final boolean stayLoggedIn = ticketRenewalTask != null && !ticketRenewalTask.isDone();
-            // save user and client id
-            final UserClientPair userClientPair = getUserClientPair();
-            // logout);
-            logout();
-            if (!userClientPair.getUserId().isEmpty() && credentialStore.hasEntry(userClientPair.getUserId())) {
-                // if user was save in store log him in again, this is valid because logout will login a client
-                // if a user was logged in at a client
-                loginUser(userClientPair.getUserId(), stayLoggedIn);
-            } else {
-                // user was not logged in so login the client again if possible
-                if (!userClientPair.getClientId().isEmpty() && credentialStore.hasEntry(userClientPair.getClientId())) {
-                    loginClient(userClientPair.getClientId(), stayLoggedIn);
-                }
-            }
+            return internalLoginAsync(id, credentialStore.getCredentials(id), stayLoggedIn, isUser, false);
         } catch (CouldNotPerformException ex) {
-            throw ex;
-        } finally {
-            // enable notifications again
-            skipNotification = false;
+            return CompletableFutureProcessor.failedFuture(handleLoginFailure(ex));
         }
-
-        notifyLoginObserver();
     }
 
     /**
@@ -667,7 +1146,6 @@ public class SessionManager implements Shutdownable, Session {
             throw new CouldNotPerformException("Please log in first!");
         }
 
-        ticketAuthenticatorWrapper = AuthenticationClientHandler.initServiceServerRequest(sessionKey, ticketAuthenticatorWrapper);
         byte[] oldHash = EncryptionHelper.hash(oldCredentials);
         byte[] newHash = EncryptionHelper.hash(newCredentials);
 
@@ -695,26 +1173,69 @@ public class SessionManager implements Shutdownable, Session {
 
     /**
      * Registers a client. Automatically generate a key pair and save the private key in the credential store of
-     * the session manager.
+     * the session manager. The key pair is generated in the background by the {@link KeyPairFactory}.
      *
      * @param clientId the id of the client to be registered with a asymmetric encryption
      *
      * @throws org.openbase.jul.exception.CouldNotPerformException if the client could not registered
      */
-    public synchronized Future<LoginCredentials> registerClient(final String clientId) throws CouldNotPerformException {
-        // generate key pair
-        final KeyPair keyPair = EncryptionHelper.generateKeyPair();
-        // create credentials with private key and store locally
-        final LoginCredentials.Builder loginCredentials = LoginCredentials.newBuilder()
-                .setId(clientId)
-                .setCredentials(ByteString.copyFrom(keyPair.getPrivate().getEncoded()))
-                .setSymmetric(false)
-                .setAdmin(false);
-        this.credentialStore.addEntry(clientId, loginCredentials.build());
-        // create credentials with public key and upload to authenticator
-        loginCredentials.setCredentials(ByteString.copyFrom(keyPair.getPublic().getEncoded()));
-        // register at authenticator
-        return this.internalRegister(loginCredentials.build());
+    public Future<LoginCredentials> registerClient(final String clientId) throws CouldNotPerformException {
+        if (!this.isLoggedIn()) {
+            throw new CouldNotPerformException("Please log in first!");
+        }
+
+        return registerClient(clientId, KeyPairFactory.getInstance().requestKeyPair());
+    }
+
+    /**
+     * Registers multiple clients. The key pairs of all clients are generated in parallel by the {@link KeyPairFactory}
+     * and every client is registered as soon as its key pair is available.
+     *
+     * @param clientIds the ids of the clients to be registered with a asymmetric encryption
+     *
+     * @return one future per client in the given order.
+     *
+     * @throws org.openbase.jul.exception.CouldNotPerformException if the clients could not registered
+     */
+    public List<CompletableFuture<LoginCredentials>> registerClients(final List<String> clientIds) throws CouldNotPerformException {
+        if (!this.isLoggedIn()) {
+            throw new CouldNotPerformException("Please log in first!");
+        }
+
+        final List<CompletableFuture<KeyPair>> keyPairFutureList = KeyPairFactory.getInstance().requestKeyPairs(clientIds.size());
+        final List<CompletableFuture<LoginCredentials>> futureList = new ArrayList<>(clientIds.size());
+        for (int i = 0; i < clientIds.size(); i++) {
+            futureList.add(registerClient(clientIds.get(i), keyPairFutureList.get(i)));
+        }
+        return futureList;
+    }
+
+    /**
+     * Register a client once its key pair is available.
+     *
+     * @param clientId      the id of the client.
+     * @param keyPairFuture future of the key pair of the client.
+     *
+     * @return a future completed with the registered credentials.
+     */
+    private CompletableFuture<LoginCredentials> registerClient(final String clientId, final CompletableFuture<KeyPair> keyPairFuture) {
+        return keyPairFuture.thenCompose(keyPair -> {
+            try {
+                // create credentials with private key and store locally
+                final LoginCredentials.Builder loginCredentials = LoginCredentials.newBuilder()
+                        .setId(clientId)
+                        .setCredentials(ByteString.copyFrom(keyPair.getPrivate().getEncoded()))
+                        .setSymmetric(false)
+                        .setAdmin(false);
+                this.credentialStore.addEntry(clientId, loginCredentials.build());
+                // create credentials with public key and upload to authenticator
+                loginCredentials.setCredentials(ByteString.copyFrom(keyPair.getPublic().getEncoded()));
+                // register at authenticator
+                return CompletableFutureProcessor.toCompletableFuture(this.internalRegister(loginCredentials.build()));
+            } catch (CouldNotPerformException ex) {
+                return CompletableFutureProcessor.failedFuture(new CouldNotPerformException("Could not register client[" + clientId + "]", ex));
+            }
+        });
     }
 
     public synchronized boolean hasCredentialsForId(final String id) {
@@ -796,7 +1317,7 @@ public class SessionManager implements Shutdownable, Session {
      *
      * @return userId@clientId
      */
-    public UserClientPair getUserClientPair() {
+    public synchronized UserClientPair getUserClientPair() {
         return userClientPair.build();
     }
 
@@ -820,4 +1341,93 @@ public class SessionManager implements Shutdownable, Session {
     public void shutdown() {
         completeLogout();
     }
+
+    /**
+     * Request performed at the authenticator remote.
+     *
+     * @param <T> the type of the response.
+     */
+    private interface AuthenticatorRequest<T> {
+
+        Future<T> request(final AuthenticationRemote remote) throws CouldNotPerformException;
+    }
+
+    /**
+     * The user client pair and credentials of a login in progress.
+     */
+    private static class LoginRequest {
+
+        private final UserClientPair userClientPair;
+        private final UserClientPair previousUserClientPair;
+        private final LoginCredentials userCredentials;
+        private final LoginCredentials clientCredentials;
+
+        LoginRequest(final UserClientPair userClientPair, final UserClientPair previousUserClientPair, final LoginCredentials userCredentials, final LoginCredentials clientCredentials) {
+            this.userClientPair = userClientPair;
+            this.previousUserClientPair = previousUserClientPair;
+            this.userCredentials = userCredentials;
+            this.clientCredentials = clientCredentials;
+        }
+
+        /**
+         * @return the user client pair of the session created by the login.
+         */
+        UserClientPair getUserClientPair() {
+            return userClientPair;
+        }
+
+        /**
+         * @return the user client pair of the session when the login has been started.
+         */
+        UserClientPair getPreviousUserClientPair() {
+            return previousUserClientPair;
+        }
+
+        LoginCredentials getUserCredentials() {
+            return userCredentials;
+        }
+
+        LoginCredentials getClientCredentials() {
+            return clientCredentials;
+        }
+    }
+
+    /**
+     * Immutable snapshot of the state of a session.
+     * The authenticator is kept decrypted so that requests can be initialized and tickets compared without decryption.
+     */
+    private static final class SessionState {
+
+        private static final SessionState EMPTY = new SessionState(null, null, null);
+
+        private final TicketAuthenticatorWrapper ticketAuthenticatorWrapper;
+        private final Authenticator authenticator;
+        private final byte[] sessionKey;
+
+        SessionState(final TicketAuthenticatorWrapper ticketAuthenticatorWrapper, final Authenticator authenticator, final byte[] sessionKey) {
+            this.ticketAuthenticatorWrapper = ticketAuthenticatorWrapper;
+            this.authenticator = authenticator;
+            this.sessionKey = sessionKey;
+        }
+
+        TicketAuthenticatorWrapper getTicketAuthenticatorWrapper() {
+            return ticketAuthenticatorWrapper;
+        }
+
+        Authenticator getAuthenticator() {
+            return authenticator;
+        }
+
+        byte[] getSessionKey() {
+            return sessionKey;
+        }
+
+        long getTimestamp() {
+            return authenticator == null ? Long.MIN_VALUE : authenticator.getTimestamp().getTime();
+        }
+
+        boolean isLoggedIn() {
+            return ticketAuthenticatorWrapper != null && sessionKey != null;
+        }
+    }
 }
@@ -0,0 +1,170 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.jul.exception.CouldNotPerformException;
+import org.openbase.jul.exception.NotAvailableException;
+import org.openbase.jul.exception.printer.ExceptionPrinter;
+import org.openbase.jul.exception.printer.LogLevel;
+import org.openbase.jul.iface.Shutdownable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry managing many independent sessions in one process, e.g. for a gateway acting on behalf of multiple users.
+ * Every session has its own ticket, session key and ticket renewal while all sessions share one credential store.
+ * Sessions created by the registry are lightweight: they do not initialize their own credential store and do not
+ * register their own shutdown hook because the registry shuts them down.
+ */
+public class SessionRegistry implements Shutdownable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionRegistry.class);
+
+    private final CredentialStore credentialStore;
+    private final ConcurrentHashMap<String, SessionManager> sessionMap;
+
+    /**
+     * Create a session registry using the default client credential store.
+     */
+    public SessionRegistry() {
+        this(createCredentialStore());
+    }
+
+    /**
+     * Create a session registry whose sessions share the given credential store.
+     *
+     * @param credentialStore an initialized credential store.
+     */
+    public SessionRegistry(final CredentialStore credentialStore) {
+        this.credentialStore = credentialStore;
+        this.sessionMap = new ConcurrentHashMap<>();
+        try {
+            Shutdownable.registerShutdownHook(this, 3000);
+        } catch (CouldNotPerformException ex) {
+            ExceptionPrinter.printHistory("Could not register session registry shutdown hook", ex, LOGGER, LogLevel.WARN);
+        }
+    }
+
+    private static CredentialStore createCredentialStore() {
+        final CredentialStore credentialStore = new CredentialStore();
+        try {
+            credentialStore.init(SessionManager.STORE_FILENAME);
+        } catch (CouldNotPerformException ex) {
+            ExceptionPrinter.printHistory("Could not init credential store for session registry", ex, LOGGER, LogLevel.WARN);
+        }
+        return credentialStore;
+    }
+
+    /**
+     * Get the session registered for an id. If no session is registered for the id a new one is created.
+     *
+     * @param sessionId the id of the session.
+     *
+     * @return the session for the given id.
+     */
+    public SessionManager getSession(final String sessionId) {
+        return sessionMap.computeIfAbsent(sessionId, id -> new SessionManager(credentialStore, false));
+    }
+
+    /**
+     * Get the session registered for an id without creating it.
+     *
+     * @param sessionId the id of the session.
+     *
+     * @return the session for the given id.
+     *
+     * @throws NotAvailableException if no session is registered for the id.
+     */
+    public SessionManager getExistingSession(final String sessionId) throws NotAvailableException {
+        final SessionManager sessionManager = sessionMap.get(sessionId);
+        if (sessionManager == null) {
+            throw new NotAvailableException("Session[" + sessionId + "]");
+        }
+        return sessionManager;
+    }
+
+    /**
+     * Check if a session is registered for an id.
+     *
+     * @param sessionId the id of the session.
+     *
+     * @return true if a session is registered for the id.
+     */
+    public boolean hasSession(final String sessionId) {
+        return sessionMap.containsKey(sessionId);
+    }
+
+    /**
+     * Logout and remove the session registered for an id.
+     *
+     * @param sessionId the id of the session.
+     */
+    public void removeSession(final String sessionId) {
+        final SessionManager sessionManager = sessionMap.remove(sessionId);
+        if (sessionManager != null) {
+            sessionManager.completeLogout();
+        }
+    }
+
+    /**
+     * Get all sessions currently registered.
+     *
+     * @return an unmodifiable snapshot of the registered sessions.
+     */
+    public Collection<SessionManager> getSessions() {
+        return Collections.unmodifiableList(new ArrayList<>(sessionMap.values()));
+    }
+
+    /**
+     * Get the number of registered sessions.
+     *
+     * @return the number of sessions.
+     */
+    public int size() {
+        return sessionMap.size();
+    }
+
+    /**
+     * Get the credential store shared by all sessions of this registry.
+     *
+     * @return the shared credential store.
+     */
+    public CredentialStore getCredentialStore() {
+        return credentialStore;
+    }
+
+    /**
+     * Logout and remove all sessions.
+     */
+    @Override
+    public void shutdown() {
+        for (final String sessionId : new ArrayList<>(sessionMap.keySet())) {
+            removeSession(sessionId);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.jul.exception.CouldNotPerformException;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Backend defining how the entries of a protected store are read from and written to its store file.
+ *
+ * @param <DT> the internal data type handled by the store
+ */
+public interface StoreBackend<DT> {
+
+    /**
+     * Load all entries from a store file. Backends may return entries which are only decoded on first access.
+     *
+     * @param file the store file
+     *
+     * @return a map containing an entry for every id in the store file
+     *
+     * @throws CouldNotPerformException if the file could not be read
+     */
+    Map<String, StoreEntry<DT>> load(final File file) throws CouldNotPerformException;
+
+    /**
+     * Save all entries into a store file. Entries which have not been decoded yet may be written
+     * without decoding them if the backend has access to their encoded form, see {@link StoreEntry#getDecoder()}.
+     *
+     * @param entries the entries of the store
+     * @param file    the store file
+     *
+     * @throws CouldNotPerformException if the file could not be written
+     */
+    void save(final Map<String, StoreEntry<DT>> entries, final File file) throws CouldNotPerformException;
+}
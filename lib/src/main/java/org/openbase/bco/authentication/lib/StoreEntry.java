@@ -0,0 +1,125 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.jul.exception.CouldNotPerformException;
+
+/**
+ * Entry of a protected store which is either already decoded or decoded on first access.
+ *
+ * @param <DT> the internal data type handled by the store
+ */
+public final class StoreEntry<DT> {
+
+    private volatile DT value;
+    private Decoder<DT> decoder;
+
+    private StoreEntry(final DT value, final Decoder<DT> decoder) {
+        this.value = value;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Create an entry for a decoded value.
+     *
+     * @param value the value of the entry
+     * @param <DT>  the type of the value
+     *
+     * @return a new store entry
+     */
+    public static <DT> StoreEntry<DT> of(final DT value) {
+        return new StoreEntry<>(value, null);
+    }
+
+    /**
+     * Create an entry which is decoded on first access.
+     *
+     * @param decoder the decoder creating the value of the entry
+     * @param <DT>    the type of the value
+     *
+     * @return a new store entry
+     */
+    public static <DT> StoreEntry<DT> lazy(final Decoder<DT> decoder) {
+        return new StoreEntry<>(null, decoder);
+    }
+
+    /**
+     * Get the value of this entry and decode it if this is the first access.
+     *
+     * @return the value of this entry
+     *
+     * @throws CouldNotPerformException if the value could not be decoded
+     */
+    public DT get() throws CouldNotPerformException {
+        DT result = value;
+        if (result == null) {
+            synchronized (this) {
+                result = value;
+                if (result == null) {
+                    result = decoder.decode();
+                    value = result;
+                    decoder = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the value of this entry only if it has already been decoded.
+     *
+     * @return the value of this entry or null if it has not been decoded yet
+     */
+    public DT getIfDecoded() {
+        return value;
+    }
+
+    /**
+     * Tells if the value of this entry has already been decoded.
+     *
+     * @return true if the value is available without decoding
+     */
+    public boolean isDecoded() {
+        return value != null;
+    }
+
+    /**
+     * Get the decoder of this entry if its value has not been decoded yet. Backends can use it to access
+     * the encoded form of the entry without decoding it.
+     *
+     * @return the decoder of this entry or null if the value is already decoded
+     */
+    public synchronized Decoder<DT> getDecoder() {
+        return decoder;
+    }
+
+    /**
+     * Decoder creating the value of a lazy entry.
+     *
+     * @param <DT> the type of the value
+     */
+    public interface Decoder<DT> {
+
+        DT decode() throws CouldNotPerformException;
+    }
+}
@@ -0,0 +1,291 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.jul.exception.CouldNotPerformException;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the changes applied to a protected store since its last snapshot.
+ * The journal is split into numbered segments next to the store file. Each record is framed by its length and
+ * a CRC32 checksum so that a record which was only partially written because of a crash is detected on replay.
+ */
+class StoreJournal {
+
+    static final byte OPERATION_PUT = 1;
+    static final byte OPERATION_REMOVE = 2;
+
+    private static final String SEGMENT_SUFFIX = ".journal.";
+
+    private final File segmentFile;
+    private FileOutputStream fileOutputStream;
+    private DataOutputStream outputStream;
+    private long size;
+
+    /**
+     * Create a journal writing to a segment of a store file.
+     *
+     * @param storeFile    the store file the journal belongs to.
+     * @param segmentIndex the index of the segment.
+     */
+    StoreJournal(final File storeFile, final int segmentIndex) {
+        this.segmentFile = getSegmentFile(storeFile, segmentIndex);
+        this.size = segmentFile.length();
+    }
+
+    /**
+     * Append a record for adding or replacing an entry. The record is buffered until the journal is synced.
+     *
+     * @param id      the id of the entry.
+     * @param payload the encoded entry.
+     *
+     * @throws CouldNotPerformException if the record could not be written.
+     */
+    synchronized void appendPut(final String id, final byte[] payload) throws CouldNotPerformException {
+        append(OPERATION_PUT, id, payload);
+    }
+
+    /**
+     * Append a record for removing an entry. The record is buffered until the journal is synced.
+     *
+     * @param id the id of the entry.
+     *
+     * @throws CouldNotPerformException if the record could not be written.
+     */
+    synchronized void appendRemove(final String id) throws CouldNotPerformException {
+        append(OPERATION_REMOVE, id, new byte[0]);
+    }
+
+    private void append(final byte operation, final String id, final byte[] payload) throws CouldNotPerformException {
+        try {
+            if (outputStream == null) {
+                if (!segmentFile.exists()) {
+                    AbstractProtectedStore.createProtectedFile(segmentFile);
+                }
+                fileOutputStream = new FileOutputStream(segmentFile, true);
+                outputStream = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+            }
+
+            final byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+            final ByteArrayOutputStream body = new ByteArrayOutputStream(1 + 8 + idBytes.length + payload.length);
+            final DataOutputStream bodyStream = new DataOutputStream(body);
+            bodyStream.writeByte(operation);
+            bodyStream.writeInt(idBytes.length);
+            bodyStream.write(idBytes);
+            bodyStream.writeInt(payload.length);
+            bodyStream.write(payload);
+
+            final byte[] bodyBytes = body.toByteArray();
+            final CRC32 crc = new CRC32();
+            crc.update(bodyBytes);
+
+            outputStream.writeInt(bodyBytes.length);
+            outputStream.write(bodyBytes);
+            outputStream.writeInt((int) crc.getValue());
+            size += 4 + bodyBytes.length + 4;
+        } catch (IOException ex) {
+            throw new CouldNotPerformException("Could not append to journal[" + segmentFile.getAbsolutePath() + "]", ex);
+        }
+    }
+
+    /**
+     * Write all buffered records to the segment file and force them to the storage device.
+     *
+     * @throws CouldNotPerformException if the records could not be written.
+     */
+    synchronized void sync() throws CouldNotPerformException {
+        if (outputStream == null) {
+            return;
+        }
+
+        try {
+            outputStream.flush();
+            fileOutputStream.getFD().sync();
+        } catch (IOException ex) {
+            throw new CouldNotPerformException("Could not sync journal[" + segmentFile.getAbsolutePath() + "]", ex);
+        }
+    }
+
+    /**
+     * Get the number of bytes written to the segment of this journal.
+     *
+     * @return the size of the segment in bytes.
+     */
+    synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Close the segment of this journal.
+     */
+    synchronized void close() {
+        if (outputStream == null) {
+            return;
+        }
+
+        try {
+            outputStream.close();
+        } catch (IOException ex) {
+            LoggerFactory.getLogger(StoreJournal.class).warn("Could not close journal[" + segmentFile.getAbsolutePath() + "]", ex);
+        }
+        outputStream = null;
+        fileOutputStream = null;
+    }
+
+    /**
+     * Replay all records of a segment. Replay stops at the first incomplete or corrupted record since
+     * it can only result from a crash while it was written.
+     *
+     * @param segmentFile the segment to replay.
+     * @param replayer    the handler receiving the records.
+     *
+     * @throws CouldNotPerformException if the segment could not be read or a record could not be applied.
+     */
+    static void replay(final File segmentFile, final Replayer replayer) throws CouldNotPerformException {
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(segmentFile)))) {
+            long remaining = segmentFile.length();
+            while (remaining > 0) {
+                if (remaining < 8) {
+                    logTornRecord(segmentFile);
+                    return;
+                }
+
+                final int bodyLength = inputStream.readInt();
+                if (bodyLength < 9 || bodyLength > remaining - 8) {
+                    logTornRecord(segmentFile);
+                    return;
+                }
+
+                final byte[] bodyBytes = new byte[bodyLength];
+                inputStream.readFully(bodyBytes);
+                final int checksum = inputStream.readInt();
+                final CRC32 crc = new CRC32();
+                crc.update(bodyBytes);
+                if ((int) crc.getValue() != checksum) {
+                    logTornRecord(segmentFile);
+                    return;
+                }
+                remaining -= 4 + bodyLength + 4;
+
+                final DataInputStream bodyStream = new DataInputStream(new ByteArrayInputStream(bodyBytes));
+                final byte operation = bodyStream.readByte();
+                final byte[] idBytes = new byte[bodyStream.readInt()];
+                bodyStream.readFully(idBytes);
+                final byte[] payload = new byte[bodyStream.readInt()];
+                bodyStream.readFully(payload);
+
+                final String id = new String(idBytes, StandardCharsets.UTF_8);
+                switch (operation) {
+                    case OPERATION_PUT:
+                        replayer.put(id, payload);
+                        break;
+                    case OPERATION_REMOVE:
+                        replayer.remove(id);
+                        break;
+                    default:
+                        throw new CouldNotPerformException("Unknown operation[" + operation + "] in journal[" + segmentFile.getAbsolutePath() + "]");
+                }
+            }
+        } catch (IOException ex) {
+            throw new CouldNotPerformException("Could not replay journal[" + segmentFile.getAbsolutePath() + "]", ex);
+        }
+    }
+
+    private static void logTornRecord(final File segmentFile) {
+        LoggerFactory.getLogger(StoreJournal.class).warn("Journal[" + segmentFile.getAbsolutePath() + "] ends with an incomplete record which is skipped.");
+    }
+
+    /**
+     * Get the file of a journal segment.
+     *
+     * @param storeFile    the store file the journal belongs to.
+     * @param segmentIndex the index of the segment.
+     *
+     * @return the segment file.
+     */
+    static File getSegmentFile(final File storeFile, final int segmentIndex) {
+        return new File(storeFile.getParentFile(), storeFile.getName() + SEGMENT_SUFFIX + segmentIndex);
+    }
+
+    /**
+     * Get the indices of all existing journal segments of a store file in ascending order.
+     *
+     * @param storeFile the store file.
+     *
+     * @return a sorted list of segment indices.
+     */
+    static List<Integer> getSegmentIndices(final File storeFile) {
+        final List<Integer> segmentIndices = new ArrayList<>();
+        final String prefix = storeFile.getName() + SEGMENT_SUFFIX;
+        final File[] files = storeFile.getParentFile().listFiles((dir, name) -> name.startsWith(prefix));
+        if (files == null) {
+            return segmentIndices;
+        }
+
+        for (final File file : files) {
+            try {
+                segmentIndices.add(Integer.parseInt(file.getName().substring(prefix.length())));
+            } catch (NumberFormatException ex) {
+                // not a journal segment
+            }
+        }
+        Collections.sort(segmentIndices);
+        return segmentIndices;
+    }
+
+    /**
+     * Delete all journal segments of a store file up to a given index.
+     *
+     * @param storeFile       the store file.
+     * @param maxSegmentIndex   the index of the last segment to delete.
+     */
+    static void deleteSegments(final File storeFile, final int maxSegmentIndex) {
+        for (final int segmentIndex : getSegmentIndices(storeFile)) {
+            if (segmentIndex > maxSegmentIndex) {
+                break;
+            }
+
+            final File segmentFile = getSegmentFile(storeFile, segmentIndex);
+            if (!segmentFile.delete()) {
+                LoggerFactory.getLogger(StoreJournal.class).warn("Could not delete journal[" + segmentFile.getAbsolutePath() + "]");
+            }
+        }
+    }
+
+    /**
+     * Handler receiving the records of a journal on replay.
+     */
+    interface Replayer {
+
+        void put(final String id, final byte[] payload) throws CouldNotPerformException;
+
+        void remove(final String id);
+    }
+}
@@ -0,0 +1,133 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import com.google.protobuf.ByteString;
+import org.openbase.jul.extension.type.processing.TimestampJavaTimeTransform;
+import org.openbase.type.domotic.authentication.TicketType.Ticket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache mapping encrypted tickets to their decrypted form.
+ * Since the encryption of a ticket with a secret key is deterministic, a service server can use this cache
+ * to skip the decryption of tickets it has already received. Entries are keyed on the encrypted ticket exactly as
+ * sent by the client, tickets created for responses are not added in advance. Entries are evicted when the validity period of
+ * their ticket has ended or when the cache exceeds its maximal size, in which case the least recently used
+ * entry is removed.
+ * <p>
+ * Note: a cache instance should only be used for tickets encrypted with the same secret key.
+ */
+public class TicketCache {
+
+    /**
+     * The default number of tickets kept by the cache.
+     */
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    private final Map<ByteString, Ticket> ticketMap;
+
+    /**
+     * Create a new ticket cache with the default maximal size.
+     */
+    public TicketCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Create a new ticket cache.
+     *
+     * @param maxSize the maximal number of tickets kept by the cache.
+     */
+    public TicketCache(final int maxSize) {
+        this.ticketMap = new LinkedHashMap<ByteString, Ticket>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<ByteString, Ticket> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get the decrypted ticket for an encrypted ticket.
+     *
+     * @param encryptedTicket the encrypted ticket.
+     *
+     * @return the decrypted ticket or null if it is not cached or its validity period has ended.
+     */
+    public Ticket get(final ByteString encryptedTicket) {
+        synchronized (ticketMap) {
+            final Ticket ticket = ticketMap.get(encryptedTicket);
+            if (ticket == null) {
+                return null;
+            }
+
+            if (isExpired(ticket)) {
+                ticketMap.remove(encryptedTicket);
+                return null;
+            }
+            return ticket;
+        }
+    }
+
+    /**
+     * Add a ticket to the cache. Tickets whose validity period has already ended are ignored.
+     *
+     * @param encryptedTicket the encrypted ticket.
+     * @param ticket          the decrypted form of the encrypted ticket.
+     */
+    public void put(final ByteString encryptedTicket, final Ticket ticket) {
+        if (isExpired(ticket)) {
+            return;
+        }
+
+        synchronized (ticketMap) {
+            ticketMap.put(encryptedTicket, ticket);
+        }
+    }
+
+    /**
+     * Remove all tickets from the cache.
+     */
+    public void clear() {
+        synchronized (ticketMap) {
+            ticketMap.clear();
+        }
+    }
+
+    /**
+     * Get the number of tickets currently cached.
+     *
+     * @return the number of cached tickets, including those which expired but were not accessed since.
+     */
+    public int size() {
+        synchronized (ticketMap) {
+            return ticketMap.size();
+        }
+    }
+
+    private static boolean isExpired(final Ticket ticket) {
+        return TimestampJavaTimeTransform.transform(ticket.getValidityPeriod().getEnd()) < System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,325 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.bco.authentication.lib.future.CompletableFutureProcessor;
+import org.openbase.jul.exception.CouldNotPerformException;
+import org.openbase.jul.exception.ExceptionProcessor;
+import org.openbase.jul.exception.printer.ExceptionPrinter;
+import org.openbase.jul.exception.printer.LogLevel;
+import org.openbase.jul.schedule.GlobalScheduledExecutorService;
+import org.openbase.type.domotic.authentication.TicketAuthenticatorWrapperType.TicketAuthenticatorWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler renewing the tickets of all sessions in a process.
+ * Instead of a periodic task per session all renewals are kept in one priority queue ordered by their due time and a
+ * single timer dispatches the next renewals. Every due time is reduced by a random jitter so that sessions started
+ * at the same moment do not renew in lock-step, and renewals due within a short window are dispatched together as
+ * one batch request to the authenticator.
+ */
+public class TicketRenewalScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TicketRenewalScheduler.class);
+
+    /**
+     * The default fraction of the renewal interval by which a renewal is brought forward randomly.
+     */
+    public static final double DEFAULT_JITTER_RATIO = 0.2d;
+    /**
+     * The default time window in milliseconds in which due renewals are dispatched as one batch.
+     */
+    public static final long DEFAULT_BATCH_WINDOW = 500;
+    /**
+     * The default maximal number of renewals dispatched as one batch.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+    private static TicketRenewalScheduler instance;
+
+    /**
+     * Get the scheduler shared by all sessions of this process.
+     *
+     * @return the global ticket renewal scheduler.
+     */
+    public static synchronized TicketRenewalScheduler getInstance() {
+        if (instance == null) {
+            instance = new TicketRenewalScheduler();
+        }
+        return instance;
+    }
+
+    private final double jitterRatio;
+    private final long batchWindow;
+    private final int maxBatchSize;
+    private final PriorityQueue<RenewalEntry> renewalQueue;
+    private final Map<SessionManager, RenewalEntry> renewalMap;
+
+    private ScheduledFuture<?> dispatchTask;
+    private long dispatchTime;
+
+    /**
+     * Create a ticket renewal scheduler with the default jitter and batching.
+     */
+    public TicketRenewalScheduler() {
+        this(DEFAULT_JITTER_RATIO, DEFAULT_BATCH_WINDOW, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Create a ticket renewal scheduler.
+     *
+     * @param jitterRatio  the fraction of the renewal interval by which a renewal is brought forward randomly.
+     * @param batchWindow  the time window in milliseconds in which due renewals are dispatched as one batch.
+     * @param maxBatchSize the maximal number of renewals dispatched as one batch.
+     */
+    public TicketRenewalScheduler(final double jitterRatio, final long batchWindow, final int maxBatchSize) {
+        if (jitterRatio < 0 || jitterRatio >= 1) {
+            throw new IllegalArgumentException("Jitter ratio[" + jitterRatio + "] has to be in [0, 1)");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size[" + maxBatchSize + "] has to be positive");
+        }
+        this.jitterRatio = jitterRatio;
+        this.batchWindow = Math.max(0, batchWindow);
+        this.maxBatchSize = maxBatchSize;
+        this.renewalQueue = new PriorityQueue<>(Comparator.comparingLong(RenewalEntry::getDueTime));
+        this.renewalMap = new HashMap<>();
+    }
+
+    /**
+     * Schedule the periodic ticket renewal of a session. A renewal already scheduled for the session is replaced.
+     *
+     * @param sessionManager the session whose ticket is renewed.
+     * @param interval       the renewal interval in milliseconds.
+     */
+    public synchronized void schedule(final SessionManager sessionManager, final long interval) {
+        final RenewalEntry entry = new RenewalEntry(sessionManager, interval);
+        final RenewalEntry previous = renewalMap.put(sessionManager, entry);
+        if (previous != null) {
+            renewalQueue.remove(previous);
+        }
+        enqueue(entry, System.currentTimeMillis());
+    }
+
+    /**
+     * Cancel the ticket renewal of a session.
+     *
+     * @param sessionManager the session whose ticket renewal is cancelled.
+     *
+     * @return true if a renewal has been scheduled for the session.
+     */
+    public synchronized boolean cancel(final SessionManager sessionManager) {
+        final RenewalEntry entry = renewalMap.remove(sessionManager);
+        if (entry == null) {
+            return false;
+        }
+        renewalQueue.remove(entry);
+        if (renewalQueue.isEmpty() && dispatchTask != null) {
+            dispatchTask.cancel(false);
+            dispatchTask = null;
+        }
+        return true;
+    }
+
+    /**
+     * Check if a ticket renewal is scheduled for a session.
+     *
+     * @param sessionManager the session to check.
+     *
+     * @return true if a renewal is scheduled for the session.
+     */
+    public synchronized boolean isScheduled(final SessionManager sessionManager) {
+        return renewalMap.containsKey(sessionManager);
+    }
+
+    /**
+     * Get the time at which the next renewal of a session is due.
+     *
+     * @param sessionManager the session whose renewal time is requested.
+     *
+     * @return the due time in milliseconds since epoch or -1 if no renewal is scheduled or a renewal is in progress.
+     */
+    public synchronized long getRenewalTime(final SessionManager sessionManager) {
+        final RenewalEntry entry = renewalMap.get(sessionManager);
+        if (entry == null || entry.isInProgress()) {
+            return -1;
+        }
+        return entry.getDueTime();
+    }
+
+    /**
+     * Get the number of sessions whose ticket is renewed by this scheduler.
+     *
+     * @return the number of scheduled sessions.
+     */
+    public synchronized int size() {
+        return renewalMap.size();
+    }
+
+    /**
+     * Compute the next due time of an entry and add it to the queue.
+     *
+     * @param entry the entry to enqueue.
+     * @param now   the current time in milliseconds.
+     */
+    private void enqueue(final RenewalEntry entry, final long now) {
+        final long jitter = (long) (entry.getInterval() * jitterRatio * ThreadLocalRandom.current().nextDouble());
+        entry.setDueTime(now + entry.getInterval() - jitter);
+        entry.setInProgress(false);
+        renewalQueue.add(entry);
+        scheduleDispatch(now);
+    }
+
+    /**
+     * Make sure the dispatch task runs when the head of the queue is due.
+     *
+     * @param now the current time in milliseconds.
+     */
+    private void scheduleDispatch(final long now) {
+        final RenewalEntry head = renewalQueue.peek();
+        if (head == null) {
+            return;
+        }
+
+        if (dispatchTask != null && !dispatchTask.isDone()) {
+            if (dispatchTime <= head.getDueTime()) {
+                return;
+            }
+            dispatchTask.cancel(false);
+        }
+
+        try {
+            dispatchTime = head.getDueTime();
+            dispatchTask = GlobalScheduledExecutorService.schedule(this::dispatch, Math.max(0, dispatchTime - now), TimeUnit.MILLISECONDS);
+        } catch (CouldNotPerformException ex) {
+            dispatchTask = null;
+            if (!ExceptionProcessor.isCausedBySystemShutdown(ex)) {
+                ExceptionPrinter.printHistory("Could not schedule ticket renewal", ex, LOGGER, LogLevel.WARN);
+            }
+        }
+    }
+
+    /**
+     * Dispatch all renewals due within the batch window and schedule the next dispatch.
+     */
+    private void dispatch() {
+        final List<RenewalEntry> batch = new ArrayList<>();
+        synchronized (this) {
+            dispatchTask = null;
+            final long now = System.currentTimeMillis();
+            while (batch.size() < maxBatchSize && !renewalQueue.isEmpty() && renewalQueue.peek().getDueTime() <= now + batchWindow) {
+                final RenewalEntry entry = renewalQueue.poll();
+                entry.setInProgress(true);
+                batch.add(entry);
+            }
+            scheduleDispatch(now);
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // renew all tickets of the batch with a single request
+        final List<SessionManager> sessionManagers = new ArrayList<>(batch.size());
+        for (final RenewalEntry entry : batch) {
+            sessionManagers.add(entry.getSessionManager());
+        }
+        final List<CompletableFuture<TicketAuthenticatorWrapper>> futureList = SessionManager.renewTicketsAsync(sessionManagers);
+        for (int i = 0; i < batch.size(); i++) {
+            final RenewalEntry entry = batch.get(i);
+            futureList.get(i).whenComplete((wrapper, throwable) -> {
+                if (throwable != null) {
+                    final Throwable cause = CompletableFutureProcessor.unwrap(throwable);
+                    if (!ExceptionProcessor.isCausedBySystemShutdown(cause)) {
+                        ExceptionPrinter.printHistory("Could not renew ticket", cause, LOGGER, LogLevel.WARN);
+                    }
+                }
+                reschedule(entry);
+            });
+        }
+    }
+
+    /**
+     * Enqueue an entry again after its renewal has been performed, unless it has been cancelled or replaced meanwhile.
+     *
+     * @param entry the entry whose renewal has been performed.
+     */
+    private synchronized void reschedule(final RenewalEntry entry) {
+        if (renewalMap.get(entry.getSessionManager()) != entry) {
+            return;
+        }
+        enqueue(entry, System.currentTimeMillis());
+    }
+
+    /**
+     * Renewal of a single session.
+     */
+    private static final class RenewalEntry {
+
+        private final SessionManager sessionManager;
+        private final long interval;
+        private long dueTime;
+        private boolean inProgress;
+
+        private RenewalEntry(final SessionManager sessionManager, final long interval) {
+            this.sessionManager = sessionManager;
+            this.interval = interval;
+        }
+
+        private SessionManager getSessionManager() {
+            return sessionManager;
+        }
+
+        private long getInterval() {
+            return interval;
+        }
+
+        private long getDueTime() {
+            return dueTime;
+        }
+
+        private void setDueTime(final long dueTime) {
+            this.dueTime = dueTime;
+        }
+
+        private boolean isInProgress() {
+            return inProgress;
+        }
+
+        private void setInProgress(final boolean inProgress) {
+            this.inProgress = inProgress;
+        }
+    }
+}
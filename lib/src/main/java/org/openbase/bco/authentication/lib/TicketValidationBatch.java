@@ -0,0 +1,191 @@
+package org.openbase.bco.authentication.lib;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import com.google.protobuf.ByteString;
+import org.openbase.jul.exception.CouldNotPerformException;
+import org.openbase.jul.exception.RejectedException;
+import org.openbase.type.domotic.authentication.AuthenticatedValueType.AuthenticatedValue;
+import org.openbase.type.domotic.authentication.TicketAuthenticatorWrapperType.TicketAuthenticatorWrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encoding of the requests and responses of {@link AuthenticationService#validateClientServerTickets(AuthenticatedValue)}.
+ * <p>
+ * A batch request is an authenticated value whose value contains the ticket authenticator wrappers to validate as
+ * length delimited messages. The response contains one length delimited authenticated value per entry in the same
+ * order. The result of a successful validation contains the updated ticket authenticator wrapper while the result
+ * of a failed validation only contains the description of the error as its value.
+ */
+public final class TicketValidationBatch {
+
+    /**
+     * The maximal number of tickets which can be validated by one batch request.
+     */
+    public static final int MAX_BATCH_SIZE = 256;
+
+    private TicketValidationBatch() {
+    }
+
+    /**
+     * Encode ticket authenticator wrappers into a batch request.
+     *
+     * @param ticketAuthenticatorWrappers the wrappers to validate.
+     *
+     * @return the batch request.
+     *
+     * @throws CouldNotPerformException if the request could not be encoded.
+     */
+    public static AuthenticatedValue encodeRequest(final List<TicketAuthenticatorWrapper> ticketAuthenticatorWrappers) throws CouldNotPerformException {
+        final ByteString.Output output = ByteString.newOutput();
+        try {
+            for (final TicketAuthenticatorWrapper ticketAuthenticatorWrapper : ticketAuthenticatorWrappers) {
+                ticketAuthenticatorWrapper.writeDelimitedTo(output);
+            }
+        } catch (IOException ex) {
+            throw new CouldNotPerformException("Could not encode ticket validation request", ex);
+        }
+        return AuthenticatedValue.newBuilder().setValue(output.toByteString()).build();
+    }
+
+    /**
+     * Decode the ticket authenticator wrappers of a batch request.
+     *
+     * @param request the batch request.
+     *
+     * @return the wrappers to validate.
+     *
+     * @throws CouldNotPerformException if the request is malformed or contains more than {@link #MAX_BATCH_SIZE} entries.
+     */
+    public static List<TicketAuthenticatorWrapper> decodeRequest(final AuthenticatedValue request) throws CouldNotPerformException {
+        final List<TicketAuthenticatorWrapper> ticketAuthenticatorWrappers = new ArrayList<>();
+        try {
+            final InputStream input = request.getValue().newInput();
+            TicketAuthenticatorWrapper ticketAuthenticatorWrapper;
+            while ((ticketAuthenticatorWrapper = TicketAuthenticatorWrapper.parseDelimitedFrom(input)) != null) {
+                if (ticketAuthenticatorWrappers.size() == MAX_BATCH_SIZE) {
+                    throw new RejectedException("Ticket validation request exceeds the maximal batch size of " + MAX_BATCH_SIZE);
+                }
+                ticketAuthenticatorWrappers.add(ticketAuthenticatorWrapper);
+            }
+        } catch (IOException ex) {
+            throw new CouldNotPerformException("Could not decode ticket validation request", ex);
+        }
+        return ticketAuthenticatorWrappers;
+    }
+
+    /**
+     * Create the result of a successful validation.
+     *
+     * @param ticketAuthenticatorWrapper the updated ticket authenticator wrapper.
+     *
+     * @return the result of the entry.
+     */
+    public static AuthenticatedValue createResult(final TicketAuthenticatorWrapper ticketAuthenticatorWrapper) {
+        return AuthenticatedValue.newBuilder().setTicketAuthenticatorWrapper(ticketAuthenticatorWrapper).build();
+    }
+
+    /**
+     * Create the result of a failed validation. The error is described by the simple name of its class
+     * followed by its message so that it can be resolved the same way as the error of a single validation.
+     *
+     * @param throwable the reason why the validation failed.
+     *
+     * @return the result of the entry.
+     */
+    public static AuthenticatedValue createErrorResult(final Throwable throwable) {
+        final String error = throwable.getClass().getSimpleName() + ": " + throwable.getMessage() + "\n";
+        return AuthenticatedValue.newBuilder().setValue(ByteString.copyFrom(error, StandardCharsets.UTF_8)).build();
+    }
+
+    /**
+     * Test if a result describes a successful validation.
+     *
+     * @param result the result of an entry.
+     *
+     * @return true if the result contains an updated ticket authenticator wrapper.
+     */
+    public static boolean isSuccessful(final AuthenticatedValue result) {
+        return result.hasTicketAuthenticatorWrapper();
+    }
+
+    /**
+     * Get the description of the error of a failed validation.
+     *
+     * @param result the result of an entry.
+     *
+     * @return the error description.
+     */
+    public static String getError(final AuthenticatedValue result) {
+        return result.getValue().toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encode the results of all entries into a batch response.
+     *
+     * @param results the results in the order of the request.
+     *
+     * @return the batch response.
+     *
+     * @throws CouldNotPerformException if the response could not be encoded.
+     */
+    public static AuthenticatedValue encodeResponse(final List<AuthenticatedValue> results) throws CouldNotPerformException {
+        final ByteString.Output output = ByteString.newOutput();
+        try {
+            for (final AuthenticatedValue result : results) {
+                result.writeDelimitedTo(output);
+            }
+        } catch (IOException ex) {
+            throw new CouldNotPerformException("Could not encode ticket validation response", ex);
+        }
+        return AuthenticatedValue.newBuilder().setValue(output.toByteString()).build();
+    }
+
+    /**
+     * Decode the results of a batch response.
+     *
+     * @param response the batch response.
+     *
+     * @return the results in the order of the request.
+     *
+     * @throws CouldNotPerformException if the response is malformed.
+     */
+    public static List<AuthenticatedValue> decodeResponse(final AuthenticatedValue response) throws CouldNotPerformException {
+        final List<AuthenticatedValue> results = new ArrayList<>();
+        try {
+            final InputStream input = response.getValue().newInput();
+            AuthenticatedValue result;
+            while ((result = AuthenticatedValue.parseDelimitedFrom(input)) != null) {
+                results.add(result);
+            }
+        } catch (IOException ex) {
+            throw new CouldNotPerformException("Could not decode ticket validation response", ex);
+        }
+        return results;
+    }
+}
@@ -25,6 +25,7 @@ package org.openbase.bco.authentication.lib;
 import org.openbase.jul.exception.NotAvailableException;
 import org.openbase.jul.processing.json.JSonObjectFileProcessor;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -97,4 +98,26 @@ public class TokenStore extends AbstractProtectedStore<String, Map> {
     protected Map save(final Map<String, String> map) {
         return map;
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param value {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    protected byte[] encodeEntry(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param data {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    protected String decodeEntry(final byte[] data) {
+        return new String(data, StandardCharsets.UTF_8);
+    }
 }
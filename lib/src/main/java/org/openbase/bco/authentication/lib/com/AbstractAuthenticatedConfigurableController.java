@@ -34,6 +34,7 @@ import org.openbase.jps.exception.JPNotAvailableException;
 import org.openbase.jul.exception.CouldNotPerformException;
 import org.openbase.jul.exception.InstantiationException;
 import org.openbase.jul.exception.InvalidStateException;
+import org.openbase.jul.exception.NotAvailableException;
 import org.openbase.jul.exception.printer.ExceptionPrinter;
 import org.openbase.jul.exception.printer.LogLevel;
 import org.openbase.jul.communication.controller.AbstractConfigurableController;
@@ -53,10 +54,54 @@ public abstract class AbstractAuthenticatedConfigurableController<M extends Abst
         DefaultConverterRepository.getDefaultConverterRepository().addConverter(new ProtocolBufferConverter<>(TicketAuthenticatorWrapper.getDefaultInstance()));
     }
 
+    /**
+     * Data filtered for users during previous requests. Invalidated on every change.
+     * Filtered data is only cached if enabled by {@link #isFilteredDataCacheEnabled()}. The unfiltered data sent
+     * to all sessions while authentication is disabled only depends on this controller and is always cached.
+     */
+    private final FilteredDataCache<M> filteredDataCache = new FilteredDataCache<>();
+
     public AbstractAuthenticatedConfigurableController(MB builder) throws InstantiationException {
         super(builder);
     }
 
+    /**
+     * {@inheritDoc}
+     * Additionally all data filtered for users during previous requests is invalidated.
+     *
+     * @throws CouldNotPerformException {@inheritDoc}
+     * @throws InterruptedException     {@inheritDoc}
+     */
+    @Override
+    public void notifyChange() throws CouldNotPerformException, InterruptedException {
+        invalidateFilteredData();
+        super.notifyChange();
+    }
+
+    /**
+     * Define if data filtered for users is reused between requests. This is disabled by default because the cached
+     * data is only invalidated on changes of this controller. Implementations whose filter only depends on the data
+     * of this controller, or which call {@link #invalidateFilteredData()} whenever the permissions used for filtering
+     * change, can override this method to enable the cache. Otherwise the data is filtered and encoded again for
+     * every authenticated request.
+     *
+     * @return true if data filtered for users should be cached.
+     */
+    protected boolean isFilteredDataCacheEnabled() {
+        return false;
+    }
+
+    /**
+     * Invalidate all data filtered for users during previous requests. Implementations have to call this method
+     * if the permissions used to filter the data change without a change of the data of this controller.
+     */
+    protected void invalidateFilteredData() {
+        // the cache is not yet available if this is called during construction
+        if (filteredDataCache != null) {
+            filteredDataCache.invalidate();
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -98,17 +143,50 @@ public abstract class AbstractAuthenticatedConfigurableController<M extends Abst
         // evaluate the ticket
         final AuthenticationBaseData authenticationBaseData = AuthenticatedServerManager.getInstance().verifyClientServerTicket(ticket);
 
-        // filter data for user
-        M newData = filterDataForUser(cloneDataBuilder(), authenticationBaseData.getUserClientPair());
+        final byte[] encodedData;
+        try {
+            if (!JPService.getProperty(JPAuthentication.class).getValue()) {
+                // bypass authentication so all users receive the same data
+                encodedData = filteredDataCache.getEncodedData(UserClientPair.getDefaultInstance(), () -> (M) cloneDataBuilder().build());
+            } else {
+                encodedData = getEncodedFilteredData(authenticationBaseData.getUserClientPair());
+            }
+        } catch (JPNotAvailableException ex) {
+            throw new CouldNotPerformException("Could not validate authentication property", ex);
+        }
+
+        if (encodedData == null) {
+            throw new NotAvailableException("data");
+        }
 
-        // build response
+        // build response, the data is already encoded so only the encryption with the session key is left
         AuthenticatedValue.Builder response = AuthenticatedValue.newBuilder();
         response.setTicketAuthenticatorWrapper(authenticationBaseData.getTicketAuthenticatorWrapper());
-        response.setValue(EncryptionHelper.encryptSymmetric(newData, authenticationBaseData.getSessionKey()));
+        response.setValue(EncryptionHelper.encryptSymmetricEncoded(encodedData, authenticationBaseData.getSessionKey()));
 
         return response.build();
     }
 
+    /**
+     * Filter the data of this controller for a user client pair and encode it.
+     * The result is only reused by later requests if {@link #isFilteredDataCacheEnabled()} is true.
+     *
+     * @param userClientPair the pair for which the data is filtered.
+     *
+     * @return the encoded filtered data or null if the filter did not provide any data.
+     *
+     * @throws CouldNotPerformException if the data could not be filtered or encoded.
+     */
+    private byte[] getEncodedFilteredData(final UserClientPair userClientPair) throws CouldNotPerformException {
+        if (isFilteredDataCacheEnabled()) {
+            // reuse the result of a previous request if nothing has changed since
+            return filteredDataCache.getEncodedData(userClientPair, () -> filterDataForUser(cloneDataBuilder(), userClientPair));
+        }
+
+        final M data = filterDataForUser(cloneDataBuilder(), userClientPair);
+        return data == null ? null : EncryptionHelper.encode(data);
+    }
+
     @Override
     protected M updateDataToPublish(MB dataBuilder) throws CouldNotPerformException {
         try {
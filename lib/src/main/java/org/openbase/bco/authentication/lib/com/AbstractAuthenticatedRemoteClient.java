@@ -56,10 +56,25 @@ public abstract class AbstractAuthenticatedRemoteClient<M extends Message> exten
      * Data object for other permissions;
      */
     private M otherData;
+    /**
+     * The session used for authenticated requests.
+     */
+    private final SessionManager sessionManager;
 
     public AbstractAuthenticatedRemoteClient(Class<M> dataClass) {
+        this(dataClass, SessionManager.getInstance());
+    }
+
+    /**
+     * Create a remote performing its requests with the given session instead of the global one.
+     *
+     * @param dataClass      the class of the data of this remote.
+     * @param sessionManager the session used for authenticated requests.
+     */
+    public AbstractAuthenticatedRemoteClient(final Class<M> dataClass, final SessionManager sessionManager) {
         super(dataClass);
-        this.setMessageProcessor(new AuthenticatedMessageProcessor<>(dataClass));
+        this.sessionManager = sessionManager;
+        this.setMessageProcessor(new AuthenticatedMessageProcessor<>(dataClass, sessionManager));
 
         this.loginObserver = (source, data) -> {
             // somebody new logged in
@@ -84,9 +99,9 @@ public abstract class AbstractAuthenticatedRemoteClient<M extends Message> exten
     @Override
     protected Future<Event> internalRequestStatus() {
         try {
-            if (SessionManager.getInstance().isLoggedIn()) {
-                final Event event = new Event(TicketAuthenticatorWrapper.class, SessionManager.getInstance().initializeServiceServerRequest());
-                return new ReLoginFuture<>(getRemoteServer().callAsync(AuthenticatedRequestable.REQUEST_DATA_AUTHENTICATED_METHOD, event), SessionManager.getInstance());
+            if (sessionManager.isLoggedIn()) {
+                final Event event = new Event(TicketAuthenticatorWrapper.class, sessionManager.initializeServiceServerRequest());
+                return new ReLoginFuture<>(getRemoteServer().callAsync(AuthenticatedRequestable.REQUEST_DATA_AUTHENTICATED_METHOD, event), sessionManager);
             } else {
                 return super.internalRequestStatus();
             }
@@ -98,15 +113,24 @@ public abstract class AbstractAuthenticatedRemoteClient<M extends Message> exten
     @Override
     public void activate() throws InterruptedException, CouldNotPerformException {
         super.activate();
-        SessionManager.getInstance().addLoginObserver(loginObserver);
+        sessionManager.addLoginObserver(loginObserver);
     }
 
     @Override
     public void deactivate() throws InterruptedException, CouldNotPerformException {
-        SessionManager.getInstance().removeLoginObserver(loginObserver);
+        sessionManager.removeLoginObserver(loginObserver);
         super.deactivate();
     }
 
+    /**
+     * Get the session used by this remote for authenticated requests.
+     *
+     * @return the session manager of this remote.
+     */
+    public SessionManager getSessionManager() {
+        return sessionManager;
+    }
+
     private class AuthenticatedUpdateHandler implements Handler {
 
         @Override
@@ -114,7 +138,7 @@ public abstract class AbstractAuthenticatedRemoteClient<M extends Message> exten
             try {
                 if (event.getData() != null) {
                     otherData = (M) event.getData();
-                    if (SessionManager.getInstance().isLoggedIn()) {
+                    if (sessionManager.isLoggedIn()) {
                         // received a new data event from the controller which is filtered for other permissions, so trigger an authenticated request
                         GlobalCachedExecutorService.submit((Callable<Void>) () -> {
                             if (isSyncRunning()) {
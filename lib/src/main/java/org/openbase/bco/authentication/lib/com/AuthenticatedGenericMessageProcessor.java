@@ -23,6 +23,7 @@ package org.openbase.bco.authentication.lib.com;
  */
 
 import com.google.protobuf.Message;
+import org.openbase.bco.authentication.lib.SessionManager;
 import org.openbase.jul.exception.CouldNotPerformException;
 import org.openbase.jul.exception.InitializationException;
 import org.openbase.jul.extension.protobuf.processing.GenericMessageProcessor;
@@ -30,15 +31,30 @@ import org.openbase.type.domotic.authentication.AuthenticatedValueType.Authentic
 
 public class AuthenticatedGenericMessageProcessor<M extends Message> extends GenericMessageProcessor<M> {
 
+    private final SessionManager sessionManager;
+
     public AuthenticatedGenericMessageProcessor(Class<M> dataClass) throws InitializationException {
+        this(dataClass, SessionManager.getInstance());
+    }
+
+    /**
+     * Create a message processor decrypting authenticated values with the key of the given session.
+     *
+     * @param dataClass      the class of the processed data.
+     * @param sessionManager the session whose key is used for decryption.
+     *
+     * @throws InitializationException if the processor cannot be initialized for the data class.
+     */
+    public AuthenticatedGenericMessageProcessor(final Class<M> dataClass, final SessionManager sessionManager) throws InitializationException {
         super(dataClass);
+        this.sessionManager = sessionManager;
     }
 
     @Override
     public M process(Message input) throws CouldNotPerformException, InterruptedException {
         if (input instanceof AuthenticatedValue) {
             AuthenticatedValue authenticatedValue = (AuthenticatedValue) input;
-            return super.process(AuthenticatedMessageProcessor.getDataFromAuthenticatedValue(authenticatedValue, getDataClass()));
+            return super.process(AuthenticatedMessageProcessor.getDataFromAuthenticatedValue(authenticatedValue, sessionManager, getDataClass()));
         } else {
             return super.process(input);
         }
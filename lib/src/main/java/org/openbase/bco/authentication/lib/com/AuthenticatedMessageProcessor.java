@@ -35,15 +35,28 @@ import java.lang.reflect.Method;
 
 public class AuthenticatedMessageProcessor<M extends Message> extends SimpleMessageProcessor<M> {
 
+    private final SessionManager sessionManager;
+
     public AuthenticatedMessageProcessor(Class<M> dataClass) {
+        this(dataClass, SessionManager.getInstance());
+    }
+
+    /**
+     * Create a message processor decrypting authenticated values with the key of the given session.
+     *
+     * @param dataClass      the class of the processed data.
+     * @param sessionManager the session whose key is used for decryption.
+     */
+    public AuthenticatedMessageProcessor(final Class<M> dataClass, final SessionManager sessionManager) {
         super(dataClass);
+        this.sessionManager = sessionManager;
     }
 
     @Override
     public M process(Message input) throws CouldNotPerformException, InterruptedException {
         if (input instanceof AuthenticatedValue) {
             AuthenticatedValue authenticatedValue = (AuthenticatedValue) input;
-            return super.process(getDataFromAuthenticatedValue(authenticatedValue, getDataClass()));
+            return super.process(getDataFromAuthenticatedValue(authenticatedValue, sessionManager, getDataClass()));
         } else {
             return super.process(input);
         }
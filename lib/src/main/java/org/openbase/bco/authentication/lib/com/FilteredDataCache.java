@@ -0,0 +1,193 @@
+package org.openbase.bco.authentication.lib.com;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import com.google.protobuf.Message;
+import org.openbase.bco.authentication.lib.EncryptionHelper;
+import org.openbase.jul.exception.CouldNotPerformException;
+import org.openbase.type.domotic.authentication.UserClientPairType.UserClientPair;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of data messages filtered for a user client pair. Besides the data itself its encoding is cached
+ * so that data sent to multiple sessions of the same pair is only serialized once and each response only
+ * needs to run the cipher, see {@link EncryptionHelper#encryptEncoded(byte[], byte[], boolean)}.
+ * Entries are only valid for the data revision they have been computed for. The revision is increased by
+ * {@link #invalidate()} which has to be called whenever the data or the permissions used for filtering change.
+ * If the cache exceeds its maximal size the least recently used entry is removed.
+ * <p>
+ * Authenticated controllers only use this cache for data filtered for users if they enable it, since they cannot
+ * know if their filter depends on state other than their own data. The unfiltered data shared by all sessions while
+ * authentication is disabled is always cached with the default user client pair as key.
+ *
+ * @param <M> the type of the filtered data.
+ */
+public class FilteredDataCache<M extends Message & Serializable> {
+
+    /**
+     * The default number of user client pairs for which filtered data is kept.
+     */
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    /**
+     * Interface for computing the filtered data of a user client pair on a cache miss.
+     *
+     * @param <M> the type of the filtered data.
+     */
+    public interface DataFilter<M> {
+
+        /**
+         * Compute the filtered data.
+         *
+         * @return the filtered data.
+         *
+         * @throws CouldNotPerformException if the data could not be filtered.
+         */
+        M filter() throws CouldNotPerformException;
+    }
+
+    private final Map<UserClientPair, CacheEntry<M>> dataMap;
+    private long revision;
+
+    /**
+     * Create a new cache with the default maximal size.
+     */
+    public FilteredDataCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Create a new cache.
+     *
+     * @param maxSize the maximal number of user client pairs for which filtered data is kept.
+     */
+    public FilteredDataCache(final int maxSize) {
+        this.dataMap = new LinkedHashMap<UserClientPair, CacheEntry<M>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<UserClientPair, CacheEntry<M>> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.revision = 0;
+    }
+
+    /**
+     * Get the filtered data of a user client pair. If no data is cached for the current revision it is computed
+     * with the given filter. Data computed while the cache has been invalidated is returned but not cached.
+     *
+     * @param userClientPair the pair for which the data is filtered.
+     * @param dataFilter     filter computing the data on a cache miss.
+     *
+     * @return the filtered data.
+     *
+     * @throws CouldNotPerformException if the data could not be filtered.
+     */
+    public M getData(final UserClientPair userClientPair, final DataFilter<M> dataFilter) throws CouldNotPerformException {
+        final CacheEntry<M> entry = getEntry(userClientPair, dataFilter);
+        return entry == null ? null : entry.data;
+    }
+
+    /**
+     * Get the encoded filtered data of a user client pair as created by {@link EncryptionHelper#encode(Serializable)}.
+     * The data is only encoded once per user client pair and revision.
+     *
+     * @param userClientPair the pair for which the data is filtered.
+     * @param dataFilter     filter computing the data on a cache miss.
+     *
+     * @return the encoded filtered data or null if the filter did not provide any data.
+     *
+     * @throws CouldNotPerformException if the data could not be filtered or encoded.
+     */
+    public byte[] getEncodedData(final UserClientPair userClientPair, final DataFilter<M> dataFilter) throws CouldNotPerformException {
+        final CacheEntry<M> entry = getEntry(userClientPair, dataFilter);
+        if (entry == null) {
+            return null;
+        }
+
+        // concurrent requests may encode the data more than once which is cheaper than synchronizing them
+        byte[] encodedData = entry.encodedData;
+        if (encodedData == null) {
+            encodedData = EncryptionHelper.encode(entry.data);
+            entry.encodedData = encodedData;
+        }
+        return encodedData;
+    }
+
+    private CacheEntry<M> getEntry(final UserClientPair userClientPair, final DataFilter<M> dataFilter) throws CouldNotPerformException {
+        final long currentRevision;
+        synchronized (dataMap) {
+            final CacheEntry<M> entry = dataMap.get(userClientPair);
+            if (entry != null) {
+                return entry;
+            }
+            currentRevision = revision;
+        }
+
+        final M data = dataFilter.filter();
+        if (data == null) {
+            return null;
+        }
+
+        final CacheEntry<M> entry = new CacheEntry<>(data);
+        synchronized (dataMap) {
+            if (currentRevision == revision) {
+                dataMap.put(userClientPair, entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Invalidate all cached data by starting a new revision.
+     */
+    public void invalidate() {
+        synchronized (dataMap) {
+            revision++;
+            dataMap.clear();
+        }
+    }
+
+    /**
+     * Get the current data revision.
+     *
+     * @return the revision which is increased on every invalidation.
+     */
+    public long getRevision() {
+        synchronized (dataMap) {
+            return revision;
+        }
+    }
+
+    private static class CacheEntry<M> {
+
+        private final M data;
+        private volatile byte[] encodedData;
+
+        private CacheEntry(final M data) {
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.openbase.bco.authentication.lib.exception;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.jul.exception.RejectedException;
+
+/**
+ * Exception thrown if a request is rejected because the server is currently overloaded.
+ * The exception contains a hint after which time the request should be retried.
+ */
+public class ServerOverloadedException extends RejectedException {
+
+    private final long retryAfter;
+
+    /**
+     * Create a new exception.
+     *
+     * @param retryAfter the time in milliseconds after which the request should be retried.
+     */
+    public ServerOverloadedException(final long retryAfter) {
+        super("Server is overloaded! Retry after [" + retryAfter + "ms]");
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Get the time after which the rejected request should be retried.
+     *
+     * @return the time in milliseconds.
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
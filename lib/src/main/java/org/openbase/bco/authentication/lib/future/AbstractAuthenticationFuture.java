@@ -22,23 +22,18 @@ package org.openbase.bco.authentication.lib.future;
  * #L%
  */
 
-import org.openbase.bco.authentication.lib.AuthenticationClientHandler;
 import org.openbase.bco.authentication.lib.SessionManager;
 import org.openbase.jul.exception.CouldNotPerformException;
 import org.openbase.jul.exception.NotAvailableException;
-import org.openbase.jul.exception.printer.ExceptionPrinter;
-import org.openbase.jul.iface.Shutdownable;
-import org.openbase.jul.schedule.GlobalScheduledExecutorService;
-import org.openbase.jul.schedule.SyncObject;
-import org.slf4j.LoggerFactory;
 import org.openbase.type.domotic.authentication.TicketAuthenticatorWrapperType.TicketAuthenticatorWrapper;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.*;
 
 /**
  * Abstract future that automatically verifies the response from a server.
+ * <p>
+ * The verification is triggered as soon as the internal future completes, so that the ticket of the session manager
+ * is updated even if no one ever calls get on this future.
  *
  * @param <RETURN>   The type of value this future returns.
  * @param <INTERNAL> The type of value the internal future returns.
@@ -47,11 +42,8 @@ import java.util.concurrent.*;
  */
 public abstract class AbstractAuthenticationFuture<RETURN, INTERNAL> implements Future<RETURN> {
 
-    private static final List<AbstractAuthenticationFuture> authenticatedFutureList = new ArrayList<>();
-    private static final SyncObject listSync = new SyncObject("AuthenticatedFutureListSync");
-    private static ScheduledFuture responseVerificationFuture = null;
-
     private final Future<INTERNAL> internalFuture;
+    private final CompletableFuture<RETURN> verifiedFuture;
     private final SessionManager sessionManager;
     private final Class<RETURN> returnClass;
     private final TicketAuthenticatorWrapper wrapper;
@@ -80,36 +72,39 @@ public abstract class AbstractAuthenticationFuture<RETURN, INTERNAL> implements
         this.returnClass = returnClass;
         this.sessionManager = sessionManager;
         this.wrapper = wrapper;
+        this.verifiedFuture = new CompletableFuture<>();
+
+        // register a callback on the plain internal future so that the response is verified on arrival,
+        // the re-login wrapper is not used here because its blocking re-login must not run inside a callback
+        final Future<INTERNAL> responseFuture = internalFuture;
+        CompletableFutureProcessor.toCompletableFuture(responseFuture).whenComplete((internalResult, throwable) -> {
+            if (throwable == null) {
+                complete(internalResult);
+                return;
+            }
 
-        synchronized (listSync) {
-            if (responseVerificationFuture == null) {
-                // create a task which makes sure that get is called on all of these futures so that tickets are renewed
-                try {
-                    responseVerificationFuture = GlobalScheduledExecutorService.scheduleAtFixedRate(() -> {
-                        synchronized (listSync) {
-                            for (final AbstractAuthenticationFuture future : new ArrayList<>(authenticatedFutureList)) {
-                                if (future.isCancelled()) {
-                                    authenticatedFutureList.remove(future);
-                                }
-
-                                if (future.isDone()) {
-                                    try {
-                                        future.get();
-                                    } catch (InterruptedException ex) {
-                                        Thread.currentThread().interrupt();
-                                    } catch (ExecutionException ex) {
-                                        authenticatedFutureList.remove(future);
-                                    }
-                                }
-                            }
-                        }
-                    }, 1, 5, TimeUnit.SECONDS);
-                    Shutdownable.registerShutdownHook(() -> responseVerificationFuture.cancel(true));
-                } catch (CouldNotPerformException ex) {
-                    ExceptionPrinter.printHistory("Could not initialize task which makes sure that authenticated response are verified", ex, LoggerFactory.getLogger(AbstractAuthenticationFuture.class));
-                }
+            final Throwable cause = CompletableFutureProcessor.unwrap(throwable);
+            if (cause instanceof CancellationException) {
+                verifiedFuture.cancel(false);
+                return;
             }
-            authenticatedFutureList.add(this);
+
+            ReLoginFuture.triggerReLogin(cause, sessionManager);
+            verifiedFuture.completeExceptionally(cause);
+        });
+    }
+
+    /**
+     * Verify the result of the internal future and complete the verified future with the converted result.
+     *
+     * @param internalResult The result of the internal future.
+     */
+    private void complete(final INTERNAL internalResult) {
+        try {
+            verifyResponse(getTicketFromInternal(internalResult));
+            verifiedFuture.complete(convertFromInternal(internalResult));
+        } catch (CouldNotPerformException | RuntimeException ex) {
+            verifiedFuture.completeExceptionally(new CouldNotPerformException("Could not execute authentication", ex));
         }
     }
 
@@ -123,7 +118,8 @@ public abstract class AbstractAuthenticationFuture<RETURN, INTERNAL> implements
      */
     @Override
     public boolean cancel(boolean mayInterruptIfRunning) {
-        return internalFuture.cancel(mayInterruptIfRunning);
+        final boolean canceled = internalFuture.cancel(mayInterruptIfRunning);
+        return verifiedFuture.cancel(mayInterruptIfRunning) || canceled;
     }
 
     /**
@@ -134,59 +130,55 @@ public abstract class AbstractAuthenticationFuture<RETURN, INTERNAL> implements
      */
     @Override
     public boolean isCancelled() {
-        return internalFuture.isCancelled();
+        return verifiedFuture.isCancelled() || internalFuture.isCancelled();
     }
 
     /**
-     * Return it the internal future is done.
+     * Return if the response has been received and verified.
      * {@inheritDoc}
      *
      * @return {@inheritDoc}
      */
     @Override
     public boolean isDone() {
-        return internalFuture.isDone();
+        return verifiedFuture.isDone();
     }
 
     /**
-     * Call get on the internal future, verifies the ticket and converts the result from
-     * the internal future to REPONSE.
+     * Wait until the response of the internal future has been verified and converted to RETURN.
      *
-     * @return RESPONSE converted from the result of the internal future.
+     * @return RETURN converted from the result of the internal future.
      *
-     * @throws InterruptedException If interrupted inside of get of the internal future.
+     * @throws InterruptedException If interrupted while waiting.
      * @throws ExecutionException   If the execution of the internal future failed, the response could not be verified or the conversion to the return type failed.
      */
     @Override
     public RETURN get() throws InterruptedException, ExecutionException {
-        INTERNAL internalResult = internalFuture.get();
-        try {
-            verifyResponse(getTicketFromInternal(internalResult));
-            return convertFromInternal(internalResult);
-        } catch (CouldNotPerformException ex) {
-            throw new ExecutionException("Could not execute authentication", ex);
-        }
+        return verifiedFuture.get();
     }
 
     /**
-     * Call get on the internal future with a given timeout, verifies the ticket and converts the result from
-     * the internal future to REPONSE.
+     * Wait with a given timeout until the response of the internal future has been verified and converted to RETURN.
      *
-     * @return RESPONSE converted from the result of the internal future.
+     * @return RETURN converted from the result of the internal future.
      *
-     * @throws InterruptedException If interrupted inside of get of the internal future.
+     * @throws InterruptedException If interrupted while waiting.
      * @throws ExecutionException   If the execution of the internal future failed, the response could not be verified or the conversion to the return type failed.
-     * @throws TimeoutException     If get on the internal future times out.
+     * @throws TimeoutException     If the response is not verified in time.
      */
     @Override
     public RETURN get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-        INTERNAL internalResult = internalFuture.get(timeout, unit);
-        try {
-            verifyResponse(getTicketFromInternal(internalResult));
-            return convertFromInternal(internalResult);
-        } catch (CouldNotPerformException ex) {
-            throw new ExecutionException("Could not execute authentication", ex);
-        }
+        return verifiedFuture.get(timeout, unit);
+    }
+
+    /**
+     * Get a completable future which is completed as soon as the response has been verified.
+     * It can be used to compose further actions without blocking.
+     *
+     * @return A completable future completed with the verified and converted response.
+     */
+    public CompletableFuture<RETURN> toCompletableFuture() {
+        return verifiedFuture;
     }
 
     /**
@@ -203,16 +195,9 @@ public abstract class AbstractAuthenticationFuture<RETURN, INTERNAL> implements
                 return;
             }
 
-            sessionManager.updateTicketAuthenticatorWrapper(AuthenticationClientHandler.handleServiceServerResponse(
-                    this.sessionManager.getSessionKey(),
-                    this.wrapper,
-                    ticketAuthenticatorWrapper));
+            sessionManager.verifyServiceServerResponse(this.wrapper, ticketAuthenticatorWrapper);
         } catch (CouldNotPerformException ex) {
             throw new CouldNotPerformException("Could not verify ServiceServer Response", ex);
-        } finally {
-            synchronized (listSync) {
-                authenticatedFutureList.remove(this);
-            }
         }
     }
 
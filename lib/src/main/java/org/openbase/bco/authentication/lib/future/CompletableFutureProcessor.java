@@ -0,0 +1,167 @@
+package org.openbase.bco.authentication.lib.future;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+
+import org.openbase.jul.exception.CouldNotPerformException;
+import org.openbase.jul.schedule.GlobalCachedExecutorService;
+import org.openbase.jul.schedule.GlobalScheduledExecutorService;
+
+import java.util.concurrent.*;
+
+/**
+ * Helper methods to bridge plain futures, e.g. returned by remote calls, into completable futures.
+ */
+public final class CompletableFutureProcessor {
+
+    private CompletableFutureProcessor() {
+    }
+
+    /**
+     * Convert a future into a completable future.
+     * If the future already is a completable future or an authentication future providing one, it is returned.
+     * If it is a completion stage its completion callback is used. Otherwise, e.g. for remote call futures which
+     * offer no callback, its result is awaited in the background.
+     *
+     * @param future the future to convert.
+     * @param <T>    the type of the result of the future.
+     *
+     * @return a completable future completed with the result of the given future.
+     */
+    public static <T> CompletableFuture<T> toCompletableFuture(final Future<T> future) {
+        if (future instanceof CompletableFuture) {
+            return (CompletableFuture<T>) future;
+        }
+
+        if (future instanceof AbstractAuthenticationFuture) {
+            return ((AbstractAuthenticationFuture<T, ?>) future).toCompletableFuture();
+        }
+
+        final CompletableFuture<T> completableFuture = new CompletableFuture<>();
+        if (future instanceof CompletionStage) {
+            ((CompletionStage<T>) future).whenComplete((result, throwable) -> {
+                if (throwable == null) {
+                    completableFuture.complete(result);
+                } else {
+                    completableFuture.completeExceptionally(unwrap(throwable));
+                }
+            });
+            return completableFuture;
+        }
+
+        CompletableFuture.runAsync(() -> {
+            try {
+                completableFuture.complete(future.get());
+            } catch (InterruptedException ex) {
+                completableFuture.completeExceptionally(ex);
+                Thread.currentThread().interrupt();
+            } catch (CancellationException ex) {
+                completableFuture.cancel(false);
+            } catch (ExecutionException ex) {
+                completableFuture.completeExceptionally(ex.getCause() != null ? ex.getCause() : ex);
+            }
+        }, GlobalCachedExecutorService.getInstance().getExecutorService());
+        return completableFuture;
+    }
+
+    /**
+     * Convert a future into a completable future which fails with a {@link TimeoutException} if the given future
+     * is not done in time. The given future is canceled on timeout.
+     *
+     * @param future  the future to convert.
+     * @param timeout the maximal time to wait for the result.
+     * @param unit    the time unit of the timeout.
+     * @param <T>     the type of the result of the future.
+     *
+     * @return a completable future completed with the result of the given future.
+     */
+    public static <T> CompletableFuture<T> toCompletableFuture(final Future<T> future, final long timeout, final TimeUnit unit) {
+        final CompletableFuture<T> completableFuture = new CompletableFuture<>();
+        if (future instanceof CompletionStage) {
+            final ScheduledFuture<?> timeoutTask;
+            try {
+                timeoutTask = GlobalScheduledExecutorService.schedule(() -> {
+                    if (completableFuture.completeExceptionally(new TimeoutException())) {
+                        future.cancel(true);
+                    }
+                }, timeout, unit);
+            } catch (CouldNotPerformException ex) {
+                return failedFuture(ex);
+            }
+            ((CompletionStage<T>) future).whenComplete((result, throwable) -> {
+                timeoutTask.cancel(false);
+                if (throwable == null) {
+                    completableFuture.complete(result);
+                } else {
+                    completableFuture.completeExceptionally(unwrap(throwable));
+                }
+            });
+            return completableFuture;
+        }
+
+        CompletableFuture.runAsync(() -> {
+            try {
+                completableFuture.complete(future.get(timeout, unit));
+            } catch (InterruptedException ex) {
+                completableFuture.completeExceptionally(ex);
+                Thread.currentThread().interrupt();
+            } catch (CancellationException ex) {
+                completableFuture.cancel(false);
+            } catch (TimeoutException ex) {
+                future.cancel(true);
+                completableFuture.completeExceptionally(ex);
+            } catch (ExecutionException ex) {
+                completableFuture.completeExceptionally(ex.getCause() != null ? ex.getCause() : ex);
+            }
+        }, GlobalCachedExecutorService.getInstance().getExecutorService());
+        return completableFuture;
+    }
+
+    /**
+     * Create a completable future which is already completed exceptionally.
+     *
+     * @param throwable the reason of the failure.
+     * @param <T>       the type of the future.
+     *
+     * @return a failed completable future.
+     */
+    public static <T> CompletableFuture<T> failedFuture(final Throwable throwable) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    /**
+     * Remove the completion and execution exceptions with which completable futures wrap the actual failure.
+     *
+     * @param throwable the throwable reported by a completable future.
+     *
+     * @return the actual cause of the failure.
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        while ((throwable instanceof CompletionException || throwable instanceof ExecutionException) && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable;
+    }
+}
@@ -26,6 +26,8 @@ import org.openbase.bco.authentication.lib.SessionManager;
 import org.openbase.bco.authentication.lib.exception.SessionExpiredException;
 import org.openbase.jul.exception.CouldNotPerformException;
 import org.openbase.jul.exception.ExceptionProcessor;
+import org.openbase.jul.exception.printer.ExceptionPrinter;
+import org.openbase.jul.exception.printer.LogLevel;
 import org.openbase.jul.schedule.FutureWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -90,7 +92,7 @@ public class ReLoginFuture<T> implements Future<T>, FutureWrapper<T> {
         try {
             return internalFuture.get();
         } catch (ExecutionException ex) {
-            throw handleLoginError(ex);
+            throw handleLoginError(ex, sessionManager);
         }
     }
 
@@ -108,11 +110,19 @@ public class ReLoginFuture<T> implements Future<T>, FutureWrapper<T> {
         try {
             return internalFuture.get(timeout, unit);
         } catch (ExecutionException ex) {
-            throw handleLoginError(ex);
+            throw handleLoginError(ex, sessionManager);
         }
     }
 
-    private ExecutionException handleLoginError(ExecutionException ex) {
+    /**
+     * Trigger a re-login of the session manager if the given exception was caused by an invalid or expired session.
+     *
+     * @param ex             the exception thrown by a request.
+     * @param sessionManager the session manager used for the request.
+     *
+     * @return the exception that should be forwarded to the caller.
+     */
+    static ExecutionException handleLoginError(final ExecutionException ex, final SessionManager sessionManager) {
         try {
             final Throwable initialCause = ExceptionProcessor.getInitialCause(ex);
             if (initialCause instanceof BadPaddingException || initialCause instanceof SessionExpiredException) {
@@ -126,6 +136,28 @@ public class ReLoginFuture<T> implements Future<T>, FutureWrapper<T> {
         return ex;
     }
 
+    /**
+     * Start a re-login of the session manager without waiting for it if the given failure was caused by an invalid
+     * or expired session. Unlike {@link #handleLoginError(ExecutionException, SessionManager)} this does not block,
+     * so it can be used from completion callbacks.
+     *
+     * @param cause          the failure of a request.
+     * @param sessionManager the session manager used for the request.
+     */
+    static void triggerReLogin(final Throwable cause, final SessionManager sessionManager) {
+        final Throwable initialCause = ExceptionProcessor.getInitialCause(cause);
+        if (!(initialCause instanceof BadPaddingException) && !(initialCause instanceof SessionExpiredException)) {
+            return;
+        }
+
+        // authenticator could not decrypt ticket (likely the server restarted) or session ran out so re-login or logout
+        sessionManager.reLoginAsync().whenComplete((pair, throwable) -> {
+            if (throwable != null) {
+                ExceptionPrinter.printHistory("Could not re login", throwable, LOGGER, LogLevel.WARN);
+            }
+        });
+    }
+
     /**
      * {@inheritDoc}
      * @return {@inheritDoc}
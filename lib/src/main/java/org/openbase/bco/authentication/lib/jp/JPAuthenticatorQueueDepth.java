@@ -0,0 +1,60 @@
+package org.openbase.bco.authentication.lib.jp;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.jps.exception.JPNotAvailableException;
+import org.openbase.jps.exception.JPValidationException;
+import org.openbase.jps.preset.AbstractJPInteger;
+
+/**
+ * Property defining how many requests are queued per stage of the authenticator before new ones are rejected.
+ */
+public class JPAuthenticatorQueueDepth extends AbstractJPInteger {
+
+    public final static String[] COMMAND_IDENTIFIERS = {"--authenticator-queue-depth"};
+
+    private static final int DEFAULT_QUEUE_DEPTH = 256;
+
+    public JPAuthenticatorQueueDepth() {
+        super(COMMAND_IDENTIFIERS);
+    }
+
+    @Override
+    protected Integer getPropertyDefaultValue() throws JPNotAvailableException {
+        return DEFAULT_QUEUE_DEPTH;
+    }
+
+    @Override
+    protected void validate() throws JPValidationException {
+        super.validate();
+
+        if (getValue() <= 0) {
+            throw new JPValidationException("Queue depth has to be positive but is [" + getValue() + "]");
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Set how many requests are queued per stage of the authenticator before new ones are rejected.";
+    }
+}
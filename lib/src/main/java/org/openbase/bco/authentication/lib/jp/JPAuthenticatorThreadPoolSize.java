@@ -0,0 +1,58 @@
+package org.openbase.bco.authentication.lib.jp;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.jps.exception.JPNotAvailableException;
+import org.openbase.jps.exception.JPValidationException;
+import org.openbase.jps.preset.AbstractJPInteger;
+
+/**
+ * Property defining how many requests are processed in parallel per stage of the authenticator.
+ */
+public class JPAuthenticatorThreadPoolSize extends AbstractJPInteger {
+
+    public final static String[] COMMAND_IDENTIFIERS = {"--authenticator-thread-pool-size"};
+
+    public JPAuthenticatorThreadPoolSize() {
+        super(COMMAND_IDENTIFIERS);
+    }
+
+    @Override
+    protected Integer getPropertyDefaultValue() throws JPNotAvailableException {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    protected void validate() throws JPValidationException {
+        super.validate();
+
+        if (getValue() <= 0) {
+            throw new JPValidationException("Thread pool size has to be positive but is [" + getValue() + "]");
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Set how many requests are processed in parallel per stage of the authenticator.";
+    }
+}
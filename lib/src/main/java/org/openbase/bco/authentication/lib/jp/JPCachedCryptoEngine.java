@@ -0,0 +1,49 @@
+package org.openbase.bco.authentication.lib.jp;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.jps.exception.JPNotAvailableException;
+import org.openbase.jps.preset.AbstractJPBoolean;
+
+/**
+ * Property selecting the {@link org.openbase.bco.authentication.lib.CachedCryptoEngine} for all en- and decryptions.
+ * It is enabled by default and can be disabled to create new ciphers and keys for every operation.
+ */
+public class JPCachedCryptoEngine extends AbstractJPBoolean {
+
+    public final static String[] COMMAND_IDENTIFIERS = {"--cached-crypto-engine"};
+
+    public JPCachedCryptoEngine() {
+        super(COMMAND_IDENTIFIERS);
+    }
+
+    @Override
+    protected Boolean getPropertyDefaultValue() throws JPNotAvailableException {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Reuse ciphers, key factories and secret keys for en- and decryption instead of creating them for every operation.";
+    }
+}
@@ -0,0 +1,50 @@
+package org.openbase.bco.authentication.lib.jp;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.jps.exception.JPNotAvailableException;
+import org.openbase.jps.preset.AbstractJPBoolean;
+
+/**
+ * Property making the {@link org.openbase.bco.authentication.lib.PayloadCodec} write all payloads by java
+ * serialization. It has to be enabled on every peer as long as some peers run a version which cannot decode the
+ * payload envelope.
+ */
+public class JPLegacyPayloadEncoding extends AbstractJPBoolean {
+
+    public final static String[] COMMAND_IDENTIFIERS = {"--legacy-payload-encoding"};
+
+    public JPLegacyPayloadEncoding() {
+        super(COMMAND_IDENTIFIERS);
+    }
+
+    @Override
+    protected Boolean getPropertyDefaultValue() throws JPNotAvailableException {
+        return false;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Write encrypted payloads by java serialization so that peers without support for the payload envelope can decode them.";
+    }
+}
@@ -0,0 +1,60 @@
+package org.openbase.bco.authentication.lib.jp;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.bco.authentication.lib.SessionKeyPool;
+import org.openbase.jps.exception.JPNotAvailableException;
+import org.openbase.jps.exception.JPValidationException;
+import org.openbase.jps.preset.AbstractJPInteger;
+
+/**
+ * Property defining how many session keys are generated in advance for the key distribution center and the
+ * ticket granting service. A size of zero disables the pool so that every key is generated on request.
+ */
+public class JPSessionKeyPoolSize extends AbstractJPInteger {
+
+    public final static String[] COMMAND_IDENTIFIERS = {"--session-key-pool-size"};
+
+    public JPSessionKeyPoolSize() {
+        super(COMMAND_IDENTIFIERS);
+    }
+
+    @Override
+    protected Integer getPropertyDefaultValue() throws JPNotAvailableException {
+        return SessionKeyPool.DEFAULT_CAPACITY;
+    }
+
+    @Override
+    protected void validate() throws JPValidationException {
+        super.validate();
+
+        if (getValue() < 0) {
+            throw new JPValidationException("Session key pool size cannot be negative but is [" + getValue() + "]");
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Set how many session keys are generated in advance by the authenticator. Zero disables the pool.";
+    }
+}
@@ -0,0 +1,59 @@
+package org.openbase.bco.authentication.lib.jp;
+
+/*-
+ * #%L
+ * BCO Authentication Library
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.openbase.jps.exception.JPNotAvailableException;
+import org.openbase.jps.exception.JPValidationException;
+import org.openbase.jps.preset.AbstractJPTime;
+
+/**
+ * Property defining the maximal delay after which changes of protected stores are flushed in the background.
+ * A delay of zero disables write-behind so that every change is persisted synchronously.
+ */
+public class JPStoreWriteBehindDelay extends AbstractJPTime {
+
+    public final static String[] COMMAND_IDENTIFIERS = {"--store-write-behind-delay"};
+
+    public JPStoreWriteBehindDelay() {
+        super(COMMAND_IDENTIFIERS);
+    }
+
+    @Override
+    protected Long getPropertyDefaultValue() throws JPNotAvailableException {
+        return 0L;
+    }
+
+    @Override
+    protected void validate() throws JPValidationException {
+        super.validate();
+
+        if (getValue() < 0) {
+            throw new JPValidationException("Write-behind delay is negative[" + getValue() + "]");
+        }
+    }
+
+    @Override
+    public String getTimeDescription() {
+        return "Set the maximal delay after which changes of protected stores are flushed. Zero disables write-behind.";
+    }
+}
@@ -30,6 +30,7 @@ import org.openbase.bco.authentication.lib.AuthenticationClientHandler;
 import org.openbase.bco.authentication.lib.AuthenticationClientHandler.TicketWrapperSessionKeyPair;
 import org.openbase.bco.authentication.lib.CachedAuthenticationRemote;
 import org.openbase.bco.authentication.lib.EncryptionHelper;
+import org.openbase.bco.authentication.lib.TicketValidationBatch;
 import org.openbase.bco.authentication.mock.MockClientStore;
 import org.openbase.bco.authentication.mock.MockCredentialStore;
 import org.openbase.jul.exception.CouldNotPerformException;
@@ -45,8 +46,12 @@ import org.openbase.type.domotic.authentication.TicketSessionKeyWrapperType.Tick
 import org.openbase.type.domotic.authentication.UserClientPairType.UserClientPair;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -94,6 +99,62 @@ public class AuthenticatorControllerTest extends AuthenticationTest {
         AuthenticationClientHandler.handleServiceServerResponse(ticketWrapperSessionKeyPair.getSessionKey(), clientTicketAuthenticatorWrapper, serverTicketAuthenticatorWrapper);
     }
 
+    /**
+     * Test if a batch of client server tickets is validated with one request and if failures only affect their entry.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test(timeout = 5000)
+    public void testBatchValidation() throws Exception {
+        System.out.println("testBatchValidation");
+
+        final UserClientPair userClientPair = UserClientPair.newBuilder().setUserId(MockCredentialStore.USER_ID).build();
+        final LoginCredentials loginCredentials = MockCredentialStore.getInstance().getCredentials(MockCredentialStore.USER_ID);
+
+        // login
+        TicketSessionKeyWrapper ticketSessionKeyWrapper = CachedAuthenticationRemote.getRemote().requestTicketGrantingTicket(userClientPair).get();
+        TicketWrapperSessionKeyPair ticketWrapperSessionKeyPair = AuthenticationClientHandler.handleKeyDistributionCenterResponse(userClientPair, loginCredentials, null, ticketSessionKeyWrapper);
+        ticketSessionKeyWrapper = CachedAuthenticationRemote.getRemote().requestClientServerTicket(ticketWrapperSessionKeyPair.getTicketAuthenticatorWrapper()).get();
+        ticketWrapperSessionKeyPair = AuthenticationClientHandler.handleTicketGrantingServiceResponse(userClientPair, ticketWrapperSessionKeyPair.getSessionKey(), ticketSessionKeyWrapper);
+
+        // create valid requests and one request with an invalid ticket
+        final List<TicketAuthenticatorWrapper> requestList = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            requestList.add(AuthenticationClientHandler.initServiceServerRequest(ticketWrapperSessionKeyPair.getSessionKey(), ticketWrapperSessionKeyPair.getTicketAuthenticatorWrapper()));
+        }
+        requestList.add(2, requestList.get(0).toBuilder().setTicket(ByteString.copyFromUtf8("invalid")).build());
+
+        final AuthenticatedValue response = CachedAuthenticationRemote.getRemote().validateClientServerTickets(TicketValidationBatch.encodeRequest(requestList)).get();
+        final List<AuthenticatedValue> resultList = TicketValidationBatch.decodeResponse(response);
+        assertEquals(requestList.size(), resultList.size());
+        for (int i = 0; i < requestList.size(); i++) {
+            if (i == 2) {
+                assertFalse(TicketValidationBatch.isSuccessful(resultList.get(i)));
+                assertTrue(TicketValidationBatch.getError(resultList.get(i)).startsWith("RejectedException: "));
+                continue;
+            }
+            assertTrue(TicketValidationBatch.isSuccessful(resultList.get(i)));
+            AuthenticationClientHandler.handleServiceServerResponse(ticketWrapperSessionKeyPair.getSessionKey(), requestList.get(i), resultList.get(i).getTicketAuthenticatorWrapper());
+        }
+    }
+
+    /**
+     * Test if a batch exceeding the maximal batch size is rejected as a whole.
+     *
+     * @throws Exception
+     */
+    @Test(timeout = 5000, expected = ExecutionException.class)
+    public void testBatchValidationExceedingMaxBatchSize() throws Exception {
+        System.out.println("testBatchValidationExceedingMaxBatchSize");
+
+        final TicketAuthenticatorWrapper request = TicketAuthenticatorWrapper.newBuilder().setTicket(ByteString.copyFromUtf8("invalid")).build();
+        final List<TicketAuthenticatorWrapper> requestList = new ArrayList<>();
+        for (int i = 0; i <= TicketValidationBatch.MAX_BATCH_SIZE; i++) {
+            requestList.add(request);
+        }
+        CachedAuthenticationRemote.getRemote().validateClientServerTickets(TicketValidationBatch.encodeRequest(requestList)).get();
+    }
+
     /**
      * Test if an exception is correctly thrown if a user requests a ticket granting ticket with
      * a wrong client id.
@@ -0,0 +1,82 @@
+package org.openbase.bco.authentication.test;
+
+/*-
+ * #%L
+ * BCO Authentication Test
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.openbase.bco.authentication.core.AuthenticatorRequestPipeline;
+import org.openbase.bco.authentication.core.AuthenticatorRequestPipeline.Stage;
+import org.openbase.bco.authentication.lib.exception.ServerOverloadedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class AuthenticatorRequestPipelineTest {
+
+    /**
+     * Test if requests exceeding the queue of a stage are rejected while other stages are still available.
+     *
+     * @throws Exception if the test fails.
+     */
+    @Test(timeout = 5000)
+    public void testRejection() throws Exception {
+        System.out.println("testRejection");
+
+        final AuthenticatorRequestPipeline pipeline = new AuthenticatorRequestPipeline(1, 1, false);
+        try {
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+
+            // block the only thread of the stage and fill its queue
+            final Future<Boolean> blocking = pipeline.submit(Stage.KEY_DISTRIBUTION, () -> {
+                started.countDown();
+                release.await();
+                return true;
+            });
+            started.await();
+            final Future<Boolean> queued = pipeline.submit(Stage.KEY_DISTRIBUTION, () -> true);
+            assertEquals(1, pipeline.getQueueSize(Stage.KEY_DISTRIBUTION));
+
+            // the next request has to be rejected with a retry hint
+            final Future<Boolean> rejected = pipeline.submit(Stage.KEY_DISTRIBUTION, () -> true);
+            try {
+                rejected.get();
+                fail("Request has not been rejected although the queue is full");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof ServerOverloadedException);
+                assertTrue(((ServerOverloadedException) ex.getCause()).getRetryAfter() >= AuthenticatorRequestPipeline.MIN_RETRY_AFTER);
+            }
+
+            // other stages are not affected
+            assertTrue(pipeline.submit(Stage.VALIDATION, () -> true).get());
+
+            release.countDown();
+            assertTrue(blocking.get());
+            assertTrue(queued.get());
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+}
@@ -26,6 +26,8 @@ package org.openbase.bco.authentication.test;
 
 import org.junit.*;
 import org.openbase.bco.authentication.lib.AuthorizationHelper;
+import org.openbase.bco.authentication.lib.AuthorizationHelper.PermissionType;
+import org.openbase.bco.authentication.lib.PermissionIndex;
 import org.openbase.jul.extension.protobuf.IdentifiableMessage;
 import org.openbase.jul.extension.type.processing.LabelProcessor;
 import org.openbase.type.domotic.authentication.PermissionConfigType.PermissionConfig;
@@ -37,11 +39,14 @@ import org.openbase.type.domotic.unit.authorizationgroup.AuthorizationGroupConfi
 import org.openbase.type.domotic.unit.location.LocationConfigType.LocationConfig;
 import org.openbase.type.spatial.PlacementConfigType.PlacementConfig;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 /**
  * @author <a href="mailto:cromankiewicz@techfak.uni-bielefeld.de">Constantin Romankiewicz</a>
@@ -364,4 +369,135 @@ public class AuthorizationHelperTest {
         // validate that user now has rwx permissions
         assertEquals("User is added as a group but did not get the according permissions", RWX, AuthorizationHelper.getPermission(unitConfigBuilder.build(), userId, groups, locations));
     }
+    /**
+     * Validate that the permission index computes the same permissions as the map based evaluation, also after the groups have changed.
+     */
+    @Test
+    public void testPermissionIndex() {
+        System.out.println("testPermissionIndex");
+
+        // location readable for group 1 inside of the root location
+        UnitConfig.Builder locationBuilder = UnitConfig.newBuilder()
+                .setId(LOCATION_1)
+                .setUnitType(UnitType.LOCATION)
+                .setLocationConfig(LocationConfig.newBuilder().setRoot(false));
+        locationBuilder.getPlacementConfigBuilder().setLocationId(LOCATION_ROOT);
+        locationBuilder.getPermissionConfigBuilder().setOtherPermission(NONE).addGroupPermissionBuilder().setGroupId(GROUP_1).setPermission(READ_ONLY);
+        locations.put(LOCATION_1, new IdentifiableMessage<>(locationBuilder.build()));
+
+        final List<UnitConfig> unitConfigs = new ArrayList<>();
+        // unit inheriting all permissions from the location
+        unitConfigs.add(UnitConfig.newBuilder().setId("inherited").setPlacementConfig(PlacementConfig.newBuilder().setLocationId(LOCATION_1)).build());
+        // unit extending the permissions of the location
+        UnitConfig.Builder unitConfigBuilder = UnitConfig.newBuilder().setId("owned");
+        unitConfigBuilder.getPlacementConfigBuilder().setLocationId(LOCATION_1);
+        unitConfigBuilder.getPermissionConfigBuilder().setOwnerId(USER_2).setOwnerPermission(RWX).addGroupPermissionBuilder().setGroupId(GROUP_2).setPermission(RWX);
+        unitConfigs.add(unitConfigBuilder.build());
+        // unit without a location
+        unitConfigs.add(UnitConfig.newBuilder().setId("unplaced").build());
+        // the locations themselves
+        unitConfigs.add(locations.get(LOCATION_ROOT).getMessage());
+        unitConfigs.add(locations.get(LOCATION_1).getMessage());
+
+        final PermissionIndex permissionIndex = new PermissionIndex(groups, locations);
+        validatePermissionIndex(unitConfigs, permissionIndex);
+
+        // remove user 2 from group 1
+        UnitConfig.Builder groupBuilder = groups.get(GROUP_1).getMessage().toBuilder();
+        groupBuilder.getAuthorizationGroupConfigBuilder().clearMemberId().addMemberId(USER_1);
+        groups.put(GROUP_1, new IdentifiableMessage<>(groupBuilder.build()));
+        permissionIndex.updateGroups(groups);
+        validatePermissionIndex(unitConfigs, permissionIndex);
+        assertEquals(NONE, AuthorizationHelper.getPermission(unitConfigs.get(0), USER_2, permissionIndex));
+
+        // allow other to read the location
+        locationBuilder.getPermissionConfigBuilder().setOtherPermission(READ_ONLY);
+        locations.put(LOCATION_1, new IdentifiableMessage<>(locationBuilder.build()));
+        permissionIndex.updateLocations(locations);
+        unitConfigs.set(4, locations.get(LOCATION_1).getMessage());
+        validatePermissionIndex(unitConfigs, permissionIndex);
+    }
+
+    /**
+     * Validate that the effective permission config of a unit is memoized by the permission index until the locations change.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testEffectivePermissionConfig() throws Exception {
+        System.out.println("testEffectivePermissionConfig");
+
+        UnitConfig.Builder unitConfigBuilder = UnitConfig.newBuilder().setId(UNIT_ID);
+        unitConfigBuilder.getPlacementConfigBuilder().setLocationId(LOCATION_ROOT);
+        unitConfigBuilder.getPermissionConfigBuilder().setOwnerId(USER_1).setOwnerPermission(RWX);
+        final UnitConfig unitConfig = unitConfigBuilder.build();
+
+        final PermissionIndex permissionIndex = new PermissionIndex(groups, locations);
+        final PermissionConfig permissionConfig = permissionIndex.getPermissionConfig(unitConfig);
+        assertEquals(READ_ONLY, permissionConfig.getOtherPermission());
+        assertEquals(RWX, permissionConfig.getOwnerPermission());
+        assertSame(permissionConfig, permissionIndex.getPermissionConfig(unitConfig));
+
+        // a changed permission config of the unit is detected
+        final UnitConfig changedUnitConfig = unitConfig.toBuilder().setPermissionConfig(unitConfig.getPermissionConfig().toBuilder().setOwnerPermission(NONE)).build();
+        assertEquals(NONE, permissionIndex.getPermissionConfig(changedUnitConfig).getOwnerPermission());
+
+        // changed locations are considered after an update
+        final UnitConfig rootLocation = locations.get(LOCATION_ROOT).getMessage();
+        locations.put(LOCATION_ROOT, new IdentifiableMessage<>(rootLocation.toBuilder().setPermissionConfig(PermissionConfig.newBuilder().setOtherPermission(NONE)).build()));
+        permissionIndex.updateLocations(locations);
+        assertEquals(NONE, permissionIndex.getPermissionConfig(unitConfig).getOtherPermission());
+
+        // even the owner lost its permissions since nobody can read the root location anymore
+        assertFalse(AuthorizationHelper.canRead(unitConfig, USER_1, permissionIndex));
+        assertFalse(AuthorizationHelper.canRead(unitConfig, USER_1, groups, locations));
+    }
+
+    /**
+     * Validate that a batch evaluation of a large unit collection matches the evaluation of every single unit.
+     */
+    @Test
+    public void testBatchPermissions() {
+        System.out.println("testBatchPermissions");
+
+        final List<UnitConfig> unitConfigs = new ArrayList<>();
+        for (int i = 0; i < PermissionIndex.PARALLEL_THRESHOLD * 3; i++) {
+            UnitConfig.Builder unitConfigBuilder = UnitConfig.newBuilder().setId("unit" + i);
+            unitConfigBuilder.getPlacementConfigBuilder().setLocationId(LOCATION_ROOT);
+            if (i % 3 == 0) {
+                unitConfigBuilder.getPermissionConfigBuilder().setOtherPermission(NONE).setOwnerId(i % 2 == 0 ? USER_1 : USER_2).setOwnerPermission(RWX);
+            } else if (i % 3 == 1) {
+                unitConfigBuilder.getPermissionConfigBuilder().setOtherPermission(NONE).addGroupPermissionBuilder().setGroupId(GROUP_CLIENTS).setPermission(READ_ONLY);
+            }
+            unitConfigs.add(unitConfigBuilder.build());
+        }
+
+        final PermissionIndex permissionIndex = new PermissionIndex(groups, locations);
+        for (final UserClientPair userClientPair : Arrays.asList(
+                UserClientPair.newBuilder().setUserId(USER_1).build(),
+                UserClientPair.newBuilder().setUserId(USER_2).setClientId(CLIENT_1).build(),
+                UserClientPair.getDefaultInstance())) {
+            final List<UnitConfig> expected = new ArrayList<>();
+            for (final UnitConfig unitConfig : unitConfigs) {
+                if (AuthorizationHelper.canRead(unitConfig, userClientPair, groups, locations)) {
+                    expected.add(unitConfig);
+                }
+            }
+            assertEquals(expected, AuthorizationHelper.filterReadable(unitConfigs, userClientPair, permissionIndex));
+            assertEquals(expected, AuthorizationHelper.filterReadable(unitConfigs, userClientPair, groups, locations));
+            assertEquals(expected.size(), AuthorizationHelper.canRead(unitConfigs, userClientPair, permissionIndex).cardinality());
+        }
+    }
+
+    private void validatePermissionIndex(final List<UnitConfig> unitConfigs, final PermissionIndex permissionIndex) {
+        for (final UnitConfig unitConfig : unitConfigs) {
+            for (final String userId : Arrays.asList(USER_1, USER_2, USER_3, CLIENT_1, "", "unknownUser")) {
+                for (final PermissionType type : PermissionType.values()) {
+                    assertEquals("Permission[" + type + "] of User[" + userId + "] for Unit[" + unitConfig.getId() + "] differs",
+                            AuthorizationHelper.canDo(unitConfig, userId, groups, locations, type),
+                            permissionIndex.canDo(unitConfig, userId, type));
+                }
+            }
+        }
+    }
 }
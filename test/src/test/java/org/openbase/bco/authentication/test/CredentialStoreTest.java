@@ -22,20 +22,31 @@ package org.openbase.bco.authentication.test;
  * #L%
  */
 
+import com.google.protobuf.ByteString;
 import org.junit.*;
 import org.openbase.bco.authentication.lib.CredentialStore;
 import org.openbase.bco.authentication.lib.EncryptionHelper;
+import org.openbase.bco.authentication.lib.ParsedKeyCache;
 import org.openbase.bco.authentication.lib.jp.JPCredentialsDirectory;
 import org.openbase.bco.authentication.lib.jp.JPResetCredentials;
 import org.openbase.jps.core.JPService;
 import org.openbase.jul.exception.NotAvailableException;
 import org.openbase.jul.exception.printer.ExceptionPrinter;
+import org.openbase.type.domotic.authentication.LoginCredentialsType.LoginCredentials;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-import static org.junit.Assert.assertArrayEquals;
-import static org.junit.Assert.fail;
+import static org.junit.Assert.*;
 
 /**
  * @author <a href="mailto:thuxohl@techfak.uni-bielefeld.de">Tamino Huxohl</a>
@@ -104,4 +115,279 @@ public class CredentialStoreTest {
         credentialStore.shutdown();
         loadingCredentialStore.shutdown();
     }
+
+    /**
+     * Test if a store using the journal restores all changes, also if the journal ends with an incomplete record.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testJournal() throws Exception {
+        System.out.println("testJournal");
+
+        String storeFileName = "credential_store_journal.json";
+
+        CredentialStore credentialStore = new CredentialStore();
+        credentialStore.setJournalEnabled(true);
+        credentialStore.init(storeFileName);
+
+        for (int i = 0; i < 100; i++) {
+            credentialStore.addCredentials("user" + i, EncryptionHelper.hash("password" + i), i % 2 == 0, true);
+        }
+        for (int i = 0; i < 100; i += 3) {
+            credentialStore.removeEntry("user" + i);
+        }
+
+        // simulate a crash while appending a record
+        final File storeFile = new File(JPService.getProperty(JPCredentialsDirectory.class).getValue(), storeFileName);
+        final File[] segments = storeFile.getParentFile().listFiles((dir, name) -> name.startsWith(storeFileName + ".journal."));
+        assertNotNull(segments);
+        assertTrue("No journal has been written", segments.length > 0);
+        Arrays.sort(segments);
+        try (FileOutputStream outputStream = new FileOutputStream(segments[segments.length - 1], true)) {
+            outputStream.write(new byte[]{0, 0, 0, 42, 1, 0});
+        }
+
+        // loading replays the journal and compacts it into a new snapshot
+        CredentialStore loadingCredentialStore = new CredentialStore();
+        loadingCredentialStore.setJournalEnabled(true);
+        loadingCredentialStore.init(storeFileName);
+        assertEquals(credentialStore.getEntryMap(), loadingCredentialStore.getEntryMap());
+
+        // the snapshot alone contains all changes
+        CredentialStore snapshotCredentialStore = new CredentialStore();
+        snapshotCredentialStore.setJournalEnabled(true);
+        snapshotCredentialStore.init(storeFileName);
+        assertEquals(credentialStore.getEntryMap(), snapshotCredentialStore.getEntryMap());
+
+        credentialStore.shutdown();
+        loadingCredentialStore.shutdown();
+        snapshotCredentialStore.shutdown();
+    }
+
+    /**
+     * Test if the admin count and the entry map snapshot are updated on changes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAdminCountAndSnapshot() throws Exception {
+        System.out.println("testAdminCountAndSnapshot");
+
+        CredentialStore credentialStore = new CredentialStore();
+        credentialStore.init("credential_store_admin.json");
+
+        credentialStore.addCredentials("admin1", EncryptionHelper.hash("admin1"), true, true);
+        credentialStore.addCredentials("admin2", EncryptionHelper.hash("admin2"), true, true);
+        credentialStore.addCredentials("user", EncryptionHelper.hash("user"), false, true);
+        assertEquals(2, credentialStore.getAdminCount());
+
+        final Map<String, LoginCredentials> snapshot = credentialStore.getEntryMap();
+        assertSame("Snapshot has been copied although the store did not change", snapshot, credentialStore.getEntryMap());
+
+        credentialStore.setAdmin("admin1", false);
+        credentialStore.setAdmin("user", true);
+        assertEquals(2, credentialStore.getAdminCount());
+
+        credentialStore.removeEntry("admin2");
+        assertEquals(1, credentialStore.getAdminCount());
+
+        assertNotSame("Snapshot has not been updated after a change", snapshot, credentialStore.getEntryMap());
+        assertTrue(snapshot.containsKey("admin2"));
+        assertFalse(credentialStore.getEntryMap().containsKey("admin2"));
+
+        credentialStore.shutdown();
+    }
+
+    /**
+     * Test if changes buffered by the write-behind writer are persisted on flush.
+     *
+     * @throws Exception
+     */
+    @Test(timeout = 10000)
+    public void testWriteBehind() throws Exception {
+        System.out.println("testWriteBehind");
+
+        String storeFileName = "credential_store_write_behind.json";
+
+        CredentialStore credentialStore = new CredentialStore();
+        credentialStore.setWriteBehindDelay(TimeUnit.MINUTES.toMillis(1));
+        credentialStore.init(storeFileName);
+
+        for (int i = 0; i < 50; i++) {
+            credentialStore.addCredentials("user" + i, EncryptionHelper.hash("password" + i), false, true);
+        }
+        credentialStore.flush();
+        credentialStore.awaitDurability();
+        assertTrue("Flushed changes are not durable", credentialStore.awaitDurability(1, TimeUnit.SECONDS));
+
+        CredentialStore loadingCredentialStore = new CredentialStore();
+        loadingCredentialStore.init(storeFileName);
+        assertEquals(credentialStore.getEntryMap(), loadingCredentialStore.getEntryMap());
+
+        credentialStore.shutdown();
+        loadingCredentialStore.shutdown();
+    }
+
+    /**
+     * Test if credentials are restored from the binary mapped storage and if an existing store is converted into it.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMappedStorage() throws Exception {
+        System.out.println("testMappedStorage");
+
+        String storeFileName = "credential_store_mapped.json";
+
+        // create a store in the default format
+        CredentialStore credentialStore = new CredentialStore();
+        credentialStore.setMappedStorageEnabled(false);
+        credentialStore.init(storeFileName);
+        KeyPair keyPair = EncryptionHelper.generateKeyPair();
+        credentialStore.addCredentials("admin", EncryptionHelper.hash("admin"), true, true);
+        credentialStore.addCredentials("client", keyPair.getPublic().getEncoded(), false, false);
+
+        // load it with the mapped storage which converts it on the next save
+        CredentialStore convertingCredentialStore = new CredentialStore();
+        convertingCredentialStore.setMappedStorageEnabled(true);
+        convertingCredentialStore.init(storeFileName);
+        assertEquals(credentialStore.getEntryMap(), convertingCredentialStore.getEntryMap());
+        convertingCredentialStore.addCredentials("user", EncryptionHelper.hash("user"), false, true);
+
+        // load the binary file
+        CredentialStore mappedCredentialStore = new CredentialStore();
+        mappedCredentialStore.setMappedStorageEnabled(true);
+        mappedCredentialStore.init(storeFileName);
+        assertEquals(1, mappedCredentialStore.getAdminCount());
+        assertArrayEquals(keyPair.getPublic().getEncoded(), mappedCredentialStore.getCredentials("client").getCredentials().toByteArray());
+        assertEquals(convertingCredentialStore.getEntryMap(), mappedCredentialStore.getEntryMap());
+
+        // change a freshly loaded store so that the records which were not accessed are copied without decoding
+        CredentialStore changingCredentialStore = new CredentialStore();
+        changingCredentialStore.setMappedStorageEnabled(true);
+        changingCredentialStore.init(storeFileName);
+        changingCredentialStore.addCredentials("other", EncryptionHelper.hash("other"), false, true);
+        convertingCredentialStore.addCredentials("other", EncryptionHelper.hash("other"), false, true);
+
+        CredentialStore reloadedCredentialStore = new CredentialStore();
+        reloadedCredentialStore.setMappedStorageEnabled(true);
+        reloadedCredentialStore.init(storeFileName);
+        assertArrayEquals(keyPair.getPublic().getEncoded(), reloadedCredentialStore.getCredentials("client").getCredentials().toByteArray());
+        assertEquals(convertingCredentialStore.getEntryMap(), reloadedCredentialStore.getEntryMap());
+
+        // the admin count follows changes of records which have not been decoded
+        CredentialStore countingCredentialStore = new CredentialStore();
+        countingCredentialStore.setMappedStorageEnabled(true);
+        countingCredentialStore.init(storeFileName);
+        assertEquals(1, countingCredentialStore.getAdminCount());
+        countingCredentialStore.addCredentials("admin2", EncryptionHelper.hash("admin2"), true, true);
+        countingCredentialStore.removeEntry("admin");
+        assertEquals(1, countingCredentialStore.getAdminCount());
+        countingCredentialStore.shutdown();
+
+        // the store file only grants permissions to its owner
+        final File storeFile = new File(JPService.getProperty(JPCredentialsDirectory.class).getValue(), storeFileName);
+        try {
+            assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(storeFile.toPath()));
+        } catch (UnsupportedOperationException ex) {
+            // posix permissions are not supported by this file system
+        }
+
+        credentialStore.shutdown();
+        convertingCredentialStore.shutdown();
+        mappedCredentialStore.shutdown();
+        changingCredentialStore.shutdown();
+        reloadedCredentialStore.shutdown();
+    }
+
+    /**
+     * Test if keys parsed from stored credentials are reused and removed when the credentials change.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testParsedKeyCache() throws Exception {
+        System.out.println("testParsedKeyCache");
+
+        CredentialStore credentialStore = new CredentialStore();
+        credentialStore.init("credential_store_parsed_keys.json");
+
+        KeyPair keyPair = EncryptionHelper.generateKeyPair();
+        credentialStore.addCredentials("clientPublic", keyPair.getPublic().getEncoded(), false, false);
+        credentialStore.addCredentials("clientPrivate", keyPair.getPrivate().getEncoded(), false, false);
+
+        final ParsedKeyCache parsedKeyCache = credentialStore.getParsedKeyCache();
+        final LoginCredentials publicCredentials = credentialStore.getCredentials("clientPublic");
+        final LoginCredentials privateCredentials = credentialStore.getCredentials("clientPrivate");
+        assertFalse(parsedKeyCache.contains(publicCredentials));
+
+        final String payload = "parsed key cache";
+        byte[] encrypted = EncryptionHelper.encrypt(payload, credentialStore.getCredentials("clientPublic"), parsedKeyCache);
+        assertEquals(payload, EncryptionHelper.decrypt(encrypted, credentialStore.getCredentials("clientPrivate"), String.class, parsedKeyCache));
+        assertTrue(parsedKeyCache.contains(publicCredentials));
+        assertTrue(parsedKeyCache.contains(privateCredentials));
+
+        // the cached keys are used for further requests
+        final long missCount = parsedKeyCache.getMissCount();
+        encrypted = EncryptionHelper.encrypt(payload, credentialStore.getCredentials("clientPublic"), parsedKeyCache);
+        assertEquals(payload, EncryptionHelper.decrypt(encrypted, credentialStore.getCredentials("clientPrivate"), String.class, parsedKeyCache));
+        assertEquals(missCount, parsedKeyCache.getMissCount());
+
+        // replacing the entries of another store does not affect the keys of this store
+        final CredentialStore otherCredentialStore = new CredentialStore();
+        otherCredentialStore.init("credential_store_parsed_keys_other.json");
+        assertNotSame(parsedKeyCache, otherCredentialStore.getParsedKeyCache());
+        otherCredentialStore.shutdown();
+        assertTrue(parsedKeyCache.contains(publicCredentials));
+        assertTrue(parsedKeyCache.contains(privateCredentials));
+
+        // changing or removing credentials removes their parsed keys
+        KeyPair newKeyPair = EncryptionHelper.generateKeyPair();
+        credentialStore.addCredentials("clientPublic", newKeyPair.getPublic().getEncoded(), false, false);
+        credentialStore.removeEntry("clientPrivate");
+        assertFalse(parsedKeyCache.contains(publicCredentials));
+        assertFalse(parsedKeyCache.contains(privateCredentials));
+
+        final LoginCredentials newPrivateCredentials = LoginCredentials.newBuilder()
+                .setSymmetric(false)
+                .setCredentials(ByteString.copyFrom(newKeyPair.getPrivate().getEncoded()))
+                .build();
+        encrypted = EncryptionHelper.encrypt(payload, credentialStore.getCredentials("clientPublic"), parsedKeyCache);
+        assertEquals(payload, EncryptionHelper.decrypt(encrypted, newPrivateCredentials, String.class));
+
+        credentialStore.shutdown();
+    }
+
+    /**
+     * Test if the parsed key cache removes the least recently used key when it is full.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testParsedKeyCacheEviction() throws Exception {
+        System.out.println("testParsedKeyCacheEviction");
+
+        final ParsedKeyCache parsedKeyCache = new ParsedKeyCache(2);
+        final List<LoginCredentials> credentialsList = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            credentialsList.add(LoginCredentials.newBuilder()
+                    .setId("client" + i)
+                    .setSymmetric(false)
+                    .setCredentials(ByteString.copyFrom(EncryptionHelper.generateKeyPair().getPublic().getEncoded()))
+                    .build());
+        }
+
+        EncryptionHelper.encrypt("eviction", credentialsList.get(0), parsedKeyCache);
+        EncryptionHelper.encrypt("eviction", credentialsList.get(1), parsedKeyCache);
+
+        // access the first key so that the second one is the least recently used
+        EncryptionHelper.encrypt("eviction", credentialsList.get(0), parsedKeyCache);
+        EncryptionHelper.encrypt("eviction", credentialsList.get(2), parsedKeyCache);
+
+        assertEquals(2, parsedKeyCache.getSize());
+        assertTrue(parsedKeyCache.contains(credentialsList.get(0)));
+        assertFalse(parsedKeyCache.contains(credentialsList.get(1)));
+        assertTrue(parsedKeyCache.contains(credentialsList.get(2)));
+    }
 }
@@ -24,7 +24,10 @@ package org.openbase.bco.authentication.test;
 import com.google.protobuf.ByteString;
 import java.security.KeyPair;
 
+import org.openbase.bco.authentication.lib.CachedCryptoEngine;
+import org.openbase.bco.authentication.lib.CryptoEngine;
 import org.openbase.bco.authentication.lib.EncryptionHelper;
+import org.openbase.bco.authentication.lib.PayloadCodec;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -33,6 +36,7 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 
 import org.openbase.jul.exception.CouldNotPerformException;
+import org.openbase.type.domotic.authentication.LoginCredentialsType.LoginCredentials;
 import org.slf4j.LoggerFactory;
 
 /**
@@ -107,4 +111,104 @@ public class EncryptionHelperTest {
 
         EncryptionHelper.decryptAsymmetric(encryptedValue, wrongKeyPair.getPrivate().getEncoded(), String.class);
     }
+
+    @Test
+    public void testCachedCryptoEngine() throws Exception {
+        LOGGER.info("test en- and decryption with the cached crypto engine");
+        final CryptoEngine previousEngine = EncryptionHelper.getCryptoEngine();
+        EncryptionHelper.setCryptoEngine(new CachedCryptoEngine(2));
+        try {
+            final String value = "test";
+            // use more keys than the cache can hold to make sure that evicted keys are recreated
+            for (int i = 0; i < 4; i++) {
+                byte[] key = EncryptionHelper.generateKey();
+                ByteString encrypted = EncryptionHelper.encryptSymmetric(value, key);
+                assertEquals(value, EncryptionHelper.decryptSymmetric(encrypted, key, String.class));
+                assertEquals(value, EncryptionHelper.decryptSymmetric(encrypted, key, String.class));
+            }
+
+            KeyPair keyPair = EncryptionHelper.generateKeyPair();
+            ByteString encrypted = EncryptionHelper.encryptAsymmetric(value, keyPair.getPublic().getEncoded());
+            assertEquals(value, EncryptionHelper.decryptAsymmetric(encrypted, keyPair.getPrivate().getEncoded(), String.class));
+        } finally {
+            EncryptionHelper.setCryptoEngine(previousEngine);
+        }
+    }
+
+    @Test
+    public void testPayloadEncoding() throws Exception {
+        LOGGER.info("test en- and decryption of all payload types supported by the codec");
+        byte[] key = EncryptionHelper.generateKey();
+
+        LoginCredentials loginCredentials = LoginCredentials.newBuilder().setId("test").setSymmetric(true).setCredentials(ByteString.copyFrom(key)).build();
+        assertEquals(loginCredentials, EncryptionHelper.decryptSymmetric(EncryptionHelper.encryptSymmetric(loginCredentials, key), key, LoginCredentials.class));
+
+        byte[] bytes = EncryptionHelper.generateKey();
+        assertArrayEquals(bytes, EncryptionHelper.decryptSymmetric(EncryptionHelper.encryptSymmetric(bytes, key), key, byte[].class));
+
+        String string = "test \u00e4\u00f6\u00fc";
+        assertEquals(string, EncryptionHelper.decryptSymmetric(EncryptionHelper.encryptSymmetric(string, key), key, String.class));
+
+        assertEquals(Boolean.TRUE, EncryptionHelper.decryptSymmetric(EncryptionHelper.encryptSymmetric(Boolean.TRUE, key), key, Boolean.class));
+    }
+
+    @Test
+    public void testLegacyPayloadDecoding() throws Exception {
+        LOGGER.info("test decryption of payloads encoded by java serialization");
+        byte[] key = EncryptionHelper.generateKey();
+        LoginCredentials loginCredentials = LoginCredentials.newBuilder().setId("test").setSymmetric(true).setCredentials(ByteString.copyFrom(key)).build();
+
+        final ByteString legacyMessage;
+        final ByteString legacyBytes;
+        PayloadCodec.setLegacyEncoding(true);
+        try {
+            legacyMessage = EncryptionHelper.encryptSymmetric(loginCredentials, key);
+            legacyBytes = EncryptionHelper.encryptSymmetric(key, key);
+        } finally {
+            PayloadCodec.setLegacyEncoding(false);
+        }
+
+        assertEquals(loginCredentials, EncryptionHelper.decryptSymmetric(legacyMessage, key, LoginCredentials.class));
+        assertArrayEquals(key, EncryptionHelper.decryptSymmetric(legacyBytes, key, byte[].class));
+        assertTrue(EncryptionHelper.encryptSymmetric(loginCredentials, key).size() < legacyMessage.size());
+    }
+
+    @Test
+    public void testEncodedEncryption() throws Exception {
+        LOGGER.info("test encryption of an object encoded once for multiple keys");
+        LoginCredentials loginCredentials = LoginCredentials.newBuilder().setId("test").setSymmetric(true).setCredentials(ByteString.copyFrom(EncryptionHelper.generateKey())).build();
+        byte[] encoded = EncryptionHelper.encode(loginCredentials);
+
+        for (int i = 0; i < 3; i++) {
+            byte[] key = EncryptionHelper.generateKey();
+            ByteString encrypted = EncryptionHelper.encryptSymmetricEncoded(encoded, key);
+            assertEquals(EncryptionHelper.encryptSymmetric(loginCredentials, key), encrypted);
+            assertEquals(loginCredentials, EncryptionHelper.decryptSymmetric(encrypted, key, LoginCredentials.class));
+        }
+    }
+
+    @Test
+    public void testHybridEncryption() throws Exception {
+        LOGGER.info("test hybrid encryption for asymmetric login credentials");
+        KeyPair keyPair = EncryptionHelper.generateKeyPair();
+        LoginCredentials publicCredentials = LoginCredentials.newBuilder().setId("test").setSymmetric(false).setCredentials(ByteString.copyFrom(keyPair.getPublic().getEncoded())).build();
+        LoginCredentials privateCredentials = LoginCredentials.newBuilder().setId("test").setSymmetric(false).setCredentials(ByteString.copyFrom(keyPair.getPrivate().getEncoded())).build();
+
+        // a payload which is too large for plain asymmetric encryption
+        byte[] payload = new byte[4096];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+
+        final byte[] hybridEncrypted = EncryptionHelper.encrypt(payload, publicCredentials, null, true);
+        assertArrayEquals(payload, EncryptionHelper.decrypt(hybridEncrypted, privateCredentials, byte[].class));
+        assertArrayEquals(payload, EncryptionHelper.decryptAsymmetric(ByteString.copyFrom(hybridEncrypted), keyPair.getPrivate().getEncoded(), byte[].class));
+
+        // objects fitting into a single asymmetric block are encrypted plainly even in hybrid mode
+        final byte[] key = EncryptionHelper.generateKey();
+        final byte[] encrypted = EncryptionHelper.encrypt(key, publicCredentials, null, true);
+        assertEquals(EncryptionHelper.encrypt(key, publicCredentials).length, encrypted.length);
+        assertArrayEquals(key, EncryptionHelper.decryptAsymmetric(ByteString.copyFrom(encrypted), keyPair.getPrivate().getEncoded(), byte[].class));
+        assertArrayEquals(key, EncryptionHelper.decrypt(encrypted, privateCredentials, byte[].class));
+    }
 }
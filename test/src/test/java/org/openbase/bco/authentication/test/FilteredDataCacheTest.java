@@ -0,0 +1,138 @@
+package org.openbase.bco.authentication.test;
+
+/*-
+ * #%L
+ * BCO Authentication Test
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.openbase.bco.authentication.lib.EncryptionHelper;
+import org.openbase.bco.authentication.lib.com.FilteredDataCache;
+import org.openbase.type.domotic.authentication.UserClientPairType.UserClientPair;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class FilteredDataCacheTest {
+
+    private static UserClientPair createPair(final String userId) {
+        return UserClientPair.newBuilder().setUserId(userId).build();
+    }
+
+    /**
+     * Test if filtered data is computed once and reused afterwards.
+     *
+     * @throws Exception if the test fails.
+     */
+    @Test
+    public void testHit() throws Exception {
+        System.out.println("testHit");
+
+        final FilteredDataCache<UserClientPair> filteredDataCache = new FilteredDataCache<>();
+        final AtomicInteger filterCount = new AtomicInteger(0);
+        final UserClientPair pair = createPair("user");
+        final FilteredDataCache.DataFilter<UserClientPair> dataFilter = () -> {
+            filterCount.incrementAndGet();
+            return pair;
+        };
+
+        assertSame(pair, filteredDataCache.getData(pair, dataFilter));
+        assertSame(pair, filteredDataCache.getData(pair, dataFilter));
+        assertEquals(1, filterCount.get());
+
+        // the encoding is reused as well
+        final byte[] encodedData = filteredDataCache.getEncodedData(pair, dataFilter);
+        assertArrayEquals(EncryptionHelper.encode(pair), encodedData);
+        assertSame(encodedData, filteredDataCache.getEncodedData(pair, dataFilter));
+        assertEquals(1, filterCount.get());
+    }
+
+    /**
+     * Test if a new revision invalidates all cached data.
+     *
+     * @throws Exception if the test fails.
+     */
+    @Test
+    public void testInvalidation() throws Exception {
+        System.out.println("testInvalidation");
+
+        final FilteredDataCache<UserClientPair> filteredDataCache = new FilteredDataCache<>();
+        final UserClientPair pair = createPair("user");
+        final UserClientPair updatedPair = createPair("updated");
+
+        assertSame(pair, filteredDataCache.getData(pair, () -> pair));
+        final long revision = filteredDataCache.getRevision();
+
+        filteredDataCache.invalidate();
+        assertEquals(revision + 1, filteredDataCache.getRevision());
+        assertSame(updatedPair, filteredDataCache.getData(pair, () -> updatedPair));
+        assertSame(updatedPair, filteredDataCache.getData(pair, () -> pair));
+    }
+
+    /**
+     * Test if data which has been computed while the cache was invalidated is returned but not cached.
+     *
+     * @throws Exception if the test fails.
+     */
+    @Test
+    public void testInvalidationDuringFilter() throws Exception {
+        System.out.println("testInvalidationDuringFilter");
+
+        final FilteredDataCache<UserClientPair> filteredDataCache = new FilteredDataCache<>();
+        final UserClientPair pair = createPair("user");
+        final UserClientPair staleData = createPair("stale");
+        final UserClientPair currentData = createPair("current");
+
+        assertSame(staleData, filteredDataCache.getData(pair, () -> {
+            // the permissions change while the data is filtered
+            filteredDataCache.invalidate();
+            return staleData;
+        }));
+        assertSame(currentData, filteredDataCache.getData(pair, () -> currentData));
+    }
+
+    /**
+     * Test if the least recently used pair is evicted when the cache is full.
+     *
+     * @throws Exception if the test fails.
+     */
+    @Test
+    public void testEviction() throws Exception {
+        System.out.println("testEviction");
+
+        final FilteredDataCache<UserClientPair> filteredDataCache = new FilteredDataCache<>(2);
+        final UserClientPair first = createPair("first");
+        final UserClientPair second = createPair("second");
+        final UserClientPair third = createPair("third");
+        final UserClientPair recomputed = createPair("recomputed");
+
+        filteredDataCache.getData(first, () -> first);
+        filteredDataCache.getData(second, () -> second);
+
+        // access the first pair so that the second one is the least recently used
+        assertSame(first, filteredDataCache.getData(first, () -> recomputed));
+        filteredDataCache.getData(third, () -> third);
+
+        assertSame(first, filteredDataCache.getData(first, () -> recomputed));
+        assertSame(third, filteredDataCache.getData(third, () -> recomputed));
+        assertSame(recomputed, filteredDataCache.getData(second, () -> recomputed));
+    }
+}
@@ -0,0 +1,73 @@
+package org.openbase.bco.authentication.test;
+
+/*-
+ * #%L
+ * BCO Authentication Test
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openbase.bco.authentication.lib.KeyPairFactory;
+import org.openbase.jps.core.JPService;
+
+import java.security.KeyPair;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class KeyPairFactoryTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        JPService.setupJUnitTestMode();
+    }
+
+    /**
+     * Test if requested key pairs are generated in parallel, are unique and if the buffer is filled afterwards.
+     *
+     * @throws Exception if the test fails.
+     */
+    @Test(timeout = 20000)
+    public void testRequestKeyPairs() throws Exception {
+        System.out.println("testRequestKeyPairs");
+
+        final KeyPairFactory keyPairFactory = new KeyPairFactory(2, 4);
+        final List<CompletableFuture<KeyPair>> futureList = keyPairFactory.requestKeyPairs(10);
+        assertEquals(10, futureList.size());
+
+        final Set<KeyPair> keyPairSet = new HashSet<>();
+        for (final CompletableFuture<KeyPair> future : futureList) {
+            keyPairSet.add(future.get());
+        }
+        assertEquals("Factory handed out the same key pair twice", 10, keyPairSet.size());
+
+        // the buffer is filled in the background and serves the next request immediately
+        while (keyPairFactory.getReadyCount() < 2) {
+            Thread.sleep(10);
+        }
+        final CompletableFuture<KeyPair> future = keyPairFactory.requestKeyPair();
+        assertTrue(future.isDone());
+        assertFalse(keyPairSet.contains(future.get()));
+        assertEquals(0, keyPairFactory.getPendingCount());
+    }
+}
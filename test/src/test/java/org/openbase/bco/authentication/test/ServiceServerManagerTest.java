@@ -22,15 +22,25 @@ package org.openbase.bco.authentication.test;
  * #L%
  */
 
+import com.google.protobuf.ByteString;
 import org.junit.*;
 import org.openbase.bco.authentication.core.AuthenticatorController;
 import org.openbase.bco.authentication.lib.*;
+import org.openbase.bco.authentication.lib.future.AuthenticatedValueFuture;
 import org.openbase.type.domotic.authentication.AuthenticatedValueType.AuthenticatedValue;
 import org.openbase.type.domotic.authentication.LoginCredentialsType.LoginCredentials;
 import org.slf4j.LoggerFactory;
 import org.openbase.type.domotic.authentication.LoginCredentialsChangeType.LoginCredentialsChange;
 import org.openbase.type.domotic.authentication.TicketAuthenticatorWrapperType.TicketAuthenticatorWrapper;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import static org.junit.Assert.*;
+
 /**
  *
  * @author <a href="mailto:thuxohl@techfak.uni-bielefeld.de">Tamino Huxohl</a>
@@ -69,4 +79,183 @@ public class ServiceServerManagerTest extends AuthenticationTest {
 
         AuthenticationClientHandler.handleServiceServerResponse(SessionManager.getInstance().getSessionKey(), request, response);
     }
+
+    /**
+     * Test if tickets received by the service server are cached so that further requests with the same ticket do not
+     * need to decrypt it, while tickets created for responses are only cached once a client sends them.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test(timeout = 5000)
+    public void testServiceServerManagerTicketCache() throws Exception {
+        System.out.println("testServiceServerManagerTicketCache");
+
+        // register a user from which a ticket can be validated
+        String userId = "ServiceServerManagerCacheUser";
+        String password = "Security";
+        LoginCredentials.Builder loginCredentials = LoginCredentials.newBuilder();
+        loginCredentials.setSymmetric(true);
+        loginCredentials.setId(userId);
+        loginCredentials.setCredentials(EncryptionHelper.encryptSymmetric(EncryptionHelper.hash(password), EncryptionHelper.hash(AuthenticatorController.getInitialPassword())));
+        final AuthenticatedValue authenticatedValue = AuthenticatedValue.newBuilder().setValue(loginCredentials.build().toByteString()).build();
+        CachedAuthenticationRemote.getRemote().register(authenticatedValue).get();
+
+        SessionManager.getInstance().loginUser(userId, password, false);
+
+        final TicketCache ticketCache = AuthenticatedServerManager.getInstance().getTicketCache();
+        final TicketAuthenticatorWrapper request = SessionManager.getInstance().initializeServiceServerRequest();
+        final TicketAuthenticatorWrapper response = AuthenticatedServerManager.getInstance().verifyClientServerTicket(request).getTicketAuthenticatorWrapper();
+        assertNotNull("Requested ticket has not been cached", ticketCache.get(request.getTicket()));
+        if (!response.getTicket().equals(request.getTicket())) {
+            assertNull("Re-encrypted response ticket has been cached before a client sent it", ticketCache.get(response.getTicket()));
+        }
+
+        // the client uses the response ticket for its next request which adds it to the cache
+        final byte[] sessionKey = SessionManager.getInstance().getSessionKey();
+        AuthenticationClientHandler.handleServiceServerResponse(sessionKey, request, response);
+        final TicketAuthenticatorWrapper nextRequest = AuthenticationClientHandler.initServiceServerRequest(sessionKey, response);
+        final TicketAuthenticatorWrapper nextResponse = AuthenticatedServerManager.getInstance().verifyClientServerTicket(nextRequest).getTicketAuthenticatorWrapper();
+        AuthenticationClientHandler.handleServiceServerResponse(sessionKey, nextRequest, nextResponse);
+        assertNotNull("Received ticket has not been cached", ticketCache.get(nextRequest.getTicket()));
+    }
+
+    /**
+     * Test if the service server can validate a batch of client server tickets.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test(timeout = 5000)
+    public void testServiceServerManagerBatchValidation() throws Exception {
+        System.out.println("testServiceServerManagerBatchValidation");
+
+        // register a user from which tickets can be validated
+        String userId = "ServiceServerManagerBatchUser";
+        String password = "Security";
+        LoginCredentials.Builder loginCredentials = LoginCredentials.newBuilder();
+        loginCredentials.setSymmetric(true);
+        loginCredentials.setId(userId);
+        loginCredentials.setCredentials(EncryptionHelper.encryptSymmetric(EncryptionHelper.hash(password), EncryptionHelper.hash(AuthenticatorController.getInitialPassword())));
+        final AuthenticatedValue authenticatedValue = AuthenticatedValue.newBuilder().setValue(loginCredentials.build().toByteString()).build();
+        CachedAuthenticationRemote.getRemote().register(authenticatedValue).get();
+
+        SessionManager.getInstance().loginUser(userId, password, false);
+
+        // two requests share the same ticket and one request contains an invalid ticket
+        final List<AuthenticatedValue> authenticatedValues = new ArrayList<>();
+        authenticatedValues.add(AuthenticatedValue.newBuilder().setTicketAuthenticatorWrapper(SessionManager.getInstance().initializeServiceServerRequest()).build());
+        authenticatedValues.add(AuthenticatedValue.newBuilder().setTicketAuthenticatorWrapper(SessionManager.getInstance().initializeServiceServerRequest()).build());
+        final TicketAuthenticatorWrapper invalid = SessionManager.getInstance().initializeServiceServerRequest().toBuilder().setTicket(ByteString.copyFromUtf8("invalid")).build();
+        authenticatedValues.add(AuthenticatedValue.newBuilder().setTicketAuthenticatorWrapper(invalid).build());
+
+        final List<Future<AuthenticationBaseData>> futureList = AuthenticatedServerManager.getInstance().verifyClientServerTickets(authenticatedValues);
+        assertEquals(authenticatedValues.size(), futureList.size());
+
+        for (int i = 0; i < 2; i++) {
+            final TicketAuthenticatorWrapper request = authenticatedValues.get(i).getTicketAuthenticatorWrapper();
+            final TicketAuthenticatorWrapper response = futureList.get(i).get().getTicketAuthenticatorWrapper();
+            AuthenticationClientHandler.handleServiceServerResponse(SessionManager.getInstance().getSessionKey(), request, response);
+        }
+
+        try {
+            futureList.get(2).get();
+            fail("Verification of an invalid ticket did not fail");
+        } catch (ExecutionException ex) {
+            // expected
+        }
+    }
+
+    /**
+     * Test if a batch of authenticated actions decrypts a shared ticket only once, fails only the actions of an
+     * invalid ticket and sets the transaction id on every response.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test(timeout = 5000)
+    public void testAuthenticatedActions() throws Exception {
+        System.out.println("testAuthenticatedActions");
+
+        // register a user from which tickets can be validated
+        String userId = "ServiceServerManagerActionUser";
+        String password = "Security";
+        LoginCredentials.Builder loginCredentials = LoginCredentials.newBuilder();
+        loginCredentials.setSymmetric(true);
+        loginCredentials.setId(userId);
+        loginCredentials.setCredentials(EncryptionHelper.encryptSymmetric(EncryptionHelper.hash(password), EncryptionHelper.hash(AuthenticatorController.getInitialPassword())));
+        final AuthenticatedValue authenticatedValue = AuthenticatedValue.newBuilder().setValue(loginCredentials.build().toByteString()).build();
+        CachedAuthenticationRemote.getRemote().register(authenticatedValue).get();
+
+        SessionManager.getInstance().loginUser(userId, password, false);
+
+        // two actions share the same ticket and one action contains an invalid ticket
+        final List<AuthenticatedValue> authenticatedValues = new ArrayList<>();
+        authenticatedValues.add(AuthenticatedValue.newBuilder().setTicketAuthenticatorWrapper(SessionManager.getInstance().initializeServiceServerRequest()).build());
+        authenticatedValues.add(AuthenticatedValue.newBuilder().setTicketAuthenticatorWrapper(SessionManager.getInstance().initializeServiceServerRequest()).build());
+        final TicketAuthenticatorWrapper invalid = SessionManager.getInstance().initializeServiceServerRequest().toBuilder().setTicket(ByteString.copyFromUtf8("invalid")).build();
+        authenticatedValues.add(AuthenticatedValue.newBuilder().setTicketAuthenticatorWrapper(invalid).build());
+
+        final TicketCache ticketCache = AuthenticatedServerManager.getInstance().getTicketCache();
+        ticketCache.clear();
+
+        final long transactionId = 42;
+        final List<Future<AuthenticatedValue>> futureList = AuthenticatedServiceProcessor.authenticatedActions(
+                authenticatedValues,
+                String.class,
+                () -> transactionId,
+                (message, authenticationBaseData) -> authenticationBaseData.getUserClientPair().getUserId());
+        assertEquals(authenticatedValues.size(), futureList.size());
+
+        for (int i = 0; i < 2; i++) {
+            final AuthenticatedValue response = futureList.get(i).get();
+            assertEquals(transactionId, response.getTransactionId());
+            assertEquals(userId, EncryptionHelper.decryptSymmetric(response.getValue(), SessionManager.getInstance().getSessionKey(), String.class));
+        }
+
+        try {
+            futureList.get(2).get();
+            fail("Action with an invalid ticket did not fail");
+        } catch (ExecutionException ex) {
+            // expected
+        }
+
+        // the shared ticket has been decrypted into a single cache entry while the invalid ticket is not cached
+        assertEquals(1, ticketCache.size());
+    }
+
+    /**
+     * Test if the ticket of the session manager is updated with the response of a plain future without anyone
+     * waiting for the authenticated future.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test(timeout = 5000)
+    public void testAuthenticatedFutureUpdatesTicketWithoutGet() throws Exception {
+        System.out.println("testAuthenticatedFutureUpdatesTicketWithoutGet");
+
+        // register a user from which a ticket can be validated
+        String userId = "ServiceServerManagerFutureUser";
+        String password = "Security";
+        LoginCredentials.Builder loginCredentials = LoginCredentials.newBuilder();
+        loginCredentials.setSymmetric(true);
+        loginCredentials.setId(userId);
+        loginCredentials.setCredentials(EncryptionHelper.encryptSymmetric(EncryptionHelper.hash(password), EncryptionHelper.hash(AuthenticatorController.getInitialPassword())));
+        final AuthenticatedValue authenticatedValue = AuthenticatedValue.newBuilder().setValue(loginCredentials.build().toByteString()).build();
+        CachedAuthenticationRemote.getRemote().register(authenticatedValue).get();
+
+        final SessionManager sessionManager = SessionManager.getInstance();
+        sessionManager.loginUser(userId, password, false);
+
+        final TicketAuthenticatorWrapper request = sessionManager.initializeServiceServerRequest();
+        final TicketAuthenticatorWrapper response = AuthenticatedServerManager.getInstance().verifyClientServerTicket(request).getTicketAuthenticatorWrapper();
+
+        // a plain future which neither is a completable future nor offers a completion callback
+        final FutureTask<AuthenticatedValue> internalFuture = new FutureTask<>(() -> AuthenticatedValue.newBuilder().setTicketAuthenticatorWrapper(response).build());
+        new AuthenticatedValueFuture<>(internalFuture, String.class, request, sessionManager);
+        assertNotEquals(response, sessionManager.getTicketAuthenticatorWrapper());
+
+        // complete the internal future and never call get on the authenticated future
+        new Thread(internalFuture).start();
+        while (!response.equals(sessionManager.getTicketAuthenticatorWrapper())) {
+            Thread.sleep(10);
+        }
+    }
 }
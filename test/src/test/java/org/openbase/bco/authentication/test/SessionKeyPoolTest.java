@@ -0,0 +1,90 @@
+package org.openbase.bco.authentication.test;
+
+/*-
+ * #%L
+ * BCO Authentication Test
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import com.google.protobuf.ByteString;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openbase.bco.authentication.lib.SessionKeyPool;
+import org.openbase.jps.core.JPService;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class SessionKeyPoolTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        JPService.setupJUnitTestMode();
+    }
+
+    /**
+     * Test if keys are taken from the pool once it is filled and generated inline when it is exhausted.
+     *
+     * @throws Exception if the test fails.
+     */
+    @Test(timeout = 10000)
+    public void testTakeKey() throws Exception {
+        System.out.println("testTakeKey");
+
+        final SessionKeyPool sessionKeyPool = new SessionKeyPool(16);
+        while (sessionKeyPool.getSize() < sessionKeyPool.getCapacity()) {
+            Thread.sleep(10);
+        }
+        assertEquals(1.0d, sessionKeyPool.getFillLevel(), 0.0d);
+
+        final Set<ByteString> keySet = new HashSet<>();
+        for (int i = 0; i < 16; i++) {
+            final byte[] key = sessionKeyPool.takeKey();
+            assertEquals(16, key.length);
+            keySet.add(ByteString.copyFrom(key));
+        }
+        assertEquals("Pool handed out the same key twice", 16, keySet.size());
+        assertEquals(16, sessionKeyPool.getHitCount());
+        assertTrue(sessionKeyPool.getGeneratedCount() >= 16);
+
+        // the pool is refilled in the background
+        while (sessionKeyPool.getSize() < sessionKeyPool.getCapacity()) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Test if a pool without capacity generates every key inline.
+     *
+     * @throws Exception if the test fails.
+     */
+    @Test(timeout = 5000)
+    public void testDisabledPool() throws Exception {
+        System.out.println("testDisabledPool");
+
+        final SessionKeyPool sessionKeyPool = new SessionKeyPool(0);
+        assertNotNull(sessionKeyPool.takeKey());
+        assertNotNull(sessionKeyPool.takeKey());
+        assertEquals(0, sessionKeyPool.getHitCount());
+        assertEquals(2, sessionKeyPool.getMissCount());
+        assertEquals(0, sessionKeyPool.getSize());
+    }
+}
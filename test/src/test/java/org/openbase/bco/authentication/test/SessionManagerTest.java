@@ -22,6 +22,7 @@ package org.openbase.bco.authentication.test;
  * #L%
  */
 
+import com.google.protobuf.ByteString;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -31,6 +32,8 @@ import org.openbase.bco.authentication.lib.CachedAuthenticationRemote;
 import org.openbase.bco.authentication.lib.CredentialStore;
 import org.openbase.bco.authentication.lib.EncryptionHelper;
 import org.openbase.bco.authentication.lib.SessionManager;
+import org.openbase.bco.authentication.lib.SessionRegistry;
+import org.openbase.bco.authentication.lib.TicketRenewalScheduler;
 import org.openbase.bco.authentication.mock.MockClientStore;
 import org.openbase.bco.authentication.mock.MockCredentialStore;
 import org.openbase.jul.exception.CouldNotPerformException;
@@ -39,11 +42,22 @@ import org.openbase.jul.pattern.Observer;
 import org.openbase.jul.schedule.SyncObject;
 import org.openbase.type.domotic.authentication.AuthenticatedValueType.AuthenticatedValue;
 import org.openbase.type.domotic.authentication.LoginCredentialsType.LoginCredentials;
+import org.openbase.type.domotic.authentication.TicketAuthenticatorWrapperType.TicketAuthenticatorWrapper;
 import org.openbase.type.domotic.authentication.TicketType.Ticket;
 import org.openbase.type.domotic.authentication.UserClientPairType.UserClientPair;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -130,6 +144,226 @@ public class SessionManagerTest extends AuthenticationTest {
         manager.loginUser(MockClientStore.USER_ID, MockClientStore.USER_PASSWORD, false);
     }
 
+    /**
+     * Test if concurrent asynchronous logins of the same user share the login in progress.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test(timeout = 5000)
+    public void loginUserAsync() throws Exception {
+        System.out.println("loginUserAsync");
+        SessionManager manager = new SessionManager(clientStore);
+        final LoginCredentials credentials = LoginCredentials.newBuilder()
+                .setId(MockClientStore.ADMIN_ID)
+                .setSymmetric(true)
+                .setCredentials(ByteString.copyFrom(EncryptionHelper.hash(MockClientStore.ADMIN_PASSWORD)))
+                .build();
+
+        final CompletableFuture<UserClientPair> first = manager.loginUserAsync(MockClientStore.ADMIN_ID, credentials, false);
+        final CompletableFuture<UserClientPair> second = manager.loginUserAsync(MockClientStore.ADMIN_ID, credentials, false);
+        if (!first.isDone()) {
+            assertSame("Concurrent logins of the same user are not shared", first, second);
+        }
+        assertEquals(MockClientStore.ADMIN_ID, second.get().getUserId());
+        assertTrue(manager.isLoggedIn());
+
+        // a login with invalid credentials fails and keeps the previous session
+        final LoginCredentials invalidCredentials = credentials.toBuilder()
+                .setId(MockClientStore.USER_ID)
+                .setCredentials(ByteString.copyFrom(EncryptionHelper.hash("invalidPassword")))
+                .build();
+        try {
+            manager.loginUserAsync(MockClientStore.USER_ID, invalidCredentials, false).get();
+            fail("Login with invalid credentials did not fail");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof CouldNotPerformException);
+        }
+        assertEquals(MockClientStore.ADMIN_ID, manager.getUserClientPair().getUserId());
+        assertTrue(manager.isLoggedIn());
+
+        // a concurrent login of the same user with other credentials does not share the login in progress
+        manager.logout();
+        final LoginCredentials wrongCredentials = credentials.toBuilder()
+                .setCredentials(ByteString.copyFrom(EncryptionHelper.hash("invalidPassword")))
+                .build();
+        final CompletableFuture<UserClientPair> wrong = manager.loginUserAsync(MockClientStore.ADMIN_ID, wrongCredentials, false);
+        final CompletableFuture<UserClientPair> valid = manager.loginUserAsync(MockClientStore.ADMIN_ID, credentials, false);
+        assertNotSame("Logins with different credentials are shared", valid, wrong);
+        try {
+            wrong.get();
+            fail("Login with invalid credentials did not fail");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof CouldNotPerformException);
+        }
+        assertEquals(MockClientStore.ADMIN_ID, valid.get().getUserId());
+
+        // renewing the ticket does not change the session
+        manager.loginUserAsync(MockClientStore.ADMIN_ID, credentials, false).get();
+        manager.renewTicketAsync().get();
+        assertEquals(MockClientStore.ADMIN_ID, manager.getUserClientPair().getUserId());
+
+        manager.shutdown();
+    }
+
+    /**
+     * Test if responses verified concurrently keep the newest ticket of the session.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test(timeout = 10000)
+    public void verifyResponsesConcurrently() throws Exception {
+        System.out.println("verifyResponsesConcurrently");
+        final SessionManager manager = new SessionManager(clientStore);
+        manager.loginUser(MockClientStore.ADMIN_ID, MockClientStore.ADMIN_PASSWORD, false);
+
+        // an older response does not replace a newer one
+        final TicketAuthenticatorWrapper olderRequest = manager.initializeServiceServerRequest();
+        final TicketAuthenticatorWrapper olderResponse = CachedAuthenticationRemote.getRemote().validateClientServerTicket(olderRequest).get();
+        Thread.sleep(10);
+        final TicketAuthenticatorWrapper newerRequest = manager.initializeServiceServerRequest();
+        final TicketAuthenticatorWrapper newerResponse = CachedAuthenticationRemote.getRemote().validateClientServerTicket(newerRequest).get();
+        manager.verifyServiceServerResponse(newerRequest, newerResponse);
+        manager.verifyServiceServerResponse(olderRequest, olderResponse);
+        assertEquals(newerResponse, manager.getTicketAuthenticatorWrapper());
+
+        // perform requests from multiple threads
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<TicketAuthenticatorWrapper>> futureList = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futureList.add(executorService.submit(() -> {
+                    final TicketAuthenticatorWrapper request = manager.initializeServiceServerRequest();
+                    final TicketAuthenticatorWrapper response = CachedAuthenticationRemote.getRemote().validateClientServerTicket(request).get();
+                    return manager.verifyServiceServerResponse(request, response);
+                }));
+            }
+            for (final Future<TicketAuthenticatorWrapper> future : futureList) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        assertTrue(manager.isLoggedIn());
+        final TicketAuthenticatorWrapper request = manager.initializeServiceServerRequest();
+        manager.verifyServiceServerResponse(request, CachedAuthenticationRemote.getRemote().validateClientServerTicket(request).get());
+
+        manager.shutdown();
+    }
+
+    /**
+     * Test if sessions of a session registry are logged in independently.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test(timeout = 5000)
+    public void sessionRegistry() throws Exception {
+        System.out.println("sessionRegistry");
+        final SessionRegistry sessionRegistry = new SessionRegistry(clientStore);
+
+        final SessionManager adminSession = sessionRegistry.getSession("admin");
+        final SessionManager userSession = sessionRegistry.getSession("user");
+        assertSame(adminSession, sessionRegistry.getSession("admin"));
+        assertEquals(2, sessionRegistry.size());
+
+        adminSession.loginUser(MockClientStore.ADMIN_ID, MockClientStore.ADMIN_PASSWORD, false);
+        userSession.loginUser(MockClientStore.USER_ID, MockClientStore.USER_PASSWORD, false);
+        assertEquals(MockClientStore.ADMIN_ID, adminSession.getUserClientPair().getUserId());
+        assertEquals(MockClientStore.USER_ID, userSession.getUserClientPair().getUserId());
+        assertFalse(Arrays.equals(adminSession.getSessionKey(), userSession.getSessionKey()));
+
+        // both sessions can perform requests
+        for (final SessionManager session : sessionRegistry.getSessions()) {
+            final TicketAuthenticatorWrapper request = session.initializeServiceServerRequest();
+            session.verifyServiceServerResponse(request, CachedAuthenticationRemote.getRemote().validateClientServerTicket(request).get());
+        }
+
+        // removing a session logs it out without affecting the other one
+        sessionRegistry.removeSession("admin");
+        assertFalse(sessionRegistry.hasSession("admin"));
+        assertFalse(adminSession.isLoggedIn());
+        assertTrue(userSession.isLoggedIn());
+
+        sessionRegistry.shutdown();
+        assertEquals(0, sessionRegistry.size());
+        assertFalse(userSession.isLoggedIn());
+    }
+
+    /**
+     * Test if the ticket renewal scheduler spreads renewals and renews the tickets of scheduled sessions.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test(timeout = 10000)
+    public void ticketRenewalScheduler() throws Exception {
+        System.out.println("ticketRenewalScheduler");
+        final SessionRegistry sessionRegistry = new SessionRegistry(clientStore);
+
+        // renewals of sessions scheduled at the same moment are spread over the jitter window
+        final long interval = TimeUnit.MINUTES.toMillis(10);
+        final TicketRenewalScheduler spreadingScheduler = new TicketRenewalScheduler(0.5d, 0, 10);
+        final long start = System.currentTimeMillis();
+        final Set<Long> renewalTimes = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            final SessionManager session = sessionRegistry.getSession("session" + i);
+            spreadingScheduler.schedule(session, interval);
+            final long renewalTime = spreadingScheduler.getRenewalTime(session);
+            assertTrue(renewalTime >= start + interval / 2);
+            assertTrue(renewalTime <= System.currentTimeMillis() + interval);
+            renewalTimes.add(renewalTime);
+        }
+        assertTrue("Renewals have not been spread", renewalTimes.size() > 1);
+        assertEquals(20, spreadingScheduler.size());
+        for (final SessionManager session : sessionRegistry.getSessions()) {
+            assertTrue(spreadingScheduler.cancel(session));
+        }
+        assertFalse(spreadingScheduler.cancel(sessionRegistry.getSession("session0")));
+        assertEquals(0, spreadingScheduler.size());
+
+        // scheduled sessions get a new ticket
+        final SessionManager session = sessionRegistry.getSession("user");
+        session.loginUser(MockClientStore.USER_ID, MockClientStore.USER_PASSWORD, false);
+        final TicketAuthenticatorWrapper initialWrapper = session.getTicketAuthenticatorWrapper();
+        final TicketRenewalScheduler renewalScheduler = new TicketRenewalScheduler(0.5d, 100, 10);
+        renewalScheduler.schedule(session, 200);
+        while (initialWrapper.equals(session.getTicketAuthenticatorWrapper())) {
+            Thread.sleep(50);
+        }
+        assertTrue(renewalScheduler.cancel(session));
+
+        sessionRegistry.shutdown();
+    }
+
+    /**
+     * Test if the tickets of multiple sessions are renewed by one batch request.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test(timeout = 5000)
+    public void renewTicketsAsync() throws Exception {
+        System.out.println("renewTicketsAsync");
+        final SessionRegistry sessionRegistry = new SessionRegistry(clientStore);
+        final SessionManager adminSession = sessionRegistry.getSession("admin");
+        final SessionManager userSession = sessionRegistry.getSession("user");
+        final SessionManager loggedOutSession = sessionRegistry.getSession("loggedOut");
+        adminSession.loginUser(MockClientStore.ADMIN_ID, MockClientStore.ADMIN_PASSWORD, false);
+        userSession.loginUser(MockClientStore.USER_ID, MockClientStore.USER_PASSWORD, false);
+
+        final List<SessionManager> sessionList = Arrays.asList(adminSession, loggedOutSession, userSession);
+        final List<CompletableFuture<TicketAuthenticatorWrapper>> futureList = SessionManager.renewTicketsAsync(sessionList);
+        assertEquals(sessionList.size(), futureList.size());
+        assertEquals(futureList.get(0).get(), adminSession.getTicketAuthenticatorWrapper());
+        assertEquals(futureList.get(2).get(), userSession.getTicketAuthenticatorWrapper());
+        try {
+            futureList.get(1).get();
+            fail("Ticket of a session without login has been renewed");
+        } catch (ExecutionException ex) {
+            // expected
+        }
+
+        sessionRegistry.shutdown();
+    }
+
     /**
      * Test of SessionManager.login() for user.
      *
@@ -321,6 +555,37 @@ public class SessionManagerTest extends AuthenticationTest {
         manager.registerUser(MockClientStore.USER_ID, MockClientStore.USER_PASSWORD, false).get();
     }
 
+    /**
+     * Test if multiple clients can be registered at once and logged in afterwards.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test(timeout = 20000)
+    public void registerClients() throws Exception {
+        System.out.println("registerClients");
+        SessionManager manager = new SessionManager(clientStore);
+
+        // login admin
+        manager.loginUser(MockClientStore.ADMIN_ID, MockClientStore.ADMIN_PASSWORD, false);
+
+        // register clients
+        final List<String> clientIds = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            clientIds.add("bulk_client_" + i);
+        }
+        final List<CompletableFuture<LoginCredentials>> futureList = manager.registerClients(clientIds);
+        assertEquals(clientIds.size(), futureList.size());
+        for (int i = 0; i < clientIds.size(); i++) {
+            futureList.get(i).get();
+            assertTrue(manager.hasCredentialsForId(clientIds.get(i)));
+        }
+
+        // login with registered clients
+        manager.loginClient(clientIds.get(0), false);
+        manager.loginClient(clientIds.get(clientIds.size() - 1), false);
+        assertEquals(clientIds.get(clientIds.size() - 1), manager.getUserClientPair().getClientId());
+    }
+
     /**
      * Test of SessionManager.login() for client.
      *
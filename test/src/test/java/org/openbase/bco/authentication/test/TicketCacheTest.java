@@ -0,0 +1,113 @@
+package org.openbase.bco.authentication.test;
+
+/*-
+ * #%L
+ * BCO Authentication Test
+ * %%
+ * Copyright (C) 2017 - 2021 openbase.org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import com.google.protobuf.ByteString;
+import org.junit.Test;
+import org.openbase.bco.authentication.lib.TicketCache;
+import org.openbase.jul.extension.type.processing.TimestampJavaTimeTransform;
+import org.openbase.type.domotic.authentication.TicketType.Ticket;
+import org.openbase.type.domotic.authentication.UserClientPairType.UserClientPair;
+import org.openbase.type.timing.IntervalType.Interval;
+
+import static org.junit.Assert.*;
+
+public class TicketCacheTest {
+
+    /**
+     * Create a ticket for a user which is valid for the given time.
+     *
+     * @param userId       the id of the user of the ticket.
+     * @param validityTime the time in milliseconds the ticket is valid from now on.
+     *
+     * @return the created ticket.
+     */
+    private static Ticket createTicket(final String userId, final long validityTime) {
+        final long currentTime = System.currentTimeMillis();
+        final Interval validityPeriod = Interval.newBuilder()
+                .setBegin(TimestampJavaTimeTransform.transform(currentTime))
+                .setEnd(TimestampJavaTimeTransform.transform(currentTime + validityTime))
+                .build();
+        return Ticket.newBuilder().setUserClientPair(UserClientPair.newBuilder().setUserId(userId)).setValidityPeriod(validityPeriod).build();
+    }
+
+    /**
+     * Test if a cached ticket is returned for its encrypted form.
+     */
+    @Test
+    public void testHit() {
+        System.out.println("testHit");
+
+        final TicketCache ticketCache = new TicketCache();
+        final Ticket ticket = createTicket("user", 60000);
+        ticketCache.put(ByteString.copyFromUtf8("encrypted"), ticket);
+
+        assertSame(ticket, ticketCache.get(ByteString.copyFromUtf8("encrypted")));
+        assertNull(ticketCache.get(ByteString.copyFromUtf8("unknown")));
+        assertEquals(1, ticketCache.size());
+    }
+
+    /**
+     * Test if tickets whose validity period has ended are not returned.
+     *
+     * @throws Exception if the test fails.
+     */
+    @Test(timeout = 5000)
+    public void testExpiry() throws Exception {
+        System.out.println("testExpiry");
+
+        final TicketCache ticketCache = new TicketCache();
+
+        // tickets which are already expired are not cached at all
+        ticketCache.put(ByteString.copyFromUtf8("expired"), createTicket("expired", -1000));
+        assertEquals(0, ticketCache.size());
+
+        ticketCache.put(ByteString.copyFromUtf8("encrypted"), createTicket("user", 100));
+        assertNotNull(ticketCache.get(ByteString.copyFromUtf8("encrypted")));
+
+        Thread.sleep(200);
+        assertNull(ticketCache.get(ByteString.copyFromUtf8("encrypted")));
+        assertEquals(0, ticketCache.size());
+    }
+
+    /**
+     * Test if the least recently used ticket is evicted when the cache is full.
+     */
+    @Test
+    public void testEviction() {
+        System.out.println("testEviction");
+
+        final TicketCache ticketCache = new TicketCache(2);
+        ticketCache.put(ByteString.copyFromUtf8("first"), createTicket("first", 60000));
+        ticketCache.put(ByteString.copyFromUtf8("second"), createTicket("second", 60000));
+
+        // access the first ticket so that the second one is the least recently used
+        assertNotNull(ticketCache.get(ByteString.copyFromUtf8("first")));
+        ticketCache.put(ByteString.copyFromUtf8("third"), createTicket("third", 60000));
+
+        assertEquals(2, ticketCache.size());
+        assertNotNull(ticketCache.get(ByteString.copyFromUtf8("first")));
+        assertNull(ticketCache.get(ByteString.copyFromUtf8("second")));
+        assertNotNull(ticketCache.get(ByteString.copyFromUtf8("third")));
+    }
+}